@@ -3,8 +3,10 @@ package org.checkerframework.checker.signedness.util;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.math.BigInteger;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
+import java.util.Arrays;
 import org.checkerframework.checker.signedness.qual.Unsigned;
 import org.checkerframework.framework.qual.AnnotatedFor;
 
@@ -339,6 +341,554 @@ public final class SignednessUtil {
     b.get(bs);
   }
 
+  /**
+   * Gets {@code len} unsigned bytes from the ByteBuffer b, zero-extends each of them to an int, and
+   * stores them in {@code dst} starting at {@code off}. The buffer's position is advanced by {@code
+   * len}. This is a bulk version of {@link #getUnsigned(ByteBuffer)} followed by {@link
+   * Byte#toUnsignedInt(byte)}; it does not copy the buffer, so it is appropriate for
+   * memory-mapped buffers.
+   *
+   * @param b the buffer to read from
+   * @param dst the array to store the widened values into
+   * @param off the first index of {@code dst} to write
+   * @param len the number of bytes to read
+   * @return the buffer {@code b}
+   */
+  public static ByteBuffer getUnsignedBytes(ByteBuffer b, int[] dst, int off, int len) {
+    checkFromIndexSize(off, len, dst.length);
+    checkRemaining(b, len);
+    for (int i = 0; i < len; i++) {
+      dst[off + i] = b.get() & 0xff;
+    }
+    return b;
+  }
+
+  /**
+   * Gets {@code len} unsigned shorts from the ByteBuffer b, zero-extends each of them to an int,
+   * and stores them in {@code dst} starting at {@code off}. The buffer's position is advanced by
+   * {@code 2 * len}, and the buffer's byte order is respected. This is a bulk version of {@link
+   * #getUnsignedShort(ByteBuffer)} followed by {@link Short#toUnsignedInt(short)}.
+   *
+   * @param b the buffer to read from
+   * @param dst the array to store the widened values into
+   * @param off the first index of {@code dst} to write
+   * @param len the number of shorts to read
+   * @return the buffer {@code b}
+   */
+  public static ByteBuffer getUnsignedShorts(ByteBuffer b, int[] dst, int off, int len) {
+    checkFromIndexSize(off, len, dst.length);
+    checkRemaining(b, 2L * len);
+    for (int i = 0; i < len; i++) {
+      dst[off + i] = b.getShort() & 0xffff;
+    }
+    return b;
+  }
+
+  /**
+   * Gets {@code len} unsigned ints from the ByteBuffer b, zero-extends each of them to a long, and
+   * stores them in {@code dst} starting at {@code off}. The buffer's position is advanced by {@code
+   * 4 * len}, and the buffer's byte order is respected. This is a bulk version of {@link
+   * #getUnsignedInt(ByteBuffer)} followed by {@link Integer#toUnsignedLong(int)}.
+   *
+   * @param b the buffer to read from
+   * @param dst the array to store the widened values into
+   * @param off the first index of {@code dst} to write
+   * @param len the number of ints to read
+   * @return the buffer {@code b}
+   */
+  public static ByteBuffer getUnsignedInts(ByteBuffer b, long[] dst, int off, int len) {
+    checkFromIndexSize(off, len, dst.length);
+    checkRemaining(b, 4L * len);
+    for (int i = 0; i < len; i++) {
+      dst[off + i] = b.getInt() & 0xffffffffL;
+    }
+    return b;
+  }
+
+  /**
+   * Gets {@code len} unsigned ints from the IntBuffer b, zero-extends each of them to a long, and
+   * stores them in {@code dst} starting at {@code off}. The buffer's position is advanced by {@code
+   * len}. This is a bulk version of {@link #getUnsigned(IntBuffer, int)}.
+   *
+   * @param b the buffer to read from
+   * @param dst the array to store the widened values into
+   * @param off the first index of {@code dst} to write
+   * @param len the number of ints to read
+   * @return the buffer {@code b}
+   */
+  public static IntBuffer getUnsigned(IntBuffer b, long[] dst, int off, int len) {
+    checkFromIndexSize(off, len, dst.length);
+    checkRemaining(b, len);
+    for (int i = 0; i < len; i++) {
+      dst[off + i] = b.get() & 0xffffffffL;
+    }
+    return b;
+  }
+
+  /**
+   * Narrows {@code len} ints from {@code src}, starting at {@code off}, to unsigned bytes and puts
+   * them into the ByteBuffer b. Only the low 8 bits of each int are kept, as by a {@code (byte)}
+   * cast. The buffer's position is advanced by {@code len}.
+   *
+   * @param b the buffer to write to
+   * @param src the values to narrow
+   * @param off the first index of {@code src} to read
+   * @param len the number of values to write
+   * @return the buffer {@code b}
+   */
+  @SuppressWarnings("signedness")
+  public static ByteBuffer putUnsignedBytes(ByteBuffer b, int[] src, int off, int len) {
+    checkFromIndexSize(off, len, src.length);
+    checkRemaining(b, len);
+    for (int i = 0; i < len; i++) {
+      b.put((byte) src[off + i]);
+    }
+    return b;
+  }
+
+  /**
+   * Narrows {@code len} ints from {@code src}, starting at {@code off}, to unsigned shorts and puts
+   * them into the ByteBuffer b. Only the low 16 bits of each int are kept, as by a {@code (short)}
+   * cast. The buffer's position is advanced by {@code 2 * len}.
+   *
+   * @param b the buffer to write to
+   * @param src the values to narrow
+   * @param off the first index of {@code src} to read
+   * @param len the number of values to write
+   * @return the buffer {@code b}
+   */
+  @SuppressWarnings("signedness")
+  public static ByteBuffer putUnsignedShorts(ByteBuffer b, int[] src, int off, int len) {
+    checkFromIndexSize(off, len, src.length);
+    checkRemaining(b, 2L * len);
+    for (int i = 0; i < len; i++) {
+      b.putShort((short) src[off + i]);
+    }
+    return b;
+  }
+
+  /**
+   * Narrows {@code len} longs from {@code src}, starting at {@code off}, to unsigned ints and puts
+   * them into the ByteBuffer b. Only the low 32 bits of each long are kept, as by an {@code (int)}
+   * cast. The buffer's position is advanced by {@code 4 * len}.
+   *
+   * @param b the buffer to write to
+   * @param src the values to narrow
+   * @param off the first index of {@code src} to read
+   * @param len the number of values to write
+   * @return the buffer {@code b}
+   */
+  @SuppressWarnings("signedness")
+  public static ByteBuffer putUnsignedInts(ByteBuffer b, long[] src, int off, int len) {
+    checkFromIndexSize(off, len, src.length);
+    checkRemaining(b, 4L * len);
+    for (int i = 0; i < len; i++) {
+      b.putInt((int) src[off + i]);
+    }
+    return b;
+  }
+
+  /**
+   * Gets the unsigned byte at index i of the ByteBuffer b, zero-extended to an int. The buffer's
+   * position is not changed.
+   *
+   * @param b the buffer to read from
+   * @param i the index to read
+   * @return the unsigned byte at index i, as a value in [0, 255]
+   */
+  public static int getUnsignedByteAsInt(ByteBuffer b, int i) {
+    return b.get(i) & 0xff;
+  }
+
+  /**
+   * Gets the unsigned short at index i of the ByteBuffer b, zero-extended to an int. The buffer's
+   * position is not changed.
+   *
+   * @param b the buffer to read from
+   * @param i the index to read
+   * @return the unsigned short at index i, as a value in [0, 65535]
+   */
+  public static int getUnsignedShortAsInt(ByteBuffer b, int i) {
+    return b.getShort(i) & 0xffff;
+  }
+
+  /**
+   * Gets the unsigned int at index i of the ByteBuffer b, zero-extended to a long. The buffer's
+   * position is not changed.
+   *
+   * @param b the buffer to read from
+   * @param i the index to read
+   * @return the unsigned int at index i, as a value in [0, 2<sup>32</sup>-1]
+   */
+  public static long getUnsignedIntAsLong(ByteBuffer b, int i) {
+    return b.getInt(i) & 0xffffffffL;
+  }
+
+  /**
+   * Returns a view of {@code length} unsigned bytes of the ByteBuffer b, starting at {@code index}.
+   * The result shares its content with {@code b} (no bytes are copied, so this is appropriate for
+   * memory-mapped buffers) and has the same byte order as {@code b}. The position, limit, and mark
+   * of {@code b} are not changed.
+   *
+   * @param b the buffer to view
+   * @param index the index in {@code b} at which the view starts
+   * @param length the number of bytes in the view
+   * @return a view of the given region of {@code b}
+   */
+  public static ByteBuffer sliceUnsigned(ByteBuffer b, int index, int length) {
+    checkFromIndexSize(index, length, b.limit());
+    ByteBuffer dup = b.duplicate();
+    // The casts to Buffer are needed so that code compiled under JDK 9+ runs on JDK 8, whose
+    // ByteBuffer does not override position(int) and limit(int).
+    ((Buffer) dup).limit(index + length);
+    ((Buffer) dup).position(index);
+    return dup.slice().order(b.order());
+  }
+
+  /**
+   * Zero-extends unsigned bytes to ints. Element {@code i} of the result is {@code
+   * Byte.toUnsignedInt(a[i])}.
+   *
+   * @param a an array of unsigned bytes
+   * @return a new array containing the values of {@code a}, each in [0, 255]
+   */
+  public static int[] toUnsignedIntArray(@Unsigned byte[] a) {
+    int[] result = new int[a.length];
+    widenUnsigned(a, 0, result, 0, a.length);
+    return result;
+  }
+
+  /**
+   * Zero-extends unsigned shorts to ints. Element {@code i} of the result is {@code
+   * Short.toUnsignedInt(a[i])}.
+   *
+   * @param a an array of unsigned shorts
+   * @return a new array containing the values of {@code a}, each in [0, 65535]
+   */
+  public static int[] toUnsignedIntArray(@Unsigned short[] a) {
+    int[] result = new int[a.length];
+    widenUnsigned(a, 0, result, 0, a.length);
+    return result;
+  }
+
+  /**
+   * Zero-extends unsigned ints to longs. Element {@code i} of the result is {@code
+   * Integer.toUnsignedLong(a[i])}.
+   *
+   * @param a an array of unsigned ints
+   * @return a new array containing the values of {@code a}, each in [0, 2<sup>32</sup>-1]
+   */
+  public static long[] toUnsignedLongArray(@Unsigned int[] a) {
+    long[] result = new long[a.length];
+    widenUnsigned(a, 0, result, 0, a.length);
+    return result;
+  }
+
+  /**
+   * Zero-extends {@code len} unsigned bytes of {@code src}, starting at {@code srcPos}, to ints and
+   * stores them in {@code dest} starting at {@code destPos}. No elements are written if the ranges
+   * are out of bounds.
+   *
+   * @param src the unsigned bytes to widen
+   * @param srcPos the first index of {@code src} to read
+   * @param dest the array to store the widened values into
+   * @param destPos the first index of {@code dest} to write
+   * @param len the number of elements to widen
+   */
+  @SuppressWarnings("signedness") // The result of `& 0xff` is non-negative.
+  public static void widenUnsigned(
+      @Unsigned byte[] src, int srcPos, int[] dest, int destPos, int len) {
+    checkFromIndexSize(srcPos, len, src.length);
+    checkFromIndexSize(destPos, len, dest.length);
+    for (int i = 0; i < len; i++) {
+      dest[destPos + i] = src[srcPos + i] & 0xff;
+    }
+  }
+
+  /**
+   * Zero-extends {@code len} unsigned shorts of {@code src}, starting at {@code srcPos}, to ints
+   * and stores them in {@code dest} starting at {@code destPos}. No elements are written if the
+   * ranges are out of bounds.
+   *
+   * @param src the unsigned shorts to widen
+   * @param srcPos the first index of {@code src} to read
+   * @param dest the array to store the widened values into
+   * @param destPos the first index of {@code dest} to write
+   * @param len the number of elements to widen
+   */
+  @SuppressWarnings("signedness") // The result of `& 0xffff` is non-negative.
+  public static void widenUnsigned(
+      @Unsigned short[] src, int srcPos, int[] dest, int destPos, int len) {
+    checkFromIndexSize(srcPos, len, src.length);
+    checkFromIndexSize(destPos, len, dest.length);
+    for (int i = 0; i < len; i++) {
+      dest[destPos + i] = src[srcPos + i] & 0xffff;
+    }
+  }
+
+  /**
+   * Zero-extends {@code len} unsigned ints of {@code src}, starting at {@code srcPos}, to longs and
+   * stores them in {@code dest} starting at {@code destPos}. No elements are written if the ranges
+   * are out of bounds.
+   *
+   * @param src the unsigned ints to widen
+   * @param srcPos the first index of {@code src} to read
+   * @param dest the array to store the widened values into
+   * @param destPos the first index of {@code dest} to write
+   * @param len the number of elements to widen
+   */
+  @SuppressWarnings("signedness") // The result of `& 0xffffffffL` is non-negative.
+  public static void widenUnsigned(
+      @Unsigned int[] src, int srcPos, long[] dest, int destPos, int len) {
+    checkFromIndexSize(srcPos, len, src.length);
+    checkFromIndexSize(destPos, len, dest.length);
+    for (int i = 0; i < len; i++) {
+      dest[destPos + i] = src[srcPos + i] & 0xffffffffL;
+    }
+  }
+
+  /**
+   * Narrows {@code len} ints of {@code src}, starting at {@code srcPos}, to unsigned bytes and
+   * stores them in {@code dest} starting at {@code destPos}. Only the low 8 bits of each int are
+   * kept, as by a {@code (byte)} cast. No elements are written if the ranges are out of bounds.
+   *
+   * @param src the values to narrow
+   * @param srcPos the first index of {@code src} to read
+   * @param dest the array to store the unsigned bytes into
+   * @param destPos the first index of {@code dest} to write
+   * @param len the number of elements to narrow
+   */
+  @SuppressWarnings("signedness")
+  public static void narrowToUnsigned(
+      int[] src, int srcPos, @Unsigned byte[] dest, int destPos, int len) {
+    checkFromIndexSize(srcPos, len, src.length);
+    checkFromIndexSize(destPos, len, dest.length);
+    for (int i = 0; i < len; i++) {
+      dest[destPos + i] = (byte) src[srcPos + i];
+    }
+  }
+
+  /**
+   * Narrows {@code len} ints of {@code src}, starting at {@code srcPos}, to unsigned shorts and
+   * stores them in {@code dest} starting at {@code destPos}. Only the low 16 bits of each int are
+   * kept, as by a {@code (short)} cast. No elements are written if the ranges are out of bounds.
+   *
+   * @param src the values to narrow
+   * @param srcPos the first index of {@code src} to read
+   * @param dest the array to store the unsigned shorts into
+   * @param destPos the first index of {@code dest} to write
+   * @param len the number of elements to narrow
+   */
+  @SuppressWarnings("signedness")
+  public static void narrowToUnsigned(
+      int[] src, int srcPos, @Unsigned short[] dest, int destPos, int len) {
+    checkFromIndexSize(srcPos, len, src.length);
+    checkFromIndexSize(destPos, len, dest.length);
+    for (int i = 0; i < len; i++) {
+      dest[destPos + i] = (short) src[srcPos + i];
+    }
+  }
+
+  /**
+   * Narrows {@code len} longs of {@code src}, starting at {@code srcPos}, to unsigned ints and
+   * stores them in {@code dest} starting at {@code destPos}. Only the low 32 bits of each long are
+   * kept, as by an {@code (int)} cast. No elements are written if the ranges are out of bounds.
+   *
+   * @param src the values to narrow
+   * @param srcPos the first index of {@code src} to read
+   * @param dest the array to store the unsigned ints into
+   * @param destPos the first index of {@code dest} to write
+   * @param len the number of elements to narrow
+   */
+  @SuppressWarnings("signedness")
+  public static void narrowToUnsigned(
+      long[] src, int srcPos, @Unsigned int[] dest, int destPos, int len) {
+    checkFromIndexSize(srcPos, len, src.length);
+    checkFromIndexSize(destPos, len, dest.length);
+    for (int i = 0; i < len; i++) {
+      dest[destPos + i] = (int) src[srcPos + i];
+    }
+  }
+
+  /**
+   * Compares two arrays of unsigned bytes lexicographically.
+   *
+   * <p>In Java 9 or later, use Arrays.compareUnsigned.
+   *
+   * @param a the first array to compare
+   * @param b the second array to compare
+   * @return a negative number iff a is lexicographically less than b, a positive number iff a is
+   *     lexicographically greater than b, and zero iff the arrays contain the same elements
+   */
+  @SuppressWarnings("signedness")
+  public static int compareUnsigned(@Unsigned byte[] a, @Unsigned byte[] b) {
+    int len = Math.min(a.length, b.length);
+    for (int i = 0; i < len; i++) {
+      if (a[i] != b[i]) {
+        return Integer.compare(a[i] & 0xff, b[i] & 0xff);
+      }
+    }
+    return a.length - b.length;
+  }
+
+  /**
+   * Compares two arrays of unsigned shorts lexicographically.
+   *
+   * <p>In Java 9 or later, use Arrays.compareUnsigned.
+   *
+   * @param a the first array to compare
+   * @param b the second array to compare
+   * @return a negative number iff a is lexicographically less than b, a positive number iff a is
+   *     lexicographically greater than b, and zero iff the arrays contain the same elements
+   */
+  @SuppressWarnings("signedness")
+  public static int compareUnsigned(@Unsigned short[] a, @Unsigned short[] b) {
+    int len = Math.min(a.length, b.length);
+    for (int i = 0; i < len; i++) {
+      if (a[i] != b[i]) {
+        return Integer.compare(a[i] & 0xffff, b[i] & 0xffff);
+      }
+    }
+    return a.length - b.length;
+  }
+
+  /**
+   * Compares two arrays of unsigned ints lexicographically.
+   *
+   * <p>In Java 9 or later, use Arrays.compareUnsigned.
+   *
+   * @param a the first array to compare
+   * @param b the second array to compare
+   * @return a negative number iff a is lexicographically less than b, a positive number iff a is
+   *     lexicographically greater than b, and zero iff the arrays contain the same elements
+   */
+  public static int compareUnsigned(@Unsigned int[] a, @Unsigned int[] b) {
+    int len = Math.min(a.length, b.length);
+    for (int i = 0; i < len; i++) {
+      if (a[i] != b[i]) {
+        return Integer.compareUnsigned(a[i], b[i]);
+      }
+    }
+    return a.length - b.length;
+  }
+
+  /**
+   * Compares two arrays of unsigned longs lexicographically.
+   *
+   * <p>In Java 9 or later, use Arrays.compareUnsigned.
+   *
+   * @param a the first array to compare
+   * @param b the second array to compare
+   * @return a negative number iff a is lexicographically less than b, a positive number iff a is
+   *     lexicographically greater than b, and zero iff the arrays contain the same elements
+   */
+  public static int compareUnsigned(@Unsigned long[] a, @Unsigned long[] b) {
+    int len = Math.min(a.length, b.length);
+    for (int i = 0; i < len; i++) {
+      if (a[i] != b[i]) {
+        return Long.compareUnsigned(a[i], b[i]);
+      }
+    }
+    return a.length - b.length;
+  }
+
+  /**
+   * Sorts an array of unsigned bytes into ascending unsigned order.
+   *
+   * @param a the array to sort
+   */
+  @SuppressWarnings("signedness")
+  public static void sortUnsigned(@Unsigned byte[] a) {
+    // Flipping the sign bit maps unsigned order onto signed order, and is its own inverse.
+    for (int i = 0; i < a.length; i++) {
+      a[i] ^= Byte.MIN_VALUE;
+    }
+    Arrays.sort(a);
+    for (int i = 0; i < a.length; i++) {
+      a[i] ^= Byte.MIN_VALUE;
+    }
+  }
+
+  /**
+   * Sorts an array of unsigned shorts into ascending unsigned order.
+   *
+   * @param a the array to sort
+   */
+  @SuppressWarnings("signedness")
+  public static void sortUnsigned(@Unsigned short[] a) {
+    for (int i = 0; i < a.length; i++) {
+      a[i] ^= Short.MIN_VALUE;
+    }
+    Arrays.sort(a);
+    for (int i = 0; i < a.length; i++) {
+      a[i] ^= Short.MIN_VALUE;
+    }
+  }
+
+  /**
+   * Sorts an array of unsigned ints into ascending unsigned order.
+   *
+   * @param a the array to sort
+   */
+  @SuppressWarnings("signedness")
+  public static void sortUnsigned(@Unsigned int[] a) {
+    for (int i = 0; i < a.length; i++) {
+      a[i] ^= Integer.MIN_VALUE;
+    }
+    Arrays.sort(a);
+    for (int i = 0; i < a.length; i++) {
+      a[i] ^= Integer.MIN_VALUE;
+    }
+  }
+
+  /**
+   * Sorts an array of unsigned longs into ascending unsigned order.
+   *
+   * @param a the array to sort
+   */
+  @SuppressWarnings("signedness")
+  public static void sortUnsigned(@Unsigned long[] a) {
+    for (int i = 0; i < a.length; i++) {
+      a[i] ^= Long.MIN_VALUE;
+    }
+    Arrays.sort(a);
+    for (int i = 0; i < a.length; i++) {
+      a[i] ^= Long.MIN_VALUE;
+    }
+  }
+
+  /**
+   * Throws an exception if the range [fromIndex, fromIndex + size) is not within [0, length). This
+   * is a reimplementation of Java 9's {@code Objects.checkFromIndexSize}.
+   *
+   * @param fromIndex the start of the range
+   * @param size the size of the range
+   * @param length the length of the array or buffer that the range indexes
+   * @throws IndexOutOfBoundsException if the range is out of bounds
+   */
+  private static void checkFromIndexSize(int fromIndex, int size, int length) {
+    if ((length | fromIndex | size) < 0 || size > length - fromIndex) {
+      throw new IndexOutOfBoundsException(
+          String.format(
+              "Range [%d, %d + %d) out of bounds for length %d",
+              fromIndex, fromIndex, size, length));
+    }
+  }
+
+  /**
+   * Throws an exception if the buffer has fewer than {@code n} elements remaining.
+   *
+   * @param b a buffer
+   * @param n the number of elements that will be read from or written to {@code b}
+   * @throws IndexOutOfBoundsException if fewer than {@code n} elements remain
+   */
+  private static void checkRemaining(Buffer b, long n) {
+    if (n > b.remaining()) {
+      throw new IndexOutOfBoundsException(
+          String.format("%d elements requested but only %d remain", n, b.remaining()));
+    }
+  }
+
   /**
    * Compares two unsigned shorts x and y.
    *
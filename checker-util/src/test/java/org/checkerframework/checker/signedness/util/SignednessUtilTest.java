@@ -0,0 +1,89 @@
+package org.checkerframework.checker.signedness.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Assert;
+import org.junit.Test;
+
+public final class SignednessUtilTest {
+
+  @Test
+  public void test_widen_and_narrow() {
+    byte[] bytes = {0, 1, (byte) 0x7f, (byte) 0x80, (byte) 0xff};
+    Assert.assertArrayEquals(
+        new int[] {0, 1, 127, 128, 255}, SignednessUtil.toUnsignedIntArray(bytes));
+
+    short[] shorts = {0, 0x7fff, (short) 0x8000, (short) 0xffff};
+    Assert.assertArrayEquals(
+        new int[] {0, 0x7fff, 0x8000, 0xffff}, SignednessUtil.toUnsignedIntArray(shorts));
+
+    int[] ints = {0, Integer.MAX_VALUE, Integer.MIN_VALUE, -1};
+    Assert.assertArrayEquals(
+        new long[] {0L, 0x7fffffffL, 0x80000000L, 0xffffffffL},
+        SignednessUtil.toUnsignedLongArray(ints));
+
+    byte[] narrowed = new byte[5];
+    SignednessUtil.narrowToUnsigned(new int[] {0, 1, 127, 128, 255}, 0, narrowed, 0, 5);
+    Assert.assertArrayEquals(bytes, narrowed);
+
+    int[] dest = new int[3];
+    SignednessUtil.widenUnsigned(bytes, 2, dest, 0, 3);
+    Assert.assertArrayEquals(new int[] {127, 128, 255}, dest);
+
+    int[] untouched = new int[2];
+    Assert.assertThrows(
+        IndexOutOfBoundsException.class,
+        () -> SignednessUtil.widenUnsigned(bytes, 4, untouched, 0, 2));
+    Assert.assertArrayEquals(new int[2], untouched);
+  }
+
+  @Test
+  public void test_compareUnsigned_and_sortUnsigned() {
+    Assert.assertTrue(SignednessUtil.compareUnsigned(new byte[] {(byte) 0xff}, new byte[] {1}) > 0);
+    Assert.assertTrue(SignednessUtil.compareUnsigned(new byte[] {1}, new byte[] {1, 0}) < 0);
+    Assert.assertEquals(0, SignednessUtil.compareUnsigned(new int[] {-1, 2}, new int[] {-1, 2}));
+    Assert.assertTrue(SignednessUtil.compareUnsigned(new long[] {-1L}, new long[] {0L}) > 0);
+
+    byte[] bytes = {(byte) 0xff, 1, (byte) 0x80, 0};
+    SignednessUtil.sortUnsigned(bytes);
+    Assert.assertArrayEquals(new byte[] {0, 1, (byte) 0x80, (byte) 0xff}, bytes);
+
+    int[] ints = {-1, 5, Integer.MIN_VALUE, 0};
+    SignednessUtil.sortUnsigned(ints);
+    Assert.assertArrayEquals(new int[] {0, 5, Integer.MIN_VALUE, -1}, ints);
+
+    long[] longs = {-1L, Long.MIN_VALUE, 3L};
+    SignednessUtil.sortUnsigned(longs);
+    Assert.assertArrayEquals(new long[] {3L, Long.MIN_VALUE, -1L}, longs);
+  }
+
+  @Test
+  public void test_buffers() {
+    ByteBuffer b = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+    b.putInt(0, -1);
+    b.putShort(4, (short) -2);
+
+    Assert.assertEquals(255, SignednessUtil.getUnsignedByteAsInt(b, 0));
+    Assert.assertEquals(0xfffe, SignednessUtil.getUnsignedShortAsInt(b, 4));
+    Assert.assertEquals(0xffffffffL, SignednessUtil.getUnsignedIntAsLong(b, 0));
+
+    ByteBuffer slice = SignednessUtil.sliceUnsigned(b, 4, 4);
+    Assert.assertEquals(ByteOrder.LITTLE_ENDIAN, slice.order());
+    Assert.assertEquals(4, slice.capacity());
+    Assert.assertEquals(0xfffe, SignednessUtil.getUnsignedShortAsInt(slice, 0));
+    Assert.assertEquals(0, b.position());
+
+    long[] longs = new long[2];
+    SignednessUtil.getUnsignedInts(b, longs, 0, 2);
+    Assert.assertArrayEquals(new long[] {0xffffffffL, 0xfffeL}, longs);
+    Assert.assertThrows(
+        IndexOutOfBoundsException.class, () -> SignednessUtil.getUnsignedInts(b, longs, 0, 1));
+
+    ByteBuffer out = ByteBuffer.allocate(4);
+    SignednessUtil.putUnsignedBytes(out, new int[] {0, 128, 255, 256}, 0, 4);
+    out.flip();
+    int[] ints = new int[4];
+    SignednessUtil.getUnsignedBytes(out, ints, 0, 4);
+    Assert.assertArrayEquals(new int[] {0, 128, 255, 0}, ints);
+  }
+}
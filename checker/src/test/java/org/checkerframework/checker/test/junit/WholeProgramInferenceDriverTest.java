@@ -0,0 +1,86 @@
+package org.checkerframework.checker.test.junit;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceDriver;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceScenesStorage;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that {@link WholeProgramInferenceDriver} runs whole-program inference on several files to a
+ * fixpoint.
+ */
+public class WholeProgramInferenceDriverTest {
+
+  /**
+   * Writes three classes whose methods return the result of a method of the next class, the last
+   * of which returns null. Inferring that all three methods return {@code @Nullable} takes one
+   * round per class, whatever order the classes are checked in.
+   *
+   * @return the javac arguments for the driver, with the paths of the source files
+   * @throws IOException if the source files cannot be written
+   */
+  private static List<String> writeSources() throws IOException {
+    Path dir = Files.createTempDirectory("WholeProgramInferenceDriverTest");
+    List<String> args =
+        new ArrayList<>(
+            Arrays.asList(
+                "-processor",
+                "org.checkerframework.checker.nullness.NullnessChecker",
+                "-Ainfer=jaifs",
+                "-Awarns",
+                "-d",
+                dir.toString(),
+                "-classpath",
+                System.getProperty("java.class.path")));
+    String[][] classes = {
+      {"DriverA", "return DriverB.get();"},
+      {"DriverB", "return DriverC.get();"},
+      {"DriverC", "return null;"},
+    };
+    for (String[] c : classes) {
+      Path file = dir.resolve(c[0] + ".java");
+      String source = "class " + c[0] + " {\n  static Object get() {\n    " + c[1] + "\n  }\n}\n";
+      Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+      args.add(file.toString());
+    }
+    return args;
+  }
+
+  /**
+   * Returns the contents of the .jaif file of a class, as written by the last round.
+   *
+   * @param className the name of a class in the unnamed package
+   * @return the contents of the .jaif file of {@code className}
+   * @throws IOException if the file cannot be read
+   */
+  private static String readJaif(String className) throws IOException {
+    return new String(
+        Files.readAllBytes(
+            Paths.get(WholeProgramInferenceScenesStorage.JAIF_FILES_PATH + className + ".jaif")),
+        StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void reachesFixpoint() throws IOException {
+    Assert.assertTrue(new WholeProgramInferenceDriver(writeSources(), 10).run(null));
+    for (String className : new String[] {"DriverA", "DriverB", "DriverC"}) {
+      String jaif = readJaif(className);
+      Assert.assertTrue(
+          className + ":\n" + jaif,
+          jaif.contains("@org.checkerframework.checker.nullness.qual.Nullable"));
+    }
+  }
+
+  @Test
+  public void stopsAtMaxRounds() throws IOException {
+    Assert.assertFalse(new WholeProgramInferenceDriver(writeSources(), 1).run(null));
+  }
+}
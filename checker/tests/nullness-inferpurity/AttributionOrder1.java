@@ -0,0 +1,9 @@
+// Calls AttributionOrder2.helper() before the class of helper() may have been attributed. Its
+// purity then cannot be inferred yet, and that answer must not be cached: AttributionOrder3 relies
+// on helper() being inferred to be pure.
+public class AttributionOrder1 {
+
+  void callHelperEarly() {
+    AttributionOrder2.helper(1);
+  }
+}
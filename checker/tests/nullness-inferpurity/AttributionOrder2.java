@@ -0,0 +1,6 @@
+public class AttributionOrder2 {
+
+  static int helper(int x) {
+    return x + 1;
+  }
+}
@@ -0,0 +1,13 @@
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+public class AttributionOrder3 {
+
+  @Nullable Object f;
+
+  void callHelperLate() {
+    if (f != null) {
+      AttributionOrder2.helper(2);
+      f.toString();
+    }
+  }
+}
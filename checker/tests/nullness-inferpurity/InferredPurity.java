@@ -0,0 +1,95 @@
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.qual.SideEffectFree;
+
+public class InferredPurity {
+
+  @Nullable Object f;
+
+  int count;
+
+  private int twice(int x) {
+    return x * 2;
+  }
+
+  private int callsTwice(int x) {
+    return twice(x) + 1;
+  }
+
+  private @Nullable Object getF() {
+    return f;
+  }
+
+  private void increment() {
+    count++;
+  }
+
+  private int callsIncrement() {
+    increment();
+    return count;
+  }
+
+  // Can be overridden, so its purity is not inferred.
+  void overridable() {}
+
+  private int recursive(int n) {
+    return n <= 0 ? 0 : recursive(n - 1);
+  }
+
+  // The annotation is used as written: the method is not also inferred to be deterministic.
+  @SideEffectFree
+  private @Nullable Object annotatedGetF() {
+    return f;
+  }
+
+  void pureCall() {
+    if (f != null) {
+      callsTwice(3);
+      f.toString();
+    }
+  }
+
+  void impureCall() {
+    if (f != null) {
+      increment();
+      // :: error: (dereference.of.nullable)
+      f.toString();
+    }
+  }
+
+  void transitivelyImpureCall() {
+    if (f != null) {
+      callsIncrement();
+      // :: error: (dereference.of.nullable)
+      f.toString();
+    }
+  }
+
+  void overridableCall() {
+    if (f != null) {
+      overridable();
+      // :: error: (dereference.of.nullable)
+      f.toString();
+    }
+  }
+
+  void recursiveCall() {
+    if (f != null) {
+      recursive(3);
+      // :: error: (dereference.of.nullable)
+      f.toString();
+    }
+  }
+
+  void deterministicCall() {
+    if (getF() != null) {
+      getF().toString();
+    }
+  }
+
+  void annotatedCall() {
+    if (annotatedGetF() != null) {
+      // :: error: (dereference.of.nullable)
+      annotatedGetF().toString();
+    }
+  }
+}
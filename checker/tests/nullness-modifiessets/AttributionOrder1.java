@@ -0,0 +1,9 @@
+// Calls AttributionOrder2.clearG() before the class of clearG() may have been attributed. Its
+// modifies set then cannot be computed yet, and that answer must not be cached: AttributionOrder3
+// relies on clearG() assigning only g.
+public class AttributionOrder1 {
+
+  void callClearGEarly(AttributionOrder2 o) {
+    o.clearG();
+  }
+}
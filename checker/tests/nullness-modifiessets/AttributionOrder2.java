@@ -0,0 +1,10 @@
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+public class AttributionOrder2 {
+
+  @Nullable Object g;
+
+  final void clearG() {
+    g = null;
+  }
+}
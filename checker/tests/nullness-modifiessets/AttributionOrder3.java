@@ -0,0 +1,13 @@
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+public class AttributionOrder3 {
+
+  @Nullable Object f;
+
+  void callClearGLate(AttributionOrder2 o) {
+    if (f != null) {
+      o.clearG();
+      f.toString();
+    }
+  }
+}
@@ -0,0 +1,82 @@
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+public class ModifiesSets {
+
+  @Nullable Object f;
+
+  @Nullable Object g;
+
+  int count;
+
+  private void incrementCount() {
+    count++;
+  }
+
+  private void clearG() {
+    g = null;
+  }
+
+  private void callsClearG() {
+    incrementCount();
+    clearG();
+  }
+
+  // Can be overridden, so its modifies set is unknown.
+  void overridable() {}
+
+  private void callsLibrary(StringBuilder sb) {
+    sb.append("x");
+  }
+
+  private void recursive(int n) {
+    if (n > 0) {
+      recursive(n - 1);
+    }
+  }
+
+  static void clearStatic(ModifiesSets other) {
+    other.f = null;
+  }
+
+  void noFieldWrites() {
+    if (f != null) {
+      incrementCount();
+      f.toString();
+    }
+  }
+
+  void otherFieldWrites() {
+    if (f != null && g != null) {
+      callsClearG();
+      f.toString();
+      // :: error: (dereference.of.nullable)
+      g.toString();
+    }
+  }
+
+  void writesThroughOtherReceiver(ModifiesSets other) {
+    if (f != null) {
+      clearStatic(other);
+      // :: error: (dereference.of.nullable)
+      f.toString();
+    }
+  }
+
+  void unknownCallees(StringBuilder sb) {
+    if (f != null) {
+      overridable();
+      // :: error: (dereference.of.nullable)
+      f.toString();
+    }
+    if (f != null) {
+      callsLibrary(sb);
+      // :: error: (dereference.of.nullable)
+      f.toString();
+    }
+    if (f != null) {
+      recursive(3);
+      // :: error: (dereference.of.nullable)
+      f.toString();
+    }
+  }
+}
@@ -0,0 +1,30 @@
+import java.util.List;
+import java.util.stream.Stream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+// Type argument inference for generic calls without an assignment context: a chained call and an
+// expression statement. Each call is repeated so that the second one is inferred from the cache.
+public class InferenceCacheNoAssignmentContext {
+
+  static <T> List<T> wrap(T t) {
+    throw new Error();
+  }
+
+  void chained(String nonNull, @Nullable String nullable) {
+    Stream.of(nonNull).map(s -> s.length());
+    Stream.of(nonNull).map(s -> s.length());
+    wrap(nonNull).get(0).length();
+    wrap(nonNull).get(0).length();
+    // :: error: (dereference.of.nullable)
+    wrap(nullable).get(0).length();
+    // :: error: (dereference.of.nullable)
+    wrap(nullable).get(0).length();
+  }
+
+  void expressionStatement(String nonNull, @Nullable String nullable) {
+    wrap(nonNull);
+    wrap(nonNull);
+    wrap(nullable);
+    wrap(nullable);
+  }
+}
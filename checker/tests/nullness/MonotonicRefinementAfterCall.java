@@ -0,0 +1,54 @@
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+// A call that is not side-effect-free keeps the refinement of a @MonotonicNonNull field, and
+// discards the refinement of a field that has no monotonic qualifier.
+public class MonotonicRefinementAfterCall {
+
+  @MonotonicNonNull Object monotonic;
+
+  @MonotonicNonNull Object otherMonotonic;
+
+  @Nullable Object nullable;
+
+  @Nullable Object otherNullable;
+
+  void sideEffect() {}
+
+  void monotonicSurvivesCalls() {
+    if (monotonic != null) {
+      sideEffect();
+      monotonic.toString();
+      // The second call looks up the monotonic qualifiers of the field in the cache.
+      sideEffect();
+      monotonic.toString();
+    }
+  }
+
+  void monotonicSurvivesCallAfterAssignment(Object o) {
+    monotonic = o;
+    sideEffect();
+    monotonic.toString();
+  }
+
+  void nonMonotonicIsDiscarded() {
+    if (nullable != null) {
+      nullable.toString();
+      sideEffect();
+      // :: error: (dereference.of.nullable)
+      nullable.toString();
+    }
+  }
+
+  void onlyNonMonotonicIsDiscarded() {
+    if (nullable != null && monotonic != null && otherNullable != null && otherMonotonic != null) {
+      sideEffect();
+      monotonic.toString();
+      otherMonotonic.toString();
+      // :: error: (dereference.of.nullable)
+      nullable.toString();
+      // :: error: (dereference.of.nullable)
+      otherNullable.toString();
+    }
+  }
+}
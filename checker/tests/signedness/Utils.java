@@ -36,6 +36,39 @@ public class Utils {
     SignednessUtil.getUnsigned(b, ubyteArr);
   }
 
+  public void bulkTests(
+      @Unsigned byte[] ubyteArr,
+      @Signed byte[] sbyteArr,
+      @Unsigned int[] uintArr,
+      @Signed int[] sintArr,
+      int[] widened,
+      ByteBuffer b) {
+
+    // :: error: (argument)
+    SignednessUtil.sortUnsigned(sbyteArr);
+
+    SignednessUtil.sortUnsigned(ubyteArr);
+
+    // :: error: (argument)
+    SignednessUtil.widenUnsigned(sbyteArr, 0, widened, 0, 1);
+
+    SignednessUtil.widenUnsigned(ubyteArr, 0, widened, 0, 1);
+
+    // :: error: (argument)
+    SignednessUtil.narrowToUnsigned(widened, 0, sbyteArr, 0, 1);
+
+    SignednessUtil.narrowToUnsigned(widened, 0, ubyteArr, 0, 1);
+
+    // :: error: (argument)
+    long[] longs = SignednessUtil.toUnsignedLongArray(sintArr);
+
+    longs = SignednessUtil.toUnsignedLongArray(uintArr);
+
+    int res = SignednessUtil.compareUnsigned(uintArr, uintArr);
+
+    SignednessUtil.getUnsignedBytes(b, widened, 0, 1);
+  }
+
   public void compTests(
       @Unsigned long ulong,
       @Signed long slong,
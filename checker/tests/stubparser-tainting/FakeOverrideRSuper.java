@@ -29,4 +29,8 @@ public class FakeOverrideRSuper {
   public @PolyTainted int returnsPolyTaintedIntWithFakeOverride() {
     return 0;
   }
+
+  public @Tainted int returnsTaintedIntWithPolyFakeOverride() {
+    return 0;
+  }
 }
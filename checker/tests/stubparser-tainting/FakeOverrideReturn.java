@@ -56,4 +56,15 @@ public class FakeOverrideReturn {
     @Untainted int j = mid.returnsUntaintedIntWithFakeOverride2();
     @Untainted int k = sup.returnsPolyTaintedIntWithFakeOverride();
   }
+
+  void polyFakeOverride() {
+    FakeOverrideRSuper sup = new FakeOverrideRSuper();
+    FakeOverrideRMid mid = new FakeOverrideRMid();
+
+    // The method is monomorphic in the superclass, but polymorphic in the fake override, so its
+    // polymorphic qualifiers must not be looked up in the cache of the first invocation.
+    // :: error: (assignment)
+    @Untainted int i = sup.returnsTaintedIntWithPolyFakeOverride();
+    @Untainted int j = mid.returnsTaintedIntWithPolyFakeOverride();
+  }
 }
@@ -0,0 +1,78 @@
+import org.checkerframework.checker.tainting.qual.PolyTainted;
+import org.checkerframework.checker.tainting.qual.Tainted;
+import org.checkerframework.checker.tainting.qual.Untainted;
+
+// Polymorphic qualifiers are resolved from exactly the arguments and receivers whose declared
+// types contain them, and monomorphic methods keep their declared types.
+public class PolyPositions {
+
+  static @Tainted String monomorphic(@Untainted String u, @Tainted String... rest) {
+    return u;
+  }
+
+  static @PolyTainted String polyThenVarargs(@PolyTainted String s, @Tainted String... rest) {
+    return s;
+  }
+
+  static @PolyTainted String polyAfterMonomorphic(@Tainted String t, @PolyTainted String s) {
+    return s;
+  }
+
+  static @PolyTainted String polyVarargs(@PolyTainted String... strings) {
+    return strings[0];
+  }
+
+  static @PolyTainted String monomorphicThenPolyVarargs(
+      @Tainted String t, @PolyTainted String... strings) {
+    return strings[0];
+  }
+
+  static class Box {
+    @PolyTainted String get(@PolyTainted Box this) {
+      return "";
+    }
+
+    @PolyTainted String getIgnoring(@PolyTainted Box this, @Tainted String ignored) {
+      return "";
+    }
+  }
+
+  void monomorphicMethod(@Untainted String u, @Tainted String t) {
+    @Tainted String a = monomorphic(u);
+    @Tainted String b = monomorphic(u, t, t);
+    // :: error: (assignment)
+    @Untainted String c = monomorphic(u);
+    // :: error: (argument)
+    monomorphic(t);
+  }
+
+  void polyBeforeVarargs(@Untainted String u, @Tainted String t) {
+    @Untainted String a = polyThenVarargs(u);
+    // The varargs arguments do not contribute to the instantiation.
+    @Untainted String b = polyThenVarargs(u, t, t);
+    // :: error: (assignment)
+    @Untainted String c = polyThenVarargs(t, u, u);
+    @Untainted String d = polyAfterMonomorphic(t, u);
+    // :: error: (assignment)
+    @Untainted String e = polyAfterMonomorphic(u, t);
+  }
+
+  void polyVarargsParameter(@Untainted String u, @Tainted String t) {
+    @Untainted String a = polyVarargs(u);
+    @Untainted String b = polyVarargs(u, u, u);
+    // :: error: (assignment)
+    @Untainted String c = polyVarargs(u, u, t);
+    @Untainted String d = monomorphicThenPolyVarargs(t, u, u);
+    // :: error: (assignment)
+    @Untainted String e = monomorphicThenPolyVarargs(u, u, t);
+  }
+
+  void polyReceiverOnly(@Untainted Box untainted, @Tainted Box tainted, @Tainted String t) {
+    @Untainted String a = untainted.get();
+    // :: error: (assignment)
+    @Untainted String b = tainted.get();
+    @Untainted String c = untainted.getIgnoring(t);
+    // :: error: (assignment)
+    @Untainted String d = tainted.getIgnoring("");
+  }
+}
@@ -26,6 +26,7 @@ import org.checkerframework.dataflow.cfg.node.AssignmentNode;
 import org.checkerframework.dataflow.cfg.node.LocalVariableNode;
 import org.checkerframework.dataflow.cfg.node.Node;
 import org.checkerframework.dataflow.qual.Pure;
+import org.checkerframework.dataflow.util.CFGElementMap;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.ElementUtils;
 
@@ -59,13 +60,13 @@ public abstract class AbstractAnalysis<
    * The transfer inputs of every basic block (assumed to be 'no information' if not present, inputs
    * before blocks in forward analysis, after blocks in backward analysis).
    */
-  protected final IdentityHashMap<Block, TransferInput<V, S>> inputs = new IdentityHashMap<>();
+  protected final CFGElementMap<Block, TransferInput<V, S>> inputs = CFGElementMap.forBlocks();
 
   /** The worklist used for the fix-point iteration. */
   protected final Worklist worklist;
 
   /** Abstract values of nodes. */
-  protected final IdentityHashMap<Node, V> nodeValues = new IdentityHashMap<>();
+  protected final CFGElementMap<Node, V> nodeValues = CFGElementMap.forNodes();
 
   /** Map from (effectively final) local variable elements to their abstract value. */
   protected final HashMap<Element, V> finalLocalValues = new HashMap<>();
@@ -91,6 +92,24 @@ public abstract class AbstractAnalysis<
   /** The current transfer input when the analysis is running. */
   protected @Nullable TransferInput<V, S> currentInput;
 
+  /**
+   * Whether to measure the time spent in the transfer function; see {@link #getTransferNanos}.
+   * Block visits and widening events are always counted, because counting them is cheap.
+   */
+  protected boolean measureTransferTime = false;
+
+  /** The number of basic blocks analyzed during the most recent run, counting revisits. */
+  protected int blockVisitCount;
+
+  /** The number of times a store was widened during the most recent run. */
+  protected int wideningCount;
+
+  /**
+   * The time in nanoseconds spent in the transfer function during the most recent run. Only
+   * measured if {@link #measureTransferTime} is true.
+   */
+  protected long transferNanos;
+
   /**
    * Returns the tree that is currently being looked at. The transfer function can set this tree to
    * make sure that calls to {@code getValue} will not return information for this given tree.
@@ -110,6 +129,46 @@ public abstract class AbstractAnalysis<
     this.currentTree = currentTree;
   }
 
+  /**
+   * Sets whether to measure the time spent in the transfer function. Measuring it requires reading
+   * the clock twice per node, so it is off by default.
+   *
+   * @param measureTransferTime whether to measure the time spent in the transfer function
+   */
+  public void setMeasureTransferTime(boolean measureTransferTime) {
+    this.measureTransferTime = measureTransferTime;
+  }
+
+  /**
+   * Returns the number of basic blocks analyzed during the most recent run of the analysis. A block
+   * that is analyzed several times before a fixpoint is reached is counted each time.
+   *
+   * @return the number of basic blocks analyzed during the most recent run
+   */
+  public int getBlockVisitCount() {
+    return blockVisitCount;
+  }
+
+  /**
+   * Returns the number of times a store was widened during the most recent run of the analysis.
+   * This is always 0 for an analysis that does not use widening.
+   *
+   * @return the number of times a store was widened during the most recent run
+   */
+  public int getWideningCount() {
+    return wideningCount;
+  }
+
+  /**
+   * Returns the time in nanoseconds spent in the transfer function during the most recent run of
+   * the analysis, or 0 if the time was not {@linkplain #setMeasureTransferTime measured}.
+   *
+   * @return the time in nanoseconds spent in the transfer function during the most recent run
+   */
+  public long getTransferNanos() {
+    return transferNanos;
+  }
+
   /**
    * Set the node that is currently being looked at.
    *
@@ -200,12 +259,21 @@ public abstract class AbstractAnalysis<
     return nodeValues.get(n);
   }
 
+  /**
+   * Returns a copy of all current node values. {@link #getNodeValueMap} avoids the copy.
+   *
+   * @return a copy of {@link #nodeValues}
+   */
+  public IdentityHashMap<Node, V> getNodeValues() {
+    return new IdentityHashMap<>(nodeValues);
+  }
+
   /**
    * Returns all current node values.
    *
    * @return {@link #nodeValues}
    */
-  public IdentityHashMap<Node, V> getNodeValues() {
+  public Map<Node, V> getNodeValueMap() {
     return nodeValues;
   }
 
@@ -214,7 +282,7 @@ public abstract class AbstractAnalysis<
    *
    * @param in the current node values
    */
-  /*package-private*/ void setNodeValues(IdentityHashMap<Node, V> in) {
+  /*package-private*/ void setNodeValues(Map<Node, V> in) {
     assert !isRunning;
     nodeValues.clear();
     nodeValues.putAll(in);
@@ -330,8 +398,12 @@ public abstract class AbstractAnalysis<
     }
     transferInput.node = node;
     setCurrentNode(node);
+    long startNanos = measureTransferTime ? System.nanoTime() : 0;
     @SuppressWarnings("nullness") // CF bug: "INFERENCE FAILED"
     TransferResult<V, S> transferResult = node.accept(transferFunction, transferInput);
+    if (measureTransferTime) {
+      transferNanos += System.nanoTime() - startNanos;
+    }
     setCurrentNode(null);
     if (node instanceof AssignmentNode) {
       // store the flow-refined value effectively for final local variables
@@ -386,6 +458,9 @@ public abstract class AbstractAnalysis<
     inputs.clear();
     nodeValues.clear();
     finalLocalValues.clear();
+    blockVisitCount = 0;
+    wideningCount = 0;
+    transferNanos = 0;
     this.cfg = cfg;
   }
 
@@ -441,7 +516,7 @@ public abstract class AbstractAnalysis<
   protected static class Worklist {
 
     /** Map all blocks in the CFG to their depth-first order. */
-    protected final IdentityHashMap<Block, Integer> depthFirstOrder = new IdentityHashMap<>();
+    protected final CFGElementMap<Block, Integer> depthFirstOrder = CFGElementMap.forBlocks();
 
     /**
      * Comparators to allow priority queue to order blocks by their depth-first order, using by
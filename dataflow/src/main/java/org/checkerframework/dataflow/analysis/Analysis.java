@@ -93,6 +93,40 @@ public interface Analysis<
       IdentityHashMap<Node, V> nodeValues,
       Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>> analysisCaches);
 
+  /**
+   * Runs the analysis again within the block of {@code node} and returns the store at the location
+   * of {@code node}, like {@link #runAnalysisFor(Node, BeforeOrAfter, TransferInput,
+   * IdentityHashMap, Map)}, but accepts any map of node values, such as a {@link
+   * org.checkerframework.dataflow.util.CFGElementMap}.
+   *
+   * <p>The default implementation copies {@code nodeValues} into an {@link IdentityHashMap} if it
+   * is not one.
+   *
+   * @param node the node to analyze
+   * @param preOrPost which store to return: the store immediately before {@code node} or the store
+   *     after {@code node}
+   * @param blockTransferInput the transfer input of the block of this node
+   * @param nodeValues abstract values of nodes
+   * @param analysisCaches caches of analysis results
+   * @return the store before or after {@code node} (depends on the value of {@code before}) after
+   *     running the analysis
+   */
+  default S runAnalysisFor(
+      Node node,
+      Analysis.BeforeOrAfter preOrPost,
+      TransferInput<V, S> blockTransferInput,
+      Map<Node, V> nodeValues,
+      Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>> analysisCaches) {
+    return runAnalysisFor(
+        node,
+        preOrPost,
+        blockTransferInput,
+        nodeValues instanceof IdentityHashMap
+            ? (IdentityHashMap<Node, V>) nodeValues
+            : new IdentityHashMap<>(nodeValues),
+        analysisCaches);
+  }
+
   /**
    * The result of running the analysis. This is only available once the analysis finished running.
    *
@@ -2,8 +2,11 @@ package org.checkerframework.dataflow.analysis;
 
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.UnaryTree;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringJoiner;
@@ -16,6 +19,7 @@ import org.checkerframework.dataflow.cfg.block.ExceptionBlock;
 import org.checkerframework.dataflow.cfg.node.AssignmentNode;
 import org.checkerframework.dataflow.cfg.node.Node;
 import org.checkerframework.javacutil.BugInCF;
+import org.checkerframework.javacutil.CollectionUtils;
 import org.checkerframework.javacutil.TreeUtils;
 import org.plumelib.util.UniqueId;
 
@@ -24,6 +28,11 @@ import org.plumelib.util.UniqueId;
  * providing the abstract values given a node or a tree. Note that it does not keep track of custom
  * results computed by some analysis.
  *
+ * <p>A result stores the input of each block; the stores within a block are recomputed from it on
+ * demand. A <em>compact</em> result (see {@link #setCompact}) does not even store the input of a
+ * block whose only predecessor flows into it without changing the store: the input is recomputed
+ * from the input of the predecessor when it is needed.
+ *
  * @param <V> type of the abstract value that is tracked
  * @param <S> the store type used in the analysis
  */
@@ -47,16 +56,38 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
   protected final HashMap<Element, V> finalLocalValues;
 
   /** The stores before every method call. */
-  protected final IdentityHashMap<Block, TransferInput<V, S>> stores;
+  protected final Map<Block, TransferInput<V, S>> stores;
 
   /**
    * Caches of the analysis results for each input for the block of the node and each node.
    *
-   * @see #runAnalysisFor(Node, Analysis.BeforeOrAfter, TransferInput, IdentityHashMap, Map)
+   * @see #runAnalysisFor(Node, Analysis.BeforeOrAfter, TransferInput, Map, Map)
    */
   protected final Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>>
       analysisCaches;
 
+  /**
+   * The maximum number of blocks whose inputs are recomputed, one from the other, to obtain the
+   * input of one block of a compact result.
+   */
+  protected static final int MAX_DERIVATION_LENGTH = 8;
+
+  /** The number of recomputed block inputs that a compact result caches. */
+  protected static final int DERIVED_INPUTS_CACHE_SIZE = 64;
+
+  /** True if blocks are added to {@link #derivedBlocks} when results are combined into this. */
+  protected boolean compact = false;
+
+  /**
+   * The blocks whose inputs are not in {@link #stores}, but are recomputed from the input of their
+   * only predecessor. See {@link #getInput}.
+   */
+  protected final Set<Block> derivedBlocks = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /** The recently recomputed inputs of blocks in {@link #derivedBlocks}. */
+  protected final Map<Block, TransferInput<V, S>> derivedInputs =
+      CollectionUtils.createLRUCache(DERIVED_INPUTS_CACHE_SIZE);
+
   /** The unique ID for the next-created object. */
   static final AtomicLong nextUid = new AtomicLong(0);
   /** The unique ID of this object. */
@@ -78,8 +109,8 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
    * @param analysisCaches {@link #analysisCaches}
    */
   protected AnalysisResult(
-      IdentityHashMap<Node, V> nodeValues,
-      IdentityHashMap<Block, TransferInput<V, S>> stores,
+      Map<Node, V> nodeValues,
+      Map<Block, TransferInput<V, S>> stores,
       IdentityHashMap<Tree, Set<Node>> treeLookup,
       IdentityHashMap<UnaryTree, AssignmentNode> unaryAssignNodeLookup,
       HashMap<Element, V> finalLocalValues,
@@ -103,8 +134,8 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
    * @param finalLocalValues {@link #finalLocalValues}
    */
   public AnalysisResult(
-      IdentityHashMap<Node, V> nodeValues,
-      IdentityHashMap<Block, TransferInput<V, S>> stores,
+      Map<Node, V> nodeValues,
+      Map<Block, TransferInput<V, S>> stores,
       IdentityHashMap<Tree, Set<Node>> treeLookup,
       IdentityHashMap<UnaryTree, AssignmentNode> unaryAssignNodeLookup,
       HashMap<Element, V> finalLocalValues) {
@@ -133,6 +164,18 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
         analysisCaches);
   }
 
+  /**
+   * Makes this result compact, or not. When another result is combined into a compact result, the
+   * inputs of blocks that can be recomputed from the input of their only predecessor are not
+   * stored. This uses less memory, at the cost of running the transfer function for the last node
+   * of the predecessor once when combining and again whenever a store within the block is needed.
+   *
+   * @param compact true if this result should be compact
+   */
+  public void setCompact(boolean compact) {
+    this.compact = compact;
+  }
+
   /**
    * Combine with another analysis result.
    *
@@ -142,10 +185,142 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
     nodeValues.putAll(other.nodeValues);
     mergeTreeLookup(treeLookup, other.treeLookup);
     unaryAssignNodeLookup.putAll(other.unaryAssignNodeLookup);
-    stores.putAll(other.stores);
+    if (compact) {
+      putCompactStores(other.stores, other.nodeValues);
+    } else {
+      stores.putAll(other.stores);
+    }
+    derivedBlocks.addAll(other.derivedBlocks);
     finalLocalValues.putAll(other.finalLocalValues);
   }
 
+  /**
+   * Adds the given block inputs to {@link #stores}, except the inputs that can be recomputed from
+   * the input of the only predecessor of their block, which are added to {@link #derivedBlocks}
+   * instead. To bound the cost of recomputing an input, at most {@link #MAX_DERIVATION_LENGTH}
+   * consecutive blocks are derived.
+   *
+   * @param newStores the inputs of the blocks of one control flow graph
+   * @param newNodeValues the abstract values of the nodes of the same graph
+   */
+  protected void putCompactStores(
+      Map<Block, TransferInput<V, S>> newStores, Map<Node, V> newNodeValues) {
+    // The number of derivations needed to obtain the input of each block; 0 if it is stored.
+    Map<Block, Integer> lengths = new IdentityHashMap<>();
+    for (Map.Entry<Block, TransferInput<V, S>> entry : newStores.entrySet()) {
+      Block block = entry.getKey();
+      if (derivationLength(block, newStores, newNodeValues, lengths) == 0) {
+        stores.put(block, entry.getValue());
+      } else {
+        derivedBlocks.add(block);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of inputs that must be recomputed to obtain the input of {@code block}, or
+   * 0 if the input of {@code block} is stored. Also records the lengths of the blocks that {@code
+   * block} is derived from in {@code lengths}.
+   *
+   * @param block a block whose input is in {@code newStores}
+   * @param newStores the inputs of the blocks of the graph of {@code block}
+   * @param newNodeValues the abstract values of the nodes of the graph of {@code block}
+   * @param lengths the derivation lengths computed so far
+   * @return the derivation length of {@code block}
+   */
+  private int derivationLength(
+      Block block,
+      Map<Block, TransferInput<V, S>> newStores,
+      Map<Node, V> newNodeValues,
+      Map<Block, Integer> lengths) {
+    // Walk up the chain of derivable blocks iteratively, because it can be long.
+    List<Block> chain = new ArrayList<>();
+    Block current = block;
+    Integer length = lengths.get(current);
+    while (length == null) {
+      chain.add(current);
+      Block pred = derivingPredecessor(current, newStores, newNodeValues);
+      if (pred == null) {
+        length = -1;
+        break;
+      }
+      current = pred;
+      length = lengths.get(current);
+    }
+    for (int i = chain.size() - 1; i >= 0; i--) {
+      length = length + 1;
+      if (length > MAX_DERIVATION_LENGTH) {
+        length = 0;
+      }
+      lengths.put(chain.get(i), length);
+    }
+    return length;
+  }
+
+  /**
+   * Returns the predecessor of {@code block} from whose input the input of {@code block} can be
+   * recomputed, or null if it cannot. That is the case if {@code block} has a single predecessor,
+   * and if the store after the last node of the predecessor equals the input of {@code block}.
+   *
+   * @param block a block whose input is in {@code newStores}
+   * @param newStores the inputs of the blocks of the graph of {@code block}
+   * @param newNodeValues the abstract values of the nodes of the graph of {@code block}
+   * @return the predecessor that {@code block} can be derived from, or null
+   */
+  private @Nullable Block derivingPredecessor(
+      Block block, Map<Block, TransferInput<V, S>> newStores, Map<Node, V> newNodeValues) {
+    TransferInput<V, S> input = newStores.get(block);
+    if (input == null
+        || input.containsTwoStores()
+        || input.analysis.getDirection() != Analysis.Direction.FORWARD) {
+      return null;
+    }
+    Set<Block> preds = block.getPredecessors();
+    if (preds.size() != 1) {
+      return null;
+    }
+    Block pred = preds.iterator().next();
+    Node lastNode = pred.getLastNode();
+    TransferInput<V, S> predInput = newStores.get(pred);
+    if (lastNode == null || predInput == null || input.getNode() != lastNode) {
+      return null;
+    }
+    S store =
+        predInput.analysis.runAnalysisFor(
+            lastNode, Analysis.BeforeOrAfter.AFTER, predInput, newNodeValues, analysisCaches);
+    return store.equals(input.getRegularStore()) ? pred : null;
+  }
+
+  /**
+   * Returns the input of {@code block}, recomputing it if {@code block} is in {@link
+   * #derivedBlocks}.
+   *
+   * @param block a block
+   * @return the input of {@code block}, or null if {@code block} is unreachable
+   */
+  protected @Nullable TransferInput<V, S> getInput(Block block) {
+    TransferInput<V, S> input = stores.get(block);
+    if (input != null || !derivedBlocks.contains(block)) {
+      return input;
+    }
+    input = derivedInputs.get(block);
+    if (input != null) {
+      return input;
+    }
+    Block pred = block.getPredecessors().iterator().next();
+    TransferInput<V, S> predInput = getInput(pred);
+    Node lastNode = pred.getLastNode();
+    if (predInput == null || lastNode == null) {
+      throw new BugInCF("cannot recompute the input of %s from %s", block, pred);
+    }
+    S store =
+        predInput.analysis.runAnalysisFor(
+            lastNode, Analysis.BeforeOrAfter.AFTER, predInput, nodeValues, analysisCaches);
+    input = new TransferInput<>(lastNode, predInput.analysis, store);
+    derivedInputs.put(block, input);
+    return input;
+  }
+
   /**
    * Merge all entries from otherTreeLookup into treeLookup. Merge sets if already present.
    *
@@ -291,7 +466,7 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
    * @return the store right before the given block
    */
   public S getStoreBefore(Block block) {
-    TransferInput<V, S> transferInput = stores.get(block);
+    TransferInput<V, S> transferInput = getInput(block);
     assert transferInput != null : "@AssumeAssertion(nullness): transferInput should be non-null";
     Analysis<V, S, ?> analysis = transferInput.analysis;
     switch (analysis.getDirection()) {
@@ -327,7 +502,7 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
    * @return the store after the given block
    */
   public S getStoreAfter(Block block) {
-    TransferInput<V, S> transferInput = stores.get(block);
+    TransferInput<V, S> transferInput = getInput(block);
     assert transferInput != null : "@AssumeAssertion(nullness): transferInput should be non-null";
     Analysis<V, S, ?> analysis = transferInput.analysis;
     switch (analysis.getDirection()) {
@@ -396,7 +571,7 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
   protected @Nullable S runAnalysisFor(Node node, Analysis.BeforeOrAfter preOrPost) {
     Block block = node.getBlock();
     assert block != null : "@AssumeAssertion(nullness): invariant";
-    TransferInput<V, S> transferInput = stores.get(block);
+    TransferInput<V, S> transferInput = getInput(block);
     if (transferInput == null) {
       return null;
     }
@@ -429,6 +604,32 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
       TransferInput<V, S> transferInput,
       IdentityHashMap<Node, V> nodeValues,
       Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>> analysisCaches) {
+    return runAnalysisFor(
+        node, preOrPost, transferInput, (Map<Node, V>) nodeValues, analysisCaches);
+  }
+
+  /**
+   * Runs the analysis again within the block of {@code node} and returns the store at the location
+   * of {@code node}, like {@link #runAnalysisFor(Node, Analysis.BeforeOrAfter, TransferInput,
+   * IdentityHashMap, Map)}, but accepts any map of node values.
+   *
+   * @param <V> the abstract value type to be tracked by the analysis
+   * @param <S> the store type used in the analysis
+   * @param node the node to analyze
+   * @param preOrPost which store to return: the store immediately before {@code node} or the store
+   *     after {@code node}
+   * @param transferInput a transfer input
+   * @param nodeValues {@link #nodeValues}
+   * @param analysisCaches {@link #analysisCaches}
+   * @return the store before or after {@code node} (depends on the value of {@code before}) after
+   *     running the analysis
+   */
+  public static <V extends AbstractValue<V>, S extends Store<S>> S runAnalysisFor(
+      Node node,
+      Analysis.BeforeOrAfter preOrPost,
+      TransferInput<V, S> transferInput,
+      Map<Node, V> nodeValues,
+      Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>> analysisCaches) {
     if (transferInput.analysis == null) {
       throw new BugInCF("Analysis in transferInput cannot be null.");
     }
@@ -450,6 +651,7 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
     result.add("unaryAssignNodeLookup = " + unaryAssignNodeLookup);
     result.add("finalLocalValues = " + finalLocalValues);
     result.add("stores = " + stores);
+    result.add("derivedBlocks = " + derivedBlocks);
     result.add("analysisCaches = " + analysisCaches);
     return result.toString();
   }
@@ -20,6 +20,7 @@ import org.checkerframework.dataflow.cfg.block.SpecialBlock;
 import org.checkerframework.dataflow.cfg.block.SpecialBlock.SpecialBlockType;
 import org.checkerframework.dataflow.cfg.node.Node;
 import org.checkerframework.dataflow.cfg.node.ReturnNode;
+import org.checkerframework.dataflow.util.CFGElementMap;
 import org.checkerframework.javacutil.BugInCF;
 
 /**
@@ -37,13 +38,14 @@ public class BackwardAnalysisImpl<
   // TODO: Add widening support like what the forward analysis does.
 
   /** Out stores after every basic block (assumed to be 'no information' if not present). */
-  protected final IdentityHashMap<Block, S> outStores = new IdentityHashMap<>();
+  protected final CFGElementMap<Block, S> outStores = CFGElementMap.forBlocks();
 
   /**
    * Exception store of an exception block, propagated by exceptional successors of its exception
    * block, and merged with the normal {@link TransferResult}.
    */
-  protected final IdentityHashMap<ExceptionBlock, S> exceptionStores = new IdentityHashMap<>();
+  protected final CFGElementMap<ExceptionBlock, S> exceptionStores =
+      new CFGElementMap<>(ExceptionBlock.class, Block::getId);
 
   /** The store right before the entry block. */
   protected @Nullable S storeAtEntry = null;
@@ -79,6 +81,7 @@ public class BackwardAnalysisImpl<
       init(cfg);
       while (!worklist.isEmpty()) {
         Block b = worklist.poll();
+        blockVisitCount++;
         performAnalysisBlock(b);
       }
     } finally {
@@ -331,6 +334,17 @@ public class BackwardAnalysisImpl<
       TransferInput<V, S> blockTransferInput,
       IdentityHashMap<Node, V> nodeValues,
       Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>> analysisCaches) {
+    return runAnalysisFor(
+        node, preOrPost, blockTransferInput, (Map<Node, V>) nodeValues, analysisCaches);
+  }
+
+  @Override
+  public S runAnalysisFor(
+      @FindDistinct Node node,
+      Analysis.BeforeOrAfter preOrPost,
+      TransferInput<V, S> blockTransferInput,
+      Map<Node, V> nodeValues,
+      Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>> analysisCaches) {
     Block block = node.getBlock();
     assert block != null : "@AssumeAssertion(nullness): invariant";
     Node oldCurrentNode = currentNode;
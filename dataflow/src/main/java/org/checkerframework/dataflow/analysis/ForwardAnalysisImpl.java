@@ -24,6 +24,7 @@ import org.checkerframework.dataflow.cfg.node.LocalVariableNode;
 import org.checkerframework.dataflow.cfg.node.Node;
 import org.checkerframework.dataflow.cfg.node.ReturnNode;
 import org.checkerframework.dataflow.qual.SideEffectFree;
+import org.checkerframework.dataflow.util.CFGElementMap;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.Pair;
 import org.plumelib.util.CollectionsPlume;
@@ -44,7 +45,7 @@ public class ForwardAnalysisImpl<
    * Number of times each block has been analyzed since the last time widening was applied. Null if
    * maxCountBeforeWidening is -1, which implies widening isn't used for this analysis.
    */
-  protected final @Nullable IdentityHashMap<Block, Integer> blockCount;
+  protected final @Nullable CFGElementMap<Block, Integer> blockCount;
 
   /**
    * Number of times a block can be analyzed before widening. -1 implies that widening shouldn't be
@@ -53,13 +54,13 @@ public class ForwardAnalysisImpl<
   protected final int maxCountBeforeWidening;
 
   /** Then stores before every basic block (assumed to be 'no information' if not present). */
-  protected final IdentityHashMap<Block, S> thenStores;
+  protected final CFGElementMap<Block, S> thenStores;
 
   /** Else stores before every basic block (assumed to be 'no information' if not present). */
-  protected final IdentityHashMap<Block, S> elseStores;
+  protected final CFGElementMap<Block, S> elseStores;
 
   /** The stores after every return statement. */
-  protected final IdentityHashMap<ReturnNode, TransferResult<V, S>> storesAtReturnStatements;
+  protected final CFGElementMap<ReturnNode, TransferResult<V, S>> storesAtReturnStatements;
 
   // `@code`, not `@link`, because dataflow module doesn't depend on framework module.
   /**
@@ -72,10 +73,10 @@ public class ForwardAnalysisImpl<
   public ForwardAnalysisImpl(int maxCountBeforeWidening) {
     super(Direction.FORWARD);
     this.maxCountBeforeWidening = maxCountBeforeWidening;
-    this.blockCount = maxCountBeforeWidening == -1 ? null : new IdentityHashMap<>();
-    this.thenStores = new IdentityHashMap<>();
-    this.elseStores = new IdentityHashMap<>();
-    this.storesAtReturnStatements = new IdentityHashMap<>();
+    this.blockCount = maxCountBeforeWidening == -1 ? null : CFGElementMap.forBlocks();
+    this.thenStores = CFGElementMap.forBlocks();
+    this.elseStores = CFGElementMap.forBlocks();
+    this.storesAtReturnStatements = new CFGElementMap<>(ReturnNode.class, Node::getId);
   }
 
   /**
@@ -102,6 +103,7 @@ public class ForwardAnalysisImpl<
       init(cfg);
       while (!worklist.isEmpty()) {
         Block b = worklist.poll();
+        blockVisitCount++;
         performAnalysisBlock(b);
       }
     } finally {
@@ -234,6 +236,17 @@ public class ForwardAnalysisImpl<
       TransferInput<V, S> blockTransferInput,
       IdentityHashMap<Node, V> nodeValues,
       Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>> analysisCaches) {
+    return runAnalysisFor(
+        node, preOrPost, blockTransferInput, (Map<Node, V>) nodeValues, analysisCaches);
+  }
+
+  @Override
+  public S runAnalysisFor(
+      @FindDistinct Node node,
+      Analysis.BeforeOrAfter preOrPost,
+      TransferInput<V, S> blockTransferInput,
+      Map<Node, V> nodeValues,
+      Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>> analysisCaches) {
     Block block = node.getBlock();
     assert block != null : "@AssumeAssertion(nullness): invariant";
     Node oldCurrentNode = currentNode;
@@ -444,6 +457,7 @@ public class ForwardAnalysisImpl<
       Integer count = blockCount.getOrDefault(b, 0);
       shouldWiden = count >= maxCountBeforeWidening;
       if (shouldWiden) {
+        wideningCount++;
         blockCount.put(b, 0);
       } else {
         blockCount.put(b, count + 1);
@@ -21,6 +21,7 @@ import org.checkerframework.checker.initialization.qual.UnknownInitialization;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.dataflow.analysis.AnalysisResult;
 import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.block.BlockImpl;
 import org.checkerframework.dataflow.cfg.block.ConditionalBlock;
 import org.checkerframework.dataflow.cfg.block.ExceptionBlock;
 import org.checkerframework.dataflow.cfg.block.RegularBlock;
@@ -106,6 +107,12 @@ public class ControlFlowGraph implements UniqueId {
    */
   protected final List<LambdaExpressionTree> declaredLambdas;
 
+  /** The number of blocks that {@link #numberBlocksAndNodes} gave an id. */
+  protected int blockCount = 0;
+
+  /** The number of nodes that {@link #numberBlocksAndNodes} gave an id. */
+  protected int nodeCount = 0;
+
   public ControlFlowGraph(
       SpecialBlock entryBlock,
       SpecialBlockImpl regularExitBlock,
@@ -221,6 +228,45 @@ public class ControlFlowGraph implements UniqueId {
     return result;
   }
 
+  /**
+   * Gives every block and every node of this control flow graph a dense id: the blocks are numbered
+   * from 0 to {@link #getBlockCount()} - 1 in reversed depth-first postorder, and the nodes from 0
+   * to {@link #getNodeCount()} - 1 in the order of their blocks. The ids let analyses store
+   * per-block and per-node data in arrays; see {@link
+   * org.checkerframework.dataflow.util.CFGElementMap}.
+   *
+   * <p>This is called when the graph is complete and must not be called again.
+   */
+  public void numberBlocksAndNodes() {
+    Set<Block> visited = new HashSet<>();
+    for (Block b : getDepthFirstOrderedBlocks()) {
+      if (visited.add(b)) {
+        ((BlockImpl) b).setId(blockCount++);
+        for (Node n : b.getNodes()) {
+          n.setId(nodeCount++);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of blocks that have an id; see {@link #numberBlocksAndNodes()}.
+   *
+   * @return the number of blocks that have an id
+   */
+  public int getBlockCount() {
+    return blockCount;
+  }
+
+  /**
+   * Returns the number of nodes that have an id; see {@link #numberBlocksAndNodes()}.
+   *
+   * @return the number of nodes that have an id
+   */
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
   /**
    * Returns all basic blocks in this control flow graph, in reversed depth-first postorder. Blocks
    * may appear more than once in the sequence.
@@ -67,4 +67,19 @@ public interface Block extends UniqueId {
    * @return the last node of this block or {@code null}
    */
   @Nullable Node getLastNode();
+
+  /**
+   * Returns the id of this block within its control flow graph, or -1 if the graph has not been
+   * numbered. The blocks of a graph have the ids 0 to {@link
+   * org.checkerframework.dataflow.cfg.ControlFlowGraph#getBlockCount()} - 1. Unlike {@link
+   * #getUid()}, ids are not unique across graphs.
+   *
+   * <p>The default implementation returns -1, for blocks that are not created by the control flow
+   * graph builder.
+   *
+   * @return the id of this block within its control flow graph, or -1
+   */
+  default int getId() {
+    return -1;
+  }
 }
@@ -28,6 +28,23 @@ public abstract class BlockImpl implements Block {
     return uid;
   }
 
+  /** The id of this block within its control flow graph, or -1; see {@link #getId()}. */
+  protected int id = -1;
+
+  @Override
+  public int getId() {
+    return id;
+  }
+
+  /**
+   * Sets the id of this block within its control flow graph.
+   *
+   * @param id the id of this block
+   */
+  public void setId(int id) {
+    this.id = id;
+  }
+
   /**
    * Create a new BlockImpl.
    *
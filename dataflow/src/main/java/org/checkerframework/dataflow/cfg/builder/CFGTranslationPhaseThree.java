@@ -143,6 +143,8 @@ public class CFGTranslationPhaseThree {
         }
       }
     }
+
+    cfg.numberBlocksAndNodes();
     return cfg;
   }
 
@@ -71,6 +71,9 @@ public abstract class Node implements UniqueId {
     return uid;
   }
 
+  /** The id of this node within its control flow graph, or -1; see {@link #getId()}. */
+  protected int id = -1;
+
   /**
    * Creates a new Node.
    *
@@ -97,6 +100,27 @@ public abstract class Node implements UniqueId {
     block = b;
   }
 
+  /**
+   * Returns the id of this node within its control flow graph, or -1 if the node is not in a basic
+   * block or the graph has not been numbered. The nodes of a graph have the ids 0 to {@link
+   * org.checkerframework.dataflow.cfg.ControlFlowGraph#getNodeCount()} - 1. Unlike {@link
+   * #getUid()}, ids are not unique across graphs.
+   *
+   * @return the id of this node within its control flow graph, or -1
+   */
+  public int getId() {
+    return id;
+  }
+
+  /**
+   * Sets the id of this node within its control flow graph.
+   *
+   * @param id the id of this node
+   */
+  public void setId(int id) {
+    this.id = id;
+  }
+
   /**
    * Returns the {@link Tree} in the abstract syntax tree, or {@code null} if no corresponding tree
    * exists. For instance, this is the case for an {@link ImplicitThisNode}.
@@ -0,0 +1,326 @@
+package org.checkerframework.dataflow.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.node.Node;
+
+/**
+ * A map whose keys are blocks or nodes of control flow graphs. Like {@link IdentityHashMap}, it
+ * compares keys by reference equality, but it stores the entries in arrays indexed by the {@link
+ * Block#getId() ids} of the keys, so that lookups do not need to hash. See {@link
+ * ControlFlowGraph#numberBlocksAndNodes()}.
+ *
+ * <p>Ids are dense within one graph but not unique across graphs. A key that has no id, or whose
+ * slot is occupied by a key of another graph, is stored in an overflow {@link IdentityHashMap}, so
+ * the map behaves like an {@link IdentityHashMap} for any keys. It is fastest when most keys belong
+ * to one graph.
+ *
+ * <p>Permits {@code null} values, but not {@code null} keys.
+ *
+ * @param <K> the type of the keys: blocks or nodes
+ * @param <V> the type of the values
+ */
+public class CFGElementMap<K extends Object, V> extends AbstractMap<K, V> {
+
+  /** The class of the keys, used to reject lookups of objects of other classes. */
+  private final Class<K> keyClass;
+
+  /** Returns the id of a key. */
+  private final ToIntFunction<? super K> idFunction;
+
+  /** The key whose id is {@code i} is at index {@code i}, or null. */
+  private @Nullable Object[] keys = new Object[0];
+
+  /** The value of {@code keys[i]} is at index {@code i}. */
+  private @Nullable Object[] values = new Object[0];
+
+  /** One more than the largest index of a non-null element of {@code keys}. */
+  private int limit = 0;
+
+  /** The number of keys in {@code keys}. */
+  private int arraySize = 0;
+
+  /** The entries whose keys are not in {@code keys}, or null if there are none yet. */
+  private @Nullable IdentityHashMap<K, V> overflow = null;
+
+  /**
+   * Creates an empty map.
+   *
+   * @param keyClass the class of the keys
+   * @param idFunction returns the id of a key, or -1 if it has none
+   */
+  public CFGElementMap(Class<K> keyClass, ToIntFunction<? super K> idFunction) {
+    this.keyClass = keyClass;
+    this.idFunction = idFunction;
+  }
+
+  /**
+   * Creates an empty map whose keys are blocks.
+   *
+   * @param <V> the type of the values
+   * @return an empty map whose keys are blocks
+   */
+  public static <V> CFGElementMap<Block, V> forBlocks() {
+    return new CFGElementMap<>(Block.class, Block::getId);
+  }
+
+  /**
+   * Creates an empty map whose keys are nodes.
+   *
+   * @param <V> the type of the values
+   * @return an empty map whose keys are nodes
+   */
+  public static <V> CFGElementMap<Node, V> forNodes() {
+    return new CFGElementMap<>(Node.class, Node::getId);
+  }
+
+  /**
+   * Returns the index of {@code key} in {@code keys}, or -1 if {@code key} is not there.
+   *
+   * @param key a key
+   * @return the index of {@code key} in {@code keys}, or -1
+   */
+  @SuppressWarnings("interning:not.interned") // keys are compared by reference
+  private int indexOf(@Nullable Object key) {
+    if (!keyClass.isInstance(key)) {
+      return -1;
+    }
+    int id = idFunction.applyAsInt(keyClass.cast(key));
+    return id >= 0 && id < limit && keys[id] == key ? id : -1;
+  }
+
+  @Override
+  public int size() {
+    return arraySize + (overflow == null ? 0 : overflow.size());
+  }
+
+  @Override
+  public boolean containsKey(@Nullable Object key) {
+    return indexOf(key) >= 0 || (overflow != null && overflow.containsKey(key));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked") // values[i] is a V
+  public @Nullable V get(@Nullable Object key) {
+    int index = indexOf(key);
+    if (index >= 0) {
+      return (V) values[index];
+    }
+    return overflow == null ? null : overflow.get(key);
+  }
+
+  @Override
+  @SuppressWarnings({
+    "unchecked", // values[i] is a V
+    "interning:not.interned" // keys are compared by reference
+  })
+  public @Nullable V put(K key, V value) {
+    int id = idFunction.applyAsInt(key);
+    if (id >= 0 && id < limit && keys[id] == key) {
+      V old = (V) values[id];
+      values[id] = value;
+      return old;
+    }
+    if (id < 0
+        || (id < limit && keys[id] != null)
+        || (overflow != null && overflow.containsKey(key))) {
+      if (overflow == null) {
+        overflow = new IdentityHashMap<>();
+      }
+      return overflow.put(key, value);
+    }
+    if (id >= keys.length) {
+      int newLength = Math.max(id + 1, 2 * keys.length);
+      keys = Arrays.copyOf(keys, newLength);
+      values = Arrays.copyOf(values, newLength);
+    }
+    keys[id] = key;
+    values[id] = value;
+    limit = Math.max(limit, id + 1);
+    arraySize++;
+    return null;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked") // values[i] is a V
+  public @Nullable V remove(@Nullable Object key) {
+    int index = indexOf(key);
+    if (index >= 0) {
+      V old = (V) values[index];
+      removeAt(index);
+      return old;
+    }
+    return overflow == null ? null : overflow.remove(key);
+  }
+
+  /**
+   * Removes the key at the given index of {@code keys}.
+   *
+   * @param index the index of a key in {@code keys}
+   */
+  private void removeAt(int index) {
+    keys[index] = null;
+    values[index] = null;
+    arraySize--;
+    while (limit > 0 && keys[limit - 1] == null) {
+      limit--;
+    }
+  }
+
+  /** Removes all entries, but keeps the arrays so that they can be reused for another graph. */
+  @Override
+  public void clear() {
+    Arrays.fill(keys, 0, limit, null);
+    Arrays.fill(values, 0, limit, null);
+    limit = 0;
+    arraySize = 0;
+    overflow = null;
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return new AbstractSet<Map.Entry<K, V>>() {
+      @Override
+      public int size() {
+        return CFGElementMap.this.size();
+      }
+
+      @Override
+      public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator();
+      }
+    };
+  }
+
+  /** Iterates over the entries in the arrays, then over the entries in the overflow map. */
+  private class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+    /** The index in {@code keys} of the next entry, or {@code limit} if there is none. */
+    private int next = nextIndex(0);
+
+    /** The index in {@code keys} of the last returned entry, or -1. */
+    private int last = -1;
+
+    /** Iterates over the overflow map, once the arrays are exhausted; or null. */
+    private @Nullable Iterator<Map.Entry<K, V>> overflowIterator = null;
+
+    /**
+     * Returns the index of the first key in {@code keys} at or after {@code i}, or {@code limit}.
+     *
+     * @param i an index
+     * @return the index of the first key at or after {@code i}, or {@code limit}
+     */
+    private int nextIndex(int i) {
+      while (i < limit && keys[i] == null) {
+        i++;
+      }
+      return i;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next < limit) {
+        return true;
+      }
+      if (overflowIterator == null && overflow != null) {
+        overflowIterator = overflow.entrySet().iterator();
+      }
+      return overflowIterator != null && overflowIterator.hasNext();
+    }
+
+    @Override
+    public Map.Entry<K, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      if (next < limit) {
+        last = next;
+        next = nextIndex(next + 1);
+        return new ArrayEntry(last);
+      }
+      last = -1;
+      assert overflowIterator != null : "@AssumeAssertion(nullness): hasNext() set it";
+      return overflowIterator.next();
+    }
+
+    @Override
+    public void remove() {
+      if (last >= 0) {
+        removeAt(last);
+        last = -1;
+        next = nextIndex(next);
+      } else if (overflowIterator != null) {
+        overflowIterator.remove();
+      } else {
+        throw new IllegalStateException();
+      }
+    }
+  }
+
+  /** An entry in the arrays; {@link #setValue} writes through to the map. */
+  private class ArrayEntry implements Map.Entry<K, V> {
+
+    /** The index of the entry in the arrays. */
+    private final int index;
+
+    /**
+     * Creates an entry.
+     *
+     * @param index the index of the entry in the arrays
+     */
+    ArrayEntry(int index) {
+      this.index = index;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked") // keys[i] is a K
+    public K getKey() {
+      return (K) keys[index];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked") // values[i] is a V
+    public V getValue() {
+      return (V) values[index];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked") // values[i] is a V
+    public V setValue(V value) {
+      V old = (V) values[index];
+      values[index] = value;
+      return old;
+    }
+
+    @Override
+    @SuppressWarnings("interning:not.interned") // keys are compared by reference
+    public boolean equals(@Nullable Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+      return getKey() == other.getKey() && Objects.equals(getValue(), other.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(getKey()) ^ Objects.hashCode(getValue());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+}
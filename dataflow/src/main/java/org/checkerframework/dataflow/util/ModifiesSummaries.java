@@ -0,0 +1,407 @@
+package org.checkerframework.dataflow.util;
+
+import com.sun.source.tree.ArrayAccessTree;
+import com.sun.source.tree.AssignmentTree;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompoundAssignmentTree;
+import com.sun.source.tree.EnhancedForLoopTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.UnaryTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreeScanner;
+import com.sun.source.util.Trees;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.expression.ArrayAccess;
+import org.checkerframework.dataflow.expression.BinaryOperation;
+import org.checkerframework.dataflow.expression.ClassName;
+import org.checkerframework.dataflow.expression.FieldAccess;
+import org.checkerframework.dataflow.expression.FormalParameter;
+import org.checkerframework.dataflow.expression.JavaExpression;
+import org.checkerframework.dataflow.expression.LocalVariable;
+import org.checkerframework.dataflow.expression.ThisReference;
+import org.checkerframework.dataflow.expression.UnaryOperation;
+import org.checkerframework.dataflow.expression.ValueLiteral;
+import org.checkerframework.dataflow.qual.SideEffectFree;
+import org.checkerframework.javacutil.AnnotationProvider;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * Computes <em>modifies sets</em>: for a method, a conservative set of the fields that a call to
+ * the method may assign, and whether the call may assign array elements. A method has a modifies
+ * set only if the analysis can determine every method body that a call to it may execute, namely
+ * if:
+ *
+ * <ul>
+ *   <li>the method is {@link SideEffectFree} (its modifies set is empty), or
+ *   <li>the method cannot be overridden (it is static, private, final, a constructor, or a member
+ *       of a final class), its source code is in the current compilation and has been attributed,
+ *       and every method and constructor that it calls has a modifies set.
+ * </ul>
+ *
+ * A call to a method that has a modifies set cannot change the value of any field that is not in
+ * the set, so a store need not discard what it knows about such fields. Like {@link
+ * PurityChecker}, this class does not consider code that is run implicitly, such as calls to
+ * {@code toString} in string concatenation and static initializers.
+ *
+ * <p>Modifies sets are computed on demand and cached per method. A method whose class has not been
+ * attributed yet has no modifies set, but that answer, and every answer that depends on it, is not
+ * cached: it is recomputed once the class has been attributed.
+ */
+public class ModifiesSummaries {
+
+  /** The modifies set of a method that assigns no fields and no array elements. */
+  public static final ModifiesSet EMPTY = new ModifiesSet(Collections.emptySet(), false);
+
+  /** How to get purity annotations. */
+  private final AnnotationProvider annoProvider;
+
+  /** Used to find the source code of methods. */
+  private final Trees trees;
+
+  /**
+   * The modifies set of each method whose modifies set has been computed. A method without a
+   * modifies set is mapped to null.
+   */
+  private final Map<ExecutableElement, @Nullable ModifiesSet> summaries = new HashMap<>();
+
+  /** The methods whose modifies sets are being computed. */
+  private final Set<ExecutableElement> inProgress = new HashSet<>();
+
+  /**
+   * True if the modifies set of a method whose class has not been attributed yet was needed by the
+   * computation that is in progress. The result of that computation is not cached.
+   */
+  private boolean usedUnattributed = false;
+
+  /**
+   * Creates a ModifiesSummaries.
+   *
+   * @param annoProvider how to get purity annotations
+   * @param env the processing environment
+   */
+  public ModifiesSummaries(AnnotationProvider annoProvider, ProcessingEnvironment env) {
+    this.annoProvider = annoProvider;
+    this.trees = Trees.instance(env);
+  }
+
+  /**
+   * Returns the modifies set of {@code method}, or null if it has none because a call to it may
+   * modify any field or array.
+   *
+   * @param method a method or constructor
+   * @return the modifies set of {@code method}, or null if it may modify any field or array
+   */
+  public @Nullable ModifiesSet getModifiesSet(ExecutableElement method) {
+    if (summaries.containsKey(method)) {
+      return summaries.get(method);
+    }
+    if (!inProgress.add(method)) {
+      // A recursive call; give up rather than computing a fixed point.
+      return null;
+    }
+    boolean outerUsedUnattributed = usedUnattributed;
+    usedUnattributed = false;
+    ModifiesSet result;
+    try {
+      result = computeModifiesSet(method);
+      if (!usedUnattributed) {
+        summaries.put(method, result);
+      }
+    } finally {
+      inProgress.remove(method);
+      usedUnattributed |= outerUsedUnattributed;
+    }
+    return result;
+  }
+
+  /**
+   * Computes the modifies set of {@code method}.
+   *
+   * @param method a method or constructor
+   * @return the modifies set of {@code method}, or null if it may modify any field or array
+   */
+  private @Nullable ModifiesSet computeModifiesSet(ExecutableElement method) {
+    if (PurityUtils.isSideEffectFree(annoProvider, method)) {
+      return EMPTY;
+    }
+    if (mayBeOverridden(method)) {
+      return null;
+    }
+    if (!ElementUtils.isAttributed(method)) {
+      usedUnattributed = true;
+      return null;
+    }
+    MethodTree methodTree = trees.getTree(method);
+    if (methodTree == null || methodTree.getBody() == null) {
+      return null;
+    }
+    ModifiesScanner scanner = new ModifiesScanner();
+    scanner.scan(methodTree.getBody(), null);
+    if (method.getKind() == ElementKind.CONSTRUCTOR
+        && !TreeUtils.containsThisConstructorInvocation(methodTree)) {
+      // The constructor also runs the instance initializers of its class.
+      ClassTree classTree = trees.getTree((TypeElement) method.getEnclosingElement());
+      if (classTree == null) {
+        return null;
+      }
+      for (Tree member : classTree.getMembers()) {
+        if (member.getKind() == Tree.Kind.VARIABLE) {
+          VariableTree field = (VariableTree) member;
+          if (!ElementUtils.isStatic(TreeUtils.elementFromDeclaration(field))) {
+            scanner.scan(field.getInitializer(), null);
+          }
+        } else if (member.getKind() == Tree.Kind.BLOCK && !((BlockTree) member).isStatic()) {
+          scanner.scan(member, null);
+        }
+      }
+    }
+    return scanner.getModifiesSet();
+  }
+
+  /**
+   * Returns true if a call to {@code method} may run a method body other than its own.
+   *
+   * @param method a method or constructor
+   * @return true if {@code method} may be overridden
+   */
+  static boolean mayBeOverridden(ExecutableElement method) {
+    if (method.getKind() == ElementKind.CONSTRUCTOR
+        || ElementUtils.isStatic(method)
+        || ElementUtils.isFinal(method)
+        || method.getModifiers().contains(Modifier.PRIVATE)) {
+      return false;
+    }
+    TypeElement enclosingClass = ElementUtils.enclosingTypeElement(method);
+    return enclosingClass == null || !ElementUtils.isFinal(enclosingClass);
+  }
+
+  /** The modifies set of a method. */
+  public static final class ModifiesSet {
+
+    /** The fields that a call may assign. */
+    private final Set<VariableElement> fields;
+
+    /** True if a call may assign array elements. */
+    private final boolean arrays;
+
+    /**
+     * Creates a ModifiesSet.
+     *
+     * @param fields the fields that a call may assign
+     * @param arrays true if a call may assign array elements
+     */
+    private ModifiesSet(Set<VariableElement> fields, boolean arrays) {
+      this.fields = fields;
+      this.arrays = arrays;
+    }
+
+    /**
+     * Returns true if a call may assign {@code field}.
+     *
+     * @param field a field
+     * @return true if a call may assign {@code field}
+     */
+    public boolean mayModify(VariableElement field) {
+      return fields.contains(field);
+    }
+
+    /**
+     * Returns true if a call may change the value of {@code expression}: if it reads a field that a
+     * call may assign or an array element when a call may assign array elements, or if it contains
+     * a method call.
+     *
+     * @param expression an expression
+     * @return true if a call may change the value of {@code expression}
+     */
+    public boolean mayModifyValueOf(JavaExpression expression) {
+      if (expression instanceof FieldAccess) {
+        FieldAccess fieldAccess = (FieldAccess) expression;
+        return fields.contains(fieldAccess.getField())
+            || mayModifyValueOf(fieldAccess.getReceiver());
+      } else if (expression instanceof ArrayAccess) {
+        ArrayAccess arrayAccess = (ArrayAccess) expression;
+        return arrays
+            || mayModifyValueOf(arrayAccess.getArray())
+            || mayModifyValueOf(arrayAccess.getIndex());
+      } else if (expression instanceof BinaryOperation) {
+        BinaryOperation binaryOperation = (BinaryOperation) expression;
+        return mayModifyValueOf(binaryOperation.getLeft())
+            || mayModifyValueOf(binaryOperation.getRight());
+      } else if (expression instanceof UnaryOperation) {
+        return mayModifyValueOf(((UnaryOperation) expression).getOperand());
+      } else if (expression instanceof LocalVariable
+          || expression instanceof FormalParameter
+          || expression instanceof ThisReference
+          || expression instanceof ClassName
+          || expression instanceof ValueLiteral) {
+        return false;
+      } else {
+        // A method call, array creation, or unknown expression.
+        return true;
+      }
+    }
+
+    /**
+     * Returns true if a call may assign array elements.
+     *
+     * @return true if a call may assign array elements
+     */
+    public boolean mayModifyArrays() {
+      return arrays;
+    }
+
+    /**
+     * Returns true if a call assigns no fields and no array elements.
+     *
+     * @return true if a call assigns no fields and no array elements
+     */
+    public boolean isEmpty() {
+      return fields.isEmpty() && !arrays;
+    }
+
+    @Override
+    public String toString() {
+      return "ModifiesSet(" + fields + (arrays ? ", arrays" : "") + ")";
+    }
+  }
+
+  /** Accumulates the writes of the code that it scans. */
+  private class ModifiesScanner extends TreeScanner<Void, Void> {
+
+    /** The fields that the scanned code may assign. */
+    private final Set<VariableElement> fields = new HashSet<>();
+
+    /** True if the scanned code may assign array elements. */
+    private boolean arrays = false;
+
+    /** True if the scanned code may modify any field or array. */
+    private boolean unknown = false;
+
+    /**
+     * Returns the modifies set of the code scanned so far.
+     *
+     * @return the modifies set of the code scanned so far, or null if it may modify any field or
+     *     array
+     */
+    @Nullable ModifiesSet getModifiesSet() {
+      if (unknown) {
+        return null;
+      }
+      if (fields.isEmpty() && !arrays) {
+        return EMPTY;
+      }
+      return new ModifiesSet(Collections.unmodifiableSet(new HashSet<>(fields)), arrays);
+    }
+
+    @Override
+    public Void scan(@Nullable Tree tree, Void p) {
+      if (unknown) {
+        return null;
+      }
+      return super.scan(tree, p);
+    }
+
+    @Override
+    public Void visitAssignment(AssignmentTree node, Void p) {
+      recordWrite(node.getVariable());
+      return super.visitAssignment(node, p);
+    }
+
+    @Override
+    public Void visitCompoundAssignment(CompoundAssignmentTree node, Void p) {
+      recordWrite(node.getVariable());
+      return super.visitCompoundAssignment(node, p);
+    }
+
+    @Override
+    public Void visitUnary(UnaryTree node, Void p) {
+      switch (node.getKind()) {
+        case POSTFIX_DECREMENT:
+        case POSTFIX_INCREMENT:
+        case PREFIX_DECREMENT:
+        case PREFIX_INCREMENT:
+          recordWrite(node.getExpression());
+          break;
+        default:
+          // Nothing to do
+          break;
+      }
+      return super.visitUnary(node, p);
+    }
+
+    @Override
+    public Void visitMethodInvocation(MethodInvocationTree node, Void p) {
+      recordCall(TreeUtils.elementFromUse(node));
+      return super.visitMethodInvocation(node, p);
+    }
+
+    @Override
+    public Void visitNewClass(NewClassTree node, Void p) {
+      recordCall(TreeUtils.elementFromUse(node));
+      return super.visitNewClass(node, p);
+    }
+
+    @Override
+    public Void visitEnhancedForLoop(EnhancedForLoopTree node, Void p) {
+      if (TreeUtils.typeOf(node.getExpression()).getKind() != TypeKind.ARRAY) {
+        // The loop calls Iterable.iterator() and the methods of the iterator.
+        unknown = true;
+      }
+      return super.visitEnhancedForLoop(node, p);
+    }
+
+    /**
+     * Records that the scanned code assigns {@code variable}.
+     *
+     * @param variable the left-hand side of an assignment
+     */
+    private void recordWrite(ExpressionTree variable) {
+      variable = TreeUtils.withoutParens(variable);
+      if (variable instanceof ArrayAccessTree) {
+        arrays = true;
+      } else if (TreeUtils.isFieldAccess(variable)) {
+        Element field = TreeUtils.elementFromUse(variable);
+        if (field instanceof VariableElement) {
+          fields.add((VariableElement) field);
+        } else {
+          unknown = true;
+        }
+      }
+      // Otherwise, the variable is a local variable.
+    }
+
+    /**
+     * Records that the scanned code calls {@code callee}.
+     *
+     * @param callee a method or constructor
+     */
+    private void recordCall(ExecutableElement callee) {
+      ModifiesSet calleeSet = ModifiesSummaries.this.getModifiesSet(callee);
+      if (calleeSet == null) {
+        unknown = true;
+      } else {
+        fields.addAll(calleeSet.fields);
+        arrays |= calleeSet.arrays;
+      }
+    }
+  }
+}
@@ -0,0 +1,208 @@
+package org.checkerframework.dataflow.util;
+
+import com.sun.source.tree.MethodTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.type.TypeKind;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.qual.Deterministic;
+import org.checkerframework.dataflow.qual.Pure;
+import org.checkerframework.dataflow.qual.Pure.Kind;
+import org.checkerframework.dataflow.qual.SideEffectFree;
+import org.checkerframework.javacutil.AnnotationProvider;
+import org.checkerframework.javacutil.ElementUtils;
+
+/**
+ * The purity of the methods that have been looked up through one {@link AnnotationProvider}. See
+ * {@link PurityUtils}.
+ *
+ * <p>If inference is enabled, the purity of a method without purity annotations is inferred by
+ * running {@link PurityChecker} on its body, if the method cannot be overridden (it is static,
+ * private, final, or a member of a final class) and its source code is in the current compilation
+ * and has been attributed. The purity of the methods that it calls is inferred first, so purity
+ * propagates bottom-up through the call graph. A method that is part of a cycle of calls is treated
+ * as impure when its callees are checked. Constructors are never inferred to be pure, because
+ * their purity also depends on the field initializers of their class.
+ *
+ * <p>A method whose class has not been attributed yet is treated as impure, but that answer, and
+ * every answer that depends on it, is not cached: it is recomputed once the class has been
+ * attributed. Therefore the inferred purity does not depend on the order of the files or of the
+ * declarations within them.
+ *
+ * <p>A cache is owned by its annotation provider; see {@link PurityCacheOwner}.
+ */
+public final class PurityCache {
+
+  /** The purity annotations of each method that has been looked up. */
+  private final Map<Element, EnumSet<Pure.Kind>> annotatedKinds = new HashMap<>();
+
+  /** The annotated or inferred purity of each method that has been looked up. */
+  private final Map<Element, EnumSet<Pure.Kind>> purityKinds = new HashMap<>();
+
+  /** The methods whose purity is being inferred. */
+  private final Set<Element> inProgress = new HashSet<>();
+
+  /** Used to find the source code of methods, or null if inference is disabled. */
+  private @Nullable Trees trees = null;
+
+  /** True if all methods should be assumed to be @SideEffectFree during inference. */
+  private boolean assumeSideEffectFree = false;
+
+  /** True if all methods should be assumed to be @Deterministic during inference. */
+  private boolean assumeDeterministic = false;
+
+  /**
+   * True if the purity of a method whose class has not been attributed yet was needed by the
+   * inference that is in progress. The result of that inference is not cached.
+   */
+  private boolean usedUnattributed = false;
+
+  /** Creates a PurityCache with inference disabled. */
+  public PurityCache() {}
+
+  /**
+   * Enables inference of the purity of unannotated methods.
+   *
+   * @param trees used to find the source code of methods
+   * @param assumeSideEffectFree true if all methods should be assumed to be @SideEffectFree
+   * @param assumeDeterministic true if all methods should be assumed to be @Deterministic
+   */
+  void enableInference(Trees trees, boolean assumeSideEffectFree, boolean assumeDeterministic) {
+    this.trees = trees;
+    this.assumeSideEffectFree = assumeSideEffectFree;
+    this.assumeDeterministic = assumeDeterministic;
+    purityKinds.clear();
+  }
+
+  /**
+   * Returns the purity annotations of {@code methodElement}. The result must not be modified.
+   *
+   * @param provider how to get annotations
+   * @param methodElement a method
+   * @return the kinds of purity that {@code methodElement} is annotated with
+   */
+  EnumSet<Pure.Kind> getAnnotatedPurityKinds(AnnotationProvider provider, Element methodElement) {
+    EnumSet<Pure.Kind> result = annotatedKinds.get(methodElement);
+    if (result == null) {
+      result = readPurityAnnotations(provider, methodElement);
+      annotatedKinds.put(methodElement, result);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the annotated or, if inference is enabled, inferred purity of {@code methodElement}.
+   * The result must not be modified.
+   *
+   * @param provider how to get annotations
+   * @param methodElement a method
+   * @return the kinds of purity of {@code methodElement}
+   */
+  EnumSet<Pure.Kind> getPurityKinds(AnnotationProvider provider, Element methodElement) {
+    EnumSet<Pure.Kind> annotated = getAnnotatedPurityKinds(provider, methodElement);
+    Trees trees = this.trees;
+    if (trees == null || !annotated.isEmpty()) {
+      return annotated;
+    }
+    EnumSet<Pure.Kind> result = purityKinds.get(methodElement);
+    if (result != null) {
+      return result;
+    }
+    if (!inProgress.add(methodElement)) {
+      // A recursive call; give up rather than computing a fixed point.
+      return annotated;
+    }
+    boolean outerUsedUnattributed = usedUnattributed;
+    usedUnattributed = false;
+    try {
+      result = inferPurityKinds(provider, trees, methodElement);
+      if (!usedUnattributed) {
+        purityKinds.put(methodElement, result);
+      }
+    } finally {
+      inProgress.remove(methodElement);
+      usedUnattributed |= outerUsedUnattributed;
+    }
+    return result;
+  }
+
+  /**
+   * Infers the purity of an unannotated method from its body.
+   *
+   * @param provider how to get annotations
+   * @param trees used to find the source code of {@code methodElement}
+   * @param methodElement a method without purity annotations
+   * @return the kinds of purity of {@code methodElement}
+   */
+  private EnumSet<Pure.Kind> inferPurityKinds(
+      AnnotationProvider provider, Trees trees, Element methodElement) {
+    if (methodElement.getKind() != ElementKind.METHOD) {
+      return EnumSet.noneOf(Pure.Kind.class);
+    }
+    ExecutableElement method = (ExecutableElement) methodElement;
+    if (ModifiesSummaries.mayBeOverridden(method)) {
+      return EnumSet.noneOf(Pure.Kind.class);
+    }
+    if (!ElementUtils.isAttributed(method)) {
+      usedUnattributed = true;
+      return EnumSet.noneOf(Pure.Kind.class);
+    }
+    TreePath methodPath = trees.getPath(method);
+    if (methodPath == null || !(methodPath.getLeaf() instanceof MethodTree)) {
+      return EnumSet.noneOf(Pure.Kind.class);
+    }
+    MethodTree methodTree = (MethodTree) methodPath.getLeaf();
+    if (methodTree.getBody() == null) {
+      return EnumSet.noneOf(Pure.Kind.class);
+    }
+    EnumSet<Pure.Kind> result =
+        PurityChecker.checkPurity(
+                new TreePath(methodPath, methodTree.getBody()),
+                provider,
+                assumeSideEffectFree,
+                assumeDeterministic)
+            .getKinds()
+            .clone();
+    // @Deterministic makes no sense for a void method.
+    if (method.getReturnType().getKind() == TypeKind.VOID) {
+      result.remove(Kind.DETERMINISTIC);
+    }
+    return result;
+  }
+
+  /**
+   * Reads the purity annotations of {@code methodElement}.
+   *
+   * @param provider how to get annotations
+   * @param methodElement a method
+   * @return the kinds of purity that {@code methodElement} is annotated with
+   */
+  private static EnumSet<Pure.Kind> readPurityAnnotations(
+      AnnotationProvider provider, Element methodElement) {
+    AnnotationMirror pureAnnotation = provider.getDeclAnnotation(methodElement, Pure.class);
+    AnnotationMirror sefAnnotation =
+        provider.getDeclAnnotation(methodElement, SideEffectFree.class);
+    AnnotationMirror detAnnotation = provider.getDeclAnnotation(methodElement, Deterministic.class);
+
+    if (pureAnnotation != null) {
+      return EnumSet.of(Kind.DETERMINISTIC, Kind.SIDE_EFFECT_FREE);
+    }
+    EnumSet<Pure.Kind> result = EnumSet.noneOf(Pure.Kind.class);
+    if (sefAnnotation != null) {
+      result.add(Kind.SIDE_EFFECT_FREE);
+    }
+    if (detAnnotation != null) {
+      result.add(Kind.DETERMINISTIC);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,18 @@
+package org.checkerframework.dataflow.util;
+
+import org.checkerframework.javacutil.AnnotationProvider;
+
+/**
+ * An {@link AnnotationProvider} that owns the cache of the purity results that {@link PurityUtils}
+ * computes with it, so that the cache lives exactly as long as the provider. The purity results of
+ * other providers are not cached.
+ */
+public interface PurityCacheOwner {
+
+  /**
+   * Returns the cache of purity results of this annotation provider.
+   *
+   * @return the cache of purity results of this annotation provider
+   */
+  PurityCache getPurityCache();
+}
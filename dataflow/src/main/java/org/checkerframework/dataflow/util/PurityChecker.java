@@ -219,14 +219,10 @@ public class PurityChecker {
     @Override
     public Void visitMethodInvocation(MethodInvocationTree node, Void ignore) {
       Element elt = TreeUtils.elementFromUse(node);
-      if (!PurityUtils.hasPurityAnnotation(annoProvider, elt)) {
+      EnumSet<Pure.Kind> purityKinds = PurityUtils.getPurityKinds(annoProvider, elt);
+      if (purityKinds.isEmpty()) {
         purityResult.addNotBothReason(node, "call");
       } else {
-        EnumSet<Pure.Kind> purityKinds =
-            (assumeDeterministic && assumeSideEffectFree)
-                // Avoid computation if not necessary
-                ? EnumSet.of(Kind.DETERMINISTIC, Kind.SIDE_EFFECT_FREE)
-                : PurityUtils.getPurityKinds(annoProvider, elt);
         boolean det = assumeDeterministic || purityKinds.contains(Kind.DETERMINISTIC);
         boolean seFree = assumeSideEffectFree || purityKinds.contains(Kind.SIDE_EFFECT_FREE);
         if (!det && !seFree) {
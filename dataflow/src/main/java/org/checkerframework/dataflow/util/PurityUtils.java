@@ -1,8 +1,9 @@
 package org.checkerframework.dataflow.util;
 
 import com.sun.source.tree.MethodTree;
+import com.sun.source.util.Trees;
 import java.util.EnumSet;
-import javax.lang.model.element.AnnotationMirror;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.Element;
 import org.checkerframework.dataflow.qual.Deterministic;
 import org.checkerframework.dataflow.qual.Pure;
@@ -16,6 +17,9 @@ import org.checkerframework.javacutil.TreeUtils;
  * A utility class for working with the {@link SideEffectFree}, {@link Deterministic}, and {@link
  * Pure} annotations.
  *
+ * <p>If the {@link AnnotationProvider} is a {@link PurityCacheOwner}, the purity of each method is
+ * cached in the provider, so the annotations of a method are looked up only once.
+ *
  * @see SideEffectFree
  * @see Deterministic
  * @see Pure
@@ -30,7 +34,7 @@ public class PurityUtils {
    * @return whether the method has any purity annotations
    */
   public static boolean hasPurityAnnotation(AnnotationProvider provider, MethodTree methodTree) {
-    return !getPurityKinds(provider, methodTree).isEmpty();
+    return !getAnnotatedPurityKinds(provider, methodTree).isEmpty();
   }
 
   /**
@@ -41,7 +45,7 @@ public class PurityUtils {
    * @return whether the method has any purity annotations
    */
   public static boolean hasPurityAnnotation(AnnotationProvider provider, Element methodElement) {
-    return !getPurityKinds(provider, methodElement).isEmpty();
+    return !getCache(provider).getAnnotatedPurityKinds(provider, methodElement).isEmpty();
   }
 
   /**
@@ -67,8 +71,7 @@ public class PurityUtils {
    * @return whether the method is deterministic
    */
   public static boolean isDeterministic(AnnotationProvider provider, Element methodElement) {
-    EnumSet<Pure.Kind> kinds = getPurityKinds(provider, methodElement);
-    return kinds.contains(Kind.DETERMINISTIC);
+    return getCache(provider).getPurityKinds(provider, methodElement).contains(Kind.DETERMINISTIC);
   }
 
   /**
@@ -94,8 +97,9 @@ public class PurityUtils {
    * @return whether the method is side-effect-free
    */
   public static boolean isSideEffectFree(AnnotationProvider provider, Element methodElement) {
-    EnumSet<Pure.Kind> kinds = getPurityKinds(provider, methodElement);
-    return kinds.contains(Kind.SIDE_EFFECT_FREE);
+    return getCache(provider)
+        .getPurityKinds(provider, methodElement)
+        .contains(Kind.SIDE_EFFECT_FREE);
   }
 
   /**
@@ -115,7 +119,9 @@ public class PurityUtils {
   }
 
   /**
-   * Returns the types of purity of the method {@code methodElement}.
+   * Returns the types of purity of the method {@code methodElement}. If purity inference has been
+   * enabled for {@code provider} (see {@link #enablePurityInference}), this is the inferred purity
+   * of a method without purity annotations.
    *
    * @param provider how to get annotations
    * @param methodElement a method to test
@@ -124,21 +130,60 @@ public class PurityUtils {
   // TODO: should the return type be an EnumSet?
   public static EnumSet<Pure.Kind> getPurityKinds(
       AnnotationProvider provider, Element methodElement) {
-    AnnotationMirror pureAnnotation = provider.getDeclAnnotation(methodElement, Pure.class);
-    AnnotationMirror sefAnnotation =
-        provider.getDeclAnnotation(methodElement, SideEffectFree.class);
-    AnnotationMirror detAnnotation = provider.getDeclAnnotation(methodElement, Deterministic.class);
+    return getCache(provider).getPurityKinds(provider, methodElement).clone();
+  }
 
-    if (pureAnnotation != null) {
-      return EnumSet.of(Kind.DETERMINISTIC, Kind.SIDE_EFFECT_FREE);
+  /**
+   * Returns the types of purity that the method {@code methodTree} is annotated with. Unlike {@link
+   * #getPurityKinds(AnnotationProvider, MethodTree)}, this never returns inferred purity.
+   *
+   * @param provider how to get annotations
+   * @param methodTree a method to test
+   * @return the types of purity that the method {@code methodTree} is annotated with
+   */
+  public static EnumSet<Pure.Kind> getAnnotatedPurityKinds(
+      AnnotationProvider provider, MethodTree methodTree) {
+    Element methodElement = TreeUtils.elementFromTree(methodTree);
+    if (methodElement == null) {
+      throw new BugInCF("Could not find element for tree: " + methodTree);
     }
-    EnumSet<Pure.Kind> result = EnumSet.noneOf(Pure.Kind.class);
-    if (sefAnnotation != null) {
-      result.add(Kind.SIDE_EFFECT_FREE);
+    return getCache(provider).getAnnotatedPurityKinds(provider, methodElement).clone();
+  }
+
+  /**
+   * Enables inference of the purity of methods without purity annotations, for all queries that use
+   * {@code provider}. The purity of an unannotated method is inferred from its body if the method
+   * cannot be overridden and its source code is in the current compilation; see {@link
+   * PurityCache}.
+   *
+   * @param provider how to get annotations; must be a {@link PurityCacheOwner}
+   * @param env the processing environment
+   * @param assumeSideEffectFree true if all methods should be assumed to be @SideEffectFree
+   * @param assumeDeterministic true if all methods should be assumed to be @Deterministic
+   */
+  public static void enablePurityInference(
+      AnnotationProvider provider,
+      ProcessingEnvironment env,
+      boolean assumeSideEffectFree,
+      boolean assumeDeterministic) {
+    if (!(provider instanceof PurityCacheOwner)) {
+      throw new BugInCF("Purity inference requires a PurityCacheOwner: " + provider);
     }
-    if (detAnnotation != null) {
-      result.add(Kind.DETERMINISTIC);
+    getCache(provider)
+        .enableInference(Trees.instance(env), assumeSideEffectFree, assumeDeterministic);
+  }
+
+  /**
+   * Returns the cache of purity results for {@code provider}: the provider's own cache if it is a
+   * {@link PurityCacheOwner}, and otherwise a new, empty cache.
+   *
+   * @param provider how to get annotations
+   * @return the cache of purity results for {@code provider}
+   */
+  private static PurityCache getCache(AnnotationProvider provider) {
+    if (provider instanceof PurityCacheOwner) {
+      return ((PurityCacheOwner) provider).getPurityCache();
     }
-    return result;
+    return new PurityCache();
   }
 }
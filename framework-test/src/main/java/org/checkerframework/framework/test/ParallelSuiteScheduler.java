@@ -0,0 +1,164 @@
+package org.checkerframework.framework.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.junit.runner.Description;
+import org.junit.runner.Runner;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * Runs the children of a {@link PerDirectorySuite} or {@link PerFileSuite} on a pool of worker
+ * threads within the current JVM. It is used when system property "test.threads" is greater than
+ * 1; see {@link TestUtilities#getTestThreads()}.
+ *
+ * <p>Each child reports to its own {@link RunNotifier}, which records the child's events. When all
+ * children have finished, the recorded events are replayed to the suite's notifier in the order of
+ * the suite's children. Therefore the reported results, and their order, do not depend on thread
+ * scheduling.
+ */
+class ParallelSuiteScheduler implements RunnerScheduler {
+
+  /** The children of the suite, in the order in which their results are reported. */
+  private final List<Runner> children;
+
+  /** The worker threads. */
+  private final ExecutorService executor;
+
+  /** The events recorded for each child that has been run. */
+  private final Map<Runner, RecordingListener> recordings = new ConcurrentHashMap<>();
+
+  /**
+   * The notifier of the suite, to which recorded events are replayed. Set by the first call to
+   * {@link #runChild}.
+   */
+  private volatile @MonotonicNonNull RunNotifier suiteNotifier;
+
+  /**
+   * Creates a new ParallelSuiteScheduler.
+   *
+   * @param children the children of the suite, in the order in which to report their results
+   * @param threads the number of worker threads
+   */
+  ParallelSuiteScheduler(List<Runner> children, int threads) {
+    this.children = children;
+    this.executor = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+  }
+
+  @Override
+  public void schedule(Runnable childStatement) {
+    executor.execute(childStatement);
+  }
+
+  /**
+   * Runs one child of the suite, recording its events instead of reporting them. Called on a worker
+   * thread, in place of {@code Suite.runChild}.
+   *
+   * @param child the child to run
+   * @param notifier the notifier of the suite
+   */
+  void runChild(Runner child, RunNotifier notifier) {
+    suiteNotifier = notifier;
+    RecordingListener recording = new RecordingListener();
+    RunNotifier childNotifier = new RunNotifier();
+    childNotifier.addListener(recording);
+    try {
+      child.run(childNotifier);
+    } catch (Throwable t) {
+      childNotifier.fireTestFailure(new Failure(child.getDescription(), t));
+    }
+    recordings.put(child, recording);
+  }
+
+  @Override
+  public void finished() {
+    executor.shutdown();
+    try {
+      while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        // Keep waiting; individual tests have no time limit when run sequentially, either.
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    RunNotifier notifier = suiteNotifier;
+    if (notifier == null) {
+      return;
+    }
+    // Children that were filtered out of the run have no recording.
+    for (Runner child : children) {
+      RecordingListener recording = recordings.get(child);
+      if (recording != null) {
+        recording.replay(notifier);
+      }
+    }
+  }
+
+  /** Records the events of one child, so that they can be replayed later. */
+  private static class RecordingListener extends RunListener {
+
+    /** The recorded events, in the order they occurred. */
+    private final List<Consumer<RunNotifier>> events = new ArrayList<>();
+
+    @Override
+    public void testStarted(Description description) {
+      events.add(n -> n.fireTestStarted(description));
+    }
+
+    @Override
+    public void testFinished(Description description) {
+      events.add(n -> n.fireTestFinished(description));
+    }
+
+    @Override
+    public void testFailure(Failure failure) {
+      events.add(n -> n.fireTestFailure(failure));
+    }
+
+    @Override
+    public void testAssumptionFailure(Failure failure) {
+      events.add(n -> n.fireTestAssumptionFailed(failure));
+    }
+
+    @Override
+    public void testIgnored(Description description) {
+      events.add(n -> n.fireTestIgnored(description));
+    }
+
+    /**
+     * Reports the recorded events to the given notifier.
+     *
+     * @param notifier the notifier to report to
+     */
+    void replay(RunNotifier notifier) {
+      for (Consumer<RunNotifier> event : events) {
+        event.accept(notifier);
+      }
+    }
+  }
+
+  /** Creates daemon worker threads with descriptive names. */
+  private static class WorkerThreadFactory implements ThreadFactory {
+
+    /** The number of threads created so far. */
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, "checker-framework-test-" + count.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    }
+  }
+}
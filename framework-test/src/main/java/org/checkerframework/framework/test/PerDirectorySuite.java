@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.StringJoiner;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.javacutil.BugInCF;
 import org.junit.runner.Runner;
 import org.junit.runner.notification.RunNotifier;
@@ -33,6 +34,9 @@ import org.junit.runners.model.TestClass;
  * method must return either a {@code List<File>} where each element of the list is a Java file to
  * test against OR a {@code String []} where each String in the array is a directory in the tests
  * directory.
+ *
+ * <p>If system property "test.threads" is greater than 1, the children are run in parallel; see
+ * {@link TestUtilities#getTestThreads()}.
  */
 public class PerDirectorySuite extends Suite {
 
@@ -42,11 +46,26 @@ public class PerDirectorySuite extends Suite {
 
   private final ArrayList<Runner> runners = new ArrayList<>();
 
+  /**
+   * Runs the children on worker threads, or null if they are run sequentially. See {@link
+   * TestUtilities#getTestThreads()}.
+   */
+  private final @Nullable ParallelSuiteScheduler parallelScheduler;
+
   @Override
   protected List<Runner> getChildren() {
     return runners;
   }
 
+  @Override
+  protected void runChild(Runner runner, RunNotifier notifier) {
+    if (parallelScheduler == null) {
+      super.runChild(runner, notifier);
+    } else {
+      parallelScheduler.runChild(runner, notifier);
+    }
+  }
+
   /**
    * Only called reflectively. Do not use programmatically.
    *
@@ -62,6 +81,14 @@ public class PerDirectorySuite extends Suite {
     for (List<File> parameters : parametersList) {
       runners.add(new PerParameterSetTestRunner(javaTestClass, parameters));
     }
+
+    int threads = TestUtilities.getTestThreads();
+    if (threads > 1) {
+      parallelScheduler = new ParallelSuiteScheduler(runners, threads);
+      setScheduler(parallelScheduler);
+    } else {
+      parallelScheduler = null;
+    }
   }
 
   /** Returns a list of one-element arrays, each containing a Java File. */
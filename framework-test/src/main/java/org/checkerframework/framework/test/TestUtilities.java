@@ -504,4 +504,27 @@ public class TestUtilities {
   public static boolean getShouldEmitDebugInfo() {
     return SystemPlume.getBooleanSystemProperty("emit.test.debug");
   }
+
+  /**
+   * Returns the value of system property "test.threads": the number of worker threads that {@link
+   * PerDirectorySuite} and {@link PerFileSuite} use to run the tests of one test class in parallel,
+   * within the current JVM. The default is 1, which runs tests sequentially.
+   *
+   * <p>When this is greater than 1, {@link TypecheckExecutor} also reuses each worker thread's file
+   * manager across compilations, and loads the Checker Framework's classes in a separate class
+   * loader for each compilation, so that parallel compilations do not share static state.
+   *
+   * @return the value of system property "test.threads", or 1 if it is not set
+   */
+  public static int getTestThreads() {
+    String value = System.getProperty("test.threads");
+    if (value == null || value.isEmpty()) {
+      return 1;
+    }
+    try {
+      return Math.max(1, Integer.parseInt(value));
+    } catch (NumberFormatException e) {
+      throw new BugInCF("System property test.threads must be an integer, found: " + value);
+    }
+  }
 }
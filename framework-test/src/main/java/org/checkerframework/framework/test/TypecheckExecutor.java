@@ -1,13 +1,24 @@
 package org.checkerframework.framework.test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import javax.tools.DiagnosticCollector;
+import javax.tools.ForwardingJavaFileManager;
 import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
 import javax.tools.ToolProvider;
 import org.checkerframework.framework.test.diagnostics.JavaDiagnosticReader;
 import org.checkerframework.framework.test.diagnostics.TestDiagnostic;
@@ -17,6 +28,54 @@ import org.plumelib.util.StringsPlume;
 /** Used by the Checker Framework test suite to run the framework and generate a test result. */
 public class TypecheckExecutor {
 
+  /**
+   * Whether to reuse each thread's file manager across compilations, and to load the Checker
+   * Framework's classes in a separate loader for each thread. True when tests run in parallel; see
+   * {@link TestUtilities#getTestThreads()}.
+   */
+  private static final boolean reuseCompilerState = TestUtilities.getTestThreads() > 1;
+
+  /**
+   * The file manager of each thread, reused across compilations if {@link #reuseCompilerState} is
+   * true. Reusing a file manager keeps its cache of opened jar files, such as the JDK's.
+   */
+  private static final ThreadLocal<StandardJavaFileManager> reusableFileManager =
+      ThreadLocal.withInitial(
+          () -> ToolProvider.getSystemJavaCompiler().getStandardFileManager(null, null, null));
+
+  /**
+   * The class loader of each thread, if {@link #reuseCompilerState} is true. It is reused by the
+   * compilations of the thread that run the same checkers, which are usually those of one test
+   * class, so that the framework's classes are loaded and compiled only once per thread for them.
+   */
+  private static final ThreadLocal<IsolatingClassLoader> reusableClassLoader = new ThreadLocal<>();
+
+  /**
+   * The static fields of the Checker Framework that hold the state of a compilation, as pairs of a
+   * class name and a field name. They are reset before an {@link IsolatingClassLoader} is used
+   * again, so that no compilation sees the caches or issued warnings of a previous one.
+   */
+  private static final String[][] staticStateToReset = {
+    {"org.checkerframework.checker.units.UnitsAnnotatedTypeFactory", "aliasMap"},
+    {"org.checkerframework.checker.units.UnitsAnnotatedTypeFactory", "externalQualsMap"},
+    {"org.checkerframework.framework.source.SourceChecker", "gitPropertiesPrinted"},
+    {"org.checkerframework.framework.stub.AnnotationFileParser", "warnings"},
+    {"org.checkerframework.framework.util.AnnotatedTypes", "asSuperVisitor"},
+    {"org.checkerframework.framework.util.JavaParserUtil", "currentSourceVersion"}
+  };
+
+  /**
+   * The locations that a compilation may set via its command-line options. They are reset before a
+   * reusable file manager is used again, so that no compilation sees the paths of a previous one.
+   */
+  private static final StandardLocation[] locationsToReset = {
+    StandardLocation.CLASS_PATH,
+    StandardLocation.SOURCE_PATH,
+    StandardLocation.CLASS_OUTPUT,
+    StandardLocation.SOURCE_OUTPUT,
+    StandardLocation.ANNOTATION_PROCESSOR_PATH
+  };
+
   /** Creates a new TypecheckExecutor. */
   public TypecheckExecutor() {}
 
@@ -58,7 +117,7 @@ public class TypecheckExecutor {
     DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
 
     JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-    StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+    StandardJavaFileManager fileManager = getFileManager(compiler);
     Iterable<? extends JavaFileObject> javaFiles =
         fileManager.getJavaFileObjects(configuration.getTestSourceFiles().toArray(new File[] {}));
 
@@ -105,7 +164,15 @@ public class TypecheckExecutor {
 
     JavaCompiler.CompilationTask task =
         compiler.getTask(
-            javacOutput, fileManager, diagnostics, options, new ArrayList<String>(), javaFiles);
+            javacOutput,
+            reuseCompilerState
+                ? new IsolatingProcessorLoaderFileManager(
+                    fileManager, getClassLoader(configuration.getProcessors()))
+                : fileManager,
+            diagnostics,
+            options,
+            new ArrayList<String>(),
+            javaFiles);
 
     /*
      * In Eclipse, std out and std err for multiple tests appear as one
@@ -119,6 +186,182 @@ public class TypecheckExecutor {
         compiledWithoutError, javacOutput.toString(), javaFiles, diagnostics.getDiagnostics());
   }
 
+  /**
+   * Returns the file manager to use for a compilation: a new one, or this thread's reusable one if
+   * {@link #reuseCompilerState} is true.
+   *
+   * @param compiler the compiler
+   * @return the file manager to use for a compilation
+   */
+  private static StandardJavaFileManager getFileManager(JavaCompiler compiler) {
+    if (!reuseCompilerState) {
+      return compiler.getStandardFileManager(null, null, null);
+    }
+    StandardJavaFileManager fileManager = reusableFileManager.get();
+    try {
+      for (StandardLocation location : locationsToReset) {
+        fileManager.setLocation(location, null);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return fileManager;
+  }
+
+  /**
+   * Returns the class loader with which a compilation that runs the given checkers loads them: this
+   * thread's reusable one, with its static state reset, if it was created for the same checkers,
+   * and otherwise a new one that replaces it.
+   *
+   * @param processors the fully-qualified names of the checkers that the compilation runs
+   * @return the class loader with which to load the checkers
+   */
+  private static IsolatingClassLoader getClassLoader(List<String> processors) {
+    String key = String.join(",", processors);
+    IsolatingClassLoader loader = reusableClassLoader.get();
+    if (loader != null && loader.processors.equals(key)) {
+      loader.resetStaticState();
+      return loader;
+    }
+    loader = new IsolatingClassLoader(TypecheckExecutor.class.getClassLoader(), key);
+    reusableClassLoader.set(loader);
+    return loader;
+  }
+
+  /**
+   * A file manager that loads annotation processors with a given {@link IsolatingClassLoader}. Only
+   * processors on the test JVM's classpath can be loaded this way.
+   */
+  private static class IsolatingProcessorLoaderFileManager
+      extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+    /** The class loader with which to load annotation processors. */
+    private final IsolatingClassLoader loader;
+
+    /**
+     * Creates a new IsolatingProcessorLoaderFileManager.
+     *
+     * @param fileManager the file manager to delegate to
+     * @param loader the class loader with which to load annotation processors
+     */
+    IsolatingProcessorLoaderFileManager(
+        StandardJavaFileManager fileManager, IsolatingClassLoader loader) {
+      super(fileManager);
+      this.loader = loader;
+    }
+
+    @Override
+    public ClassLoader getClassLoader(JavaFileManager.Location location) {
+      // Without -processorpath, javac loads processors from the classpath.
+      if (location == StandardLocation.ANNOTATION_PROCESSOR_PATH
+          || location == StandardLocation.CLASS_PATH) {
+        return loader;
+      }
+      return super.getClassLoader(location);
+    }
+  }
+
+  /**
+   * A class loader that defines the classes of the Checker Framework itself, from the class files
+   * of its parent, and delegates all other classes to its parent. Each thread that uses its own
+   * IsolatingClassLoader has its own copy of the framework's static state, so compilations that run
+   * in parallel do not share caches or warnings that were issued. Compilations that run one after
+   * another on the same thread share a loader, and {@link #resetStaticState} clears the state that
+   * one of them leaves behind.
+   */
+  private static class IsolatingClassLoader extends ClassLoader {
+
+    /** The prefix of the names of the classes that this loader defines itself. */
+    private static final String ISOLATED_PREFIX = "org.checkerframework.";
+
+    /** The comma-separated names of the checkers for whose compilations this loader is used. */
+    final String processors;
+
+    /**
+     * Creates a new IsolatingClassLoader.
+     *
+     * @param parent the loader from whose class files to define the framework's classes, and to
+     *     which to delegate other classes
+     * @param processors the comma-separated names of the checkers for whose compilations this
+     *     loader is used
+     */
+    IsolatingClassLoader(ClassLoader parent, String processors) {
+      super(parent);
+      this.processors = processors;
+    }
+
+    /**
+     * Resets each field in {@link #staticStateToReset} of the classes that this loader has loaded:
+     * clears it if it is a collection or a map, and otherwise sets it to its default value. Classes
+     * that have not been loaded have no state to reset, so they are not loaded.
+     */
+    void resetStaticState() {
+      for (String[] classAndField : staticStateToReset) {
+        Class<?> clazz;
+        synchronized (getClassLoadingLock(classAndField[0])) {
+          clazz = findLoadedClass(classAndField[0]);
+        }
+        if (clazz == null) {
+          continue;
+        }
+        try {
+          Field field = clazz.getDeclaredField(classAndField[1]);
+          field.setAccessible(true);
+          Object value = field.get(null);
+          if (value instanceof Collection) {
+            ((Collection<?>) value).clear();
+          } else if (value instanceof Map) {
+            ((Map<?, ?>) value).clear();
+          } else if (Modifier.isFinal(field.getModifiers())) {
+            throw new Error("Cannot reset final field " + field);
+          } else if (field.getType() == boolean.class) {
+            field.setBoolean(null, false);
+          } else {
+            field.set(null, null);
+          }
+        } catch (ReflectiveOperationException e) {
+          throw new Error("Cannot reset " + String.join(".", classAndField), e);
+        }
+      }
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!name.startsWith(ISOLATED_PREFIX)) {
+        return super.loadClass(name, resolve);
+      }
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> result = findLoadedClass(name);
+        if (result == null) {
+          result = findClass(name);
+        }
+        if (resolve) {
+          resolveClass(result);
+        }
+        return result;
+      }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+      String resource = name.replace('.', '/') + ".class";
+      try (InputStream in = getParent().getResourceAsStream(resource)) {
+        if (in == null) {
+          throw new ClassNotFoundException(name);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+          bytes.write(buffer, 0, n);
+        }
+        return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+      } catch (IOException e) {
+        throw new ClassNotFoundException(name, e);
+      }
+    }
+  }
+
   /**
    * Reads the expected diagnostics for the given configuration and creates a TypecheckResult which
    * contains all of the missing and expected diagnostics.
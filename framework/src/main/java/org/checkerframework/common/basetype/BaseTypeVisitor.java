@@ -467,6 +467,12 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
       // on subtrees; we want to skip the class entirely.
       return null;
     }
+    WholeProgramInference wpi = atypeFactory.getWholeProgramInference();
+    if (wpi != null && !wpi.shouldCheck(root)) {
+      // Nothing that this class depends on changed in the previous round of whole-program
+      // inference.
+      return null;
+    }
     atypeFactory.preProcessClassTree(classTree);
 
     TreePath preTreePath = atypeFactory.getVisitorTreePath();
@@ -972,7 +978,7 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
     }
 
     // check "no" purity
-    EnumSet<Pure.Kind> kinds = PurityUtils.getPurityKinds(atypeFactory, node);
+    EnumSet<Pure.Kind> kinds = PurityUtils.getAnnotatedPurityKinds(atypeFactory, node);
     // @Deterministic makes no sense for a void method or constructor
     boolean isDeterministic = kinds.contains(Pure.Kind.DETERMINISTIC);
     if (isDeterministic) {
@@ -8,13 +8,16 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeMirror;
+import org.checkerframework.checker.compilermsgs.qual.CompilerMessageKey;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.signature.qual.CanonicalNameOrEmpty;
 import org.checkerframework.checker.signature.qual.ClassGetName;
 import org.checkerframework.common.basetype.BaseTypeChecker;
@@ -27,9 +30,18 @@ import org.plumelib.util.StringsPlume;
 /**
  * Evaluates expressions (such as method calls and field accesses) at compile time, to determine
  * whether they have compile-time constant values.
+ *
+ * <p>The reflective objects for methods and constructors are looked up once per element and
+ * cached, as are failed lookups. The evaluation of one call can be bounded by a budget on the
+ * number of invocations and on the time spent; see {@link ValueChecker#EVALUATION_BUDGET} and
+ * {@link ValueChecker#EVALUATION_TIMEOUT}. By default, neither is bounded, because a time limit
+ * makes the results depend on the load of the machine.
  */
 public class ReflectiveEvaluator {
 
+  /** The largest initial capacity of the list of the results of one call. */
+  private static final int INITIAL_RESULTS_CAPACITY = 1024;
+
   /** The checker that is using this ReflectiveEvaluator. */
   private BaseTypeChecker checker;
 
@@ -39,10 +51,57 @@ public class ReflectiveEvaluator {
    */
   private boolean reportWarnings;
 
+  /** The maximum number of invocations to evaluate one call, or {@code Long.MAX_VALUE}. */
+  private final long evaluationBudget;
+
+  /** The maximum time to evaluate one call, in nanoseconds, or 0 if there is no time limit. */
+  private final long evaluationTimeoutNanos;
+
+  /**
+   * Maps a method to its Method object, or to the reason that it could not be found. The value is
+   * a {@link Method} or a {@link LookupFailure}.
+   */
+  private final Map<ExecutableElement, Object> methodCache = new HashMap<>();
+
+  /** Maps a constructor to its Constructor object, or to null if it could not be found. */
+  private final Map<ExecutableElement, @Nullable Constructor<?>> constructorCache =
+      new HashMap<>();
+
+  /** The reason that a method could not be found: the warning to report at each use. */
+  private static class LookupFailure {
+    /** The message key of the warning. */
+    final @CompilerMessageKey String messageKey;
+
+    /** The arguments of the warning. */
+    final Object[] args;
+
+    /**
+     * Creates a new LookupFailure.
+     *
+     * @param messageKey the message key of the warning
+     * @param args the arguments of the warning
+     */
+    LookupFailure(@CompilerMessageKey String messageKey, Object... args) {
+      this.messageKey = messageKey;
+      this.args = args;
+    }
+  }
+
+  /**
+   * Creates a new ReflectiveEvaluator.
+   *
+   * @param checker the checker that is using this ReflectiveEvaluator
+   * @param factory the type factory of {@code checker}
+   * @param reportWarnings whether to report warnings about problems with evaluation
+   */
   public ReflectiveEvaluator(
       BaseTypeChecker checker, ValueAnnotatedTypeFactory factory, boolean reportWarnings) {
     this.checker = checker;
     this.reportWarnings = reportWarnings;
+    int budget = checker.getPositiveIntOption(ValueChecker.EVALUATION_BUDGET, 0);
+    this.evaluationBudget = budget == 0 ? Long.MAX_VALUE : budget;
+    this.evaluationTimeoutNanos =
+        checker.getPositiveIntOption(ValueChecker.EVALUATION_TIMEOUT, 0) * 1_000_000L;
   }
 
   /**
@@ -70,25 +129,39 @@ public class ReflectiveEvaluator {
       receiverValues = Collections.singletonList(null);
     }
 
-    List<Object[]> listOfArguments;
-    if (allArgValues == null) {
-      // Method does not have arguments
-      listOfArguments = Collections.singletonList(null);
-    } else {
-      // Find all possible argument sets
-      listOfArguments = cartesianProduct(allArgValues, allArgValues.size() - 1);
-    }
-
-    if (method.isVarArgs()) {
-      int numberOfParameters = method.getParameterTypes().length;
-      listOfArguments =
-          CollectionsPlume.mapList(
-              (Object[] args) -> normalizeVararg(args, numberOfParameters), listOfArguments);
+    long invocations = numberOfCombinations(allArgValues);
+    invocations =
+        invocations > Long.MAX_VALUE / receiverValues.size()
+            ? Long.MAX_VALUE
+            : invocations * receiverValues.size();
+    if (invocations > evaluationBudget) {
+      if (reportWarnings) {
+        checker.reportWarning(
+            tree, "method.evaluation.budget", method, invocations, evaluationBudget);
+      }
+      return null;
     }
 
-    List<Object> results = new ArrayList<>(listOfArguments.size());
-    for (Object[] arguments : listOfArguments) {
+    int numberOfParameters = method.isVarArgs() ? method.getParameterTypes().length : -1;
+    long deadline = System.nanoTime() + evaluationTimeoutNanos;
+    List<Object> results = new ArrayList<>((int) Math.min(invocations, INITIAL_RESULTS_CAPACITY));
+    for (Object[] arguments : cartesianProduct(allArgValues)) {
+      if (numberOfParameters != -1) {
+        arguments = normalizeVararg(arguments, numberOfParameters);
+      }
       for (Object receiver : receiverValues) {
+        if (evaluationTimeoutNanos != 0 && System.nanoTime() - deadline > 0) {
+          if (reportWarnings) {
+            checker.reportWarning(
+                tree,
+                "method.evaluation.timeout",
+                method,
+                evaluationTimeoutNanos / 1_000_000L,
+                results.size(),
+                invocations);
+          }
+          return null;
+        }
         try {
           results.add(method.invoke(receiver, arguments));
         } catch (InvocationTargetException e) {
@@ -133,7 +206,7 @@ public class ReflectiveEvaluator {
    * @param numberOfParameters number of parameters of the vararg method
    * @return the length of the array is exactly {@code numberOfParameters}
    */
-  private Object[] normalizeVararg(Object[] arguments, int numberOfParameters) {
+  private Object[] normalizeVararg(Object @Nullable [] arguments, int numberOfParameters) {
 
     if (arguments == null) {
       // null means no arguments.  For varargs no arguments is an empty array.
@@ -156,13 +229,36 @@ public class ReflectiveEvaluator {
 
   /**
    * Method for reflectively obtaining a method object so it can (potentially) be statically
-   * executed by the checker for constant propagation.
+   * executed by the checker for constant propagation. If the method cannot be found, reports a
+   * warning (if warnings are enabled) and returns null.
    *
    * @param tree a method invocation tree
-   * @return the Method object corresponding to the method invocation tree
+   * @return the Method object corresponding to the method invocation tree, or null
    */
-  private Method getMethodObject(MethodInvocationTree tree) {
+  private @Nullable Method getMethodObject(MethodInvocationTree tree) {
     final ExecutableElement ele = TreeUtils.elementFromUse(tree);
+    Object cached = methodCache.get(ele);
+    if (cached == null) {
+      cached = lookUpMethod(ele);
+      methodCache.put(ele, cached);
+    }
+    if (cached instanceof LookupFailure) {
+      if (reportWarnings) {
+        LookupFailure failure = (LookupFailure) cached;
+        checker.reportWarning(tree, failure.messageKey, failure.args);
+      }
+      return null;
+    }
+    return (Method) cached;
+  }
+
+  /**
+   * Reflectively looks up the Method object of a method.
+   *
+   * @param ele a method
+   * @return the Method object of {@code ele}, or the reason it could not be found
+   */
+  private Object lookUpMethod(ExecutableElement ele) {
     List<Class<?>> paramClasses = null;
     try {
       @CanonicalNameOrEmpty String className =
@@ -179,10 +275,7 @@ public class ReflectiveEvaluator {
       }
       return method;
     } catch (ClassNotFoundException | UnsupportedClassVersionError | NoClassDefFoundError e) {
-      if (reportWarnings) {
-        checker.reportWarning(tree, "class.find.failed", ele.getEnclosingElement());
-      }
-      return null;
+      return new LookupFailure("class.find.failed", ele.getEnclosingElement());
 
     } catch (Throwable e) {
       // The class we attempted to getMethod from inside the
@@ -190,16 +283,11 @@ public class ReflectiveEvaluator {
       Element classElem = ele.getEnclosingElement();
 
       if (classElem == null) {
-        if (reportWarnings) {
-          checker.reportWarning(tree, "method.find.failed", ele.getSimpleName(), paramClasses);
-        }
+        return new LookupFailure("method.find.failed", ele.getSimpleName(), paramClasses);
       } else {
-        if (reportWarnings) {
-          checker.reportWarning(
-              tree, "method.find.failed.in.class", ele.getSimpleName(), paramClasses, classElem);
-        }
+        return new LookupFailure(
+            "method.find.failed.in.class", ele.getSimpleName(), paramClasses, classElem);
       }
-      return null;
     }
   }
 
@@ -215,37 +303,64 @@ public class ReflectiveEvaluator {
         (Element e) -> TypesUtils.getClassFromType(ElementUtils.getType(e)), ele.getParameters());
   }
 
-  private List<Object[]> cartesianProduct(List<List<?>> allArgValues, int whichArg) {
-    List<?> argValues = allArgValues.get(whichArg);
-    List<Object[]> tuples = new ArrayList<>();
-
-    for (Object value : argValues) {
-      if (whichArg == 0) {
-        Object[] objects = new Object[allArgValues.size()];
-        objects[0] = value;
-        tuples.add(objects);
-      } else {
-        List<Object[]> lastTuples = cartesianProduct(allArgValues, whichArg - 1);
-        List<Object[]> copies = copy(lastTuples);
-        for (Object[] copy : copies) {
-          copy[whichArg] = value;
+  /**
+   * Returns the number of argument lists that {@link #cartesianProduct} returns.
+   *
+   * @param allArgValues the possible values of each argument, or null if there are no arguments
+   * @return the number of combinations of argument values, or {@code Long.MAX_VALUE} if it does not
+   *     fit in a long
+   */
+  private static long numberOfCombinations(@Nullable List<List<?>> allArgValues) {
+    long result = 1;
+    if (allArgValues != null) {
+      for (List<?> argValues : allArgValues) {
+        if (argValues.size() != 0 && result > Long.MAX_VALUE / argValues.size()) {
+          return Long.MAX_VALUE;
         }
-        tuples.addAll(copies);
+        result *= argValues.size();
       }
     }
-    return tuples;
+    return result;
   }
 
   /**
-   * Returns a depth-2 copy of the given list. In the returned value, the list and the arrays in it
-   * are new, but the elements of the arrays are shared with the argument.
+   * Returns every combination of argument values: the Cartesian product of the possible values of
+   * each argument. The first argument varies fastest.
    *
-   * @param lastTuples a list of arrays
-   * @return a depth-2 copy of the given list
+   * @param allArgValues the possible values of each argument, or null if there are no arguments
+   * @return every combination of argument values; a list containing only null if there are no
+   *     arguments
    */
-  private List<Object[]> copy(List<Object[]> lastTuples) {
-    return CollectionsPlume.mapList(
-        (Object[] list) -> Arrays.copyOf(list, list.length), lastTuples);
+  private static List<Object @Nullable []> cartesianProduct(@Nullable List<List<?>> allArgValues) {
+    List<Object @Nullable []> tuples = new ArrayList<>();
+    if (allArgValues == null) {
+      tuples.add(null);
+      return tuples;
+    }
+    int numberOfArgs = allArgValues.size();
+    // indices[i] is the index of the current value of argument i.
+    int[] indices = new int[numberOfArgs];
+    for (List<?> argValues : allArgValues) {
+      if (argValues.isEmpty()) {
+        return tuples;
+      }
+    }
+    while (true) {
+      Object[] tuple = new Object[numberOfArgs];
+      for (int i = 0; i < numberOfArgs; i++) {
+        tuple[i] = allArgValues.get(i).get(indices[i]);
+      }
+      tuples.add(tuple);
+      // Advance to the next combination, varying the first argument fastest.
+      int i = 0;
+      while (i < numberOfArgs && ++indices[i] == allArgValues.get(i).size()) {
+        indices[i] = 0;
+        i++;
+      }
+      if (i == numberOfArgs) {
+        return tuples;
+      }
+    }
   }
 
   /**
@@ -287,32 +402,51 @@ public class ReflectiveEvaluator {
 
   public List<?> evaluteConstructorCall(
       ArrayList<List<?>> argValues, NewClassTree tree, TypeMirror typeToCreate) {
+    ExecutableElement ele = TreeUtils.elementFromUse(tree);
     Constructor<?> constructor;
-    try {
-      // get the constructor
-      constructor = getConstructorObject(tree, typeToCreate);
-    } catch (Throwable e) {
-      // Catch all exception so that the checker doesn't crash
-      if (reportWarnings) {
-        checker.reportWarning(tree, "constructor.invocation.failed");
+    if (constructorCache.containsKey(ele)) {
+      constructor = constructorCache.get(ele);
+    } else {
+      try {
+        // get the constructor
+        constructor = getConstructorObject(ele, typeToCreate);
+      } catch (Throwable e) {
+        // Catch all exception so that the checker doesn't crash
+        constructor = null;
       }
-      return null;
+      constructorCache.put(ele, constructor);
     }
     if (constructor == null) {
+      if (reportWarnings) {
+        checker.reportWarning(tree, "constructor.invocation.failed");
+      }
       return null;
     }
 
-    List<Object[]> listOfArguments;
-    if (argValues == null) {
-      // Method does not have arguments
-      listOfArguments = Collections.singletonList(null);
-    } else {
-      // Find all possible argument sets
-      listOfArguments = cartesianProduct(argValues, argValues.size() - 1);
+    long invocations = numberOfCombinations(argValues);
+    if (invocations > evaluationBudget) {
+      if (reportWarnings) {
+        checker.reportWarning(
+            tree, "method.evaluation.budget", constructor, invocations, evaluationBudget);
+      }
+      return null;
     }
 
-    List<Object> results = new ArrayList<>(listOfArguments.size());
-    for (Object[] arguments : listOfArguments) {
+    long deadline = System.nanoTime() + evaluationTimeoutNanos;
+    List<Object> results = new ArrayList<>((int) Math.min(invocations, INITIAL_RESULTS_CAPACITY));
+    for (Object[] arguments : cartesianProduct(argValues)) {
+      if (evaluationTimeoutNanos != 0 && System.nanoTime() - deadline > 0) {
+        if (reportWarnings) {
+          checker.reportWarning(
+              tree,
+              "method.evaluation.timeout",
+              constructor,
+              evaluationTimeoutNanos / 1_000_000L,
+              results.size(),
+              invocations);
+        }
+        return null;
+      }
       try {
         results.add(constructor.newInstance(arguments));
       } catch (Throwable e) {
@@ -329,9 +463,8 @@ public class ReflectiveEvaluator {
     return results;
   }
 
-  private Constructor<?> getConstructorObject(NewClassTree tree, TypeMirror typeToCreate)
+  private Constructor<?> getConstructorObject(ExecutableElement ele, TypeMirror typeToCreate)
       throws ClassNotFoundException, NoSuchMethodException {
-    ExecutableElement ele = TreeUtils.elementFromUse(tree);
     List<Class<?>> paramClasses = getParameterClasses(ele);
     Class<?> recClass = boxPrimitives(TypesUtils.getClassFromType(typeToCreate));
     Constructor<?> constructor = recClass.getConstructor(paramClasses.toArray(new Class<?>[0]));
@@ -0,0 +1,266 @@
+package org.checkerframework.common.value;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.lang.model.element.AnnotationMirror;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.value.util.Range;
+
+/**
+ * The possible values of a String-valued expression, as used by the Value Checker to compute the
+ * result of string concatenation. From most to least precise, it records a set of possible values,
+ * a set of possible lengths, and a range of possible lengths; each is computed from the more
+ * precise one when that one is known.
+ *
+ * <p>The values and lengths of a concatenation are not computed when the concatenation is created,
+ * but only when they are requested. The values are built only while there are at most {@link
+ * ValueAnnotatedTypeFactory#MAX_VALUES} of them, and the lengths are computed from the lengths of
+ * the operands, so a concatenation with too many values never builds the product of its operands'
+ * values.
+ *
+ * <p>A {@code StringValues} is immutable; the lazily computed components are cached.
+ */
+class StringValues {
+
+  /** The left operand, if this is a concatenation. */
+  private final @Nullable StringValues left;
+
+  /** The right operand, if this is a concatenation. */
+  private final @Nullable StringValues right;
+
+  /** The possible values, or null if they are unknown or, for a concatenation, too many. */
+  private @Nullable List<String> values;
+
+  /** True if {@link #values} has been computed. */
+  private boolean valuesComputed;
+
+  /** The possible lengths, or null if they are unknown. */
+  private @Nullable List<Integer> lengths;
+
+  /** True if {@link #lengths} has been computed. */
+  private boolean lengthsComputed;
+
+  /** A range that contains every possible length. */
+  private final Range lengthRange;
+
+  /**
+   * Creates a {@code StringValues} that is not a concatenation.
+   *
+   * @param values the possible values, or null if they are unknown
+   * @param lengths the possible lengths, or null if they are unknown
+   * @param lengthRange a range that contains every possible length
+   */
+  private StringValues(
+      @Nullable List<String> values, @Nullable List<Integer> lengths, Range lengthRange) {
+    this.left = null;
+    this.right = null;
+    this.values = values;
+    this.valuesComputed = true;
+    this.lengths = lengths;
+    this.lengthsComputed = true;
+    this.lengthRange = lengthRange;
+  }
+
+  /**
+   * Creates a {@code StringValues} for the concatenation of {@code left} and {@code right}.
+   *
+   * @param left the left operand
+   * @param right the right operand
+   */
+  private StringValues(StringValues left, StringValues right) {
+    this.left = left;
+    this.right = right;
+    this.lengthRange = left.lengthRange.plus(right.lengthRange).intersect(Range.INT_EVERYTHING);
+  }
+
+  /**
+   * Returns a {@code StringValues} with the given possible values.
+   *
+   * @param values the possible values; an empty list means that the expression has no value
+   * @return a {@code StringValues} with the given possible values
+   */
+  static StringValues ofValues(List<String> values) {
+    List<Integer> lengths = ValueCheckerUtils.getLengthsForStringValues(values);
+    return new StringValues(values, lengths, ValueCheckerUtils.getRangeFromValues(lengths));
+  }
+
+  /**
+   * Returns a {@code StringValues} with unknown values and the given possible lengths.
+   *
+   * @param lengths the possible lengths; an empty list means that the expression has no value
+   * @return a {@code StringValues} with unknown values and the given possible lengths
+   */
+  static StringValues ofLengths(List<Integer> lengths) {
+    return new StringValues(null, lengths, ValueCheckerUtils.getRangeFromValues(lengths));
+  }
+
+  /**
+   * Returns a {@code StringValues} with unknown values and lengths in the given range.
+   *
+   * @param lengthRange a range that contains every possible length
+   * @return a {@code StringValues} with unknown values and lengths in the given range
+   */
+  static StringValues ofLengthRange(Range lengthRange) {
+    return new StringValues(null, null, lengthRange);
+  }
+
+  /**
+   * Returns a {@code StringValues} for the concatenation of this and {@code other}. Neither the
+   * values nor the lengths of the result are computed by this method.
+   *
+   * @param other the right operand of the concatenation
+   * @return a {@code StringValues} for the concatenation of this and {@code other}
+   */
+  StringValues concat(StringValues other) {
+    return new StringValues(this, other);
+  }
+
+  /**
+   * Returns a {@code StringValues} that also contains the string "null", which is the result of
+   * converting a null reference to a String.
+   *
+   * @return a {@code StringValues} that also contains the string "null"
+   */
+  StringValues orNull() {
+    List<String> values = getValues();
+    if (values != null) {
+      List<String> withNull = new ArrayList<>(values.size() + 1);
+      withNull.addAll(values);
+      withNull.add("null");
+      return ofValues(withNull);
+    }
+    Range rangeWithNull = lengthRange.union(Range.create(4, 4));
+    List<Integer> lengths = getLengths();
+    if (lengths != null) {
+      List<Integer> withNull = new ArrayList<>(lengths.size() + 1);
+      withNull.addAll(lengths);
+      withNull.add(4);
+      return new StringValues(null, withNull, rangeWithNull);
+    }
+    return ofLengthRange(rangeWithNull);
+  }
+
+  /**
+   * Returns the possible values, or null if they are unknown. The values of a concatenation are
+   * distinct, and are null if there are more than {@link ValueAnnotatedTypeFactory#MAX_VALUES} of
+   * them.
+   *
+   * @return the possible values, or null
+   */
+  @Nullable List<String> getValues() {
+    if (!valuesComputed) {
+      values = computeConcatenatedValues();
+      valuesComputed = true;
+    }
+    return values;
+  }
+
+  /**
+   * Computes the values of a concatenation, stopping as soon as there are more than {@link
+   * ValueAnnotatedTypeFactory#MAX_VALUES} distinct values.
+   *
+   * @return the distinct values of the concatenation, or null
+   */
+  private @Nullable List<String> computeConcatenatedValues() {
+    if (left == null || right == null) {
+      return null;
+    }
+    List<String> leftValues = left.getValues();
+    if (leftValues == null) {
+      return null;
+    }
+    List<String> rightValues = right.getValues();
+    if (rightValues == null) {
+      return null;
+    }
+    Set<String> result = new LinkedHashSet<>();
+    for (String leftValue : leftValues) {
+      for (String rightValue : rightValues) {
+        result.add(leftValue + rightValue);
+        if (result.size() > ValueAnnotatedTypeFactory.MAX_VALUES) {
+          return null;
+        }
+      }
+    }
+    return new ArrayList<>(result);
+  }
+
+  /**
+   * Returns the distinct possible lengths, or null if they are unknown. Lengths that do not fit in
+   * an int are omitted.
+   *
+   * @return the distinct possible lengths, or null
+   */
+  @Nullable List<Integer> getLengths() {
+    if (!lengthsComputed) {
+      lengths = computeConcatenatedLengths();
+      lengthsComputed = true;
+    }
+    return lengths;
+  }
+
+  /**
+   * Computes the lengths of a concatenation from the lengths of its operands.
+   *
+   * @return the distinct lengths of the concatenation, or null
+   */
+  private @Nullable List<Integer> computeConcatenatedLengths() {
+    List<String> values = getValues();
+    if (values != null) {
+      return ValueCheckerUtils.getLengthsForStringValues(values);
+    }
+    if (left == null || right == null) {
+      return null;
+    }
+    List<Integer> leftLengths = left.getLengths();
+    if (leftLengths == null) {
+      return null;
+    }
+    List<Integer> rightLengths = right.getLengths();
+    if (rightLengths == null) {
+      return null;
+    }
+    Set<Integer> result = new TreeSet<>();
+    for (int leftLength : leftLengths) {
+      for (int rightLength : rightLengths) {
+        long length = (long) leftLength + rightLength;
+        // Lengths not fitting into int are not allowed
+        if (length <= Integer.MAX_VALUE) {
+          result.add((int) length);
+        }
+      }
+    }
+    return new ArrayList<>(result);
+  }
+
+  /**
+   * Returns a range that contains every possible length.
+   *
+   * @return a range that contains every possible length
+   */
+  Range getLengthRange() {
+    return lengthRange;
+  }
+
+  /**
+   * Returns the most precise annotation for these values: a {@code @StringVal} if the values are
+   * known, an {@code @ArrayLen} if the lengths are known, and an {@code @ArrayLenRange} otherwise.
+   *
+   * @param atypeFactory the factory used to create the annotation
+   * @return the most precise annotation for these values
+   */
+  AnnotationMirror toAnnotation(ValueAnnotatedTypeFactory atypeFactory) {
+    List<String> values = getValues();
+    if (values != null) {
+      return atypeFactory.createStringAnnotation(values);
+    }
+    List<Integer> lengths = getLengths();
+    if (lengths != null) {
+      return atypeFactory.createArrayLenAnnotation(lengths);
+    }
+    return atypeFactory.createArrayLenRangeAnnotation(lengthRange);
+  }
+}
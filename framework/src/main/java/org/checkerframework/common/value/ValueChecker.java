@@ -20,7 +20,9 @@ import org.checkerframework.framework.source.SupportedOptions;
 @SupportedOptions({
   ValueChecker.REPORT_EVAL_WARNS,
   ValueChecker.IGNORE_RANGE_OVERFLOW,
-  ValueChecker.NON_NULL_STRINGS_CONCATENATION
+  ValueChecker.NON_NULL_STRINGS_CONCATENATION,
+  ValueChecker.EVALUATION_BUDGET,
+  ValueChecker.EVALUATION_TIMEOUT
 })
 public class ValueChecker extends BaseTypeChecker {
   /**
@@ -32,6 +34,16 @@ public class ValueChecker extends BaseTypeChecker {
   public static final String IGNORE_RANGE_OVERFLOW = "ignoreRangeOverflow";
   /** Command-line option that assumes most expressions in String concatenations can be null. */
   public static final String NON_NULL_STRINGS_CONCATENATION = "nonNullStringsConcatenation";
+  /**
+   * Command-line option for the maximum number of invocations to evaluate one call to a
+   * {@code @StaticallyExecutable} method or constructor at compile time.
+   */
+  public static final String EVALUATION_BUDGET = "evaluationBudget";
+  /**
+   * Command-line option for the maximum time, in milliseconds, to evaluate one call to a
+   * {@code @StaticallyExecutable} method or constructor at compile time.
+   */
+  public static final String EVALUATION_TIMEOUT = "evaluationTimeout";
 
   @Override
   protected BaseTypeVisitor<?> createSourceVisitor() {
@@ -11,6 +11,7 @@ import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.value.qual.ArrayLen;
 import org.checkerframework.common.value.qual.ArrayLenRange;
 import org.checkerframework.common.value.qual.StringVal;
@@ -599,34 +600,6 @@ public class ValueTransfer extends CFTransfer {
     return stringConcatenation(n.getLeftOperand(), n.getRightOperand(), p, result);
   }
 
-  /**
-   * Calculates possible lengths of a result of string concatenation of strings with known lengths.
-   */
-  private List<Integer> calculateLengthAddition(
-      List<Integer> leftLengths, List<Integer> rightLengths) {
-    List<Integer> result = new ArrayList<>(leftLengths.size() * rightLengths.size());
-
-    for (int left : leftLengths) {
-      for (int right : rightLengths) {
-        long resultLength = (long) left + right;
-        // Lengths not fitting into int are not allowed
-        if (resultLength <= Integer.MAX_VALUE) {
-          result.add((int) resultLength);
-        }
-      }
-    }
-
-    return result;
-  }
-
-  /**
-   * Calculates a range of possible lengths of a result of string concatenation of strings with
-   * known ranges of lengths.
-   */
-  private Range calculateLengthRangeAddition(Range leftLengths, Range rightLengths) {
-    return leftLengths.plus(rightLengths).intersect(Range.INT_EVERYTHING);
-  }
-
   /**
    * Checks whether or not the passed node is nullable. This superficial check assumes that every
    * node is nullable unless it is a primitive, String literal, or compile-time constant.
@@ -649,101 +622,70 @@ public class ValueTransfer extends CFTransfer {
     return !ElementUtils.isCompileTimeConstant(element);
   }
 
-  /** Creates an annotation for a result of string concatenation. */
+  /**
+   * Returns the possible values of {@code subNode}, as casted to a String, or null if nothing is
+   * known about them.
+   *
+   * @param subNode a subNode of p
+   * @param p TransferInput
+   * @return the possible values of {@code subNode}, or null
+   */
+  private @Nullable StringValues getStringAbstraction(
+      Node subNode, TransferInput<CFValue, CFStore> p) {
+    List<String> values = getStringValues(subNode, p);
+    if (values != null) {
+      return StringValues.ofValues(values);
+    }
+    List<Integer> lengths = getStringLengths(subNode, p);
+    if (lengths != null) {
+      return StringValues.ofLengths(lengths);
+    }
+    Range lengthRange = getStringLengthRange(subNode, p);
+    if (lengthRange != null) {
+      return StringValues.ofLengthRange(lengthRange);
+    }
+    return null;
+  }
+
+  /**
+   * Returns true if {@code operand} of a string concatenation may be converted to the string
+   * "null".
+   *
+   * @param operand an operand of a string concatenation
+   * @param nonNullStringConcat true if the -AnonNullStringsConcatenation option is set
+   * @return true if the operand may be converted to the string "null"
+   */
+  private boolean mayBeNullString(Node operand, boolean nonNullStringConcat) {
+    if (!nonNullStringConcat) {
+      return isNullable(operand);
+    }
+    return operand instanceof StringConversionNode
+        && ((StringConversionNode) operand).getOperand().getType().getKind() == TypeKind.NULL;
+  }
+
+  /**
+   * Creates an annotation for a result of string concatenation. The possible values of the result
+   * are built only if there are at most {@link ValueAnnotatedTypeFactory#MAX_VALUES} of them;
+   * otherwise, the result is computed from the lengths, or ranges of lengths, of the operands.
+   */
   private AnnotationMirror createAnnotationForStringConcatenation(
       Node leftOperand, Node rightOperand, TransferInput<CFValue, CFStore> p) {
-
-    // Try using sets of string values
-    List<String> leftValues = getStringValues(leftOperand, p);
-    List<String> rightValues = getStringValues(rightOperand, p);
+    StringValues left = getStringAbstraction(leftOperand, p);
+    StringValues right = getStringAbstraction(rightOperand, p);
+    if (left == null || right == null) {
+      return atypeFactory.UNKNOWNVAL;
+    }
 
     boolean nonNullStringConcat =
         atypeFactory.getChecker().hasOption("nonNullStringsConcatenation");
-
-    if (leftValues != null && rightValues != null) {
-      // Both operands have known string values, compute set of results
-      if (!nonNullStringConcat) {
-        if (isNullable(leftOperand)) {
-          leftValues = CollectionsPlume.append(leftValues, "null");
-        }
-        if (isNullable(rightOperand)) {
-          rightValues = CollectionsPlume.append(rightValues, "null");
-        }
-      } else {
-        if (leftOperand instanceof StringConversionNode) {
-          if (((StringConversionNode) leftOperand).getOperand().getType().getKind()
-              == TypeKind.NULL) {
-            leftValues = CollectionsPlume.append(leftValues, "null");
-          }
-        }
-        if (rightOperand instanceof StringConversionNode) {
-          if (((StringConversionNode) rightOperand).getOperand().getType().getKind()
-              == TypeKind.NULL) {
-            rightValues = CollectionsPlume.append(rightValues, "null");
-          }
-        }
-      }
-
-      List<String> concatValues = new ArrayList<>(leftValues.size() * rightValues.size());
-      for (String left : leftValues) {
-        for (String right : rightValues) {
-          concatValues.add(left + right);
-        }
-      }
-      return atypeFactory.createStringAnnotation(concatValues);
-    }
-
-    // Try using sets of lengths
-    List<Integer> leftLengths =
-        leftValues != null
-            ? ValueCheckerUtils.getLengthsForStringValues(leftValues)
-            : getStringLengths(leftOperand, p);
-    List<Integer> rightLengths =
-        rightValues != null
-            ? ValueCheckerUtils.getLengthsForStringValues(rightValues)
-            : getStringLengths(rightOperand, p);
-
-    if (leftLengths != null && rightLengths != null) {
-      // Both operands have known lengths, compute set of result lengths
-      if (!nonNullStringConcat) {
-        if (isNullable(leftOperand)) {
-          leftLengths = new ArrayList<>(leftLengths);
-          leftLengths.add(4); // "null"
-        }
-        if (isNullable(rightOperand)) {
-          rightLengths = new ArrayList<>(rightLengths);
-          rightLengths.add(4); // "null"
-        }
-      }
-      List<Integer> concatLengths = calculateLengthAddition(leftLengths, rightLengths);
-      return atypeFactory.createArrayLenAnnotation(concatLengths);
+    if (mayBeNullString(leftOperand, nonNullStringConcat)) {
+      left = left.orNull();
     }
-
-    // Try using ranges of lengths
-    Range leftLengthRange =
-        leftLengths != null
-            ? ValueCheckerUtils.getRangeFromValues(leftLengths)
-            : getStringLengthRange(leftOperand, p);
-    Range rightLengthRange =
-        rightLengths != null
-            ? ValueCheckerUtils.getRangeFromValues(rightLengths)
-            : getStringLengthRange(rightOperand, p);
-
-    if (leftLengthRange != null && rightLengthRange != null) {
-      // Both operands have a length from a known range, compute a range of result lengths
-      if (!nonNullStringConcat) {
-        if (isNullable(leftOperand)) {
-          leftLengthRange = leftLengthRange.union(Range.create(4, 4)); // "null"
-        }
-        if (isNullable(rightOperand)) {
-          rightLengthRange = rightLengthRange.union(Range.create(4, 4)); // "null"
-        }
-      }
-      Range concatLengthRange = calculateLengthRangeAddition(leftLengthRange, rightLengthRange);
-      return atypeFactory.createArrayLenRangeAnnotation(concatLengthRange);
+    if (mayBeNullString(rightOperand, nonNullStringConcat)) {
+      right = right.orNull();
     }
 
-    return atypeFactory.UNKNOWNVAL;
+    return left.concat(right).toAnnotation(atypeFactory);
   }
 
   public TransferResult<CFValue, CFStore> stringConcatenation(
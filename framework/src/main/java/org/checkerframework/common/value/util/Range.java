@@ -1,9 +1,7 @@
 package org.checkerframework.common.value.util;
 
-import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import javax.lang.model.type.TypeKind;
@@ -142,43 +140,120 @@ public class Range {
     }
   }
 
-  /** Long.MIN_VALUE, as a BigInteger. */
-  private static final BigInteger BIG_LONG_MIN_VALUE = BigInteger.valueOf(Long.MIN_VALUE);
-  /** Long.MAX_VALUE, as a BigInteger. */
-  private static final BigInteger BIG_LONG_MAX_VALUE = BigInteger.valueOf(Long.MAX_VALUE);
-  /** The number of Long values, as a BigInteger. */
-  private static final BigInteger BIG_LONG_WIDTH =
-      BIG_LONG_MAX_VALUE.subtract(BIG_LONG_MIN_VALUE).add(BigInteger.ONE);
-
   /**
-   * Creates a range using BigInteger type bounds.
+   * Creates a range using 128-bit bounds. Each bound is a 128-bit two's-complement integer, given
+   * as its high 64 bits and its low 64 bits, so the bounds of the result of an operation on two
+   * longs can be represented exactly without allocating.
    *
-   * <p>If the BigInteger range is wider than the full range of the Long class, return EVERYTHING.
+   * <p>If the 128-bit range is wider than the full range of the Long class, return EVERYTHING.
    *
-   * <p>If one of the BigInteger bounds is out of Long's range and {@link #ignoreOverflow} is false,
+   * <p>If one of the 128-bit bounds is out of Long's range and {@link #ignoreOverflow} is false,
    * convert the bounds to Long type in accordance with Java twos-complement overflow rules, e.g.,
    * Long.MAX_VALUE + 1 is converted to Long.MIN_VALUE.
    *
-   * <p>If one of the BigInteger bounds is out of Long's range and {@link #ignoreOverflow} is true,
+   * <p>If one of the 128-bit bounds is out of Long's range and {@link #ignoreOverflow} is true,
    * convert the bound that is outside Long's range to max/min value of a Long.
    *
-   * @param bigFrom the lower bound of the BigInteger range
-   * @param bigTo the upper bound of the BigInteger range
-   * @return a range with Long type bounds converted from the BigInteger range
+   * @param fromHigh the high 64 bits of the lower bound of the 128-bit range
+   * @param fromLow the low 64 bits of the lower bound of the 128-bit range
+   * @param toHigh the high 64 bits of the upper bound of the 128-bit range
+   * @param toLow the low 64 bits of the upper bound of the 128-bit range
+   * @return a range with Long type bounds converted from the 128-bit range
    */
-  private static Range create(BigInteger bigFrom, BigInteger bigTo) {
+  private static Range create(long fromHigh, long fromLow, long toHigh, long toLow) {
     if (ignoreOverflow) {
-      bigFrom = bigFrom.max(BIG_LONG_MIN_VALUE);
-      bigTo = bigTo.min(BIG_LONG_MAX_VALUE);
+      // Only a lower bound that is too small and an upper bound that is too large are clipped; a
+      // bound that is out of range in the other direction wraps around.
+      if (fromHigh < 0 && fromHigh != fromLow >> 63) {
+        fromLow = Long.MIN_VALUE;
+      }
+      if (toHigh >= 0 && toHigh != toLow >> 63) {
+        toLow = Long.MAX_VALUE;
+      }
     } else {
-      BigInteger bigWidth = bigTo.subtract(bigFrom).add(BigInteger.ONE);
-      if (bigWidth.compareTo(BIG_LONG_WIDTH) > 0) {
+      // The range is wider than the Long range iff to - from >= 2^64, that is, iff the high 64
+      // bits of to - from are positive.
+      long borrow = Long.compareUnsigned(toLow, fromLow) < 0 ? 1 : 0;
+      if (toHigh - fromHigh - borrow > 0) {
         return EVERYTHING;
       }
     }
-    long longFrom = bigFrom.longValue();
-    long longTo = bigTo.longValue();
-    return createOrElse(longFrom, longTo, EVERYTHING);
+    return createOrElse(fromLow, toLow, EVERYTHING);
+  }
+
+  /**
+   * Returns the high 64 bits of the exact 128-bit sum of two longs. The low 64 bits are {@code x +
+   * y}.
+   *
+   * @param x a value
+   * @param y a value
+   * @return the high 64 bits of the 128-bit sum of {@code x} and {@code y}
+   */
+  private static long addHigh(long x, long y) {
+    long carry = Long.compareUnsigned(x + y, x) < 0 ? 1 : 0;
+    return (x >> 63) + (y >> 63) + carry;
+  }
+
+  /**
+   * Returns the high 64 bits of the exact 128-bit difference of two longs. The low 64 bits are
+   * {@code x - y}.
+   *
+   * @param x a value
+   * @param y a value
+   * @return the high 64 bits of the 128-bit difference of {@code x} and {@code y}
+   */
+  private static long subtractHigh(long x, long y) {
+    long borrow = Long.compareUnsigned(x, y) < 0 ? 1 : 0;
+    return (x >> 63) - (y >> 63) - borrow;
+  }
+
+  /**
+   * Returns the high 64 bits of the exact 128-bit product of two longs. The low 64 bits are {@code
+   * x * y}. This is {@code Math.multiplyHigh}, which is not available in Java 8.
+   *
+   * @param x a value
+   * @param y a value
+   * @return the high 64 bits of the 128-bit product of {@code x} and {@code y}
+   */
+  private static long multiplyHigh(long x, long y) {
+    // Section 8-2 of Henry S. Warren, Jr., Hacker's Delight (2nd ed.)
+    long x1 = x >> 32;
+    long x2 = x & 0xFFFFFFFFL;
+    long y1 = y >> 32;
+    long y2 = y & 0xFFFFFFFFL;
+    long z2 = x2 * y2;
+    long t = x1 * y2 + (z2 >>> 32);
+    long z1 = t & 0xFFFFFFFFL;
+    long z0 = t >> 32;
+    z1 += x2 * y1;
+    return x1 * y1 + z0 + (z1 >> 32);
+  }
+
+  /**
+   * Returns the high 64 bits of the exact 128-bit result of shifting a long left. The low 64 bits
+   * are {@code x << shift}.
+   *
+   * @param x a value
+   * @param shift the number of bits to shift by, between 0 and 63
+   * @return the high 64 bits of the 128-bit result of shifting {@code x} left by {@code shift}
+   */
+  private static long shiftLeftHigh(long x, long shift) {
+    return shift == 0 ? x >> 63 : x >> (64 - shift);
+  }
+
+  /**
+   * Compares two 128-bit two's-complement integers, each given as its high and low 64 bits.
+   *
+   * @param high1 the high 64 bits of the first value
+   * @param low1 the low 64 bits of the first value
+   * @param high2 the high 64 bits of the second value
+   * @param low2 the low 64 bits of the second value
+   * @return a negative number, zero, or a positive number as the first value is less than, equal
+   *     to, or greater than the second value
+   */
+  private static int compare128(long high1, long low1, long high2, long low2) {
+    int result = Long.compare(high1, high2);
+    return result != 0 ? result : Long.compareUnsigned(low1, low2);
   }
 
   /**
@@ -533,9 +608,8 @@ public class Range {
         return create(resultFrom, resultTo);
       }
     } else {
-      BigInteger bigFrom = BigInteger.valueOf(from).add(BigInteger.valueOf(right.from));
-      BigInteger bigTo = BigInteger.valueOf(to).add(BigInteger.valueOf(right.to));
-      return create(bigFrom, bigTo);
+      return create(
+          addHigh(from, right.from), from + right.from, addHigh(to, right.to), to + right.to);
     }
   }
 
@@ -558,9 +632,11 @@ public class Range {
       long resultTo = to - right.from;
       return create(resultFrom, resultTo);
     } else {
-      BigInteger bigFrom = BigInteger.valueOf(from).subtract(BigInteger.valueOf(right.to));
-      BigInteger bigTo = BigInteger.valueOf(to).subtract(BigInteger.valueOf(right.from));
-      return create(bigFrom, bigTo);
+      return create(
+          subtractHigh(from, right.to),
+          from - right.to,
+          subtractHigh(to, right.from),
+          to - right.from);
     }
   }
 
@@ -583,17 +659,42 @@ public class Range {
           Arrays.asList(from * right.from, from * right.to, to * right.from, to * right.to);
       return create(possibleValues);
     } else {
-      final BigInteger bigLeftFrom = BigInteger.valueOf(from);
-      final BigInteger bigRightFrom = BigInteger.valueOf(right.from);
-      final BigInteger bigRightTo = BigInteger.valueOf(right.to);
-      final BigInteger bigLeftTo = BigInteger.valueOf(to);
-      List<BigInteger> bigPossibleValues =
-          Arrays.asList(
-              bigLeftFrom.multiply(bigRightFrom),
-              bigLeftFrom.multiply(bigRightTo),
-              bigLeftTo.multiply(bigRightFrom),
-              bigLeftTo.multiply(bigRightTo));
-      return create(Collections.min(bigPossibleValues), Collections.max(bigPossibleValues));
+      // The four products of the bounds, as 128-bit values.
+      long ffHigh = multiplyHigh(from, right.from);
+      long ffLow = from * right.from;
+      long ftHigh = multiplyHigh(from, right.to);
+      long ftLow = from * right.to;
+      long tfHigh = multiplyHigh(to, right.from);
+      long tfLow = to * right.from;
+      long ttHigh = multiplyHigh(to, right.to);
+      long ttLow = to * right.to;
+
+      long minHigh = ffHigh;
+      long minLow = ffLow;
+      long maxHigh = ffHigh;
+      long maxLow = ffLow;
+      if (compare128(ftHigh, ftLow, minHigh, minLow) < 0) {
+        minHigh = ftHigh;
+        minLow = ftLow;
+      } else if (compare128(ftHigh, ftLow, maxHigh, maxLow) > 0) {
+        maxHigh = ftHigh;
+        maxLow = ftLow;
+      }
+      if (compare128(tfHigh, tfLow, minHigh, minLow) < 0) {
+        minHigh = tfHigh;
+        minLow = tfLow;
+      } else if (compare128(tfHigh, tfLow, maxHigh, maxLow) > 0) {
+        maxHigh = tfHigh;
+        maxLow = tfLow;
+      }
+      if (compare128(ttHigh, ttLow, minHigh, minLow) < 0) {
+        minHigh = ttHigh;
+        minLow = ttLow;
+      } else if (compare128(ttHigh, ttLow, maxHigh, maxLow) > 0) {
+        maxHigh = ttHigh;
+        maxLow = ttLow;
+      }
+      return create(minHigh, minLow, maxHigh, maxLow);
     }
   }
 
@@ -784,11 +885,13 @@ public class Range {
         long resultTo = to << (to >= 0 ? right.to : right.from);
         return create(resultFrom, resultTo);
       } else {
-        BigInteger bigFrom =
-            BigInteger.valueOf(from).shiftLeft(from >= 0 ? (int) right.from : (int) right.to);
-        BigInteger bigTo =
-            BigInteger.valueOf(to).shiftLeft(to >= 0 ? (int) right.to : (int) right.from);
-        return create(bigFrom, bigTo);
+        long fromShift = from >= 0 ? right.from : right.to;
+        long toShift = to >= 0 ? right.to : right.from;
+        return create(
+            shiftLeftHigh(from, fromShift),
+            from << fromShift,
+            shiftLeftHigh(to, toShift),
+            to << toShift);
       }
     } else {
       // In other cases, we give up on the calculation and return EVERYTHING (rare in practice).
@@ -1190,11 +1293,8 @@ public class Range {
       // Long.MAX_VALUE >> 1 = 4611686018427387903
       return width() > value;
     } else {
-      return BigInteger.valueOf(to)
-              .subtract(BigInteger.valueOf(from))
-              .add(BigInteger.ONE)
-              .compareTo(BigInteger.valueOf(value))
-          > 0;
+      // The width is to - from + 1, so it is greater than value iff to - from >= value.
+      return compare128(subtractHigh(to, from), to - from, value >> 63, value) >= 0;
     }
   }
 
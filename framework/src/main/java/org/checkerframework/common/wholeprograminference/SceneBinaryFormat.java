@@ -0,0 +1,814 @@
+package org.checkerframework.common.wholeprograminference;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.BugInCF;
+import scenelib.annotations.Annotation;
+import scenelib.annotations.el.AClass;
+import scenelib.annotations.el.ADeclaration;
+import scenelib.annotations.el.AField;
+import scenelib.annotations.el.AMethod;
+import scenelib.annotations.el.AScene;
+import scenelib.annotations.el.ATypeElement;
+import scenelib.annotations.el.BoundLocation;
+import scenelib.annotations.el.TypePathEntry;
+
+/**
+ * Reads and writes the binary side-car files of {@link WholeProgramInferenceScenesStorage}. A
+ * side-car file holds the same scene as a .jaif file, in a compact form that is faster to load than
+ * parsing the .jaif file. It is written next to the .jaif file when the {@code -AinferBinaryState}
+ * command-line option is given, and it records the digest of the .jaif file, so it is used only
+ * while the .jaif file is unchanged.
+ *
+ * <p>A side-car file consists of a header, a table of strings, a table of annotations, and the
+ * classes of the scene, which refer to strings and annotations by their index in the tables. Each
+ * distinct annotation is decoded only once, when it is first used.
+ *
+ * <p>The format can represent the scenes that the storage creates: annotations on classes, fields,
+ * methods, parameters, receivers, return types, type parameter bounds, and array component types.
+ * Like the .jaif file, it holds the contracts of a method (see {@link AMethod#contracts}) as
+ * declaration annotations of the method, in place of its preconditions and postconditions. {@link
+ * #write} returns null for a scene that holds anything else, in which case only the .jaif file is
+ * used.
+ */
+public final class SceneBinaryFormat {
+
+  /** The first four bytes of a side-car file: "WPIS". */
+  private static final int MAGIC = 0x57504953;
+
+  /** The version of the format. Increment it whenever the format changes. */
+  private static final int VERSION = 2;
+
+  /** The suffix of side-car files, which replaces the ".jaif" suffix. */
+  public static final String SUFFIX = ".wpistate";
+
+  /** Tag for a boolean annotation element value. */
+  private static final byte BOOLEAN = 'Z';
+
+  /** Tag for a char annotation element value. */
+  private static final byte CHAR = 'C';
+
+  /** Tag for a short annotation element value. */
+  private static final byte SHORT = 'S';
+
+  /** Tag for an int annotation element value. */
+  private static final byte INT = 'I';
+
+  /** Tag for a long annotation element value. */
+  private static final byte LONG = 'J';
+
+  /** Tag for a float annotation element value. */
+  private static final byte FLOAT = 'F';
+
+  /** Tag for a double annotation element value. */
+  private static final byte DOUBLE = 'D';
+
+  /** Tag for a String annotation element value. */
+  private static final byte STRING = 's';
+
+  /** Tag for a Class annotation element value. */
+  private static final byte CLASS = 'c';
+
+  /** Tag for an enum constant annotation element value. */
+  private static final byte ENUM = 'e';
+
+  /** Tag for an annotation annotation element value. */
+  private static final byte ANNOTATION = '@';
+
+  /** Tag for an array annotation element value. */
+  private static final byte ARRAY = '[';
+
+  /**
+   * This is a utility class with only static methods. It is not instantiable.
+   *
+   * @throws BugInCF always
+   */
+  private SceneBinaryFormat() {
+    throw new BugInCF("Do not instantiate");
+  }
+
+  /**
+   * Returns the path of the side-car file of the given .jaif file.
+   *
+   * @param jaifPath the path to a .jaif file
+   * @return the path of the side-car file of {@code jaifPath}
+   */
+  public static String getPath(String jaifPath) {
+    return jaifPath.substring(0, jaifPath.length() - ".jaif".length()) + SUFFIX;
+  }
+
+  /**
+   * Reads the side-car file of the given .jaif file.
+   *
+   * @param jaifPath the path to a .jaif file
+   * @param processingEnv the processing environment, for creating annotations
+   * @return the scene in the side-car file of {@code jaifPath}, or null if there is no side-car
+   *     file, or it is out of date with respect to the .jaif file, or it is malformed
+   */
+  public static @Nullable AScene read(String jaifPath, ProcessingEnvironment processingEnv) {
+    try {
+      byte[] jaifDigest =
+          WholeProgramInferenceOutputWriter.digest(Files.readAllBytes(Paths.get(jaifPath)));
+      ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(Paths.get(getPath(jaifPath))));
+      return new SceneDecoder(buffer, processingEnv).readScene(jaifDigest);
+    } catch (IOException
+        | BufferUnderflowException
+        | IndexOutOfBoundsException
+        | IllegalArgumentException e) {
+      // The side-car file does not exist or is malformed.  It is only a cache of the .jaif file.
+      return null;
+    }
+  }
+
+  /**
+   * Returns the contents of the side-car file for {@code scene}.
+   *
+   * @param scene the scene that is written to a .jaif file
+   * @param jaifContents the contents of the .jaif file
+   * @param processingEnv the processing environment, for converting annotations
+   * @return the contents of the side-car file, or null if the format cannot represent {@code scene}
+   */
+  public static byte @Nullable [] write(
+      AScene scene, String jaifContents, ProcessingEnvironment processingEnv) {
+    byte[] jaifDigest =
+        WholeProgramInferenceOutputWriter.digest(
+            jaifContents.getBytes(WholeProgramInferenceOutputWriter.CHARSET));
+    try {
+      return new SceneEncoder(processingEnv).writeScene(scene, jaifDigest);
+    } catch (UnsupportedSceneException e) {
+      return null;
+    }
+  }
+
+  /** Thrown when a scene contains something that the format cannot represent. */
+  private static class UnsupportedSceneException extends Exception {
+    /** Unique identifier for serialization. If you add or remove fields, change this number. */
+    private static final long serialVersionUID = 20211201L;
+
+    /**
+     * Creates an UnsupportedSceneException.
+     *
+     * @param message what cannot be represented
+     */
+    UnsupportedSceneException(String message) {
+      super(message);
+    }
+  }
+
+  /** Encodes one scene. */
+  private static class SceneEncoder {
+
+    /** The processing environment, for converting annotations. */
+    private final ProcessingEnvironment processingEnv;
+
+    /** The index of each string in the string table. */
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    /** The strings of the string table, in order. */
+    private final List<String> stringList = new ArrayList<>();
+
+    /** The index of each encoded annotation in the annotation table. */
+    private final Map<ByteBuffer, Integer> annotations = new HashMap<>();
+
+    /** The encoded annotations of the annotation table, in order. */
+    private final List<byte[]> annotationList = new ArrayList<>();
+
+    /**
+     * Creates a SceneEncoder.
+     *
+     * @param processingEnv the processing environment, for converting annotations
+     */
+    SceneEncoder(ProcessingEnvironment processingEnv) {
+      this.processingEnv = processingEnv;
+    }
+
+    /**
+     * Returns the encoding of {@code scene}.
+     *
+     * @param scene a scene
+     * @param jaifDigest the digest of the .jaif file of {@code scene}
+     * @return the contents of the side-car file for {@code scene}
+     * @throws UnsupportedSceneException if the format cannot represent {@code scene}
+     */
+    byte[] writeScene(AScene scene, byte[] jaifDigest) throws UnsupportedSceneException {
+      try {
+        ByteArrayOutputStream classes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(classes);
+        out.writeInt(scene.classes.size());
+        for (Map.Entry<String, AClass> classEntry : scene.classes.entrySet()) {
+          AClass aClass = classEntry.getValue();
+          checkDeclaration(aClass);
+          if (!aClass.extendsImplements.isEmpty()
+              || !aClass.instanceInits.isEmpty()
+              || !aClass.staticInits.isEmpty()
+              || !aClass.fieldInits.isEmpty()) {
+            throw new UnsupportedSceneException("supertypes or initializers of " + aClass);
+          }
+          out.writeInt(string(classEntry.getKey()));
+          writeAnnotations(out, aClass.tlAnnotationsHere);
+          writeBounds(out, aClass.bounds);
+          out.writeInt(aClass.fields.size());
+          for (Map.Entry<String, AField> fieldEntry : aClass.fields.entrySet()) {
+            out.writeInt(string(fieldEntry.getKey()));
+            writeField(out, fieldEntry.getValue());
+          }
+          out.writeInt(aClass.methods.size());
+          for (Map.Entry<String, AMethod> methodEntry : aClass.methods.entrySet()) {
+            out.writeInt(string(methodEntry.getKey()));
+            writeMethod(out, methodEntry.getValue());
+          }
+        }
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        out = new DataOutputStream(result);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(jaifDigest.length);
+        out.write(jaifDigest);
+        out.writeInt(stringList.size());
+        for (String s : stringList) {
+          byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+          out.writeInt(bytes.length);
+          out.write(bytes);
+        }
+        out.writeInt(annotationList.size());
+        int offset = 0;
+        for (byte[] annotation : annotationList) {
+          out.writeInt(offset);
+          offset += annotation.length;
+        }
+        out.writeInt(offset);
+        for (byte[] annotation : annotationList) {
+          out.write(annotation);
+        }
+        classes.writeTo(out);
+        out.flush();
+        return result.toByteArray();
+      } catch (IOException e) {
+        throw new BugInCF(e);
+      }
+    }
+
+    /**
+     * Writes a method: its declaration annotations and contracts, type parameter bounds, return
+     * type, receiver, and parameters.
+     *
+     * @param out where to write
+     * @param aMethod a method
+     * @throws IOException never; {@code out} writes to memory
+     * @throws UnsupportedSceneException if the format cannot represent {@code aMethod}
+     */
+    private void writeMethod(DataOutputStream out, AMethod aMethod)
+        throws IOException, UnsupportedSceneException {
+      checkDeclaration(aMethod);
+      if (!aMethod.throwsException.isEmpty()
+          || (aMethod.body != null && !aMethod.body.isEmpty())) {
+        throw new UnsupportedSceneException("thrown types or body of " + aMethod);
+      }
+      Set<Annotation> annos = new LinkedHashSet<>(aMethod.tlAnnotationsHere);
+      if (aMethod.contracts != null) {
+        annos.addAll(aMethod.contracts);
+      } else if (!aMethod.getPreconditions().isEmpty()
+          || !aMethod.getPostconditions().isEmpty()) {
+        throw new UnsupportedSceneException("uncomputed contracts of " + aMethod);
+      }
+      writeAnnotations(out, annos);
+      writeBounds(out, aMethod.bounds);
+      writeTypeElement(out, aMethod.returnType);
+      writeField(out, aMethod.receiver);
+      out.writeInt(aMethod.parameters.size());
+      for (Map.Entry<Integer, AField> paramEntry : aMethod.parameters.entrySet()) {
+        out.writeInt(paramEntry.getKey());
+        writeField(out, paramEntry.getValue());
+      }
+    }
+
+    /**
+     * Writes a field, parameter, or receiver: its declaration annotations and its type.
+     *
+     * @param out where to write
+     * @param field a field, parameter, or receiver
+     * @throws IOException never; {@code out} writes to memory
+     * @throws UnsupportedSceneException if the format cannot represent {@code field}
+     */
+    private void writeField(DataOutputStream out, AField field)
+        throws IOException, UnsupportedSceneException {
+      checkDeclaration(field);
+      if (field.init != null && !field.init.isEmpty()) {
+        throw new UnsupportedSceneException("initializer of " + field);
+      }
+      writeAnnotations(out, field.tlAnnotationsHere);
+      writeTypeElement(out, field.type);
+    }
+
+    /**
+     * Throws an exception if a declaration has annotations that are inserted at AST paths, which
+     * the format cannot represent.
+     *
+     * @param decl a class, field, method, parameter, or receiver
+     * @throws UnsupportedSceneException if {@code decl} has annotations at AST paths
+     */
+    private void checkDeclaration(ADeclaration decl) throws UnsupportedSceneException {
+      if (!decl.insertAnnotations.isEmpty() || !decl.insertTypecasts.isEmpty()) {
+        throw new UnsupportedSceneException("annotations at AST paths in " + decl);
+      }
+    }
+
+    /**
+     * Writes the bounds of the type parameters of a class or method.
+     *
+     * @param out where to write
+     * @param bounds the bounds of the type parameters of a class or method
+     * @throws IOException never; {@code out} writes to memory
+     * @throws UnsupportedSceneException if the format cannot represent one of {@code bounds}
+     */
+    private void writeBounds(DataOutputStream out, Map<BoundLocation, ATypeElement> bounds)
+        throws IOException, UnsupportedSceneException {
+      out.writeInt(bounds.size());
+      for (Map.Entry<BoundLocation, ATypeElement> boundEntry : bounds.entrySet()) {
+        out.writeInt(boundEntry.getKey().paramIndex);
+        out.writeInt(boundEntry.getKey().boundIndex);
+        writeTypeElement(out, boundEntry.getValue());
+      }
+    }
+
+    /**
+     * Writes the annotations of a type and of its array component types.
+     *
+     * @param out where to write
+     * @param type a type
+     * @throws IOException never; {@code out} writes to memory
+     * @throws UnsupportedSceneException if the format cannot represent {@code type}
+     */
+    private void writeTypeElement(DataOutputStream out, ATypeElement type)
+        throws IOException, UnsupportedSceneException {
+      writeAnnotations(out, type.tlAnnotationsHere);
+      out.writeInt(type.innerTypes.size());
+      for (Map.Entry<List<TypePathEntry>, ATypeElement> innerEntry : type.innerTypes.entrySet()) {
+        // The storage only records array component types, whose type path is
+        // nCopies(depth, ARRAY_ELEMENT).
+        int depth = innerEntry.getKey().size();
+        if (!innerEntry.getKey().equals(arrayTypePath(depth))) {
+          throw new UnsupportedSceneException("type path " + innerEntry.getKey());
+        }
+        out.writeInt(depth);
+        writeTypeElement(out, innerEntry.getValue());
+      }
+    }
+
+    /**
+     * Writes a set of annotations as indexes into the annotation table.
+     *
+     * @param out where to write
+     * @param annos a set of annotations
+     * @throws IOException never; {@code out} writes to memory
+     * @throws UnsupportedSceneException if the format cannot represent one of {@code annos}
+     */
+    private void writeAnnotations(DataOutputStream out, Set<Annotation> annos)
+        throws IOException, UnsupportedSceneException {
+      out.writeInt(annos.size());
+      for (Annotation anno : annos) {
+        AnnotationMirror am =
+            AnnotationConverter.annotationToAnnotationMirror(anno, processingEnv);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeAnnotationMirror(new DataOutputStream(bytes), am);
+        byte[] encoded = bytes.toByteArray();
+        Integer index = annotations.get(ByteBuffer.wrap(encoded));
+        if (index == null) {
+          index = annotationList.size();
+          annotations.put(ByteBuffer.wrap(encoded), index);
+          annotationList.add(encoded);
+        }
+        out.writeInt(index);
+      }
+    }
+
+    /**
+     * Writes an annotation: its name and its explicitly-given element values.
+     *
+     * @param out where to write
+     * @param am an annotation
+     * @throws IOException never; {@code out} writes to memory
+     * @throws UnsupportedSceneException if the format cannot represent {@code am}
+     */
+    private void writeAnnotationMirror(DataOutputStream out, AnnotationMirror am)
+        throws IOException, UnsupportedSceneException {
+      out.writeInt(string(AnnotationUtils.annotationName(am)));
+      Map<? extends ExecutableElement, ? extends AnnotationValue> values = am.getElementValues();
+      out.writeInt(values.size());
+      for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+          values.entrySet()) {
+        out.writeInt(string(entry.getKey().getSimpleName().toString()));
+        writeValue(out, entry.getValue().getValue());
+      }
+    }
+
+    /**
+     * Writes an annotation element value, as returned by {@link AnnotationValue#getValue}.
+     *
+     * @param out where to write
+     * @param value an annotation element value
+     * @throws IOException never; {@code out} writes to memory
+     * @throws UnsupportedSceneException if the format cannot represent {@code value}
+     */
+    private void writeValue(DataOutputStream out, Object value)
+        throws IOException, UnsupportedSceneException {
+      if (value instanceof Boolean) {
+        out.writeByte(BOOLEAN);
+        out.writeBoolean((Boolean) value);
+      } else if (value instanceof Character) {
+        out.writeByte(CHAR);
+        out.writeChar((Character) value);
+      } else if (value instanceof Short) {
+        out.writeByte(SHORT);
+        out.writeShort((Short) value);
+      } else if (value instanceof Integer) {
+        out.writeByte(INT);
+        out.writeInt((Integer) value);
+      } else if (value instanceof Long) {
+        out.writeByte(LONG);
+        out.writeLong((Long) value);
+      } else if (value instanceof Float) {
+        out.writeByte(FLOAT);
+        out.writeFloat((Float) value);
+      } else if (value instanceof Double) {
+        out.writeByte(DOUBLE);
+        out.writeDouble((Double) value);
+      } else if (value instanceof String) {
+        out.writeByte(STRING);
+        out.writeInt(string((String) value));
+      } else if (value instanceof TypeMirror
+          && ((TypeMirror) value).getKind() == TypeKind.DECLARED) {
+        TypeElement type = (TypeElement) ((DeclaredType) value).asElement();
+        out.writeByte(CLASS);
+        out.writeInt(string(type.getQualifiedName().toString()));
+      } else if (value instanceof VariableElement
+          && ((VariableElement) value).getKind() == ElementKind.ENUM_CONSTANT) {
+        VariableElement constant = (VariableElement) value;
+        TypeElement type = (TypeElement) constant.getEnclosingElement();
+        out.writeByte(ENUM);
+        out.writeInt(string(type.getQualifiedName().toString()));
+        out.writeInt(string(constant.getSimpleName().toString()));
+      } else if (value instanceof AnnotationMirror) {
+        out.writeByte(ANNOTATION);
+        writeAnnotationMirror(out, (AnnotationMirror) value);
+      } else if (value instanceof List<?>) {
+        List<?> elements = (List<?>) value;
+        out.writeByte(ARRAY);
+        out.writeInt(elements.size());
+        for (Object element : elements) {
+          writeValue(out, ((AnnotationValue) element).getValue());
+        }
+      } else {
+        // AnnotationBuilder cannot create byte values or class literals of non-declared types.
+        throw new UnsupportedSceneException("annotation value " + value);
+      }
+    }
+
+    /**
+     * Returns the index of {@code s} in the string table, adding it if necessary.
+     *
+     * @param s a string
+     * @return the index of {@code s} in the string table
+     */
+    private int string(String s) {
+      Integer index = strings.get(s);
+      if (index == null) {
+        index = stringList.size();
+        strings.put(s, index);
+        stringList.add(s);
+      }
+      return index;
+    }
+  }
+
+  /** Decodes one side-car file. */
+  private static class SceneDecoder {
+
+    /** The contents of the side-car file. */
+    private final ByteBuffer buffer;
+
+    /** The processing environment, for creating annotations. */
+    private final ProcessingEnvironment processingEnv;
+
+    /** The string table. */
+    private String[] strings = new String[0];
+
+    /** The offset of each annotation in the annotation table, from {@link #annotationsStart}. */
+    private int[] annotationOffsets = new int[0];
+
+    /** The position in {@link #buffer} of the first annotation of the annotation table. */
+    private int annotationsStart;
+
+    /** The annotations of the annotation table that have been decoded so far. */
+    private @Nullable Annotation[] annotations = new Annotation[0];
+
+    /**
+     * Creates a SceneDecoder.
+     *
+     * @param buffer the contents of the side-car file
+     * @param processingEnv the processing environment, for creating annotations
+     */
+    SceneDecoder(ByteBuffer buffer, ProcessingEnvironment processingEnv) {
+      this.buffer = buffer;
+      this.processingEnv = processingEnv;
+    }
+
+    /**
+     * Decodes the side-car file.
+     *
+     * @param jaifDigest the digest of the current contents of the .jaif file
+     * @return the scene in the side-car file, or null if it is not for {@code jaifDigest}
+     * @throws IOException if the side-car file is malformed
+     */
+    @Nullable AScene readScene(byte[] jaifDigest) throws IOException {
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        return null;
+      }
+      byte[] digest = new byte[readCount(1)];
+      buffer.get(digest);
+      if (!Arrays.equals(digest, jaifDigest)) {
+        return null;
+      }
+
+      strings = new String[readCount(Integer.BYTES)];
+      for (int i = 0; i < strings.length; i++) {
+        byte[] bytes = new byte[readCount(1)];
+        buffer.get(bytes);
+        strings[i] = new String(bytes, StandardCharsets.UTF_8);
+      }
+      annotationOffsets = new int[readCount(Integer.BYTES)];
+      for (int i = 0; i < annotationOffsets.length; i++) {
+        annotationOffsets[i] = buffer.getInt();
+      }
+      annotations = new Annotation[annotationOffsets.length];
+      int annotationsLength = readCount(1);
+      annotationsStart = buffer.position();
+      buffer.position(annotationsStart + annotationsLength);
+
+      AScene scene = new AScene();
+      int classCount = readCount(Integer.BYTES);
+      for (int i = 0; i < classCount; i++) {
+        AClass aClass = scene.classes.getVivify(readString());
+        readAnnotations(aClass.tlAnnotationsHere);
+        int boundCount = readCount(Integer.BYTES);
+        for (int j = 0; j < boundCount; j++) {
+          readTypeElement(aClass.bounds.getVivify(readBoundLocation()));
+        }
+        int fieldCount = readCount(Integer.BYTES);
+        for (int j = 0; j < fieldCount; j++) {
+          readField(aClass.fields.getVivify(readString()));
+        }
+        int methodCount = readCount(Integer.BYTES);
+        for (int j = 0; j < methodCount; j++) {
+          readMethod(aClass.methods.getVivify(readString()));
+        }
+      }
+      if (buffer.hasRemaining()) {
+        throw new IOException("trailing bytes");
+      }
+      return scene;
+    }
+
+    /**
+     * Reads a method written by {@link SceneEncoder#writeMethod}. Its contracts are read as
+     * declaration annotations, as when the .jaif file is parsed.
+     *
+     * @param aMethod where to store the annotations that are read
+     * @throws IOException if the side-car file is malformed
+     */
+    private void readMethod(AMethod aMethod) throws IOException {
+      readAnnotations(aMethod.tlAnnotationsHere);
+      int boundCount = readCount(Integer.BYTES);
+      for (int i = 0; i < boundCount; i++) {
+        readTypeElement(aMethod.bounds.getVivify(readBoundLocation()));
+      }
+      readTypeElement(aMethod.returnType);
+      readField(aMethod.receiver);
+      int paramCount = readCount(Integer.BYTES);
+      for (int i = 0; i < paramCount; i++) {
+        readField(aMethod.parameters.getVivify(buffer.getInt()));
+      }
+    }
+
+    /**
+     * Reads the location of a type parameter bound written by {@link SceneEncoder#writeBounds}.
+     *
+     * @return the location of the bound
+     */
+    private BoundLocation readBoundLocation() {
+      int paramIndex = buffer.getInt();
+      return new BoundLocation(paramIndex, buffer.getInt());
+    }
+
+    /**
+     * Reads a field, parameter, or receiver written by {@link SceneEncoder#writeField}.
+     *
+     * @param field where to store the annotations that are read
+     * @throws IOException if the side-car file is malformed
+     */
+    private void readField(AField field) throws IOException {
+      readAnnotations(field.tlAnnotationsHere);
+      readTypeElement(field.type);
+    }
+
+    /**
+     * Reads a type written by {@link SceneEncoder#writeTypeElement}.
+     *
+     * @param type where to store the annotations that are read
+     * @throws IOException if the side-car file is malformed
+     */
+    private void readTypeElement(ATypeElement type) throws IOException {
+      readAnnotations(type.tlAnnotationsHere);
+      int innerCount = readCount(Integer.BYTES);
+      for (int i = 0; i < innerCount; i++) {
+        readTypeElement(type.innerTypes.getVivify(arrayTypePath(buffer.getInt())));
+      }
+    }
+
+    /**
+     * Reads a set of annotations written by {@link SceneEncoder#writeAnnotations}.
+     *
+     * @param annos where to store the annotations that are read
+     * @throws IOException if the side-car file is malformed
+     */
+    private void readAnnotations(Set<Annotation> annos) throws IOException {
+      int count = readCount(Integer.BYTES);
+      for (int i = 0; i < count; i++) {
+        annos.add(getAnnotation(buffer.getInt()));
+      }
+    }
+
+    /**
+     * Returns the annotation at the given index of the annotation table, decoding it if it has not
+     * been decoded yet.
+     *
+     * @param index an index into the annotation table
+     * @return the annotation at {@code index}
+     * @throws IOException if the side-car file is malformed
+     */
+    private Annotation getAnnotation(int index) throws IOException {
+      Annotation result = annotations[index];
+      if (result == null) {
+        int position = buffer.position();
+        buffer.position(annotationsStart + annotationOffsets[index]);
+        result = AnnotationConverter.annotationMirrorToAnnotation(readAnnotationMirror());
+        buffer.position(position);
+        annotations[index] = result;
+      }
+      return result;
+    }
+
+    /**
+     * Reads an annotation written by {@link SceneEncoder#writeAnnotationMirror}.
+     *
+     * @return the annotation
+     * @throws IOException if the side-car file is malformed
+     */
+    @SuppressWarnings("signature:argument") // written from AnnotationUtils.annotationName
+    private AnnotationMirror readAnnotationMirror() throws IOException {
+      AnnotationBuilder builder = new AnnotationBuilder(processingEnv, readString());
+      int count = buffer.getInt();
+      for (int i = 0; i < count; i++) {
+        String name = readString();
+        AnnotationConverter.addFieldToAnnotationBuilder(name, readValue(), builder);
+      }
+      return builder.build();
+    }
+
+    /**
+     * Reads an annotation element value written by {@link SceneEncoder#writeValue}.
+     *
+     * @return the value, in a form accepted by {@link
+     *     AnnotationConverter#addFieldToAnnotationBuilder}
+     * @throws IOException if the side-car file is malformed
+     */
+    private Object readValue() throws IOException {
+      byte tag = buffer.get();
+      switch (tag) {
+        case BOOLEAN:
+          return buffer.get() != 0;
+        case CHAR:
+          return buffer.getChar();
+        case SHORT:
+          return buffer.getShort();
+        case INT:
+          return buffer.getInt();
+        case LONG:
+          return buffer.getLong();
+        case FLOAT:
+          return buffer.getFloat();
+        case DOUBLE:
+          return buffer.getDouble();
+        case STRING:
+          return readString();
+        case CLASS:
+          return processingEnv.getTypeUtils().erasure(readTypeElement().asType());
+        case ENUM:
+          TypeElement enumType = readTypeElement();
+          String constantName = readString();
+          for (VariableElement field : ElementFilter.fieldsIn(enumType.getEnclosedElements())) {
+            if (field.getKind() == ElementKind.ENUM_CONSTANT
+                && field.getSimpleName().contentEquals(constantName)) {
+              return field;
+            }
+          }
+          throw new IOException("no enum constant " + enumType + "." + constantName);
+        case ANNOTATION:
+          return readAnnotationMirror();
+        case ARRAY:
+          int length = readCount(1);
+          if (length == 0) {
+            return Collections.emptyList();
+          }
+          List<Object> elements = new ArrayList<>(length);
+          for (int i = 0; i < length; i++) {
+            elements.add(readValue());
+          }
+          return elements;
+        default:
+          throw new IOException("bad tag " + tag);
+      }
+    }
+
+    /**
+     * Reads a reference to a class, by its canonical name.
+     *
+     * @return the class
+     * @throws IOException if the side-car file is malformed or the class is not found
+     */
+    @SuppressWarnings("signature:argument") // written from TypeElement.getQualifiedName
+    private TypeElement readTypeElement() throws IOException {
+      String name = readString();
+      TypeElement result = processingEnv.getElementUtils().getTypeElement(name);
+      if (result == null) {
+        throw new IOException("no class " + name);
+      }
+      return result;
+    }
+
+    /**
+     * Reads the number of items that follow, such as the length of an array. Checking it against
+     * the size of the rest of the file prevents a malformed file from allocating a huge array.
+     *
+     * @param minItemSize the minimum number of bytes that each item takes in the file
+     * @return the number of items
+     * @throws IOException if the number is negative or the items cannot fit in the rest of the file
+     */
+    private int readCount(int minItemSize) throws IOException {
+      int count = buffer.getInt();
+      if (count < 0 || (long) count * minItemSize > buffer.remaining()) {
+        throw new IOException("bad count " + count);
+      }
+      return count;
+    }
+
+    /**
+     * Reads a reference to the string table.
+     *
+     * @return the string
+     */
+    private String readString() {
+      return strings[buffer.getInt()];
+    }
+  }
+
+  /**
+   * Returns the type path of an array component type that is nested {@code depth} levels deep, as
+   * used by {@link WholeProgramInferenceScenesStorage}.
+   *
+   * @param depth the number of array levels
+   * @return the type path of the component type at {@code depth}
+   */
+  private static List<TypePathEntry> arrayTypePath(int depth) {
+    return TypePathEntry.getTypePathEntryListFromBinary(Collections.nCopies(2 * depth, 0));
+  }
+}
@@ -1,9 +1,13 @@
 package org.checkerframework.common.wholeprograminference;
 
 import com.google.common.collect.ComparisonChain;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -95,7 +99,31 @@ public final class SceneToStubWriter {
    * @param checker the checker, for computing preconditions and postconditions
    */
   public static void write(ASceneWrapper scene, String filename, BaseTypeChecker checker) {
-    writeImpl(scene, filename, checker);
+    String stub = toStub(scene, checker);
+    if (stub == null) {
+      return;
+    }
+    try (Writer writer = Files.newBufferedWriter(Paths.get(filename), Charset.defaultCharset())) {
+      writer.write(stub);
+    } catch (IOException e) {
+      throw new BugInCF("error writing file during WPI: " + filename + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Returns the annotations in {@code scene} in stub file format.
+   *
+   * @param scene the scene to print
+   * @param checker the checker, for computing preconditions and postconditions
+   * @return the contents of a stub file for {@code scene}, or null if no class in {@code scene} can
+   *     be printed in a stub file
+   */
+  public static @Nullable String toStub(ASceneWrapper scene, BaseTypeChecker checker) {
+    StringWriter stringWriter = new StringWriter();
+    if (!writeImpl(scene, new PrintWriter(stringWriter), checker)) {
+      return null;
+    }
+    return stringWriter.toString();
   }
 
   /**
@@ -586,14 +614,16 @@ public final class SceneToStubWriter {
   }
 
   /**
-   * The implementation of {@link #write}. Prints imports, classes, method signatures, and fields in
-   * stub file format, all with appropriate annotations.
+   * The implementation of {@link #toStub}. Prints imports, classes, method signatures, and fields
+   * in stub file format, all with appropriate annotations.
    *
    * @param scene the scene to write
-   * @param filename the name of the file to write (must end in .astub)
+   * @param printWriter the writer on which to print
    * @param checker the checker, for computing preconditions
+   * @return true if any class was printed, false if nothing was printed
    */
-  private static void writeImpl(ASceneWrapper scene, String filename, BaseTypeChecker checker) {
+  private static boolean writeImpl(
+      ASceneWrapper scene, PrintWriter printWriter, BaseTypeChecker checker) {
     // Sort by package name first so that output is deterministic and default package
     // comes first; within package sort by class name.
     @SuppressWarnings("signature") // scene-lib bytecode lacks signature annotations
@@ -615,21 +645,12 @@ public final class SceneToStubWriter {
 
     boolean anyClassPrintable = false;
 
-    // The writer is not initialized until it is certain that at
-    // least one class can be written, to avoid empty stub files.
-    PrintWriter printWriter = null;
-
     // For each class
     for (String clazz : classes) {
       if (isPrintable(clazz, scene.getAScene().getClasses().get(clazz))) {
         if (!anyClassPrintable) {
-          try {
-            printWriter = new PrintWriter(new FileWriter(filename));
-          } catch (IOException e) {
-            throw new BugInCF("error writing file during WPI: " + filename);
-          }
-
-          // Write out all imports
+          // Write out all imports, once it is certain that at least one class can be written, to
+          // avoid empty stub files.
           ImportDefWriter importDefWriter;
           try {
             importDefWriter = new ImportDefWriter(scene, printWriter);
@@ -644,9 +665,8 @@ public final class SceneToStubWriter {
         printClass(clazz, scene.getAScene().getClasses().get(clazz), checker, printWriter);
       }
     }
-    if (printWriter != null) {
-      printWriter.flush();
-    }
+    printWriter.flush();
+    return anyClassPrintable;
   }
 
   /**
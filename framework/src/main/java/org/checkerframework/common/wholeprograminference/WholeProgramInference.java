@@ -1,6 +1,7 @@
 package org.checkerframework.common.wholeprograminference;
 
 import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.tools.javac.code.Symbol.ClassSymbol;
@@ -205,6 +206,31 @@ public interface WholeProgramInference {
    */
   void preprocessClassTree(ClassTree classTree);
 
+  /**
+   * Records that the compilation unit currently being checked reads the declared type of the
+   * given element, which may depend on inferred annotations. This is used to determine which
+   * compilation units to re-check in the next round; see {@link WholeProgramInferenceWorklist}.
+   *
+   * <p>The default implementation does nothing.
+   *
+   * @param elt an element whose declared type is being read
+   */
+  default void recordRead(Element elt) {}
+
+  /**
+   * Returns true if the given compilation unit should be checked in the current round of
+   * whole-program inference. This is false only if the inferred annotations it depends on did not
+   * change in the previous round; see {@link WholeProgramInferenceWorklist}.
+   *
+   * <p>The default implementation returns true.
+   *
+   * @param root a compilation unit
+   * @return true if {@code root} should be checked
+   */
+  default boolean shouldCheck(CompilationUnitTree root) {
+    return true;
+  }
+
   /** The kinds of output that whole-program inference can produce. */
   enum OutputFormat {
     /**
@@ -0,0 +1,421 @@
+package org.checkerframework.common.wholeprograminference;
+
+import com.sun.tools.javac.api.BasicJavacTask;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.BugInCF;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * Runs whole-program inference to a fixpoint within a single JVM.
+ *
+ * <p>The {@code wpi.sh} and {@code infer-and-annotate.sh} scripts run javac repeatedly, each time
+ * in a new JVM, until the inference results stop changing. Each of those runs pays for starting
+ * the JVM, loading and JIT-compiling the checker, and opening the classpath. This driver instead
+ * runs every round in the same JVM: it keeps one file manager, whose indexes of the classpath are
+ * reused, and it instantiates the checkers itself, so that their classes are loaded and compiled
+ * once.
+ *
+ * <p>Each round runs javac with the given arguments. Every round after the first also reads the
+ * results of the previous round: from a copy of the output directory, via {@code -Aajava} or
+ * {@code -Astubs} (the latter with {@code -AmergeStubsWithSource}); {@code .jaif} files are read
+ * from the output directory by {@link WholeProgramInferenceScenesStorage} itself. The driver stops
+ * when a round leaves the contents of the output directory unchanged, or after a maximum number of
+ * rounds.
+ *
+ * <p>Only the first round checks every compilation unit. The driver records in a {@link
+ * WholeProgramInferenceWorklist} which inferred annotations each compilation unit reads and
+ * updates, and each later round checks only the compilation units that are affected by the files
+ * that changed in the previous round.
+ *
+ * <p>Usage:
+ *
+ * <pre>{@code
+ * java -cp checker.jar:... \
+ *     org.checkerframework.common.wholeprograminference.WholeProgramInferenceDriver \
+ *     [-maxRounds N] -processor MyChecker -Ainfer=ajava -Awarns [javac-options] files.java...
+ * }</pre>
+ *
+ * The checkers named by {@code -processor} must be on the classpath of the driver; the driver
+ * removes the {@code -processor} option and passes instances of them to javac directly.
+ */
+public class WholeProgramInferenceDriver {
+
+  /** The maximum number of rounds, if {@code -maxRounds} is not given. */
+  public static final int DEFAULT_MAX_ROUNDS = 10;
+
+  /**
+   * Directory to which the results of a round are copied before the next round, so that the next
+   * round reads them while writing its own results. This directory is relative to where the driver
+   * is run.
+   */
+  public static final String PREVIOUS_ROUND_PATH =
+      "build" + File.separator + "prev-whole-program-inference" + File.separator;
+
+  /** The directory in which whole-program inference writes its results. */
+  private final Path outputDir = Paths.get(WholeProgramInferenceScenesStorage.JAIF_FILES_PATH);
+
+  /** The directory that holds the results of the previous round. */
+  private final Path previousRoundDir = Paths.get(PREVIOUS_ROUND_PATH);
+
+  /** The javac options, other than {@code -processor}. */
+  private final List<String> options;
+
+  /** The fully-qualified names of the checkers to run. */
+  private final List<String> processorNames;
+
+  /** The source files to check. */
+  private final List<String> sourceFiles;
+
+  /** The argument of {@code -Ainfer}, which determines the format of the results. */
+  private final String inferFormat;
+
+  /** The maximum number of rounds. */
+  private final int maxRounds;
+
+  /** The compiler, which is the same for every round. */
+  private final JavaCompiler compiler;
+
+  /** The file manager, which is shared by all rounds so that its caches are reused. */
+  private final StandardJavaFileManager fileManager;
+
+  /** The dependencies between compilation units and inferred annotations, across rounds. */
+  private final WholeProgramInferenceWorklist worklist = new WholeProgramInferenceWorklist();
+
+  /**
+   * Creates a driver for the given javac arguments.
+   *
+   * @param args the javac arguments, which must include {@code -processor} and {@code -Ainfer}
+   * @param maxRounds the maximum number of rounds
+   */
+  public WholeProgramInferenceDriver(List<String> args, int maxRounds) {
+    this.maxRounds = maxRounds;
+    this.options = new ArrayList<>();
+    this.processorNames = new ArrayList<>();
+    this.sourceFiles = new ArrayList<>();
+    String inferArg = null;
+    for (int i = 0; i < args.size(); i++) {
+      String arg = args.get(i);
+      if (arg.equals("-processor") && i + 1 < args.size()) {
+        Collections.addAll(processorNames, args.get(++i).split(","));
+      } else if (arg.endsWith(".java") && !arg.startsWith("-")) {
+        sourceFiles.add(arg);
+      } else {
+        if (arg.equals("-Ainfer")) {
+          // No argument means "jaifs"; see AnnotatedTypeFactory.
+          inferArg = "jaifs";
+        } else if (arg.startsWith("-Ainfer=")) {
+          inferArg = arg.substring("-Ainfer=".length());
+        }
+        options.add(arg);
+      }
+    }
+    if (processorNames.isEmpty()) {
+      throw new UserError("WholeProgramInferenceDriver: no -processor given");
+    }
+    if (inferArg == null) {
+      throw new UserError("WholeProgramInferenceDriver: no -Ainfer given");
+    }
+    if (!options.contains("-Awarns")) {
+      throw new UserError("WholeProgramInferenceDriver: -Ainfer requires -Awarns");
+    }
+    if (sourceFiles.isEmpty()) {
+      throw new UserError("WholeProgramInferenceDriver: no source files given");
+    }
+    this.inferFormat = inferArg;
+    this.compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new UserError("WholeProgramInferenceDriver: no Java compiler is available");
+    }
+    this.fileManager = compiler.getStandardFileManager(null, null, null);
+  }
+
+  /**
+   * Runs whole-program inference to a fixpoint.
+   *
+   * @param args {@code [-maxRounds N]} followed by the javac arguments
+   */
+  public static void main(String[] args) {
+    List<String> javacArgs = new ArrayList<>();
+    Collections.addAll(javacArgs, args);
+    int maxRounds = DEFAULT_MAX_ROUNDS;
+    if (javacArgs.size() >= 2 && javacArgs.get(0).equals("-maxRounds")) {
+      try {
+        maxRounds = Integer.parseInt(javacArgs.get(1));
+      } catch (NumberFormatException e) {
+        maxRounds = -1;
+      }
+      if (maxRounds <= 0) {
+        throw new UserError(
+            "The argument of -maxRounds must be a positive integer, found: %s", javacArgs.get(1));
+      }
+      javacArgs.subList(0, 2).clear();
+    }
+    boolean fixpoint = new WholeProgramInferenceDriver(javacArgs, maxRounds).run(System.out);
+    System.exit(fixpoint ? 0 : 1);
+  }
+
+  /**
+   * Runs rounds of whole-program inference until the results do not change or the maximum number
+   * of rounds is reached. Deletes the results of any earlier run first. The first round checks
+   * every compilation unit; each later round checks only the compilation units that {@link
+   * WholeProgramInferenceWorklist} determines are affected by the changes of the previous round.
+   *
+   * @param progress where to print a line about each round, or null to print nothing
+   * @return true if the results reached a fixpoint, false if the maximum number of rounds was
+   *     reached first
+   */
+  public boolean run(@Nullable PrintStream progress) {
+    deleteDirectory(outputDir);
+    deleteDirectory(previousRoundDir);
+    Map<Path, ByteBuffer> previousResults = Collections.emptyMap();
+    @Nullable Set<String> unitsToCheck = null;
+    for (int round = 1; round <= maxRounds; round++) {
+      if (round > 1) {
+        copyDirectory(outputDir, previousRoundDir);
+      }
+      long start = System.nanoTime();
+      worklist.startRound(unitsToCheck);
+      runRound(round);
+      Map<Path, ByteBuffer> results = digestDirectory(outputDir);
+      List<Path> changed = changedFiles(previousResults, results);
+      if (progress != null) {
+        progress.printf(
+            "Whole-program inference round %d: checked %d of %d compilation units,"
+                + " %d of %d files changed (%.1f s)%n",
+            round,
+            unitsToCheck == null ? sourceFiles.size() : unitsToCheck.size(),
+            sourceFiles.size(),
+            changed.size(),
+            results.size(),
+            (System.nanoTime() - start) / 1e9);
+      }
+      if (changed.isEmpty()) {
+        return true;
+      }
+      unitsToCheck = worklist.unitsToRecheck(changed);
+      if (unitsToCheck != null && unitsToCheck.isEmpty()) {
+        // No compilation unit depends on the files that changed.
+        return true;
+      }
+      previousResults = results;
+    }
+    if (progress != null) {
+      progress.printf("Whole-program inference did not reach a fixpoint in %d rounds%n", maxRounds);
+    }
+    return false;
+  }
+
+  /**
+   * Runs javac once, with new instances of the checkers. Every source file is compiled, but the
+   * checkers skip the compilation units that are not on the worklist.
+   *
+   * @param round the number of the round, starting at 1
+   */
+  private void runRound(int round) {
+    List<String> roundOptions = new ArrayList<>(options);
+    if (round > 1) {
+      switch (inferFormat) {
+        case "ajava":
+          addPathToOption(roundOptions, "-Aajava", PREVIOUS_ROUND_PATH);
+          break;
+        case "stubs":
+          addPathToOption(roundOptions, "-Astubs", PREVIOUS_ROUND_PATH);
+          if (!roundOptions.contains("-AmergeStubsWithSource")) {
+            roundOptions.add("-AmergeStubsWithSource");
+          }
+          break;
+        default:
+          // WholeProgramInferenceScenesStorage reads .jaif files from the output directory.
+          break;
+      }
+    }
+    Iterable<? extends JavaFileObject> units =
+        fileManager.getJavaFileObjectsFromStrings(sourceFiles);
+    JavaCompiler.CompilationTask task =
+        compiler.getTask(null, fileManager, null, roundOptions, null, units);
+    worklist.register(((BasicJavacTask) task).getContext());
+    task.setProcessors(createProcessors());
+    if (!task.call()) {
+      throw new UserError("Whole-program inference round %d: javac failed", round);
+    }
+  }
+
+  /**
+   * Returns new instances of the checkers. Their classes are loaded by the class loader of the
+   * driver, so they are loaded and compiled only once for all rounds.
+   *
+   * @return new instances of the checkers
+   */
+  private List<Processor> createProcessors() {
+    List<Processor> processors = new ArrayList<>(processorNames.size());
+    ClassLoader loader = WholeProgramInferenceDriver.class.getClassLoader();
+    for (String name : processorNames) {
+      try {
+        processors.add(
+            (Processor)
+                Class.forName(name, true, loader).getDeclaredConstructor().newInstance());
+      } catch (ReflectiveOperationException | ClassCastException e) {
+        throw new UserError(
+            "WholeProgramInferenceDriver: cannot instantiate processor %s: %s", name, e);
+      }
+    }
+    return processors;
+  }
+
+  /**
+   * Adds {@code path} to the value of the option {@code name} in {@code options}, or adds the
+   * option if it is not present.
+   *
+   * @param options javac options, which are side-effected
+   * @param name the option name, such as {@code -Aajava}
+   * @param path the path to add
+   */
+  private static void addPathToOption(List<String> options, String name, String path) {
+    String prefix = name + "=";
+    for (int i = 0; i < options.size(); i++) {
+      if (options.get(i).startsWith(prefix)) {
+        options.set(i, options.get(i) + File.pathSeparator + path);
+        return;
+      }
+    }
+    options.add(prefix + path);
+  }
+
+  /**
+   * Returns the files that differ between two results of {@link #digestDirectory}, including files
+   * that are in only one of them.
+   *
+   * @param before the earlier results
+   * @param after the later results
+   * @return the files that differ, relative to the current directory
+   */
+  private List<Path> changedFiles(Map<Path, ByteBuffer> before, Map<Path, ByteBuffer> after) {
+    List<Path> changed = new ArrayList<>();
+    for (Map.Entry<Path, ByteBuffer> entry : after.entrySet()) {
+      if (!entry.getValue().equals(before.get(entry.getKey()))) {
+        changed.add(outputDir.resolve(entry.getKey()));
+      }
+    }
+    for (Path path : before.keySet()) {
+      if (!after.containsKey(path)) {
+        changed.add(outputDir.resolve(path));
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Returns a digest of the contents of every file under {@code dir}, keyed by its path relative to
+   * {@code dir}.
+   *
+   * @param dir a directory, which need not exist
+   * @return the digest of each file under {@code dir}
+   */
+  private static Map<Path, ByteBuffer> digestDirectory(Path dir) {
+    Map<Path, ByteBuffer> result = new HashMap<>();
+    if (!Files.isDirectory(dir)) {
+      return result;
+    }
+    try (Stream<Path> files = Files.walk(dir)) {
+      for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+        result.put(dir.relativize(file), ByteBuffer.wrap(digest(file)));
+      }
+    } catch (IOException | UncheckedIOException e) {
+      throw new UserError("Cannot read whole-program inference results in %s: %s", dir, e);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the SHA-256 digest of the contents of a file.
+   *
+   * @param file a file
+   * @return the digest of the contents of {@code file}
+   * @throws IOException if the file cannot be read
+   */
+  private static byte[] digest(Path file) throws IOException {
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new BugInCF("SHA-256 is not available", e);
+    }
+    byte[] buffer = new byte[8192];
+    try (InputStream in = Files.newInputStream(file)) {
+      int n;
+      while ((n = in.read(buffer)) > 0) {
+        md.update(buffer, 0, n);
+      }
+    }
+    return md.digest();
+  }
+
+  /**
+   * Replaces the contents of {@code to} by a copy of the contents of {@code from}.
+   *
+   * @param from a directory, which need not exist
+   * @param to a directory, which need not exist
+   */
+  private static void copyDirectory(Path from, Path to) {
+    deleteDirectory(to);
+    if (!Files.isDirectory(from)) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(from)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Path target = to.resolve(from.relativize(file));
+        if (Files.isDirectory(file)) {
+          Files.createDirectories(target);
+        } else {
+          Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+    } catch (IOException | UncheckedIOException e) {
+      throw new UserError("Cannot copy %s to %s: %s", from, to, e);
+    }
+  }
+
+  /**
+   * Deletes a directory and its contents, if it exists.
+   *
+   * @param dir a directory, which need not exist
+   */
+  private static void deleteDirectory(Path dir) {
+    if (!Files.exists(dir)) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(dir)) {
+      // Delete the contents of each directory before the directory itself.
+      for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(file);
+      }
+    } catch (IOException | UncheckedIOException e) {
+      throw new UserError("Cannot delete %s: %s", dir, e);
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package org.checkerframework.common.wholeprograminference;
 
 import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.tools.javac.code.Symbol.ClassSymbol;
@@ -15,6 +16,7 @@ import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.util.ElementFilter;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.dataflow.analysis.Analysis;
 import org.checkerframework.dataflow.cfg.node.FieldAccessNode;
@@ -99,6 +101,22 @@ public class WholeProgramInferenceImplementation<T> implements WholeProgramInfer
   /** Whether to ignore assignments where the rhs is null. */
   private final boolean ignoreNullAssignments;
 
+  /**
+   * The dependencies between compilation units and inferred annotations, or null if this is not a
+   * round run by {@link WholeProgramInferenceDriver}.
+   */
+  private final @Nullable WholeProgramInferenceWorklist worklist;
+
+  /** The compilation unit whose reads are in {@link #classesRead}, or null if there is none. */
+  private @Nullable CompilationUnitTree classesReadRoot = null;
+
+  /**
+   * The classes whose annotation files {@link #classesReadRoot} has been recorded to read. {@link
+   * #recordRead} is called for nearly every element that the type factory looks up, so it records
+   * each class only once per compilation unit.
+   */
+  private final Set<TypeElement> classesRead = new HashSet<>();
+
   /**
    * Constructs a new {@code WholeProgramInferenceImplementation} that has not yet inferred any
    * annotations.
@@ -113,6 +131,7 @@ public class WholeProgramInferenceImplementation<T> implements WholeProgramInfer
     boolean isNullness =
         atypeFactory.getClass().getSimpleName().equals("NullnessAnnotatedTypeFactory");
     this.ignoreNullAssignments = !isNullness;
+    this.worklist = WholeProgramInferenceWorklist.instance(atypeFactory.getProcessingEnv());
   }
 
   /**
@@ -586,7 +605,7 @@ public class WholeProgramInferenceImplementation<T> implements WholeProgramInfer
     String file = storage.getFileForElement(methodElt);
     boolean isNewAnnotation = storage.addMethodDeclarationAnnotation(methodElt, anno);
     if (isNewAnnotation) {
-      storage.setFileModified(file);
+      setFileModified(file);
     }
   }
 
@@ -664,7 +683,7 @@ public class WholeProgramInferenceImplementation<T> implements WholeProgramInfer
     }
     storage.updateStorageLocationFromAtm(
         rhsATM, lhsATM, annotationsToUpdate, defLoc, ignoreIfAnnotated);
-    storage.setFileModified(file);
+    setFileModified(file);
   }
 
   /**
@@ -728,6 +747,21 @@ public class WholeProgramInferenceImplementation<T> implements WholeProgramInfer
     sourceCodeATM.replaceAnnotations(annosToReplace);
   }
 
+  /**
+   * Indicates that inferred annotations in {@code file} have changed, so that it is written out
+   * next time {@link #writeResultsToFile} is called, and records that the current compilation unit
+   * updated it.
+   *
+   * @param file the annotation file that was modified
+   */
+  private void setFileModified(String file) {
+    storage.setFileModified(file);
+    CompilationUnitTree root = atypeFactory.getRoot();
+    if (worklist != null && root != null) {
+      worklist.recordWrite(root, file);
+    }
+  }
+
   @Override
   public void writeResultsToFile(OutputFormat outputFormat, BaseTypeChecker checker) {
     storage.writeResultsToFile(outputFormat, checker);
@@ -737,4 +771,38 @@ public class WholeProgramInferenceImplementation<T> implements WholeProgramInfer
   public void preprocessClassTree(ClassTree classTree) {
     storage.preprocessClassTree(classTree);
   }
+
+  @Override
+  public void recordRead(Element elt) {
+    if (worklist == null) {
+      return;
+    }
+    switch (elt.getKind()) {
+      case FIELD:
+      case METHOD:
+      case CONSTRUCTOR:
+      case PARAMETER:
+        break;
+      default:
+        // Whole-program inference does not infer annotations for other elements.
+        return;
+    }
+    CompilationUnitTree root = atypeFactory.getRoot();
+    TypeElement enclosingClass = ElementUtils.enclosingTypeElement(elt);
+    if (root == null || enclosingClass == null) {
+      return;
+    }
+    if (root != classesReadRoot) {
+      classesReadRoot = root;
+      classesRead.clear();
+    }
+    if (classesRead.add(enclosingClass) && ElementUtils.isElementFromSourceCode(elt)) {
+      worklist.recordRead(root, storage.getFileForEnclosingClass(elt));
+    }
+  }
+
+  @Override
+  public boolean shouldCheck(CompilationUnitTree root) {
+    return worklist == null || worklist.shouldCheck(root);
+  }
 }
@@ -28,8 +28,6 @@ import com.sun.tools.javac.code.Symbol.ClassSymbol;
 import com.sun.tools.javac.code.Symbol.VarSymbol;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -37,6 +35,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
@@ -100,6 +99,16 @@ public class WholeProgramInferenceJavaParserStorage
   /** Mapping from source file to the wrapper for the compilation unit parsed from that file. */
   private Map<String, CompilationUnitAnnos> sourceToAnnos = new HashMap<>();
 
+  /**
+   * The dependencies between compilation units and inferred annotations, or null if this is not a
+   * round run by {@link WholeProgramInferenceDriver}.
+   */
+  private final @Nullable WholeProgramInferenceWorklist worklist;
+
+  /** Writes the .ajava files, skipping those whose contents have not changed. */
+  private final WholeProgramInferenceOutputWriter outputWriter =
+      new WholeProgramInferenceOutputWriter();
+
   /**
    * Constructs a new {@code WholeProgramInferenceJavaParser} that has not yet inferred any
    * annotations.
@@ -108,6 +117,7 @@ public class WholeProgramInferenceJavaParserStorage
    */
   public WholeProgramInferenceJavaParserStorage(AnnotatedTypeFactory atypeFactory) {
     this.atypeFactory = atypeFactory;
+    this.worklist = WholeProgramInferenceWorklist.instance(atypeFactory.getProcessingEnv());
   }
 
   @Override
@@ -115,6 +125,11 @@ public class WholeProgramInferenceJavaParserStorage
     return addClassesForElement(elt);
   }
 
+  @Override
+  public String getFileForEnclosingClass(Element elt) {
+    return ElementUtils.getSourceFilePath(ElementUtils.toplevelEnclosingTypeElement(elt));
+  }
+
   @Override
   public void setFileModified(String path) {
     modifiedFiles.add(path);
@@ -575,6 +590,7 @@ public class WholeProgramInferenceJavaParserStorage
       outputDir.mkdirs();
     }
 
+    Map<String, Supplier<@Nullable String>> outputs = new HashMap<>();
     for (String path : modifiedFiles) {
       CompilationUnitAnnos root = sourceToAnnos.get(path);
       prepareCompilationUnitForWriting(root);
@@ -602,22 +618,22 @@ public class WholeProgramInferenceJavaParserStorage
 
       name += "-" + checker.getClass().getCanonicalName() + ".ajava";
       String outputPath = packageDir + File.separator + name;
-      try {
-        FileWriter writer = new FileWriter(outputPath);
-
-        // JavaParser can output using lexical preserving printing, which writes the file such that
-        // its formatting is close to the original source file it was parsed from as
-        // possible. Currently, this feature is very buggy and crashes when adding annotations in
-        // certain locations. This implementation could be used instead if it's fixed in JavaParser.
-        // LexicalPreservingPrinter.print(root.declaration, writer);
-
-        DefaultPrettyPrinter prettyPrinter = new DefaultPrettyPrinter();
-        writer.write(prettyPrinter.print(root.compilationUnit));
-        writer.close();
-      } catch (IOException e) {
-        throw new BugInCF("Error while writing ajava file " + outputPath, e);
+      if (worklist != null) {
+        worklist.recordOutput(path, outputPath);
       }
+
+      // JavaParser can output using lexical preserving printing, which writes the file such that
+      // its formatting is close to the original source file it was parsed from as
+      // possible. Currently, this feature is very buggy and crashes when adding annotations in
+      // certain locations. This implementation could be used instead if it's fixed in JavaParser.
+      // LexicalPreservingPrinter.print(root.declaration, writer);
+
+      // Printing only reads the JavaParser tree of this compilation unit, so the files can be
+      // printed in parallel.
+      CompilationUnit compilationUnit = root.compilationUnit;
+      outputs.put(outputPath, () -> new DefaultPrettyPrinter().print(compilationUnit));
     }
+    outputWriter.writeAll(outputs);
 
     modifiedFiles.clear();
   }
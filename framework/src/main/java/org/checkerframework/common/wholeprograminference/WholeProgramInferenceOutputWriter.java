@@ -0,0 +1,169 @@
+package org.checkerframework.common.wholeprograminference;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.BugInCF;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * Writes the output files of whole-program inference. A storage rewrites every modified file after
+ * each class is processed, so most writes would not change the file. This writer remembers a digest
+ * of the contents of each file that it wrote or found on disk, and does not write a file whose
+ * contents would not change. {@link #writeAll} computes and writes independent files in parallel.
+ *
+ * <p>The methods of this class may be called from multiple threads.
+ */
+public class WholeProgramInferenceOutputWriter {
+
+  /** The charset of the output files: the platform default, as used by {@code FileWriter}. */
+  static final Charset CHARSET = Charset.defaultCharset();
+
+  /** The digest of the current contents of each file that has been written or examined. */
+  private final Map<Path, ByteBuffer> digests = new ConcurrentHashMap<>();
+
+  /** Creates a new WholeProgramInferenceOutputWriter that has not examined any file. */
+  public WholeProgramInferenceOutputWriter() {}
+
+  /**
+   * Writes {@code contents} to the file at {@code path}, unless the file already has those
+   * contents.
+   *
+   * @param path the file to write
+   * @param contents the new contents of the file
+   * @return true if the file was written, false if it already had the given contents
+   */
+  public boolean write(String path, String contents) {
+    return write(path, contents.getBytes(CHARSET));
+  }
+
+  /**
+   * Writes {@code bytes} to the file at {@code path}, unless the file already has those contents.
+   *
+   * @param path the file to write
+   * @param bytes the new contents of the file
+   * @return true if the file was written, false if it already had the given contents
+   */
+  public boolean write(String path, byte[] bytes) {
+    Path file = Paths.get(path).toAbsolutePath().normalize();
+    ByteBuffer digest = ByteBuffer.wrap(digest(bytes));
+    if (digest.equals(currentDigest(file))) {
+      return false;
+    }
+    try (OutputStream out = Files.newOutputStream(file)) {
+      out.write(bytes);
+    } catch (IOException e) {
+      throw new UserError("Problem while writing %s: %s", path, e.getMessage());
+    }
+    digests.put(file, digest);
+    return true;
+  }
+
+  /**
+   * Deletes the file at {@code path}, if it exists.
+   *
+   * @param path the file to delete
+   */
+  public void delete(String path) {
+    Path file = Paths.get(path).toAbsolutePath().normalize();
+    digests.remove(file);
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      throw new UserError("Problem while deleting %s: %s", path, e.getMessage());
+    }
+  }
+
+  /**
+   * Writes several files, in parallel if there are more than one. The contents of each file are
+   * computed on the thread that writes the file, so the suppliers must be safe to call from any
+   * thread. A supplier that returns null causes the file to be deleted.
+   *
+   * @param files the contents of each file to write, keyed by the path of the file
+   */
+  public void writeAll(Map<String, Supplier<@Nullable String>> files) {
+    if (files.size() <= 1) {
+      files.forEach(this::writeOrDelete);
+    } else {
+      files.entrySet().parallelStream().forEach(e -> writeOrDelete(e.getKey(), e.getValue()));
+    }
+  }
+
+  /**
+   * Writes the contents given by {@code contents} to {@code path}, or deletes the file if the
+   * contents are null.
+   *
+   * @param path the file to write
+   * @param contents computes the new contents of the file, or null to delete the file
+   */
+  private void writeOrDelete(String path, Supplier<@Nullable String> contents) {
+    String newContents = contents.get();
+    if (newContents == null) {
+      delete(path);
+    } else {
+      write(path, newContents);
+    }
+  }
+
+  /**
+   * Returns the digest of the current contents of {@code file}, reading the file if this writer has
+   * not written or examined it yet.
+   *
+   * @param file an absolute, normalized path
+   * @return the digest of the contents of {@code file}, or null if it does not exist
+   */
+  private @Nullable ByteBuffer currentDigest(Path file) {
+    ByteBuffer digest = digests.get(file);
+    if (digest != null || !Files.isRegularFile(file)) {
+      return digest;
+    }
+    MessageDigest md = newMessageDigest();
+    byte[] buffer = new byte[8192];
+    try (InputStream in = Files.newInputStream(file)) {
+      int n;
+      while ((n = in.read(buffer)) > 0) {
+        md.update(buffer, 0, n);
+      }
+    } catch (IOException e) {
+      // Rewrite the file.
+      return null;
+    }
+    digest = ByteBuffer.wrap(md.digest());
+    digests.put(file, digest);
+    return digest;
+  }
+
+  /**
+   * Returns the SHA-256 digest of {@code bytes}.
+   *
+   * @param bytes the contents of a file
+   * @return the SHA-256 digest of {@code bytes}
+   */
+  static byte[] digest(byte[] bytes) {
+    return newMessageDigest().digest(bytes);
+  }
+
+  /**
+   * Returns a new SHA-256 message digest.
+   *
+   * @return a new SHA-256 message digest
+   */
+  private static MessageDigest newMessageDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new BugInCF("SHA-256 is not available", e);
+    }
+  }
+}
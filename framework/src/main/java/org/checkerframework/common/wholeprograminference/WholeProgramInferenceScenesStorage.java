@@ -12,9 +12,11 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
@@ -128,6 +130,22 @@ public class WholeProgramInferenceScenesStorage
    */
   private final Map<String, AnnotatedTypeMirror> postconditionsToDeclaredTypes = new HashMap<>();
 
+  /**
+   * The dependencies between compilation units and inferred annotations, or null if this is not a
+   * round run by {@link WholeProgramInferenceDriver}.
+   */
+  private final @Nullable WholeProgramInferenceWorklist worklist;
+
+  /**
+   * True if this storage reads and writes binary side-car files of its .jaif files; see {@link
+   * SceneBinaryFormat}.
+   */
+  private final boolean binaryState;
+
+  /** Writes the .jaif and stub files, skipping those whose contents have not changed. */
+  private final WholeProgramInferenceOutputWriter outputWriter =
+      new WholeProgramInferenceOutputWriter();
+
   /**
    * Default constructor.
    *
@@ -138,6 +156,8 @@ public class WholeProgramInferenceScenesStorage
     boolean isNullness =
         atypeFactory.getClass().getSimpleName().equals("NullnessAnnotatedTypeFactory");
     this.ignoreNullAssignments = !isNullness;
+    this.worklist = WholeProgramInferenceWorklist.instance(atypeFactory.getProcessingEnv());
+    this.binaryState = atypeFactory.getChecker().hasOption("inferBinaryState");
   }
 
   @Override
@@ -163,6 +183,15 @@ public class WholeProgramInferenceScenesStorage
     return file;
   }
 
+  @Override
+  public String getFileForEnclosingClass(Element elt) {
+    TypeElement enclosingClass = ElementUtils.enclosingTypeElement(elt);
+    if (enclosingClass == null) {
+      throw new BugInCF("No enclosing class for %s %s", elt.getKind(), elt);
+    }
+    return getJaifPath(ElementUtils.getBinaryName(enclosingClass));
+  }
+
   /**
    * Get the annotations for a class.
    *
@@ -366,9 +395,41 @@ public class WholeProgramInferenceScenesStorage
     if (!jaifDir.exists()) {
       jaifDir.mkdirs();
     }
-    // Write scenes into files.
+    // Print the scenes serially, because printing uses the type factory, then write the files
+    // that changed.
+    Map<String, Supplier<@Nullable String>> outputs = new HashMap<>();
+    Map<String, byte @Nullable []> binaryOutputs = new HashMap<>();
     for (String jaifPath : modifiedScenes) {
-      scenes.get(jaifPath).writeToFile(jaifPath, annosToIgnore, outputFormat, checker);
+      String outputPath = ASceneWrapper.getOutputPath(jaifPath, outputFormat, checker);
+      ASceneWrapper wrapper = scenes.get(jaifPath);
+      AScene sceneToWrite = wrapper.getSceneToWrite(annosToIgnore);
+      String contents =
+          sceneToWrite == null ? null : wrapper.toFileContents(sceneToWrite, outputFormat, checker);
+      outputs.put(outputPath, () -> contents);
+      if (worklist != null) {
+        worklist.recordOutput(jaifPath, outputPath);
+      }
+      if (binaryState && outputFormat == OutputFormat.JAIF) {
+        // The side-car file holds the scene that was just written to the .jaif file.
+        String binaryPath = SceneBinaryFormat.getPath(jaifPath);
+        binaryOutputs.put(
+            binaryPath,
+            sceneToWrite == null || contents == null
+                ? null
+                : SceneBinaryFormat.write(sceneToWrite, contents, atypeFactory.getProcessingEnv()));
+        if (worklist != null) {
+          worklist.recordOutput(jaifPath, binaryPath);
+        }
+      }
+    }
+    outputWriter.writeAll(outputs);
+    for (Map.Entry<String, byte @Nullable []> entry : binaryOutputs.entrySet()) {
+      byte[] bytes = entry.getValue();
+      if (bytes == null) {
+        outputWriter.delete(entry.getKey());
+      } else {
+        outputWriter.write(entry.getKey(), bytes);
+      }
     }
     modifiedScenes.clear();
   }
@@ -394,12 +455,20 @@ public class WholeProgramInferenceScenesStorage
     AScene scene;
     if (!scenes.containsKey(jaifPath)) {
       File jaifFile = new File(jaifPath);
-      scene = new AScene();
-      if (jaifFile.exists()) {
-        try {
-          IndexFileParser.parseFile(jaifPath, scene);
-        } catch (IOException e) {
-          throw new UserError("Problem while reading %s: %s", jaifPath, e.getMessage());
+      AScene binaryScene =
+          binaryState && jaifFile.exists()
+              ? SceneBinaryFormat.read(jaifPath, atypeFactory.getProcessingEnv())
+              : null;
+      if (binaryScene != null) {
+        scene = binaryScene;
+      } else {
+        scene = new AScene();
+        if (jaifFile.exists()) {
+          try {
+            IndexFileParser.parseFile(jaifPath, scene);
+          } catch (IOException e) {
+            throw new UserError("Problem while reading %s: %s", jaifPath, e.getMessage());
+          }
         }
       }
       ASceneWrapper wrapper = new ASceneWrapper(scene);
@@ -3,6 +3,7 @@ package org.checkerframework.common.wholeprograminference;
 import com.sun.source.tree.ClassTree;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeMirror;
@@ -34,6 +35,23 @@ public interface WholeProgramInferenceStorage<T> {
    */
   public String getFileForElement(Element elt);
 
+  /**
+   * Returns the file in which the inferred annotations of the class that encloses the given element
+   * are stored. Unlike {@link #getFileForElement}, this does not read the file, and it accepts any
+   * element that is enclosed by a class, such as a parameter.
+   *
+   * <p>The default implementation calls {@link #getFileForElement} on the element, or on the method
+   * of a parameter, so it may read the file. It accepts only fields, methods, constructors, and
+   * parameters.
+   *
+   * @param elt an element that is enclosed by a class
+   * @return the path to the file where inference results for the enclosing class will be written
+   */
+  public default String getFileForEnclosingClass(Element elt) {
+    return getFileForElement(
+        elt.getKind() == ElementKind.PARAMETER ? elt.getEnclosingElement() : elt);
+  }
+
   /**
    * Given an ExecutableElement in a compilation unit that has already been read into storage,
    * returns whether there exists a stored method matching {@code elt}.
@@ -0,0 +1,218 @@
+package org.checkerframework.common.wholeprograminference;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Records, across rounds of whole-program inference, which compilation units depend on which
+ * inferred annotations, so that a round need only re-check the compilation units that are affected
+ * by the changes of the previous round.
+ *
+ * <p>A {@link WholeProgramInferenceStorage} keeps inferred annotations in <em>annotation
+ * files</em>, each of which holds the annotations of one class or source file (see {@link
+ * WholeProgramInferenceStorage#getFileForElement}). For each compilation unit, the worklist records
+ * the annotation files of the elements whose types the unit read, and the annotation files that the
+ * unit updated. After a round, the compilation units to re-check are those that read an annotation
+ * file whose output changed. Because a storage rewrites an annotation file from scratch in every
+ * round, every other unit that updates an annotation file that a re-checked unit updates is
+ * re-checked as well.
+ *
+ * <p>The worklist is created by {@link WholeProgramInferenceDriver}, which stores it in the javac
+ * context of each round; see {@link #instance}. If whole-program inference is run without the
+ * driver, there is no worklist and every compilation unit is checked.
+ */
+public class WholeProgramInferenceWorklist {
+
+  /** The key for the WholeProgramInferenceWorklist in the javac context. */
+  private static final Context.Key<WholeProgramInferenceWorklist> worklistKey =
+      new Context.Key<>();
+
+  /**
+   * For each compilation unit, the annotation files of the elements whose types it read when it was
+   * last checked.
+   */
+  private final Map<String, Set<String>> reads = new HashMap<>();
+
+  /** For each compilation unit, the annotation files that it updated when it was last checked. */
+  private final Map<String, Set<String>> writes = new HashMap<>();
+
+  /** Maps each output file, as an absolute normalized path, to its annotation file. */
+  private final Map<Path, String> outputs = new HashMap<>();
+
+  /** The compilation units that have been checked in the current round. */
+  private final Set<String> checkedThisRound = new HashSet<>();
+
+  /** The compilation units to check in the current round, or null to check all of them. */
+  private @Nullable Set<String> unitsToCheck = null;
+
+  /**
+   * Returns the WholeProgramInferenceWorklist of the given processing environment, or null if
+   * whole-program inference is not being run by {@link WholeProgramInferenceDriver}.
+   *
+   * @param env the processing environment
+   * @return the WholeProgramInferenceWorklist of {@code env}, or null
+   */
+  public static @Nullable WholeProgramInferenceWorklist instance(ProcessingEnvironment env) {
+    Context context = ((JavacProcessingEnvironment) env).getContext();
+    return context.get(worklistKey);
+  }
+
+  /**
+   * Makes this the worklist of the given javac context, which must not have one yet.
+   *
+   * @param context the javac context of a round
+   */
+  public void register(Context context) {
+    context.put(worklistKey, this);
+  }
+
+  /**
+   * Starts a new round.
+   *
+   * @param unitsToCheck the paths of the compilation units to check in the round, or null to check
+   *     all of them
+   */
+  public void startRound(@Nullable Set<String> unitsToCheck) {
+    this.unitsToCheck = unitsToCheck;
+    checkedThisRound.clear();
+  }
+
+  /**
+   * Returns true if the given compilation unit should be checked in the current round.
+   *
+   * @param root a compilation unit
+   * @return true if {@code root} should be checked in the current round
+   */
+  public boolean shouldCheck(CompilationUnitTree root) {
+    return unitsToCheck == null || unitsToCheck.contains(getPath(root));
+  }
+
+  /**
+   * Records that the given compilation unit read the type of an element whose inferred annotations
+   * are stored in the given annotation file.
+   *
+   * @param root the compilation unit being checked
+   * @param file the annotation file
+   */
+  public void recordRead(CompilationUnitTree root, String file) {
+    dependencies(reads, getPath(root)).add(file);
+  }
+
+  /**
+   * Records that the given compilation unit updated the inferred annotations in the given
+   * annotation file.
+   *
+   * @param root the compilation unit being checked
+   * @param file the annotation file
+   */
+  public void recordWrite(CompilationUnitTree root, String file) {
+    dependencies(writes, getPath(root)).add(file);
+  }
+
+  /**
+   * Records that the annotations in the given annotation file are output to {@code outputPath}.
+   *
+   * @param file the annotation file
+   * @param outputPath the file to which its annotations are output
+   */
+  public void recordOutput(String file, String outputPath) {
+    outputs.put(normalize(Paths.get(outputPath)), file);
+  }
+
+  /**
+   * Returns the paths of the compilation units that must be re-checked because the given output
+   * files changed in the round that just finished.
+   *
+   * @param changedOutputs the output files whose contents changed, were created, or were deleted
+   * @return the compilation units to check in the next round, or null if all of them must be
+   *     checked because some output file was not written by a storage
+   */
+  public @Nullable Set<String> unitsToRecheck(Collection<Path> changedOutputs) {
+    Set<String> changedFiles = new HashSet<>();
+    for (Path output : changedOutputs) {
+      String file = outputs.get(normalize(output));
+      if (file == null) {
+        return null;
+      }
+      changedFiles.add(file);
+    }
+    if (changedFiles.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    Map<String, Set<String>> writers = new HashMap<>();
+    for (Map.Entry<String, Set<String>> entry : writes.entrySet()) {
+      for (String file : entry.getValue()) {
+        writers.computeIfAbsent(file, f -> new HashSet<>()).add(entry.getKey());
+      }
+    }
+
+    Set<String> result = new HashSet<>();
+    Deque<String> worklist = new ArrayDeque<>();
+    for (Map.Entry<String, Set<String>> entry : reads.entrySet()) {
+      if (!Collections.disjoint(entry.getValue(), changedFiles) && result.add(entry.getKey())) {
+        worklist.add(entry.getKey());
+      }
+    }
+    // Close over units that update the same annotation files.
+    while (!worklist.isEmpty()) {
+      for (String file : writes.getOrDefault(worklist.remove(), Collections.emptySet())) {
+        for (String writer : writers.get(file)) {
+          if (result.add(writer)) {
+            worklist.add(writer);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the set of annotation files on which {@code unit} depends, in {@code map}. The first
+   * time that a unit is seen in a round, forgets the dependencies recorded in earlier rounds.
+   *
+   * @param map {@link #reads} or {@link #writes}
+   * @param unit the path of a compilation unit
+   * @return the annotation files on which {@code unit} depends, in {@code map}
+   */
+  private Set<String> dependencies(Map<String, Set<String>> map, String unit) {
+    if (checkedThisRound.add(unit)) {
+      reads.remove(unit);
+      writes.remove(unit);
+    }
+    return map.computeIfAbsent(unit, u -> new HashSet<>());
+  }
+
+  /**
+   * Returns the path of a compilation unit, as used by this worklist.
+   *
+   * @param root a compilation unit
+   * @return the path of the source file of {@code root}
+   */
+  public static String getPath(CompilationUnitTree root) {
+    return root.getSourceFile().toUri().getPath();
+  }
+
+  /**
+   * Returns the absolute, normalized form of a path.
+   *
+   * @param path a path
+   * @return the absolute, normalized form of {@code path}
+   */
+  private static Path normalize(Path path) {
+    return path.toAbsolutePath().normalize();
+  }
+}
@@ -2,8 +2,12 @@ package org.checkerframework.common.wholeprograminference.scenelib;
 
 import com.sun.tools.javac.code.Symbol.ClassSymbol;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -109,6 +113,27 @@ public class ASceneWrapper {
     }
   }
 
+  /**
+   * Returns the path of the file to which {@link #writeToFile} writes a scene.
+   *
+   * @param jaifPath the path to a .jaif file
+   * @param outputFormat the output format
+   * @param checker the checker, for naming stub files
+   * @return the path of the file to which the scene for {@code jaifPath} is written
+   */
+  public static String getOutputPath(
+      String jaifPath, OutputFormat outputFormat, BaseTypeChecker checker) {
+    switch (outputFormat) {
+      case JAIF:
+        return jaifPath;
+      case STUB:
+        String astubWithChecker = "-" + checker.getClass().getCanonicalName() + ".astub";
+        return jaifPath.replace(".jaif", astubWithChecker);
+      default:
+        throw new BugInCF("Unhandled outputFormat " + outputFormat);
+    }
+  }
+
   /**
    * Write the scene wrapped by this object to a file at the given path.
    *
@@ -123,59 +148,91 @@ public class ASceneWrapper {
       AnnotationsInContexts annosToIgnore,
       OutputFormat outputFormat,
       BaseTypeChecker checker) {
-    assert jaifPath.endsWith(".jaif");
+    String filepath = getOutputPath(jaifPath, outputFormat, checker);
+    new File(filepath).delete();
+    String contents = toFileContents(annosToIgnore, outputFormat, checker);
+    // Only write non-empty scenes into files.
+    if (contents != null) {
+      try (Writer writer =
+          Files.newBufferedWriter(Paths.get(filepath), Charset.defaultCharset())) {
+        writer.write(contents);
+      } catch (IOException e) {
+        throw new UserError("Problem while writing %s: %s", filepath, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Returns the contents of the file to which {@link #writeToFile} writes the scene wrapped by this
+   * object.
+   *
+   * @param annosToIgnore which annotations should be ignored in which contexts
+   * @param outputFormat the output format to use
+   * @param checker the checker from which this method is called, for computing contracts
+   * @return the contents of the file, or null if the scene is empty and no file should be written
+   */
+  public @Nullable String toFileContents(
+      AnnotationsInContexts annosToIgnore, OutputFormat outputFormat, BaseTypeChecker checker) {
+    AScene scene = getSceneToWrite(annosToIgnore);
+    return scene == null ? null : toFileContents(scene, outputFormat, checker);
+  }
+
+  /**
+   * Returns a copy of the scene wrapped by this object, without the annotations that should not be
+   * written to a file.
+   *
+   * @param annosToIgnore which annotations should be ignored in which contexts
+   * @return the scene to write, or null if it is empty and no file should be written
+   */
+  public @Nullable AScene getSceneToWrite(AnnotationsInContexts annosToIgnore) {
     AScene scene = theScene.clone();
     removeAnnosFromScene(scene, annosToIgnore);
     scene.prune();
-    String filepath;
+    return scene.isEmpty() ? null : scene;
+  }
+
+  /**
+   * Returns the contents of the file to which {@link #writeToFile} writes the scene wrapped by this
+   * object.
+   *
+   * @param scene the result of {@link #getSceneToWrite}; side-effected to hold contracts if {@code
+   *     outputFormat} is {@code JAIF}
+   * @param outputFormat the output format to use
+   * @param checker the checker from which this method is called, for computing contracts
+   * @return the contents of the file, or null if no file should be written
+   */
+  public @Nullable String toFileContents(
+      AScene scene, OutputFormat outputFormat, BaseTypeChecker checker) {
     switch (outputFormat) {
-      case JAIF:
-        filepath = jaifPath;
-        break;
       case STUB:
-        String astubWithChecker = "-" + checker.getClass().getCanonicalName() + ".astub";
-        filepath = jaifPath.replace(".jaif", astubWithChecker);
-        break;
+        // For stub files, pass in the checker to compute contracts on the fly; precomputing
+        // yields incorrect annotations, most likely due to nested classes.
+        return SceneToStubWriter.toStub(this, checker);
+      case JAIF:
+        // For .jaif files, precompute contracts because the Annotation File Utilities knows
+        // nothing about (and cannot depend on) the Checker Framework.
+        for (Map.Entry<String, AClass> classEntry : scene.classes.entrySet()) {
+          AClass aClass = classEntry.getValue();
+          for (Map.Entry<String, AMethod> methodEntry : aClass.getMethods().entrySet()) {
+            AMethod aMethod = methodEntry.getValue();
+            List<AnnotationMirror> contractAnnotationMirrors =
+                checker.getTypeFactory().getContractAnnotations(aMethod);
+            List<Annotation> contractAnnotations =
+                CollectionsPlume.mapList(
+                    AnnotationConverter::annotationMirrorToAnnotation, contractAnnotationMirrors);
+            aMethod.contracts = contractAnnotations;
+          }
+        }
+        StringWriter writer = new StringWriter();
+        try {
+          IndexFileWriter.write(scene, writer);
+        } catch (DefException e) {
+          throw new BugInCF(e);
+        }
+        return writer.toString();
       default:
         throw new BugInCF("Unhandled outputFormat " + outputFormat);
     }
-    new File(filepath).delete();
-    // Only write non-empty scenes into files.
-    if (!scene.isEmpty()) {
-      try {
-        switch (outputFormat) {
-          case STUB:
-            // For stub files, pass in the checker to compute contracts on the fly; precomputing
-            // yields incorrect annotations, most likely due to nested classes.
-            SceneToStubWriter.write(this, filepath, checker);
-            break;
-          case JAIF:
-            // For .jaif files, precompute contracts because the Annotation File Utilities knows
-            // nothing about (and cannot depend on) the Checker Framework.
-            for (Map.Entry<String, AClass> classEntry : scene.classes.entrySet()) {
-              AClass aClass = classEntry.getValue();
-              for (Map.Entry<String, AMethod> methodEntry : aClass.getMethods().entrySet()) {
-                AMethod aMethod = methodEntry.getValue();
-                List<AnnotationMirror> contractAnnotationMirrors =
-                    checker.getTypeFactory().getContractAnnotations(aMethod);
-                List<Annotation> contractAnnotations =
-                    CollectionsPlume.mapList(
-                        AnnotationConverter::annotationMirrorToAnnotation,
-                        contractAnnotationMirrors);
-                aMethod.contracts = contractAnnotations;
-              }
-            }
-            IndexFileWriter.write(scene, new FileWriter(filepath));
-            break;
-          default:
-            throw new BugInCF("Unhandled outputFormat " + outputFormat);
-        }
-      } catch (IOException e) {
-        throw new UserError("Problem while writing %s: %s", filepath, e.getMessage());
-      } catch (DefException e) {
-        throw new BugInCF(e);
-      }
-    }
   }
 
   /**
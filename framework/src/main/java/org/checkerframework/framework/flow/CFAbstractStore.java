@@ -2,7 +2,6 @@ package org.checkerframework.framework.flow;
 
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.StringJoiner;
@@ -11,7 +10,6 @@ import java.util.function.BinaryOperator;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
-import javax.lang.model.element.Name;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Types;
 import org.checkerframework.checker.nullness.qual.EnsuresNonNullIf;
@@ -33,15 +31,12 @@ import org.checkerframework.dataflow.expression.LocalVariable;
 import org.checkerframework.dataflow.expression.MethodCall;
 import org.checkerframework.dataflow.expression.ThisReference;
 import org.checkerframework.dataflow.qual.SideEffectFree;
+import org.checkerframework.dataflow.util.ModifiesSummaries.ModifiesSet;
 import org.checkerframework.dataflow.util.PurityUtils;
-import org.checkerframework.framework.qual.MonotonicQualifier;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
-import org.checkerframework.javacutil.AnnotationBuilder;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
-import org.checkerframework.javacutil.Pair;
-import org.plumelib.util.CollectionsPlume;
 import org.plumelib.util.ToStringComparator;
 import org.plumelib.util.UniqueId;
 
@@ -200,7 +195,8 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
    *       org.checkerframework.dataflow.qual.Pure}), then no information needs to be removed.
    *   <li>Otherwise, all information about field accesses {@code a.f} needs to be removed, except
    *       if the method {@code n} cannot modify {@code a.f} (e.g., if {@code a} is a local variable
-   *       or {@code this}, and {@code f} is final).
+   *       or {@code this}, and {@code f} is final), or if the modifies set of the method (see
+   *       {@link GenericAnnotatedTypeFactory#getModifiesSet}) shows that it does not.
    *   <li>Furthermore, if the field has a monotonic annotation, then its information can also be
    *       kept.
    * </ol>
@@ -212,12 +208,17 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
     ExecutableElement method = n.getTarget().getMethod();
 
     // case 1: remove information if necessary
-    if (!(analysis.checker.hasOption("assumeSideEffectFree")
-        || analysis.checker.hasOption("assumePure")
-        || isSideEffectFree(atypeFactory, method))) {
-
-      boolean sideEffectsUnrefineAliases =
-          ((GenericAnnotatedTypeFactory) atypeFactory).sideEffectsUnrefineAliases;
+    boolean sideEffectFree =
+        analysis.checker.hasOption("assumeSideEffectFree")
+            || analysis.checker.hasOption("assumePure")
+            || isSideEffectFree(atypeFactory, method);
+    GenericAnnotatedTypeFactory<?, ?, ?, ?> gatf =
+        (GenericAnnotatedTypeFactory<?, ?, ?, ?>) atypeFactory;
+    // If non-null, the call does not change the value of expressions that do not depend on it.
+    @Nullable ModifiesSet modifiesSet = sideEffectFree ? null : gatf.getModifiesSet(method);
+    if (!sideEffectFree && (modifiesSet == null || !modifiesSet.isEmpty())) {
+
+      boolean sideEffectsUnrefineAliases = gatf.sideEffectsUnrefineAliases;
 
       // update local variables
       // TODO: Also remove if any element/argument to the annotation is not
@@ -235,27 +236,22 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
       if (sideEffectsUnrefineAliases) {
         fieldValues.entrySet().removeIf(e -> !e.getKey().isUnmodifiableByOtherCode());
       } else {
-        Map<FieldAccess, V> newFieldValues =
-            new HashMap<>(CollectionsPlume.mapCapacity(fieldValues));
-        for (Map.Entry<FieldAccess, V> e : fieldValues.entrySet()) {
+        boolean hasMonotonicQualifiers = !gatf.getSupportedMonotonicTypeQualifiers().isEmpty();
+        Iterator<Map.Entry<FieldAccess, V>> fieldValuesIterator = fieldValues.entrySet().iterator();
+        while (fieldValuesIterator.hasNext()) {
+          Map.Entry<FieldAccess, V> e = fieldValuesIterator.next();
           FieldAccess fieldAccess = e.getKey();
           V otherVal = e.getValue();
 
+          if (modifiesSet != null && !modifiesSet.mayModifyValueOf(fieldAccess)) {
+            continue; // keep information
+          }
+
           // case 3: the field has a monotonic annotation
-          if (!((GenericAnnotatedTypeFactory<?, ?, ?, ?>) atypeFactory)
-              .getSupportedMonotonicTypeQualifiers()
-              .isEmpty()) {
-            List<Pair<AnnotationMirror, AnnotationMirror>> fieldAnnotations =
-                atypeFactory.getAnnotationWithMetaAnnotation(
-                    fieldAccess.getField(), MonotonicQualifier.class);
+          if (hasMonotonicQualifiers) {
             V newOtherVal = null;
-            for (Pair<AnnotationMirror, AnnotationMirror> fieldAnnotation : fieldAnnotations) {
-              AnnotationMirror monotonicAnnotation = fieldAnnotation.second;
-              @SuppressWarnings("deprecation") // permitted for use in the framework
-              Name annotation =
-                  AnnotationUtils.getElementValueClassName(monotonicAnnotation, "value", false);
-              AnnotationMirror target =
-                  AnnotationBuilder.fromName(atypeFactory.getElementUtils(), annotation);
+            for (AnnotationMirror target :
+                gatf.getMonotonicTargetQualifiers(fieldAccess.getField())) {
               // Make sure the 'target' annotation is present.
               if (AnnotationUtils.containsSame(otherVal.getAnnotations(), target)) {
                 newOtherVal =
@@ -267,24 +263,26 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
             if (newOtherVal != null) {
               // keep information for all hierarchies where we had a
               // monotone annotation.
-              newFieldValues.put(fieldAccess, newOtherVal);
+              e.setValue(newOtherVal);
               continue;
             }
           }
 
           // case 2:
           if (!fieldAccess.isUnassignableByOtherCode()) {
-            continue; // remove information completely
+            fieldValuesIterator.remove(); // remove information completely
           }
 
-          // keep information
-          newFieldValues.put(fieldAccess, otherVal);
+          // otherwise, keep information
         }
-        fieldValues = newFieldValues;
       }
 
       // update array values
-      arrayValues.clear();
+      if (modifiesSet == null) {
+        arrayValues.clear();
+      } else {
+        arrayValues.keySet().removeIf(modifiesSet::mayModifyValueOf);
+      }
 
       // update method values
       methodValues.keySet().removeIf(e -> !e.isUnmodifiableByOtherCode());
@@ -610,17 +608,8 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
     // semantics.  This check should be performed by callers of this method when needed.
     // TODO: Update the javadoc of this method when the above to-do item is addressed.
     if (!sequentialSemantics) { // only compute if necessary
-      AnnotatedTypeFactory atypeFactory = this.analysis.atypeFactory;
-      List<Pair<AnnotationMirror, AnnotationMirror>> fieldAnnotations =
-          atypeFactory.getAnnotationWithMetaAnnotation(
-              fieldAcc.getField(), MonotonicQualifier.class);
-      for (Pair<AnnotationMirror, AnnotationMirror> fieldAnnotation : fieldAnnotations) {
-        AnnotationMirror monotonicAnnotation = fieldAnnotation.second;
-        @SuppressWarnings("deprecation") // permitted for use in the framework
-        Name annotation =
-            AnnotationUtils.getElementValueClassName(monotonicAnnotation, "value", false);
-        AnnotationMirror target =
-            AnnotationBuilder.fromName(atypeFactory.getElementUtils(), annotation);
+      for (AnnotationMirror target :
+          analysis.atypeFactory.getMonotonicTargetQualifiers(fieldAcc.getField())) {
         // Make sure the 'target' annotation is present.
         if (AnnotationUtils.containsSame(value.getAnnotations(), target)) {
           isMonotonic = true;
@@ -9,6 +9,8 @@ import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.VariableElement;
@@ -66,21 +68,60 @@ public class CFCFGBuilder extends CFGBuilder {
       }
     }
 
+    // Independent checkers in the same compilation share CFGs through the CFGCache.
+    CFGCache cfgCache = factory.shouldCache ? CFGCache.instance(env) : null;
+    if (cfgCache != null) {
+      ControlFlowGraph cachedCFG =
+          cfgCache.get(
+              underlyingAST.getCode(),
+              checker,
+              factory,
+              assumeAssertionsEnabled,
+              assumeAssertionsDisabled);
+      if (cachedCFG != null) {
+        addSharedCFG(factory, underlyingAST, cachedCFG);
+        return cachedCFG;
+      }
+    }
+
     CFTreeBuilder builder = new CFTreeBuilder(env);
-    PhaseOneResult phase1result =
+    CFCFGTranslationPhaseOne phase1 =
         new CFCFGTranslationPhaseOne(
-                builder, checker, factory, assumeAssertionsEnabled, assumeAssertionsDisabled, env)
-            .process(root, underlyingAST);
+            builder, checker, factory, assumeAssertionsEnabled, assumeAssertionsDisabled, env);
+    PhaseOneResult phase1result = phase1.process(root, underlyingAST);
     ControlFlowGraph phase2result = CFGTranslationPhaseTwo.process(phase1result);
     ControlFlowGraph phase3result = CFGTranslationPhaseThree.process(phase2result);
+    addSharedCFG(factory, underlyingAST, phase3result);
+    if (cfgCache != null) {
+      cfgCache.put(
+          underlyingAST.getCode(),
+          phase3result,
+          assumeAssertionsEnabled,
+          assumeAssertionsDisabled,
+          phase1.assertionsEnabledFor,
+          phase1.terminatesExecution,
+          phase1.artificialTrees);
+    }
+    return phase3result;
+  }
+
+  /**
+   * If {@code factory} has or is a subchecker, shares {@code cfg} with the other checkers of its
+   * group.
+   *
+   * @param factory the type factory of the checker that uses {@code cfg}
+   * @param underlyingAST the code of {@code cfg}
+   * @param cfg a control flow graph
+   */
+  private static void addSharedCFG(
+      AnnotatedTypeFactory factory, UnderlyingAST underlyingAST, ControlFlowGraph cfg) {
     if (factory instanceof GenericAnnotatedTypeFactory) {
       GenericAnnotatedTypeFactory<?, ?, ?, ?> asGATF =
           (GenericAnnotatedTypeFactory<?, ?, ?, ?>) factory;
       if (asGATF.hasOrIsSubchecker) {
-        asGATF.addSharedCFGForTree(underlyingAST.getCode(), phase3result);
+        asGATF.addSharedCFGForTree(underlyingAST.getCode(), cfg);
       }
     }
-    return phase3result;
   }
 
   /**
@@ -125,6 +166,18 @@ public class CFCFGBuilder extends CFGBuilder {
     /** Type factory to provide types used during CFG building. */
     protected final AnnotatedTypeFactory factory;
 
+    /**
+     * Whether assertions were assumed to be enabled for each assert statement; see {@link
+     * CFGCache}.
+     */
+    final Map<AssertTree, Boolean> assertionsEnabledFor = new HashMap<>();
+
+    /** Whether each invoked method terminates execution; see {@link CFGCache}. */
+    final Map<Element, Boolean> terminatesExecution = new HashMap<>();
+
+    /** The enclosing element of each artificial tree; see {@link CFGCache}. */
+    final Map<Tree, Element> artificialTrees = new HashMap<>();
+
     public CFCFGTranslationPhaseOne(
         CFTreeBuilder builder,
         BaseTypeChecker checker,
@@ -139,10 +192,18 @@ public class CFCFGBuilder extends CFGBuilder {
 
     @Override
     protected boolean assumeAssertionsEnabledFor(AssertTree tree) {
-      if (assumeAssertionsActivatedForAssertTree(checker, tree)) {
-        return true;
-      }
-      return super.assumeAssertionsEnabledFor(tree);
+      boolean result =
+          assumeAssertionsActivatedForAssertTree(checker, tree)
+              || super.assumeAssertionsEnabledFor(tree);
+      assertionsEnabledFor.put(tree, result);
+      return result;
+    }
+
+    @Override
+    protected boolean terminatesExecution(Element methodElement) {
+      boolean result = super.terminatesExecution(methodElement);
+      terminatesExecution.put(methodElement, result);
+      return result;
     }
 
     @Override
@@ -151,11 +212,13 @@ public class CFCFGBuilder extends CFGBuilder {
       if (enclosingMethod != null) {
         Element methodElement = TreeUtils.elementFromDeclaration(enclosingMethod);
         factory.setEnclosingElementForArtificialTree(tree, methodElement);
+        artificialTrees.put(tree, methodElement);
       } else {
         ClassTree enclosingClass = TreePathUtil.enclosingClass(getCurrentPath());
         if (enclosingClass != null) {
           Element classElement = TreeUtils.elementFromDeclaration(enclosingClass);
           factory.setEnclosingElementForArtificialTree(tree, classElement);
+          artificialTrees.put(tree, classElement);
         }
       }
     }
@@ -0,0 +1,183 @@
+package org.checkerframework.framework.flow;
+
+import com.sun.source.tree.AssertTree;
+import com.sun.source.tree.Tree;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.util.Map;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.qual.TerminatesExecution;
+import org.checkerframework.framework.type.AnnotatedTypeFactory;
+import org.checkerframework.javacutil.CollectionUtils;
+
+/**
+ * A cache of control flow graphs that is shared by all checkers of one compilation, so that when
+ * several independent checkers run in the same javac invocation (for example, {@code -processor
+ * A,B}), the CFG of each method, lambda, and initializer is built only once. See {@link
+ * #instance}.
+ *
+ * <p>A CFG does not contain any checker-specific types: each checker stores the abstract values of
+ * the nodes in its own {@link org.checkerframework.dataflow.analysis.AnalysisResult}. The few
+ * decisions made during CFG construction that depend on the checker are recorded with the CFG, and
+ * a cached CFG is used by another checker only if that checker makes the same decisions. These are
+ * whether assertions are assumed to be enabled and whether each invoked method terminates
+ * execution. The artificial trees created during construction are registered with the type factory
+ * of each checker that uses the CFG.
+ */
+public final class CFGCache {
+
+  /** The key for the CFGCache in the javac context. */
+  private static final Context.Key<CFGCache> cfgCacheKey = new Context.Key<>();
+
+  /** The maximum number of CFGs in the cache. */
+  private static final int CACHE_SIZE = 300;
+
+  /** Maps the code of a method, lambda, or initializer to its cached CFG. */
+  private final Map<Tree, CachedCFG> cache = CollectionUtils.createLRUCache(CACHE_SIZE);
+
+  /** Creates a new CFGCache. Use {@link #instance} instead. */
+  private CFGCache() {}
+
+  /**
+   * Returns the CFGCache of the given processing environment, creating it if necessary.
+   *
+   * @param env the processing environment
+   * @return the CFGCache of {@code env}
+   */
+  public static CFGCache instance(ProcessingEnvironment env) {
+    Context context = ((JavacProcessingEnvironment) env).getContext();
+    CFGCache cfgCache = context.get(cfgCacheKey);
+    if (cfgCache == null) {
+      cfgCache = new CFGCache();
+      context.put(cfgCacheKey, cfgCache);
+    }
+    return cfgCache;
+  }
+
+  /**
+   * Returns the cached CFG of {@code code}, if there is one that {@code checker} may use. If so,
+   * the artificial trees of the CFG are registered with {@code factory}.
+   *
+   * @param code the code of a method, lambda, or initializer
+   * @param checker the checker that will analyze the CFG
+   * @param factory the type factory of {@code checker}
+   * @param assumeAssertionsEnabled true if assertions are assumed to be enabled
+   * @param assumeAssertionsDisabled true if assertions are assumed to be disabled
+   * @return the cached CFG of {@code code}, or null if there is none that {@code checker} may use
+   */
+  public @Nullable ControlFlowGraph get(
+      Tree code,
+      BaseTypeChecker checker,
+      AnnotatedTypeFactory factory,
+      boolean assumeAssertionsEnabled,
+      boolean assumeAssertionsDisabled) {
+    CachedCFG cached = cache.get(code);
+    if (cached == null
+        || cached.assumeAssertionsEnabled != assumeAssertionsEnabled
+        || cached.assumeAssertionsDisabled != assumeAssertionsDisabled) {
+      return null;
+    }
+    for (Map.Entry<AssertTree, Boolean> entry : cached.assertionsEnabledFor.entrySet()) {
+      if (CFCFGBuilder.assumeAssertionsActivatedForAssertTree(checker, entry.getKey())
+          != entry.getValue()) {
+        return null;
+      }
+    }
+    for (Map.Entry<Element, Boolean> entry : cached.terminatesExecution.entrySet()) {
+      boolean terminates =
+          factory.getDeclAnnotation(entry.getKey(), TerminatesExecution.class) != null;
+      if (terminates != entry.getValue()) {
+        return null;
+      }
+    }
+    for (Map.Entry<Tree, Element> entry : cached.artificialTrees.entrySet()) {
+      factory.setEnclosingElementForArtificialTree(entry.getKey(), entry.getValue());
+    }
+    return cached.cfg;
+  }
+
+  /**
+   * Caches the CFG of {@code code}, unless one is already cached.
+   *
+   * @param code the code of a method, lambda, or initializer
+   * @param cfg the CFG of {@code code}
+   * @param assumeAssertionsEnabled true if assertions were assumed to be enabled
+   * @param assumeAssertionsDisabled true if assertions were assumed to be disabled
+   * @param assertionsEnabledFor whether assertions were assumed to be enabled for each assert
+   *     statement in {@code code}
+   * @param terminatesExecution whether each method invoked in {@code code} terminates execution
+   * @param artificialTrees the enclosing element of each artificial tree of {@code cfg}
+   */
+  public void put(
+      Tree code,
+      ControlFlowGraph cfg,
+      boolean assumeAssertionsEnabled,
+      boolean assumeAssertionsDisabled,
+      Map<AssertTree, Boolean> assertionsEnabledFor,
+      Map<Element, Boolean> terminatesExecution,
+      Map<Tree, Element> artificialTrees) {
+    if (!cache.containsKey(code)) {
+      cache.put(
+          code,
+          new CachedCFG(
+              cfg,
+              assumeAssertionsEnabled,
+              assumeAssertionsDisabled,
+              assertionsEnabledFor,
+              terminatesExecution,
+              artificialTrees));
+    }
+  }
+
+  /** A cached CFG, with the checker-specific decisions that were made while building it. */
+  private static final class CachedCFG {
+
+    /** The CFG. */
+    final ControlFlowGraph cfg;
+
+    /** True if assertions were assumed to be enabled. */
+    final boolean assumeAssertionsEnabled;
+
+    /** True if assertions were assumed to be disabled. */
+    final boolean assumeAssertionsDisabled;
+
+    /** Whether assertions were assumed to be enabled for each assert statement. */
+    final Map<AssertTree, Boolean> assertionsEnabledFor;
+
+    /** Whether each invoked method terminates execution. */
+    final Map<Element, Boolean> terminatesExecution;
+
+    /** The enclosing element of each artificial tree of the CFG. */
+    final Map<Tree, Element> artificialTrees;
+
+    /**
+     * Creates a CachedCFG.
+     *
+     * @param cfg the CFG
+     * @param assumeAssertionsEnabled true if assertions were assumed to be enabled
+     * @param assumeAssertionsDisabled true if assertions were assumed to be disabled
+     * @param assertionsEnabledFor whether assertions were assumed to be enabled for each assert
+     *     statement
+     * @param terminatesExecution whether each invoked method terminates execution
+     * @param artificialTrees the enclosing element of each artificial tree of the CFG
+     */
+    CachedCFG(
+        ControlFlowGraph cfg,
+        boolean assumeAssertionsEnabled,
+        boolean assumeAssertionsDisabled,
+        Map<AssertTree, Boolean> assertionsEnabledFor,
+        Map<Element, Boolean> terminatesExecution,
+        Map<Tree, Element> artificialTrees) {
+      this.cfg = cfg;
+      this.assumeAssertionsEnabled = assumeAssertionsEnabled;
+      this.assumeAssertionsDisabled = assumeAssertionsDisabled;
+      this.assertionsEnabledFor = assertionsEnabledFor;
+      this.terminatesExecution = terminatesExecution;
+      this.artificialTrees = artificialTrees;
+    }
+  }
+}
@@ -68,7 +68,9 @@ import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.framework.qual.AnnotatedFor;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.util.CheckerMain;
+import org.checkerframework.framework.util.DataflowStatistics;
 import org.checkerframework.framework.util.OptionConfiguration;
+import org.checkerframework.framework.util.PhaseProfiler;
 import org.checkerframework.javacutil.AbstractTypeProcessor;
 import org.checkerframework.javacutil.AnnotationProvider;
 import org.checkerframework.javacutil.AnnotationUtils;
@@ -123,6 +125,16 @@ import org.plumelib.util.UtilPlume;
   "assumeDeterministic",
   "assumePure",
 
+  // Soundly compute which fields a call to a method in the current compilation may assign, so that
+  // the call discards less information.
+  // org.checkerframework.dataflow.util.ModifiesSummaries
+  "computeModifiesSets",
+
+  // Soundly infer the purity of unannotated methods in the current compilation that cannot be
+  // overridden.
+  // org.checkerframework.dataflow.util.PurityUtils.enablePurityInference
+  "inferUnannotatedPurity",
+
   // Whether to assume that assertions are enabled or disabled
   // org.checkerframework.framework.flow.CFCFGBuilder.CFCFGBuilder
   "assumeAssertionsAreEnabled",
@@ -203,6 +215,11 @@ import org.plumelib.util.UtilPlume;
   // "-Ainfer=stubs" or "-Ainfer=jaifs".
   "infer",
 
+  // Whether whole-program inference with "-Ainfer=jaifs" also writes a binary side-car file for
+  // each .jaif file, which the next run reads instead of parsing the .jaif file.
+  // org.checkerframework.common.wholeprograminference.SceneBinaryFormat
+  "inferBinaryState",
+
   // With each warning, in addition to the concrete error key,
   // output the SuppressWarnings strings that can be used to
   // suppress that warning.
@@ -378,12 +395,31 @@ import org.plumelib.util.UtilPlume;
   // Sets AnnotatedTypeFactory shouldCache to false
   "atfDoNotCache",
 
+  // Bound the stores that GenericAnnotatedTypeFactory caches within basic blocks by their total
+  // number, rather than by the number of basic blocks.
+  // -AflowStoreCacheBudget=N
+  "flowStoreCacheBudget",
+
+  // Do not keep the input store of a basic block that can be recomputed from its predecessor.
+  // org.checkerframework.dataflow.analysis.AnalysisResult.setCompact
+  "compactFlowResults",
+
   /// Miscellaneous debugging options
 
   // Whether to output resource statistics at JVM shutdown
   // org.checkerframework.framework.source.SourceChecker.shutdownHook()
   "resourceStats",
 
+  // Record the time and allocation of each phase of type-checking, per checker and per
+  // compilation unit, and write them as JSON to the given file (default phase-profile.json).
+  // org.checkerframework.framework.util.PhaseProfiler
+  "phaseProfile",
+
+  // Print the given number (default 20) of methods whose dataflow analysis took the longest, with
+  // the number of block visits and widening events of each.
+  // org.checkerframework.framework.util.DataflowStatistics
+  "dataflowStats",
+
   // Parse all JDK files at startup rather than as needed.
   "parseAllJdk",
 
@@ -434,6 +470,12 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
   /** The visitor to use. */
   protected SourceVisitor<?, ?> visitor;
 
+  /** Records the cost of each phase of type-checking, or null if -AphaseProfile is not given. */
+  private @Nullable PhaseProfiler phaseProfiler;
+
+  /** Records the cost of each dataflow analysis, or null if -AdataflowStats is not given. */
+  private @Nullable DataflowStatistics dataflowStatistics;
+
   /**
    * Exceptions to -AwarnUnneededSuppressions processing. No warning about unneeded suppressions is
    * issued if the SuppressWarnings string matches this pattern.
@@ -608,6 +650,9 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
   @SuppressWarnings("interning:assignment") // used in == tests
   protected void setRoot(CompilationUnitTree newRoot) {
     this.currentRoot = newRoot;
+    if (phaseProfiler != null) {
+      phaseProfiler.setCompilationUnit(newRoot.getSourceFile().getName());
+    }
     visitor.setRoot(currentRoot);
   }
 
@@ -869,6 +914,20 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
     this.messager = processingEnv.getMessager();
     this.messagesProperties = getMessagesProperties();
 
+    // Set before creating the visitor, so that the type factory can use it.
+    if (hasOption("phaseProfile") && phaseProfiler == null) {
+      phaseProfiler = PhaseProfiler.instance(processingEnv, getOption("phaseProfile"));
+      if (getParentChecker() == null) {
+        phaseProfiler.register();
+      }
+    }
+    if (hasOption("dataflowStats") && dataflowStatistics == null) {
+      dataflowStatistics = DataflowStatistics.instance(processingEnv, getOption("dataflowStats"));
+      if (getParentChecker() == null) {
+        dataflowStatistics.register();
+      }
+    }
+
     this.visitor = createSourceVisitor();
 
     // Validate the lint flags, if they haven't been used already.
@@ -877,6 +936,39 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
     }
   }
 
+  @Override
+  public void typeProcessingOver() {
+    if (phaseProfiler != null && getParentChecker() == null) {
+      phaseProfiler.checkerFinished();
+    }
+    if (dataflowStatistics != null && getParentChecker() == null) {
+      dataflowStatistics.checkerFinished();
+    }
+    super.typeProcessingOver();
+  }
+
+  /**
+   * Returns the profiler that records the cost of each phase of type-checking, or null if the
+   * {@code -AphaseProfile} command-line option was not given. The profiler is shared by all
+   * checkers of the current javac invocation.
+   *
+   * @return the phase profiler, or null if phases are not being profiled
+   */
+  public @Nullable PhaseProfiler getPhaseProfiler() {
+    return phaseProfiler;
+  }
+
+  /**
+   * Returns the object that records the cost of each dataflow analysis, or null if the {@code
+   * -AdataflowStats} command-line option was not given. It is shared by all checkers of the current
+   * javac invocation.
+   *
+   * @return the dataflow statistics, or null if dataflow statistics are not being collected
+   */
+  public @Nullable DataflowStatistics getDataflowStatistics() {
+    return dataflowStatistics;
+  }
+
   /** Output the warning about source level at most once. */
   private boolean warnedAboutSourceLevel = false;
 
@@ -984,7 +1076,16 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
 
     // Visit the attributed tree.
     try {
-      visitor.visit(p);
+      if (phaseProfiler == null) {
+        visitor.visit(p);
+      } else {
+        phaseProfiler.start(this, PhaseProfiler.Phase.VISITOR);
+        try {
+          visitor.visit(p);
+        } finally {
+          phaseProfiler.stop(PhaseProfiler.Phase.VISITOR);
+        }
+      }
       warnUnneededSuppressions();
     } catch (UserError ce) {
       logUserError(ce);
@@ -1730,6 +1831,31 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
         String.format("Value of %s option should be a boolean, but is \"%s\".", name, value));
   }
 
+  /**
+   * Determines the value of the option with the given name, which must be a positive integer.
+   * Returns the given default value if the option is not set.
+   *
+   * @param name the name of the option to check
+   * @param defaultValue the default value to use if the option is not set
+   * @return the value of the option, or {@code defaultValue} if it is not set
+   * @see SourceChecker#getOption(String)
+   */
+  public final int getPositiveIntOption(String name, int defaultValue) {
+    String value = getOption(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      int result = Integer.parseInt(value);
+      if (result > 0) {
+        return result;
+      }
+    } catch (NumberFormatException e) {
+      // fall through to the error below
+    }
+    throw new UserError("The argument of -A%s must be a positive integer, found: %s", name, value);
+  }
+
   /**
    * Return all active options for this checker.
    *
@@ -46,6 +46,7 @@ import org.checkerframework.framework.stub.AnnotationFileUtil.AnnotationFileType
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
+import org.checkerframework.framework.util.PhaseProfiler;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.ElementUtils;
 import org.checkerframework.javacutil.Pair;
@@ -499,6 +500,20 @@ public class AnnotationFileElementTypes {
     destType.addAnnotations(srcType.getAnnotations());
   }
 
+  /**
+   * Returns true if an annotation file contains a fake override of the given method. If so, the
+   * type of the method may depend on the receiver type of an invocation; see {@link
+   * #getFakeOverride}.
+   *
+   * @param method a method
+   * @return true if there is a fake override of {@code method} in some annotation file
+   */
+  public boolean hasFakeOverride(ExecutableElement method) {
+    List<Pair<TypeMirror, AnnotatedTypeMirror>> candidates =
+        annotationFileAnnos.fakeOverrides.get(method);
+    return candidates != null && !candidates.isEmpty();
+  }
+
   /**
    * Returns the method type of the most specific fake override for the given element, when used as
    * a member of the given type.
@@ -610,12 +625,25 @@ public class AnnotationFileElementTypes {
     if (className == null || className.isEmpty()) {
       return;
     }
-    if (jdkStubFiles.containsKey(className)) {
-      parseJdkStubFile(jdkStubFiles.get(className));
-      jdkStubFiles.remove(className);
-    } else if (jdkStubFilesJar.containsKey(className)) {
-      parseJdkJarEntry(jdkStubFilesJar.get(className));
-      jdkStubFilesJar.remove(className);
+    if (!jdkStubFiles.containsKey(className) && !jdkStubFilesJar.containsKey(className)) {
+      return;
+    }
+    PhaseProfiler phaseProfiler = factory.getChecker().getPhaseProfiler();
+    if (phaseProfiler != null) {
+      phaseProfiler.start(factory.getChecker(), PhaseProfiler.Phase.ANNOTATION_FILES);
+    }
+    try {
+      if (jdkStubFiles.containsKey(className)) {
+        parseJdkStubFile(jdkStubFiles.get(className));
+        jdkStubFiles.remove(className);
+      } else {
+        parseJdkJarEntry(jdkStubFilesJar.get(className));
+        jdkStubFilesJar.remove(className);
+      }
+    } finally {
+      if (phaseProfiler != null) {
+        phaseProfiler.stop(PhaseProfiler.Phase.ANNOTATION_FILES);
+      }
     }
   }
 
@@ -47,6 +47,7 @@ import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
 import java.util.regex.Matcher;
@@ -75,6 +76,7 @@ import org.checkerframework.checker.interning.qual.FindDistinct;
 import org.checkerframework.checker.interning.qual.InternedDistinct;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.checker.nullness.qual.RequiresNonNull;
 import org.checkerframework.checker.signature.qual.CanonicalName;
 import org.checkerframework.checker.signature.qual.FullyQualifiedName;
 import org.checkerframework.common.basetype.BaseTypeChecker;
@@ -89,6 +91,8 @@ import org.checkerframework.common.wholeprograminference.WholeProgramInferenceIm
 import org.checkerframework.common.wholeprograminference.WholeProgramInferenceJavaParserStorage;
 import org.checkerframework.common.wholeprograminference.WholeProgramInferenceScenesStorage;
 import org.checkerframework.dataflow.qual.SideEffectFree;
+import org.checkerframework.dataflow.util.PurityCache;
+import org.checkerframework.dataflow.util.PurityCacheOwner;
 import org.checkerframework.framework.qual.AnnotatedFor;
 import org.checkerframework.framework.qual.EnsuresQualifier;
 import org.checkerframework.framework.qual.EnsuresQualifierIf;
@@ -116,11 +120,13 @@ import org.checkerframework.framework.util.AnnotationMirrorSet;
 import org.checkerframework.framework.util.CheckerMain;
 import org.checkerframework.framework.util.DefaultAnnotationFormatter;
 import org.checkerframework.framework.util.FieldInvariants;
+import org.checkerframework.framework.util.PhaseProfiler;
 import org.checkerframework.framework.util.TreePathCacher;
 import org.checkerframework.framework.util.typeinference.DefaultTypeArgumentInference;
 import org.checkerframework.framework.util.typeinference.TypeArgInferenceUtil;
 import org.checkerframework.framework.util.typeinference.TypeArgumentInference;
 import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationInterner;
 import org.checkerframework.javacutil.AnnotationProvider;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
@@ -172,7 +178,7 @@ import scenelib.annotations.el.ATypeElement;
  *
  * @checker_framework.manual #creating-a-checker How to write a checker plug-in
  */
-public class AnnotatedTypeFactory implements AnnotationProvider {
+public class AnnotatedTypeFactory implements AnnotationProvider, PurityCacheOwner {
 
   /** Whether to print verbose debugging messages about stub files. */
   private final boolean debugStubParser;
@@ -195,6 +201,22 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
   /** Utility class for working with {@link TypeMirror}s. */
   public final Types types;
 
+  /** The pool of canonical annotations; every qualifier added to a type is interned in it. */
+  protected final AnnotationInterner annotationInterner;
+
+  /**
+   * The top annotations of the qualifier hierarchy, indexed by hierarchy number. Null until the
+   * qualifier hierarchy has been created and {@link #getHierarchyIndex} is first called.
+   */
+  private AnnotationMirror @MonotonicNonNull [] hierarchyTops = null;
+
+  /**
+   * Caches {@link #getHierarchyIndex}. The keys are annotation type elements: all annotations of
+   * one type are in the same hierarchy, so there is one entry per annotation type that was looked
+   * up.
+   */
+  private final Map<Element, Integer> hierarchyIndexCache = new HashMap<>();
+
   /**
    * A TreePath to the current tree that an external "visitor" is visiting. The visitor is either a
    * subclass of {@link BaseTypeVisitor} or {@link
@@ -477,9 +499,47 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
   /** Mapping from an Element to the source Tree of the declaration. */
   private final Map<Element, Tree> elementToTreeCache;
 
+  /**
+   * Mapping from a receiver type and a method to the type of the method as a member of the receiver
+   * type, for methods whose type does not depend on the invocation; see {@link
+   * #isMethodFromUseCacheable}. Null if caching is disabled.
+   */
+  private final @Nullable Map<MethodFromUseKey, AnnotatedExecutableType> methodFromUseCache;
+
+  /**
+   * Adds the primary annotations of each visited type to its argument, in the order in which the
+   * types are visited. Used to record the annotations of a receiver type in a {@link
+   * MethodFromUseKey}.
+   */
+  private final SimpleAnnotatedTypeScanner<Void, List<List<AnnotationMirror>>>
+      annotationsRecorder =
+          new SimpleAnnotatedTypeScanner<>(
+              (type, annotations) -> {
+                annotations.add(new ArrayList<>(type.getAnnotations()));
+                return null;
+              });
+
+  /**
+   * Mapping from a type variable to an unannotated annotated type variable whose bounds have been
+   * initialized. {@link BoundsInitializer} copies the bounds from it rather than initializing the
+   * bounds of the same type variable repeatedly. Null if caching is disabled.
+   */
+  final @Nullable Map<TypeVariable, AnnotatedTypeVariable> typeVariableSkeletons;
+
   /** Mapping from a Tree to its TreePath. Shared between all instances. */
   private final TreePathCacher treePathCache;
 
+  /**
+   * The number of times that a type of this factory that was visited while computing a cached hash
+   * code has been mutated. A cached hash code of a type of this factory is valid only if no such
+   * mutation happened since it was computed. (AnnotatedTypeMirrors are mutable, and a type may be a
+   * component of many types.) See {@link AnnotatedTypeMirror#hashCode}.
+   */
+  long hashedTypeModificationCount = 0;
+
+  /** The purity of the methods that have been looked up with this factory. */
+  private final PurityCache purityCache = new PurityCache();
+
   /** Mapping from CFG-generated trees to their enclosing elements. */
   protected final Map<Tree, Element> artificialTreeToEnclosingElementMap;
 
@@ -521,6 +581,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     this.trees = Trees.instance(processingEnv);
     this.elements = processingEnv.getElementUtils();
     this.types = processingEnv.getTypeUtils();
+    this.annotationInterner = AnnotationInterner.instance(processingEnv);
 
     this.supportedQuals = new HashSet<>();
     this.supportedQualNames = new HashSet<>();
@@ -543,6 +604,8 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
       this.fromTypeTreeCache = CollectionUtils.createLRUCache(cacheSize);
       this.elementCache = CollectionUtils.createLRUCache(cacheSize);
       this.elementToTreeCache = CollectionUtils.createLRUCache(cacheSize);
+      this.methodFromUseCache = CollectionUtils.createLRUCache(cacheSize);
+      this.typeVariableSkeletons = CollectionUtils.createLRUCache(cacheSize);
       this.annotationClassNames =
           Collections.synchronizedMap(CollectionUtils.createLRUCache(ANNOTATION_CACHE_SIZE));
     } else {
@@ -552,6 +615,8 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
       this.fromTypeTreeCache = null;
       this.elementCache = null;
       this.elementToTreeCache = null;
+      this.methodFromUseCache = null;
+      this.typeVariableSkeletons = null;
       this.annotationClassNames = null;
     }
 
@@ -831,7 +896,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
    * @param root the new compilation unit to use
    */
   public void setRoot(@Nullable CompilationUnitTree root) {
-    if (root != null && wholeProgramInference != null) {
+    if (root != null && wholeProgramInference != null && wholeProgramInference.shouldCheck(root)) {
       for (Tree typeDecl : root.getTypeDecls()) {
         if (typeDecl.getKind() == Tree.Kind.CLASS) {
           ClassTree classTree = (ClassTree) typeDecl;
@@ -910,6 +975,15 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     }
   }
 
+  /**
+   * Returns the compilation unit that is currently being processed.
+   *
+   * @return the current compilation unit, or null if there is none
+   */
+  public @Nullable CompilationUnitTree getRoot() {
+    return root;
+  }
+
   @SideEffectFree
   @Override
   public String toString() {
@@ -943,6 +1017,62 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     return qualHierarchy;
   }
 
+  /**
+   * Returns the number of the qualifier hierarchy that {@code anno} belongs to, or -1 if it is not
+   * a supported qualifier or the qualifier hierarchy has not been created yet. Hierarchies are
+   * numbered from 0 to {@link #getHierarchyCount()} - 1, in the order of {@link
+   * QualifierHierarchy#getTopAnnotations()}.
+   *
+   * @param anno an annotation
+   * @return the number of the qualifier hierarchy of {@code anno}, or -1
+   */
+  public int getHierarchyIndex(AnnotationMirror anno) {
+    if (qualHierarchy == null) {
+      return -1;
+    }
+    Element annoType = anno.getAnnotationType().asElement();
+    Integer index = hierarchyIndexCache.get(annoType);
+    if (index == null) {
+      index = -1;
+      if (isSupportedQualifier(anno)) {
+        AnnotationMirror top = qualHierarchy.getTopAnnotation(anno);
+        AnnotationMirror[] tops = getHierarchyTops();
+        for (int i = 0; i < tops.length; i++) {
+          if (AnnotationUtils.areSame(tops[i], top)) {
+            index = i;
+            break;
+          }
+        }
+      }
+      hierarchyIndexCache.put(annoType, index);
+    }
+    return index;
+  }
+
+  /**
+   * Returns the number of qualifier hierarchies, or 0 if the qualifier hierarchy has not been
+   * created yet.
+   *
+   * @return the number of qualifier hierarchies
+   * @see #getHierarchyIndex
+   */
+  public int getHierarchyCount() {
+    return qualHierarchy == null ? 0 : getHierarchyTops().length;
+  }
+
+  /**
+   * Returns the top annotations of the qualifier hierarchy, indexed by hierarchy number.
+   *
+   * @return the top annotations of the qualifier hierarchy, indexed by hierarchy number
+   */
+  @RequiresNonNull("qualHierarchy")
+  private AnnotationMirror[] getHierarchyTops() {
+    if (hierarchyTops == null) {
+      hierarchyTops = qualHierarchy.getTopAnnotations().toArray(new AnnotationMirror[0]);
+    }
+    return hierarchyTops;
+  }
+
   /**
    * To continue to use a subclass of {@link
    * org.checkerframework.framework.util.MultiGraphQualifierHierarchy} or {@link
@@ -1249,7 +1379,26 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
    * @return the annotated type of {@code tree}
    */
   public AnnotatedTypeMirror getAnnotatedType(Tree tree) {
+    PhaseProfiler phaseProfiler = checker.getPhaseProfiler();
+    if (phaseProfiler == null) {
+      return getAnnotatedTypeUnprofiled(tree);
+    }
+    phaseProfiler.start(checker, PhaseProfiler.Phase.TREE_ANNOTATION);
+    try {
+      return getAnnotatedTypeUnprofiled(tree);
+    } finally {
+      phaseProfiler.stop(PhaseProfiler.Phase.TREE_ANNOTATION);
+    }
+  }
 
+  /**
+   * Implements {@link #getAnnotatedType(Tree)}, without recording the time spent in the {@link
+   * PhaseProfiler}.
+   *
+   * @param tree the AST node
+   * @return the annotated type of {@code tree}
+   */
+  private AnnotatedTypeMirror getAnnotatedTypeUnprofiled(Tree tree) {
     if (tree == null) {
       throw new BugInCF("AnnotatedTypeFactory.getAnnotatedType: null tree");
     }
@@ -1388,6 +1537,9 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
    * @return AnnotatedTypeMirror of the element with explicitly-written and stub file annotations
    */
   public AnnotatedTypeMirror fromElement(Element elt) {
+    if (wholeProgramInference != null) {
+      wholeProgramInference.recordRead(elt);
+    }
     if (shouldCache && elementCache.containsKey(elt)) {
       return elementCache.get(elt).deepCopy();
     }
@@ -2138,6 +2290,85 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     }
   }
 
+  /**
+   * A key of {@link #methodFromUseCache}: a receiver type and a method. The key does not refer to
+   * the receiver's annotated type, which the caller may mutate. Instead, it records the receiver's
+   * underlying type and the annotations of the receiver and of its component types. Two receiver
+   * types with the same underlying type have the same structure, so they are equal if their
+   * annotations are the same at each position. The hash code is computed once, when the key is
+   * created.
+   */
+  private final class MethodFromUseKey {
+
+    /** The underlying type of the receiver, or null if there is none. */
+    private final @Nullable TypeMirror receiverUnderlyingType;
+
+    /**
+     * The primary annotations of the receiver type and of its component types, in the order in
+     * which {@link #annotationsRecorder} visits them. Empty if there is no receiver.
+     */
+    private final List<List<AnnotationMirror>> receiverAnnotations;
+
+    /** The invoked method. */
+    private final ExecutableElement methodElt;
+
+    /** The hash code of this key. */
+    private final int hashCode;
+
+    /**
+     * Creates a MethodFromUseKey.
+     *
+     * @param receiverType the type of the receiver, or null if there is none
+     * @param methodElt the invoked method
+     */
+    MethodFromUseKey(@Nullable AnnotatedTypeMirror receiverType, ExecutableElement methodElt) {
+      this.methodElt = methodElt;
+      this.receiverAnnotations = new ArrayList<>();
+      if (receiverType == null) {
+        this.receiverUnderlyingType = null;
+      } else {
+        this.receiverUnderlyingType = receiverType.getUnderlyingType();
+        annotationsRecorder.visit(receiverType, receiverAnnotations);
+      }
+      this.hashCode = Objects.hash(receiverType, methodElt);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof MethodFromUseKey)) {
+        return false;
+      }
+      MethodFromUseKey other = (MethodFromUseKey) o;
+      if (hashCode != other.hashCode
+          || methodElt != other.methodElt
+          || receiverAnnotations.size() != other.receiverAnnotations.size()) {
+        return false;
+      }
+      if (receiverUnderlyingType == null || other.receiverUnderlyingType == null) {
+        if (receiverUnderlyingType != other.receiverUnderlyingType) {
+          return false;
+        }
+      } else if (!types.isSameType(receiverUnderlyingType, other.receiverUnderlyingType)) {
+        return false;
+      }
+      for (int i = 0; i < receiverAnnotations.size(); i++) {
+        if (!AnnotationUtils.areSame(
+            receiverAnnotations.get(i), other.receiverAnnotations.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
   /**
    * Determines the type of the invoked method based on the passed method invocation tree.
    *
@@ -2209,6 +2440,9 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
    * Determines the type of the invoked method based on the passed expression tree, executable
    * element, and receiver type.
    *
+   * <p>For a method without type parameters for which {@link #isMethodFromUseCacheable} returns
+   * true, the result is cached per receiver type, and a copy of the cached type is returned.
+   *
    * @param tree either a MethodInvocationTree or a MemberReferenceTree
    * @param methodElt the element of the referenced method
    * @param receiverType the type of the receiver
@@ -2218,15 +2452,34 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
   public ParameterizedExecutableType methodFromUse(
       ExpressionTree tree, ExecutableElement methodElt, AnnotatedTypeMirror receiverType) {
 
+    MethodFromUseKey key = null;
+    if (methodFromUseCache != null
+        && methodElt.getTypeParameters().isEmpty()
+        && (receiverType == null || !receiverType.containsUninferredTypeArguments())
+        && !(tree.getKind() == Tree.Kind.METHOD_INVOCATION
+            && TreeUtils.isMethodInvocation(tree, objectGetClass, processingEnv))) {
+      key = new MethodFromUseKey(receiverType, methodElt);
+      AnnotatedExecutableType cached = methodFromUseCache.get(key);
+      if (cached != null) {
+        return new ParameterizedExecutableType(cached.deepCopy(), new ArrayList<>(0));
+      }
+    }
+
     AnnotatedExecutableType memberTypeWithoutOverrides =
         getAnnotatedType(methodElt); // get unsubstituted type
     AnnotatedExecutableType memberTypeWithOverrides =
         applyFakeOverrides(receiverType, methodElt, memberTypeWithoutOverrides);
     memberTypeWithOverrides = applyRecordTypesToAccessors(methodElt, memberTypeWithOverrides);
+    if (key != null && !isMethodFromUseCacheable(methodElt, memberTypeWithOverrides)) {
+      key = null;
+    }
     methodFromUsePreSubstitution(tree, memberTypeWithOverrides);
 
     AnnotatedExecutableType methodType =
         AnnotatedTypes.asMemberOf(types, this, receiverType, methodElt, memberTypeWithOverrides);
+    if (methodFromUseCache != null && key != null) {
+      methodFromUseCache.put(key, methodType.deepCopy());
+    }
     List<AnnotatedTypeMirror> typeargs = new ArrayList<>(methodType.getTypeVariables().size());
 
     Map<TypeVariable, AnnotatedTypeMirror> typeParamToTypeArg =
@@ -2369,6 +2622,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
    * A callback method for the AnnotatedTypeFactory subtypes to customize the handling of the
    * declared method type before type variable substitution.
    *
+   * <p>The result of {@link #methodFromUse(ExpressionTree, ExecutableElement, AnnotatedTypeMirror)}
+   * is cached for methods for which {@link #isMethodFromUseCacheable} returns true, so this is not
+   * called for every invocation of such methods. An override that uses {@code tree} for more than
+   * finding the invoked method must also override {@link #isMethodFromUseCacheable}.
+   *
    * @param tree either a method invocation or a member reference tree
    * @param type declared method type before type variable substitution
    */
@@ -2376,6 +2634,23 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     assert tree instanceof MethodInvocationTree || tree instanceof MemberReferenceTree;
   }
 
+  /**
+   * Returns true if the type of {@code methodElt} as a member of a receiver type does not depend on
+   * the invocation, so that {@link #methodFromUse(ExpressionTree, ExecutableElement,
+   * AnnotatedTypeMirror)} can reuse it for every invocation with an equal receiver type. This is
+   * only called for methods that have no type parameters. Subclasses whose {@link
+   * #methodFromUsePreSubstitution} depends on the invocation should override this method.
+   *
+   * @param methodElt a method without type parameters
+   * @param methodType the declared type of {@code methodElt}, before {@link
+   *     #methodFromUsePreSubstitution} is applied
+   * @return true if the type of {@code methodElt} does not depend on the invocation
+   */
+  protected boolean isMethodFromUseCacheable(
+      ExecutableElement methodElt, AnnotatedExecutableType methodType) {
+    return true;
+  }
+
   /**
    * Java special-cases the return type of {@link java.lang.Class#getClass() getClass()}. Though the
    * method has a return type of {@code Class<?>}, the compiler special cases this return-type and
@@ -3707,8 +3982,18 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
    * <p>The annotations are stored by side-effecting {@link #stubTypes} and {@link #ajavaTypes}.
    */
   protected void parseAnnotationFiles() {
-    stubTypes.parseStubFiles();
-    ajavaTypes.parseAjavaFiles();
+    PhaseProfiler phaseProfiler = checker.getPhaseProfiler();
+    if (phaseProfiler != null) {
+      phaseProfiler.start(checker, PhaseProfiler.Phase.ANNOTATION_FILES);
+    }
+    try {
+      stubTypes.parseStubFiles();
+      ajavaTypes.parseAjavaFiles();
+    } finally {
+      if (phaseProfiler != null) {
+        phaseProfiler.stop(PhaseProfiler.Phase.ANNOTATION_FILES);
+      }
+    }
   }
 
   /**
@@ -5174,6 +5459,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     return this.elements;
   }
 
+  @Override
+  public PurityCache getPurityCache() {
+    return purityCache;
+  }
+
   /** Accessor for the tree utilities. */
   public Trees getTreeUtils() {
     return this.trees;
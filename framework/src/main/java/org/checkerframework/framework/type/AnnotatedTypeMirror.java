@@ -132,16 +132,28 @@ public abstract class AnnotatedTypeMirror {
 
   /**
    * Saves the result of {@code underlyingType.toString().hashcode()} to use when computing the hash
-   * code of this. (Because AnnotatedTypeMirrors are mutable, the hash code for this cannot be
-   * saved.) Call {@link #getUnderlyingTypeHashCode()} rather than using the field directly.
+   * code of this. Call {@link #getUnderlyingTypeHashCode()} rather than using the field directly.
    */
   private int underlyingTypeHashCode = -1;
 
-  /** The annotations on this type. */
-  // AnnotationMirror doesn't override Object.hashCode, .equals, so we use
-  // the class name of Annotation instead.
-  // Caution: Assumes that a type can have at most one AnnotationMirror for any Annotation type.
-  protected final Set<AnnotationMirror> annotations = AnnotationUtils.createAnnotationSet();
+  /** The cached result of {@link #hashCode}; valid only if {@link #hashCodeIsValid}. */
+  private int cachedHashCode;
+
+  /**
+   * The value of {@link AnnotatedTypeFactory#hashedTypeModificationCount} of the factory of this
+   * type when {@link #cachedHashCode} was computed, or -1 if it has not been computed.
+   */
+  private long cachedHashCodeModificationCount = -1;
+
+  /**
+   * True if this type was visited while computing a hash code, which might be cached by this type
+   * or by a type that contains it. Mutating this type invalidates all cached hash codes. Set by
+   * {@link HashcodeAtmVisitor}.
+   */
+  boolean inCachedHashCode = false;
+
+  /** The annotations on this type, stored in one slot per qualifier hierarchy. */
+  protected final PrimaryAnnotationSet annotations;
 
   /** The explicitly written annotations on this type. */
   // TODO: use this to cache the result once computed? For generic types?
@@ -159,6 +171,7 @@ public abstract class AnnotatedTypeMirror {
     this.underlyingType = underlyingType;
     assert atypeFactory != null;
     this.atypeFactory = atypeFactory;
+    this.annotations = new PrimaryAnnotationSet(atypeFactory, this);
   }
 
   @Override
@@ -170,14 +183,45 @@ public abstract class AnnotatedTypeMirror {
     if (!(o instanceof AnnotatedTypeMirror)) {
       return false;
     }
-
     return EQUALITY_COMPARER.visit(this, (AnnotatedTypeMirror) o, null);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The hash code is cached until this type, or any type that was visited when computing a
+   * cached hash code, is mutated.
+   */
   @Pure
   @Override
   public final int hashCode() {
-    return HASHCODE_VISITOR.visit(this);
+    if (!hashCodeIsValid()) {
+      // Read the count first: computing the hash code may lazily initialize component types.
+      long modificationCount = atypeFactory.hashedTypeModificationCount;
+      cachedHashCode = HASHCODE_VISITOR.visit(this);
+      cachedHashCodeModificationCount = modificationCount;
+    }
+    return cachedHashCode;
+  }
+
+  /**
+   * Returns true if {@link #cachedHashCode} is the current hash code of this.
+   *
+   * @return true if {@link #cachedHashCode} is the current hash code of this
+   */
+  private boolean hashCodeIsValid() {
+    return cachedHashCodeModificationCount == atypeFactory.hashedTypeModificationCount;
+  }
+
+  /**
+   * Must be called before this type's primary annotations or component types are changed.
+   * Invalidates all cached hash codes if this type was used to compute one of them.
+   */
+  void invalidateCachedHashCodes() {
+    if (inCachedHashCode) {
+      atypeFactory.hashedTypeModificationCount++;
+      inCachedHashCode = false;
+    }
   }
 
   /**
@@ -268,11 +312,7 @@ public abstract class AnnotatedTypeMirror {
       aliased = atypeFactory.canonicalAnnotation(p);
     }
     if (atypeFactory.isSupportedQualifier(aliased)) {
-      QualifierHierarchy qualHier = this.atypeFactory.getQualifierHierarchy();
-      AnnotationMirror anno = qualHier.findAnnotationInSameHierarchy(annotations, aliased);
-      if (anno != null) {
-        return anno;
-      }
+      return annotations.findAnnotationInSameHierarchy(aliased);
     }
     return null;
   }
@@ -315,6 +355,27 @@ public abstract class AnnotatedTypeMirror {
     return Collections.unmodifiableSet(annotations);
   }
 
+  /**
+   * Returns true if this type and {@code other} have the same primary annotations, according to
+   * {@link AnnotationUtils#areSame(java.util.Collection, java.util.Collection)}. Sets of
+   * annotations whose hash codes differ are rejected without comparing their annotations.
+   *
+   * @param other another type
+   * @return true if this type and {@code other} have the same primary annotations
+   */
+  public boolean hasSamePrimaryAnnotations(AnnotatedTypeMirror other) {
+    if (annotations.size() != other.annotations.size()) {
+      return false;
+    }
+    if (annotations.isEmpty()) {
+      return true;
+    }
+    if (annotations.structuralHashCode() != other.annotations.structuralHashCode()) {
+      return false;
+    }
+    return AnnotationUtils.areSame(annotations, other.annotations);
+  }
+
   /**
    * Returns the annotations on this type; mutations affect this object, because the return type is
    * an alias of the {@code annotations} field. It does not include annotations in deep types (type
@@ -582,7 +643,7 @@ public abstract class AnnotatedTypeMirror {
       throw new BugInCF("AnnotatedTypeMirror.addAnnotation: null argument.");
     }
     if (atypeFactory.isSupportedQualifier(a)) {
-      this.annotations.add(a);
+      this.annotations.add(atypeFactory.annotationInterner.intern(a));
     } else {
       AnnotationMirror aliased = atypeFactory.canonicalAnnotation(a);
       if (atypeFactory.isSupportedQualifier(aliased)) {
@@ -733,6 +794,17 @@ public abstract class AnnotatedTypeMirror {
     annotations.clear();
   }
 
+  /**
+   * Copies the primary annotations of {@code source}, which has the same type factory as this, to
+   * this, which has no primary annotations. Unlike {@link #addAnnotations}, this copies the
+   * annotations without checking each one again.
+   *
+   * @param source the type whose primary annotations to copy
+   */
+  final void copyAnnotationsFrom(AnnotatedTypeMirror source) {
+    annotations.copyFrom(source.annotations);
+  }
+
   @SideEffectFree
   @Override
   public final String toString() {
@@ -961,6 +1033,7 @@ public abstract class AnnotatedTypeMirror {
      * @param ts the type arguments
      */
     public void setTypeArguments(List<? extends AnnotatedTypeMirror> ts) {
+      invalidateCachedHashCodes();
       if (ts == null || ts.isEmpty()) {
         typeArgs = Collections.emptyList();
       } else {
@@ -1070,7 +1143,7 @@ public abstract class AnnotatedTypeMirror {
       AnnotatedDeclaredType type =
           new AnnotatedDeclaredType(getUnderlyingType(), atypeFactory, declaration);
       if (copyAnnotations) {
-        type.addAnnotations(this.getAnnotationsField());
+        type.copyAnnotationsFrom(this);
       }
       type.setEnclosingType(getEnclosingType());
       type.setTypeArguments(getTypeArguments());
@@ -1169,6 +1242,7 @@ public abstract class AnnotatedTypeMirror {
      * @param params the parameter types, excluding the receiver
      */
     void setParameterTypes(List<? extends AnnotatedTypeMirror> params) {
+      invalidateCachedHashCodes();
       paramTypes.clear();
       paramTypes.addAll(params);
     }
@@ -1194,6 +1268,7 @@ public abstract class AnnotatedTypeMirror {
      * @param returnType the return type
      */
     void setReturnType(AnnotatedTypeMirror returnType) {
+      invalidateCachedHashCodes();
       this.returnType = returnType;
     }
 
@@ -1242,6 +1317,7 @@ public abstract class AnnotatedTypeMirror {
      * @param receiverType the receiver type
      */
     void setReceiverType(AnnotatedDeclaredType receiverType) {
+      invalidateCachedHashCodes();
       this.receiverType = receiverType;
     }
 
@@ -1273,6 +1349,7 @@ public abstract class AnnotatedTypeMirror {
      * @param thrownTypes the thrown types
      */
     void setThrownTypes(List<? extends AnnotatedTypeMirror> thrownTypes) {
+      invalidateCachedHashCodes();
       this.throwsTypes.clear();
       this.throwsTypes.addAll(thrownTypes);
     }
@@ -1298,6 +1375,7 @@ public abstract class AnnotatedTypeMirror {
      * @param types the type variables of this executable type
      */
     void setTypeVariables(List<AnnotatedTypeVariable> types) {
+      invalidateCachedHashCodes();
       typeVarTypes.clear();
       typeVarTypes.addAll(types);
     }
@@ -1412,6 +1490,7 @@ public abstract class AnnotatedTypeMirror {
      * @param type the component type
      */
     public void setComponentType(AnnotatedTypeMirror type) {
+      invalidateCachedHashCodes();
       this.componentType = type;
     }
 
@@ -1442,7 +1521,7 @@ public abstract class AnnotatedTypeMirror {
     public AnnotatedArrayType shallowCopy(boolean copyAnnotations) {
       AnnotatedArrayType type = new AnnotatedArrayType((ArrayType) underlyingType, atypeFactory);
       if (copyAnnotations) {
-        type.addAnnotations(this.getAnnotationsField());
+        type.copyAnnotationsFrom(this);
       }
       type.setComponentType(getComponentType());
       return type;
@@ -1564,6 +1643,7 @@ public abstract class AnnotatedTypeMirror {
      * @param type the lower bound type
      */
     void setLowerBound(AnnotatedTypeMirror type) {
+      invalidateCachedHashCodes();
       checkBound("Lower", type, this);
       this.lowerBound = type;
       fixupBoundAnnotations();
@@ -1630,6 +1710,7 @@ public abstract class AnnotatedTypeMirror {
      * @param type the upper bound type
      */
     void setUpperBound(AnnotatedTypeMirror type) {
+      invalidateCachedHashCodes();
       checkBound("Upper", type, this);
       this.upperBound = type;
       fixupBoundAnnotations();
@@ -1772,7 +1853,7 @@ public abstract class AnnotatedTypeMirror {
     public AnnotatedNoType shallowCopy(boolean copyAnnotations) {
       AnnotatedNoType type = new AnnotatedNoType((NoType) underlyingType, atypeFactory);
       if (copyAnnotations) {
-        type.addAnnotations(this.getAnnotationsField());
+        type.copyAnnotationsFrom(this);
       }
       return type;
     }
@@ -1814,7 +1895,7 @@ public abstract class AnnotatedTypeMirror {
     public AnnotatedNullType shallowCopy(boolean copyAnnotations) {
       AnnotatedNullType type = new AnnotatedNullType((NullType) underlyingType, atypeFactory);
       if (copyAnnotations) {
-        type.addAnnotations(this.getAnnotationsField());
+        type.copyAnnotationsFrom(this);
       }
       return type;
     }
@@ -1860,7 +1941,7 @@ public abstract class AnnotatedTypeMirror {
       AnnotatedPrimitiveType type =
           new AnnotatedPrimitiveType((PrimitiveType) underlyingType, atypeFactory);
       if (copyAnnotations) {
-        type.addAnnotations(this.getAnnotationsField());
+        type.copyAnnotationsFrom(this);
       }
       return type;
     }
@@ -1908,6 +1989,7 @@ public abstract class AnnotatedTypeMirror {
      * @param type the type of the lower bound
      */
     void setSuperBound(AnnotatedTypeMirror type) {
+      invalidateCachedHashCodes();
       checkBound("Super", type, this);
       this.superBound = type;
       fixupBoundAnnotations();
@@ -1937,6 +2019,7 @@ public abstract class AnnotatedTypeMirror {
      * @param type the type of the upper bound
      */
     void setExtendsBound(AnnotatedTypeMirror type) {
+      invalidateCachedHashCodes();
       checkBound("Extends", type, this);
       this.extendsBound = type;
       fixupBoundAnnotations();
@@ -2199,6 +2282,7 @@ public abstract class AnnotatedTypeMirror {
      * @param bounds bounds to use
      */
     public void setBounds(List<AnnotatedTypeMirror> bounds) {
+      invalidateCachedHashCodes();
       this.bounds = bounds;
     }
 
@@ -2256,7 +2340,7 @@ public abstract class AnnotatedTypeMirror {
     public AnnotatedUnionType shallowCopy(boolean copyAnnotations) {
       AnnotatedUnionType type = new AnnotatedUnionType((UnionType) underlyingType, atypeFactory);
       if (copyAnnotations) {
-        type.addAnnotations(this.getAnnotationsField());
+        type.copyAnnotationsFrom(this);
       }
       type.alternatives = this.alternatives;
       return type;
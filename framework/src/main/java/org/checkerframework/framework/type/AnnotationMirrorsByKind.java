@@ -0,0 +1,90 @@
+package org.checkerframework.framework.type;
+
+import java.util.List;
+import java.util.Map;
+import javax.lang.model.element.AnnotationMirror;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.framework.qual.AnnotatedFor;
+import org.checkerframework.framework.util.QualifierKind;
+import org.checkerframework.framework.util.QualifierKindHierarchy;
+
+/**
+ * Maps the qualifier kinds of a {@link QualifierKindHierarchy} to annotations. If the {@linkplain
+ * QualifierKind#getOrdinal() ordinals} of the qualifier kinds are their indices in {@link
+ * QualifierKindHierarchy#allQualifierKinds()}, the annotations are looked up in an array indexed by
+ * ordinal; otherwise, they are looked up in a map.
+ */
+@AnnotatedFor("nullness")
+final class AnnotationMirrorsByKind {
+
+  /** The annotation of each qualifier kind. */
+  private final Map<QualifierKind, AnnotationMirror> map;
+
+  /**
+   * The values of {@link #map}, indexed by ordinal; null if the qualifier kinds do not have dense
+   * ordinals.
+   */
+  private final @Nullable AnnotationMirror @Nullable [] byOrdinal;
+
+  /**
+   * Creates an AnnotationMirrorsByKind.
+   *
+   * @param hierarchy the hierarchy of the qualifier kinds that are the keys of {@code map}
+   * @param map the annotation of each qualifier kind
+   */
+  AnnotationMirrorsByKind(
+      QualifierKindHierarchy hierarchy, Map<QualifierKind, AnnotationMirror> map) {
+    this.map = map;
+    this.byOrdinal = hasDenseOrdinals(hierarchy) ? createOrdinalArray(hierarchy, map) : null;
+  }
+
+  /**
+   * Returns true if the ordinal of each qualifier kind of {@code hierarchy} is its index in {@link
+   * QualifierKindHierarchy#allQualifierKinds()}.
+   *
+   * @param hierarchy a qualifier kind hierarchy
+   * @return true if the qualifier kinds of {@code hierarchy} have dense ordinals
+   */
+  private static boolean hasDenseOrdinals(QualifierKindHierarchy hierarchy) {
+    List<? extends QualifierKind> kinds = hierarchy.allQualifierKinds();
+    for (int i = 0; i < kinds.size(); i++) {
+      if (kinds.get(i).getOrdinal() != i) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Creates an array that maps the ordinal of each qualifier kind to the corresponding value of
+   * {@code map}.
+   *
+   * @param hierarchy a qualifier kind hierarchy whose qualifier kinds have dense ordinals
+   * @param map a mapping from QualifierKind to AnnotationMirror
+   * @return an array indexed by ordinal whose elements are the values of {@code map}, or null for
+   *     qualifier kinds that are not keys of {@code map}
+   */
+  private static @Nullable AnnotationMirror[] createOrdinalArray(
+      QualifierKindHierarchy hierarchy, Map<QualifierKind, AnnotationMirror> map) {
+    @Nullable AnnotationMirror[] result =
+        new AnnotationMirror[hierarchy.allQualifierKinds().size()];
+    for (Map.Entry<QualifierKind, AnnotationMirror> entry : map.entrySet()) {
+      result[entry.getKey().getOrdinal()] = entry.getValue();
+    }
+    return result;
+  }
+
+  /**
+   * Returns the annotation of the given qualifier kind. This is equivalent to, but faster than,
+   * {@code map.get(kind)}.
+   *
+   * @param kind a qualifier kind of the hierarchy
+   * @return the annotation of {@code kind}, or null if it has none
+   */
+  @Nullable AnnotationMirror get(QualifierKind kind) {
+    if (byOrdinal != null) {
+      return byOrdinal[kind.getOrdinal()];
+    }
+    return map.get(kind);
+  }
+}
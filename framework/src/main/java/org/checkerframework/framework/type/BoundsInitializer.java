@@ -121,6 +121,7 @@ public class BoundsInitializer {
           // do nothing
       }
     }
+    declaredType.invalidateCachedHashCodes();
     declaredType.typeArgs = Collections.unmodifiableList(typeArgs);
   }
 
@@ -151,10 +152,34 @@ public class BoundsInitializer {
    * Create the entire lower bound and upper bound, with no missing information, for typeVar. If a
    * typeVar is recursive the appropriate cycles will be introduced in the type
    *
+   * <p>The bounds of a type variable that is not a captured type variable depend only on its
+   * underlying type. So, the first time the bounds of such a type variable are created, an
+   * unannotated copy of the type variable is saved as a skeleton in the type factory. Later, the
+   * bounds are copied from the skeleton rather than created again.
+   *
    * @param typeVar the type variable whose lower bound is being initialized
    */
   public static void initializeBounds(final AnnotatedTypeVariable typeVar) {
-    initializeBounds(typeVar, null);
+    Map<TypeVariable, AnnotatedTypeVariable> skeletons = typeVar.atypeFactory.typeVariableSkeletons;
+    TypeVariable underlyingType = typeVar.getUnderlyingType();
+    if (skeletons == null || TypesUtils.isCapturedTypeVariable(underlyingType)) {
+      initializeBounds(typeVar, null);
+      return;
+    }
+
+    AnnotatedTypeVariable skeleton = skeletons.get(underlyingType);
+    if (skeleton == null) {
+      initializeBounds(typeVar, null);
+      // Do not copy any annotations: the primary annotations of typeVar have already been copied
+      // to its bounds, but the bounds of a use without them must not have them.
+      skeleton = typeVar.deepCopy(false);
+      skeletons.put(underlyingType, skeleton);
+      return;
+    }
+    // Copy the whole skeleton, so that the bounds keep any structure that they share.
+    AnnotatedTypeVariable copy = skeleton.deepCopy();
+    typeVar.setUpperBound(copy.getUpperBoundField());
+    typeVar.setLowerBound(copy.getLowerBoundField());
   }
 
   /**
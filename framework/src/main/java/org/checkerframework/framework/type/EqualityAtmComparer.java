@@ -2,7 +2,6 @@ package org.checkerframework.framework.type;
 
 import org.checkerframework.checker.interning.qual.EqualsMethod;
 import org.checkerframework.framework.type.visitor.EquivalentAtmComboScanner;
-import org.checkerframework.javacutil.AnnotationUtils;
 import org.plumelib.util.StringsPlume;
 
 /**
@@ -38,7 +37,7 @@ public class EqualityAtmComparer extends EquivalentAtmComboScanner<Boolean, Void
   /** Return true if type1 and type2 have equivalent sets of annotations. */
   protected boolean arePrimeAnnosEqual(
       final AnnotatedTypeMirror type1, final AnnotatedTypeMirror type2) {
-    return AnnotationUtils.areSame(type1.getAnnotations(), type2.getAnnotations());
+    return type1.hasSamePrimaryAnnotations(type2);
   }
 
   /**
@@ -31,7 +31,9 @@ import java.util.regex.Pattern;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
+import javax.lang.model.element.Name;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
@@ -40,6 +42,7 @@ import javax.lang.model.type.TypeMirror;
 import javax.lang.model.type.TypeVariable;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
 import org.checkerframework.checker.formatter.qual.FormatMethod;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseTypeChecker;
@@ -66,6 +69,9 @@ import org.checkerframework.dataflow.cfg.visualize.DOTCFGVisualizer;
 import org.checkerframework.dataflow.expression.FieldAccess;
 import org.checkerframework.dataflow.expression.JavaExpression;
 import org.checkerframework.dataflow.expression.LocalVariable;
+import org.checkerframework.dataflow.util.ModifiesSummaries;
+import org.checkerframework.dataflow.util.ModifiesSummaries.ModifiesSet;
+import org.checkerframework.dataflow.util.PurityUtils;
 import org.checkerframework.framework.flow.CFAbstractAnalysis;
 import org.checkerframework.framework.flow.CFAbstractAnalysis.FieldInitialValue;
 import org.checkerframework.framework.flow.CFAbstractStore;
@@ -100,10 +106,13 @@ import org.checkerframework.framework.type.typeannotator.IrrelevantTypeAnnotator
 import org.checkerframework.framework.type.typeannotator.ListTypeAnnotator;
 import org.checkerframework.framework.type.typeannotator.PropagationTypeAnnotator;
 import org.checkerframework.framework.type.typeannotator.TypeAnnotator;
+import org.checkerframework.framework.type.visitor.SimpleAnnotatedTypeScanner;
 import org.checkerframework.framework.util.AnnotatedTypes;
 import org.checkerframework.framework.util.Contract;
 import org.checkerframework.framework.util.ContractsFromMethod;
+import org.checkerframework.framework.util.DataflowStatistics;
 import org.checkerframework.framework.util.JavaExpressionParseUtil.JavaExpressionParseException;
+import org.checkerframework.framework.util.PhaseProfiler;
 import org.checkerframework.framework.util.StringToJavaExpression;
 import org.checkerframework.framework.util.defaults.QualifierDefaults;
 import org.checkerframework.framework.util.dependenttypes.DependentTypesHelper;
@@ -149,6 +158,16 @@ public abstract class GenericAnnotatedTypeFactory<
   /** To cache the supported monotonic type qualifiers. */
   private Set<Class<? extends Annotation>> supportedMonotonicQuals;
 
+  /**
+   * Computes the modifies sets of methods, or null if the {@code -AcomputeModifiesSets}
+   * command-line option was not given. See {@link #getModifiesSet}.
+   */
+  private final @Nullable ModifiesSummaries modifiesSummaries;
+
+  /** Caches the results of {@link #getMonotonicTargetQualifiers}. */
+  private final Map<VariableElement, List<AnnotationMirror>> monotonicTargetQualifiers =
+      new HashMap<>();
+
   /** to annotate types based on the given tree */
   protected TypeAnnotator typeAnnotator;
 
@@ -164,6 +183,20 @@ public abstract class GenericAnnotatedTypeFactory<
   /** to handle any polymorphic types */
   protected QualifierPolymorphism poly;
 
+  /** Determines whether a type contains a polymorphic qualifier. */
+  private final SimpleAnnotatedTypeScanner<Boolean, Void> polymorphicQualifierFinder =
+      new SimpleAnnotatedTypeScanner<>(
+          (type, p) -> {
+            for (AnnotationMirror anno : type.getAnnotations()) {
+              if (qualHierarchy.isPolymorphicQualifier(anno)) {
+                return true;
+              }
+            }
+            return false;
+          },
+          Boolean::logicalOr,
+          false);
+
   /** to handle defaults specified by the user */
   protected QualifierDefaults defaults;
 
@@ -277,11 +310,11 @@ public abstract class GenericAnnotatedTypeFactory<
 
   /**
    * Caches for {@link AnalysisResult#runAnalysisFor(Node, Analysis.BeforeOrAfter, TransferInput,
-   * IdentityHashMap, Map)}. This cache is enabled if {@link #shouldCache} is true. The cache size
-   * is derived from {@link #getCacheSize()}.
+   * Map, Map)}. This cache is enabled if {@link #shouldCache} is true. The cache size is derived
+   * from {@link #getCacheSize()}, unless the {@code -AflowStoreCacheBudget} command-line option
+   * bounds the total number of stores in the cache instead.
    *
-   * @see AnalysisResult#runAnalysisFor(Node, Analysis.BeforeOrAfter, TransferInput,
-   *     IdentityHashMap, Map)
+   * @see AnalysisResult#runAnalysisFor(Node, Analysis.BeforeOrAfter, TransferInput, Map, Map)
    */
   protected final Map<
           TransferInput<Value, Store>, IdentityHashMap<Node, TransferResult<Value, Store>>>
@@ -338,9 +371,27 @@ public abstract class GenericAnnotatedTypeFactory<
 
     this.cfgVisualizer = createCFGVisualizer();
 
+    this.modifiesSummaries =
+        checker.hasOption("computeModifiesSets")
+            ? new ModifiesSummaries(this, processingEnv)
+            : null;
+
+    if (checker.hasOption("inferUnannotatedPurity")) {
+      PurityUtils.enablePurityInference(
+          this,
+          processingEnv,
+          checker.hasOption("assumeSideEffectFree") || checker.hasOption("assumePure"),
+          checker.hasOption("assumeDeterministic") || checker.hasOption("assumePure"));
+    }
+
     if (shouldCache) {
       int cacheSize = getCacheSize();
-      flowResultAnalysisCaches = CollectionUtils.createLRUCache(cacheSize);
+      int storeBudget = checker.getPositiveIntOption("flowStoreCacheBudget", 0);
+      if (storeBudget == 0) {
+        flowResultAnalysisCaches = CollectionUtils.createLRUCache(cacheSize);
+      } else {
+        flowResultAnalysisCaches = CollectionUtils.createLRUCacheOfMaps(storeBudget);
+      }
       initializerCache = CollectionUtils.createLRUCache(cacheSize);
     } else {
       flowResultAnalysisCaches = null;
@@ -500,6 +551,59 @@ public abstract class GenericAnnotatedTypeFactory<
     return supportedMonotonicQuals;
   }
 
+  /**
+   * Returns the modifies set of {@code method}: a conservative set of the fields that a call to
+   * {@code method} may assign. The store discards less information at a call to a method that has
+   * a modifies set. Returns null if a call to {@code method} may modify any field, or if the {@code
+   * -AcomputeModifiesSets} command-line option was not given.
+   *
+   * @param method a method
+   * @return the modifies set of {@code method}, or null
+   * @see ModifiesSummaries
+   */
+  public @Nullable ModifiesSet getModifiesSet(ExecutableElement method) {
+    if (modifiesSummaries == null) {
+      return null;
+    }
+    return modifiesSummaries.getModifiesSet(method);
+  }
+
+  /**
+   * Returns the qualifiers that the monotonic qualifiers on the declaration of {@code field}
+   * guarantee once they hold. For example, a field that is annotated with a monotonic qualifier
+   * {@code @MonotonicNonNull} has the target qualifier {@code @NonNull}. The result is computed
+   * once per field.
+   *
+   * @param field a field
+   * @return the target qualifiers of the monotonic qualifiers of {@code field}, which is empty if
+   *     it has none
+   * @see MonotonicQualifier
+   */
+  public List<AnnotationMirror> getMonotonicTargetQualifiers(VariableElement field) {
+    if (getSupportedMonotonicTypeQualifiers().isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<AnnotationMirror> result = monotonicTargetQualifiers.get(field);
+    if (result == null) {
+      List<Pair<AnnotationMirror, AnnotationMirror>> fieldAnnotations =
+          getAnnotationWithMetaAnnotation(field, MonotonicQualifier.class);
+      if (fieldAnnotations.isEmpty()) {
+        result = Collections.emptyList();
+      } else {
+        result = new ArrayList<>(fieldAnnotations.size());
+        for (Pair<AnnotationMirror, AnnotationMirror> fieldAnnotation : fieldAnnotations) {
+          AnnotationMirror monotonicAnnotation = fieldAnnotation.second;
+          @SuppressWarnings("deprecation") // permitted for use in the framework
+          Name annotation =
+              AnnotationUtils.getElementValueClassName(monotonicAnnotation, "value", false);
+          result.add(AnnotationBuilder.fromName(elements, annotation));
+        }
+      }
+      monotonicTargetQualifiers.put(field, result);
+    }
+    return result;
+  }
+
   /**
    * Returns a {@link TreeAnnotator} that adds annotations to a type based on the contents of a
    * tree.
@@ -1152,7 +1256,7 @@ public abstract class GenericAnnotatedTypeFactory<
             node,
             Analysis.BeforeOrAfter.BEFORE,
             prevStore,
-            analysis.getNodeValues(),
+            analysis.getNodeValueMap(),
             flowResultAnalysisCaches);
     return store;
   }
@@ -1207,7 +1311,7 @@ public abstract class GenericAnnotatedTypeFactory<
             node,
             Analysis.BeforeOrAfter.AFTER,
             analysis.getInput(node.getBlock()),
-            analysis.getNodeValues(),
+            analysis.getNodeValueMap(),
             flowResultAnalysisCaches);
     return res;
   }
@@ -1270,6 +1374,7 @@ public abstract class GenericAnnotatedTypeFactory<
       exceptionalExitStores = new IdentityHashMap<>();
       returnStatementStores = new IdentityHashMap<>();
       flowResult = new AnalysisResult<>(flowResultAnalysisCaches);
+      flowResult.setCompact(checker.hasOption("compactFlowResults"));
     }
 
     // no need to scan annotations
@@ -1479,7 +1584,18 @@ public abstract class GenericAnnotatedTypeFactory<
       boolean updateInitializationStore,
       boolean isStatic,
       Store capturedStore) {
-    ControlFlowGraph cfg = CFCFGBuilder.build(root, ast, checker, this, processingEnv);
+    PhaseProfiler phaseProfiler = checker.getPhaseProfiler();
+    if (phaseProfiler != null) {
+      phaseProfiler.start(checker, PhaseProfiler.Phase.CFG_CONSTRUCTION);
+    }
+    ControlFlowGraph cfg;
+    try {
+      cfg = CFCFGBuilder.build(root, ast, checker, this, processingEnv);
+    } finally {
+      if (phaseProfiler != null) {
+        phaseProfiler.stop(PhaseProfiler.Phase.CFG_CONSTRUCTION);
+      }
+    }
 
     if (isInitializationCode) {
       Store initStore = !isStatic ? initializationStore : initializationStaticStore;
@@ -1494,7 +1610,29 @@ public abstract class GenericAnnotatedTypeFactory<
     } else {
       transfer.setFixedInitialStore(capturedStore);
     }
-    analysis.performAnalysis(cfg, fieldValues);
+    DataflowStatistics dataflowStatistics = checker.getDataflowStatistics();
+    analysis.setMeasureTransferTime(dataflowStatistics != null);
+    long startNanos = dataflowStatistics == null ? 0 : System.nanoTime();
+    if (phaseProfiler != null) {
+      phaseProfiler.start(checker, PhaseProfiler.Phase.DATAFLOW);
+    }
+    try {
+      analysis.performAnalysis(cfg, fieldValues);
+    } finally {
+      if (phaseProfiler != null) {
+        phaseProfiler.stop(PhaseProfiler.Phase.DATAFLOW);
+      }
+    }
+    if (dataflowStatistics != null) {
+      dataflowStatistics.record(
+          checker,
+          describeAnalyzedCode(ast),
+          System.nanoTime() - startNanos,
+          analysis.getTransferNanos(),
+          cfg.getAllBlocks().size(),
+          analysis.getBlockVisitCount(),
+          analysis.getWideningCount());
+    }
     AnalysisResult<Value, Store> result = analysis.getResult();
 
     // store result
@@ -1559,6 +1697,41 @@ public abstract class GenericAnnotatedTypeFactory<
     postAnalyze(cfg);
   }
 
+  /**
+   * Returns a description of the code analyzed by a dataflow analysis, for {@link
+   * DataflowStatistics}.
+   *
+   * @param ast the analyzed code
+   * @return a description of {@code ast}, including its source location
+   */
+  private String describeAnalyzedCode(UnderlyingAST ast) {
+    String description;
+    switch (ast.getKind()) {
+      case METHOD:
+        CFGMethod method = (CFGMethod) ast;
+        description = method.getSimpleClassName() + "." + method.getMethodName();
+        break;
+      case LAMBDA:
+        CFGLambda lambda = (CFGLambda) ast;
+        description = "lambda in " + lambda.getSimpleClassName() + "." + lambda.getMethodName();
+        break;
+      case ARBITRARY_CODE:
+        description = "initializer in " + ((CFGStatement) ast).getSimpleClassName();
+        break;
+      default:
+        throw new BugInCF("Unexpected AST kind: " + ast.getKind());
+    }
+    if (root == null) {
+      return description;
+    }
+    long pos = trees.getSourcePositions().getStartPosition(root, ast.getCode());
+    String file = root.getSourceFile().getName();
+    if (pos == Diagnostic.NOPOS || root.getLineMap() == null) {
+      return description + " (" + file + ")";
+    }
+    return description + " (" + file + ":" + root.getLineMap().getLineNumber(pos) + ")";
+  }
+
   /**
    * Perform any additional operations on a CFG. Called once per CFG, after the CFG has been
    * analyzed by {@link #analyze(Queue, Queue, UnderlyingAST, List, ClassTree, boolean, boolean,
@@ -2032,6 +2205,19 @@ public abstract class GenericAnnotatedTypeFactory<
     }
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Polymorphic qualifiers are resolved using the arguments of each invocation, so the type of a
+   * method that contains a polymorphic qualifier is not cacheable.
+   */
+  @Override
+  protected boolean isMethodFromUseCacheable(
+      ExecutableElement methodElt, AnnotatedExecutableType methodType) {
+    return super.isMethodFromUseCacheable(methodElt, methodType)
+        && !polymorphicQualifierFinder.visit(methodType);
+  }
+
   @Override
   public List<AnnotatedTypeParameterBounds> typeVariablesFromUse(
       AnnotatedDeclaredType type, TypeElement element) {
@@ -1,18 +1,30 @@
 package org.checkerframework.framework.type;
 
-import java.util.Objects;
-import org.checkerframework.framework.type.visitor.SimpleAnnotatedTypeScanner;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
+import org.checkerframework.framework.type.visitor.AnnotatedTypeScanner;
+import org.checkerframework.javacutil.AnnotationUtils;
 
 /**
  * Computes the hashcode of an AnnotatedTypeMirror using the underlying type and primary annotations
  * and the hash code of component types of AnnotatedTypeMirror.
  *
- * <p>This class should be synchronized with EqualityAtmComparer.
+ * <p>This class should be synchronized with EqualityAtmComparer: types that are equal according to
+ * EqualityAtmComparer must have the same hash code. Therefore, this class visits the same component
+ * types as EqualityAtmComparer (in particular, not the enclosing type of a declared type), and
+ * hashes primary annotations with {@link AnnotationUtils#annotationHashCode}, which is consistent
+ * with {@link AnnotationUtils#areSame}. Structurally equal recursive types that are unrolled to
+ * different depths may still have different hash codes, so a hash code can be used to find a type,
+ * but not to decide that two types are unequal.
+ *
+ * <p>Every type that is visited is marked, so that mutating it invalidates the cached hash codes of
+ * all types of its factory (see {@link AnnotatedTypeMirror#hashCode}). The components of a type
+ * belong to the same factory as the type.
  *
  * @see org.checkerframework.framework.type.EqualityAtmComparer for more details.
  *     <p>This is used by AnnotatedTypeMirror.hashcode.
  */
-public class HashcodeAtmVisitor extends SimpleAnnotatedTypeScanner<Integer, Void> {
+public class HashcodeAtmVisitor extends AnnotatedTypeScanner<Integer, Void> {
 
   /** Creates a {@link HashcodeAtmVisitor}. */
   public HashcodeAtmVisitor() {
@@ -20,18 +32,41 @@ public class HashcodeAtmVisitor extends SimpleAnnotatedTypeScanner<Integer, Void
   }
 
   /**
-   * Generates hashcode for type using the underlying type and the primary annotation. This method
-   * does not descend into component types (this occurs in the scan method)
+   * Generates hashcode for type using the underlying type and the primary annotation, and adds the
+   * hash codes of its component types.
    *
    * @param type the type
    */
   @Override
-  protected Integer defaultAction(AnnotatedTypeMirror type, Void v) {
+  protected Integer scan(@Nullable AnnotatedTypeMirror type, Void v) {
     // To differentiate between partially initialized type's (which may have null components)
     // and fully initialized types, null values are allowed
     if (type == null) {
       return 0;
     }
-    return Objects.hash(type.getUnderlyingTypeHashCode(), type.getAnnotations().toString());
+    type.inCachedHashCode = true;
+    int hashCode = 31 * type.getUnderlyingTypeHashCode() + type.annotations.structuralHashCode();
+    return reduce(hashCode, super.scan(type, v));
+  }
+
+  /**
+   * Hashes the type arguments of a declared type. Its enclosing type is not hashed, because
+   * EqualityAtmComparer does not compare enclosing types.
+   */
+  @Override
+  public Integer visitDeclared(AnnotatedDeclaredType type, Void v) {
+    // Only declared types with type arguments might be recursive, so only store those.
+    boolean shouldStoreType = !type.getTypeArguments().isEmpty();
+    if (shouldStoreType && visitedNodes.containsKey(type)) {
+      return visitedNodes.get(type);
+    }
+    if (shouldStoreType) {
+      visitedNodes.put(type, defaultResult);
+    }
+    Integer r = scan(type.getTypeArguments(), v);
+    if (shouldStoreType) {
+      visitedNodes.put(type, r);
+    }
+    return r;
   }
 }
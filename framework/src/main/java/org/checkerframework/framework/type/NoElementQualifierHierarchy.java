@@ -45,6 +45,9 @@ public class NoElementQualifierHierarchy implements QualifierHierarchy {
   /** Mapping from {@link QualifierKind} to its corresponding {@link AnnotationMirror}. */
   protected final Map<QualifierKind, AnnotationMirror> kindToAnnotationMirror;
 
+  /** The values of {@link #kindToAnnotationMirror}, looked up by ordinal if possible. */
+  private final AnnotationMirrorsByKind annotationMirrors;
+
   /** Set of all annotations in all the hierarchies. */
   protected final Set<? extends AnnotationMirror> qualifiers;
 
@@ -59,6 +62,8 @@ public class NoElementQualifierHierarchy implements QualifierHierarchy {
     this.qualifierKindHierarchy = createQualifierKindHierarchy(qualifierClasses);
 
     this.kindToAnnotationMirror = createAnnotationMirrors(elements);
+    this.annotationMirrors =
+        new AnnotationMirrorsByKind(qualifierKindHierarchy, kindToAnnotationMirror);
     this.qualifiers =
         AnnotationUtils.createUnmodifiableAnnotationSet(kindToAnnotationMirror.values());
 
@@ -229,7 +234,7 @@ public class NoElementQualifierHierarchy implements QualifierHierarchy {
     if (lub == null) {
       return null;
     }
-    return kindToAnnotationMirror.get(lub);
+    return annotationMirrors.get(lub);
   }
 
   @Override
@@ -240,6 +245,6 @@ public class NoElementQualifierHierarchy implements QualifierHierarchy {
     if (glb == null) {
       return null;
     }
-    return kindToAnnotationMirror.get(glb);
+    return annotationMirrors.get(glb);
   }
 }
@@ -0,0 +1,292 @@
+package org.checkerframework.framework.type;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.lang.model.element.AnnotationMirror;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.BugInCF;
+
+/**
+ * The primary annotations of an {@link AnnotatedTypeMirror}. A type has at most one primary
+ * annotation per qualifier hierarchy, so this set stores each annotation in a slot indexed by the
+ * number of its hierarchy (see {@link AnnotatedTypeFactory#getHierarchyIndex}). Looking up,
+ * replacing, and copying the annotation in a hierarchy are array operations.
+ *
+ * <p>An annotation that is not in any hierarchy, or whose hierarchy's slot is already occupied by a
+ * different annotation, is kept in an overflow set, so this is a correct set regardless of its
+ * contents. Membership is determined by {@link AnnotationUtils#compareAnnotationMirrors}, and
+ * iteration is in the same order, as for the set returned by {@link
+ * AnnotationUtils#createAnnotationSet}.
+ */
+public final class PrimaryAnnotationSet extends AbstractSet<AnnotationMirror> {
+
+  /** The type factory, which numbers the qualifier hierarchies. */
+  private final AnnotatedTypeFactory atypeFactory;
+
+  /** The type whose primary annotations this set holds. */
+  private final AnnotatedTypeMirror owner;
+
+  /**
+   * The annotation of each hierarchy, indexed by hierarchy number. Null until the first annotation
+   * in a hierarchy is added.
+   */
+  private @Nullable AnnotationMirror @Nullable [] slots = null;
+
+  /** The number of non-null elements of {@link #slots}. */
+  private int slotCount = 0;
+
+  /** The annotations that are not stored in {@link #slots}, or null if there are none. */
+  private @Nullable Set<AnnotationMirror> overflow = null;
+
+  /**
+   * The elements of this set in iteration order, or null if the set has been modified since they
+   * were last computed. The array is never modified, so iterators and copies of this set share it.
+   */
+  private AnnotationMirror @Nullable [] sorted = null;
+
+  /**
+   * Creates an empty PrimaryAnnotationSet.
+   *
+   * @param atypeFactory the type factory, which numbers the qualifier hierarchies
+   * @param owner the type whose primary annotations the set holds
+   */
+  PrimaryAnnotationSet(AnnotatedTypeFactory atypeFactory, AnnotatedTypeMirror owner) {
+    this.atypeFactory = atypeFactory;
+    this.owner = owner;
+  }
+
+  /**
+   * Returns the annotation in this set that is in the same hierarchy as {@code qualifier}, or null
+   * if there is none. Equivalent to {@link QualifierHierarchy#findAnnotationInSameHierarchy}, but
+   * usually does not iterate over the set.
+   *
+   * @param qualifier a supported qualifier
+   * @return the annotation in this set that is in the same hierarchy as {@code qualifier}, or null
+   */
+  public @Nullable AnnotationMirror findAnnotationInSameHierarchy(AnnotationMirror qualifier) {
+    int index = atypeFactory.getHierarchyIndex(qualifier);
+    if (index < 0 || (overflow != null && !overflow.isEmpty())) {
+      return atypeFactory.getQualifierHierarchy().findAnnotationInSameHierarchy(this, qualifier);
+    }
+    return slots == null ? null : slots[index];
+  }
+
+  /**
+   * Adds all annotations of {@code other}, which must have the same type factory as this, to this,
+   * which must be empty.
+   *
+   * @param other the annotations to copy
+   */
+  void copyFrom(PrimaryAnnotationSet other) {
+    if (!isEmpty()) {
+      throw new BugInCF("PrimaryAnnotationSet.copyFrom: target is not empty: " + this);
+    }
+    owner.invalidateCachedHashCodes();
+    sorted = other.sorted;
+    if (other.slots != null) {
+      slots = other.slots.clone();
+      slotCount = other.slotCount;
+    }
+    if (other.overflow != null && !other.overflow.isEmpty()) {
+      overflow = AnnotationUtils.createAnnotationSet();
+      overflow.addAll(other.overflow);
+    }
+  }
+
+  /**
+   * Returns the sum of the {@link AnnotationUtils#annotationHashCode}s of the annotations in this
+   * set. Two sets whose annotations are pairwise the same according to {@link
+   * AnnotationUtils#areSame} have the same structural hash code. Unlike {@link #hashCode}, this
+   * does not sort the annotations.
+   *
+   * @return a hash code for this set that is consistent with {@link AnnotationUtils#areSame}
+   */
+  public int structuralHashCode() {
+    int result = 0;
+    if (slots != null) {
+      for (AnnotationMirror anno : slots) {
+        if (anno != null) {
+          result += AnnotationUtils.annotationHashCode(anno);
+        }
+      }
+    }
+    if (overflow != null) {
+      for (AnnotationMirror anno : overflow) {
+        result += AnnotationUtils.annotationHashCode(anno);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public int size() {
+    return slotCount + (overflow == null ? 0 : overflow.size());
+  }
+
+  @Override
+  public boolean contains(@Nullable Object o) {
+    if (!(o instanceof AnnotationMirror)) {
+      return false;
+    }
+    AnnotationMirror anno = (AnnotationMirror) o;
+    return inSlot(anno) != -1 || (overflow != null && overflow.contains(anno));
+  }
+
+  @Override
+  public boolean add(AnnotationMirror anno) {
+    if (contains(anno)) {
+      return false;
+    }
+    owner.invalidateCachedHashCodes();
+    sorted = null;
+    int index = atypeFactory.getHierarchyIndex(anno);
+    if (index >= 0) {
+      if (slots == null) {
+        slots = new AnnotationMirror[atypeFactory.getHierarchyCount()];
+      }
+      if (slots[index] == null) {
+        slots[index] = anno;
+        slotCount++;
+        return true;
+      }
+    }
+    if (overflow == null) {
+      overflow = AnnotationUtils.createAnnotationSet();
+    }
+    return overflow.add(anno);
+  }
+
+  @Override
+  public boolean remove(@Nullable Object o) {
+    if (!(o instanceof AnnotationMirror)) {
+      return false;
+    }
+    AnnotationMirror anno = (AnnotationMirror) o;
+    int index = inSlot(anno);
+    if (index == -1 || slots == null) {
+      if (overflow == null || !overflow.contains(anno)) {
+        return false;
+      }
+      owner.invalidateCachedHashCodes();
+      sorted = null;
+      return overflow.remove(anno);
+    }
+    owner.invalidateCachedHashCodes();
+    sorted = null;
+    slots[index] = null;
+    slotCount--;
+    // Move an overflow annotation of the same hierarchy into the vacated slot.
+    if (overflow != null) {
+      for (AnnotationMirror other : overflow) {
+        if (atypeFactory.getHierarchyIndex(other) == index) {
+          overflow.remove(other);
+          slots[index] = other;
+          slotCount++;
+          break;
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    owner.invalidateCachedHashCodes();
+    sorted = null;
+    if (slots != null) {
+      Arrays.fill(slots, null);
+    }
+    slotCount = 0;
+    overflow = null;
+  }
+
+  @Override
+  public Iterator<AnnotationMirror> iterator() {
+    AnnotationMirror[] elements = getSorted();
+    return new Iterator<AnnotationMirror>() {
+      /** The index of the next element to return. */
+      private int next = 0;
+
+      /** True if the last element returned has not been removed yet. */
+      private boolean canRemove = false;
+
+      @Override
+      public boolean hasNext() {
+        return next < elements.length;
+      }
+
+      @Override
+      public AnnotationMirror next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        canRemove = true;
+        return elements[next++];
+      }
+
+      @Override
+      public void remove() {
+        if (!canRemove) {
+          throw new IllegalStateException();
+        }
+        PrimaryAnnotationSet.this.remove(elements[next - 1]);
+        canRemove = false;
+      }
+    };
+  }
+
+  /**
+   * Returns the elements of this set in iteration order. The result is cached until this set is
+   * modified, and must not be modified.
+   *
+   * @return the elements of this set, sorted by {@link AnnotationUtils#compareAnnotationMirrors}
+   */
+  private AnnotationMirror[] getSorted() {
+    if (sorted == null) {
+      AnnotationMirror[] elements = new AnnotationMirror[size()];
+      int size = 0;
+      if (slots != null) {
+        for (AnnotationMirror anno : slots) {
+          if (anno != null) {
+            elements[size++] = anno;
+          }
+        }
+      }
+      if (overflow != null) {
+        for (AnnotationMirror anno : overflow) {
+          elements[size++] = anno;
+        }
+      }
+      if (size > 1) {
+        Arrays.sort(elements, AnnotationUtils::compareAnnotationMirrors);
+      }
+      sorted = elements;
+    }
+    return sorted;
+  }
+
+  /**
+   * Returns the index of the slot that contains an annotation that is the same as {@code anno}, or
+   * -1 if no slot does.
+   *
+   * @param anno an annotation
+   * @return the index of the slot that contains {@code anno}, or -1
+   */
+  private int inSlot(AnnotationMirror anno) {
+    if (slots == null || slotCount == 0) {
+      return -1;
+    }
+    int index = atypeFactory.getHierarchyIndex(anno);
+    if (index >= 0) {
+      AnnotationMirror inSlot = slots[index];
+      if (inSlot != null && AnnotationUtils.compareAnnotationMirrors(inSlot, anno) == 0) {
+        return index;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,55 @@
+package org.checkerframework.framework.type;
+
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import org.checkerframework.checker.interning.qual.EqualsMethod;
+
+/**
+ * Compares two annotated type mirrors for structural equality, like {@link EqualityAtmComparer}.
+ * Unlike {@link AnnotatedTypeMirror#equals}, which requires the underlying types to be the same
+ * object, this compares underlying types with {@link Types#isSameType}, so that the same type
+ * written in two places compares equal. This makes it suitable for keys of caches that are shared
+ * between trees.
+ *
+ * <p>Types that are equal according to this class have the same {@link
+ * AnnotatedTypeMirror#hashCode}, except in rare cases where equal underlying types are printed
+ * differently.
+ */
+public class SameTypeAtmComparer extends EqualityAtmComparer {
+
+  /** The type utilities. */
+  private final Types types;
+
+  /**
+   * Creates a SameTypeAtmComparer.
+   *
+   * @param types the type utilities
+   */
+  public SameTypeAtmComparer(Types types) {
+    this.types = types;
+  }
+
+  @EqualsMethod // to make Interning Checker permit the == comparison
+  @Override
+  protected boolean compare(final AnnotatedTypeMirror type1, AnnotatedTypeMirror type2) {
+    if (type1 == type2) {
+      return true;
+    }
+
+    if (type1 == null || type2 == null) {
+      return false;
+    }
+
+    TypeMirror underlying1 = type1.getUnderlyingType();
+    TypeMirror underlying2 = type2.getUnderlyingType();
+    boolean sameUnderlyingType;
+    if (underlying1.getKind() == TypeKind.WILDCARD || underlying2.getKind() == TypeKind.WILDCARD) {
+      // Types#isSameType is false for all wildcards.  The bounds are compared as component types.
+      sameUnderlyingType = underlying1.getKind() == underlying2.getKind();
+    } else {
+      sameUnderlyingType = types.isSameType(underlying1, underlying2);
+    }
+    return sameUnderlyingType && arePrimeAnnosEqual(type1, type2);
+  }
+}
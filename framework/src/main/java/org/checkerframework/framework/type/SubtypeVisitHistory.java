@@ -21,6 +21,11 @@ import org.checkerframework.javacutil.Pair;
  * but with a different supertype. For example, if the two types are {@code @A T extends @B
  * Serializable<T>} and {@code @C Serializable<?>}, then isSubtype is first called one those types
  * and then on {@code @B Serializable<T>} and {@code @C Serializable<?>}.
+ *
+ * <p>A lookup hashes both types and compares them to the types of the entries with the same hash
+ * code. {@link AnnotatedTypeMirror#hashCode} caches its result and {@link
+ * AnnotatedTypeMirror#equals} rejects types whose cached hash codes differ, so a lookup usually
+ * does not traverse the types.
  */
 // TODO: do we need to clear the history sometimes?
 public class SubtypeVisitHistory {
@@ -37,6 +37,7 @@ public class SyntheticArrays {
       final Element methodElem, final AnnotatedArrayType newReturnType) {
     final AnnotatedExecutableType method =
         (AnnotatedExecutableType) newReturnType.atypeFactory.getAnnotatedType(methodElem);
+    method.invalidateCachedHashCodes();
     method.returnType = newReturnType;
     return method;
   }
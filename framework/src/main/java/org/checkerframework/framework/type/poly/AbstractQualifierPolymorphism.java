@@ -1,9 +1,11 @@
 package org.checkerframework.framework.type.poly;
 
+import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.MethodInvocationTree;
 import com.sun.source.tree.NewClassTree;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -11,6 +13,7 @@ import java.util.Map;
 import java.util.Set;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeKind;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
@@ -33,7 +36,6 @@ import org.checkerframework.framework.util.AnnotationMirrorSet;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.TreeUtils;
 import org.checkerframework.javacutil.TypesUtils;
-import org.plumelib.util.CollectionsPlume;
 
 /**
  * Implements framework support for qualifier polymorphism.
@@ -89,6 +91,16 @@ public abstract class AbstractQualifierPolymorphism implements QualifierPolymorp
   protected final AnnotationMirrorMap<AnnotationMirror> polyInstantiationForQualifierParameter =
       new AnnotationMirrorMap<>();
 
+  /** Determines whether a type contains a polymorphic qualifier in {@code polyQuals}. */
+  private final SimpleAnnotatedTypeScanner<Boolean, Void> polyFinder;
+
+  /**
+   * The positions of the polymorphic qualifiers in the type of each method whose invocations have
+   * been resolved. Methods with fake overrides are not cached, because their type depends on the
+   * receiver of the invocation.
+   */
+  private final Map<ExecutableElement, PolyPositions> polyPositionsCache = new HashMap<>();
+
   /**
    * Creates an {@link AbstractQualifierPolymorphism} instance that uses the given checker for
    * querying type qualifiers and the given factory for getting annotated types. Subclasses need to
@@ -126,6 +138,19 @@ public abstract class AbstractQualifierPolymorphism implements QualifierPolymorp
               replace(type, map);
               return null;
             });
+
+    this.polyFinder =
+        new SimpleAnnotatedTypeScanner<>(
+            (type, p) -> {
+              for (AnnotationMirror anno : type.getAnnotations()) {
+                if (polyQuals.containsKey(anno)) {
+                  return true;
+                }
+              }
+              return false;
+            },
+            Boolean::logicalOr,
+            false);
   }
 
   /**
@@ -159,17 +184,19 @@ public abstract class AbstractQualifierPolymorphism implements QualifierPolymorp
     if (TreeUtils.isEnumSuper(tree)) {
       return;
     }
-    List<AnnotatedTypeMirror> parameters =
-        AnnotatedTypes.expandVarArgsParameters(atypeFactory, type, tree.getArguments());
-    List<AnnotatedTypeMirror> arguments =
-        CollectionsPlume.mapList(atypeFactory::getAnnotatedType, tree.getArguments());
+    PolyPositions positions = getPolyPositions(TreeUtils.elementFromUse(tree), type);
+    if (!positions.hasPoly) {
+      // The method is monomorphic, so there is nothing to resolve.
+      return;
+    }
 
     AnnotationMirrorMap<AnnotationMirror> instantiationMapping =
-        collector.visit(arguments, parameters);
+        collectFromArguments(tree.getArguments(), type, positions);
 
     // For super() and this() method calls, getReceiverType(tree) does not return the correct
     // type. So, just skip those.  This is consistent with skipping receivers of constructors below.
-    if (type.getReceiverType() != null
+    if (positions.receiverHasPoly
+        && type.getReceiverType() != null
         && !TreeUtils.isSuperConstructorCall(tree)
         && !TreeUtils.isThisConstructorCall(tree)) {
       instantiationMapping =
@@ -191,13 +218,14 @@ public abstract class AbstractQualifierPolymorphism implements QualifierPolymorp
     if (polyQuals.isEmpty()) {
       return;
     }
-    List<AnnotatedTypeMirror> parameters =
-        AnnotatedTypes.expandVarArgsParameters(atypeFactory, type, tree.getArguments());
-    List<AnnotatedTypeMirror> arguments =
-        CollectionsPlume.mapList(atypeFactory::getAnnotatedType, tree.getArguments());
+    PolyPositions positions = getPolyPositions(TreeUtils.elementFromUse(tree), type);
+    if (!positions.hasPoly) {
+      // The constructor is monomorphic, so there is nothing to resolve.
+      return;
+    }
 
     AnnotationMirrorMap<AnnotationMirror> instantiationMapping =
-        collector.visit(arguments, parameters);
+        collectFromArguments(tree.getArguments(), type, positions);
     // TODO: poly on receiver for constructors?
     // instantiationMapping = collector.reduce(instantiationMapping,
     //        collector.visit(factory.getReceiverType(tree), type.getReceiverType()));
@@ -286,6 +314,59 @@ public abstract class AbstractQualifierPolymorphism implements QualifierPolymorp
     reset();
   }
 
+  /**
+   * Returns the positions of the polymorphic qualifiers in {@code type}, the type of {@code
+   * method}. The result is cached per method, unless the method has fake overrides.
+   *
+   * @param method the invoked method or constructor
+   * @param type the type of {@code method}, before polymorphic qualifiers are resolved
+   * @return the positions of the polymorphic qualifiers in {@code type}
+   */
+  private PolyPositions getPolyPositions(ExecutableElement method, AnnotatedExecutableType type) {
+    if (atypeFactory.stubTypes.hasFakeOverride(method)) {
+      return new PolyPositions(type, polyFinder);
+    }
+    PolyPositions result = polyPositionsCache.get(method);
+    if (result == null) {
+      result = new PolyPositions(type, polyFinder);
+      polyPositionsCache.put(method, result);
+    }
+    return result;
+  }
+
+  /**
+   * Collects the instantiations of the polymorphic qualifiers from the arguments of an
+   * invocation. Only the arguments whose parameter type contains a polymorphic qualifier are
+   * visited, so the types of the other arguments are not computed.
+   *
+   * @param argTrees the arguments of the invocation
+   * @param type the type of the invoked method or constructor
+   * @param positions the positions of the polymorphic qualifiers in {@code type}
+   * @return a mapping of polymorphic qualifiers to their instantiations
+   */
+  private AnnotationMirrorMap<AnnotationMirror> collectFromArguments(
+      List<? extends ExpressionTree> argTrees,
+      AnnotatedExecutableType type,
+      PolyPositions positions) {
+    List<AnnotatedTypeMirror> parameters;
+    if (positions.varArgsHasPoly) {
+      parameters = AnnotatedTypes.expandVarArgsParameters(atypeFactory, type, argTrees);
+    } else {
+      // Every parameter whose type contains a polymorphic qualifier precedes the varargs
+      // parameter, so there is no need to expand it.
+      parameters = type.getParameterTypes();
+    }
+    List<AnnotatedTypeMirror> polyParameters = new ArrayList<>();
+    List<AnnotatedTypeMirror> arguments = new ArrayList<>();
+    for (int i = 0; i < argTrees.size(); i++) {
+      if (positions.parameterHasPoly(i)) {
+        polyParameters.add(parameters.get(i));
+        arguments.add(atypeFactory.getAnnotatedType(argTrees.get(i)));
+      }
+    }
+    return collector.visit(arguments, polyParameters);
+  }
+
   /**
    * If the primary annotation of {@code polyType} is a polymorphic qualifier, then it is mapped to
    * the primary annotation of {@code type} and the map is returned. Otherwise, an empty map is
@@ -344,6 +425,58 @@ public abstract class AbstractQualifierPolymorphism implements QualifierPolymorp
   protected abstract void replace(
       AnnotatedTypeMirror type, AnnotationMirrorMap<AnnotationMirror> replacements);
 
+  /**
+   * Where polymorphic qualifiers appear in the type of a method or constructor. Only the parts of
+   * an invocation that correspond to these positions can contribute to the instantiation of the
+   * polymorphic qualifiers, and a method without any polymorphic qualifier needs no resolution.
+   */
+  private static final class PolyPositions {
+
+    /** True if any part of the method type contains a polymorphic qualifier. */
+    final boolean hasPoly;
+
+    /** True if the receiver type contains a polymorphic qualifier. */
+    final boolean receiverHasPoly;
+
+    /** For each declared parameter, true if its type contains a polymorphic qualifier. */
+    final boolean[] paramHasPoly;
+
+    /** True if the method is varargs and the type of its varargs parameter has a poly qualifier. */
+    final boolean varArgsHasPoly;
+
+    /**
+     * Computes the positions of the polymorphic qualifiers in {@code type}.
+     *
+     * @param type the type of a method or constructor
+     * @param polyFinder determines whether a type contains a polymorphic qualifier
+     */
+    PolyPositions(
+        AnnotatedExecutableType type, SimpleAnnotatedTypeScanner<Boolean, Void> polyFinder) {
+      List<AnnotatedTypeMirror> parameters = type.getParameterTypes();
+      this.paramHasPoly = new boolean[parameters.size()];
+      boolean anyParamHasPoly = false;
+      for (int i = 0; i < parameters.size(); i++) {
+        paramHasPoly[i] = polyFinder.visit(parameters.get(i));
+        anyParamHasPoly |= paramHasPoly[i];
+      }
+      AnnotatedTypeMirror receiverType = type.getReceiverType();
+      this.receiverHasPoly = receiverType != null && polyFinder.visit(receiverType);
+      this.varArgsHasPoly = type.isVarArgs() && paramHasPoly[paramHasPoly.length - 1];
+      this.hasPoly = anyParamHasPoly || receiverHasPoly || polyFinder.visit(type);
+    }
+
+    /**
+     * Returns true if the type of the parameter that corresponds to the {@code i}th argument of an
+     * invocation contains a polymorphic qualifier.
+     *
+     * @param i the index of an argument
+     * @return true if the corresponding parameter type contains a polymorphic qualifier
+     */
+    boolean parameterHasPoly(int i) {
+      return paramHasPoly[Math.min(i, paramHasPoly.length - 1)];
+    }
+  }
+
   /**
    * A helper class that resolves the polymorphic qualifiers with the most restrictive qualifier. It
    * returns a mapping from the polymorphic qualifier to the substitution for that qualifier.
@@ -119,7 +119,7 @@ class AtmLubVisitor extends AbstractAtmComboVisitor<Void, AnnotatedTypeMirror> {
     Set<? extends AnnotationMirror> lubSet;
     if (type1.getAnnotations().isEmpty()) {
       lubSet = type2.getAnnotations();
-    } else if (type2.getAnnotations().isEmpty()) {
+    } else if (type2.getAnnotations().isEmpty() || type1.hasSamePrimaryAnnotations(type2)) {
       lubSet = type1.getAnnotations();
     } else {
       lubSet = qualifierHierarchy.leastUpperBounds(type1.getAnnotations(), type2.getAnnotations());
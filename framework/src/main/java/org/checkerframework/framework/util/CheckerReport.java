@@ -0,0 +1,35 @@
+package org.checkerframework.framework.util;
+
+/**
+ * A report that all checkers of one javac invocation contribute to, and that is output once all of
+ * them have finished. Each top-level checker (one without a parent checker) calls {@link #register}
+ * when it is initialized and {@link #checkerFinished} when it has processed all compilation units;
+ * subcheckers contribute through their parent and do not register.
+ */
+public abstract class CheckerReport {
+
+  /** The number of registered checkers that have not finished. */
+  private int unfinishedCheckers = 0;
+
+  /**
+   * Registers a top-level checker (one without a parent checker). The report is output when every
+   * registered checker has called {@link #checkerFinished}.
+   */
+  public void register() {
+    unfinishedCheckers++;
+  }
+
+  /**
+   * Indicates that a registered checker has finished processing all compilation units. Outputs the
+   * report if this was the last unfinished checker.
+   */
+  public void checkerFinished() {
+    unfinishedCheckers--;
+    if (unfinishedCheckers == 0) {
+      report();
+    }
+  }
+
+  /** Outputs the report. Called once every registered checker has finished. */
+  protected abstract void report();
+}
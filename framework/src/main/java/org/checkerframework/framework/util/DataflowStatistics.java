@@ -0,0 +1,235 @@
+package org.checkerframework.framework.util;
+
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import javax.annotation.processing.ProcessingEnvironment;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.framework.source.SourceChecker;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * Records the cost of the dataflow analysis of each method, lambda, and initializer, and prints
+ * the ones that took the longest. It is enabled by the {@code -AdataflowStats} command-line option,
+ * whose optional argument is the number of methods to report.
+ *
+ * <p>For each analysis, the report gives the wall-clock time, the time spent in the transfer
+ * function, the number of basic blocks in the control flow graph, the number of times a basic
+ * block was analyzed, and the number of times a store was widened. A large ratio of block visits to
+ * blocks, or many widening events, indicates code that makes the analysis iterate for a long time
+ * before reaching a fixpoint.
+ *
+ * <p>All checkers that run within one javac invocation share one DataflowStatistics, including
+ * subcheckers; see {@link #instance}. The report is printed once every checker that was
+ * {@linkplain #register registered} has {@linkplain #checkerFinished finished}.
+ */
+public class DataflowStatistics extends CheckerReport {
+
+  /** The key for the DataflowStatistics in the javac context. */
+  private static final Context.Key<DataflowStatistics> dataflowStatisticsKey = new Context.Key<>();
+
+  /** The number of methods reported if the command-line option has no argument. */
+  public static final int DEFAULT_REPORT_SIZE = 20;
+
+  /** Orders analyses by increasing wall-clock time. */
+  private static final Comparator<AnalysisStatistics> BY_WALL_NANOS =
+      Comparator.comparingLong(s -> s.wallNanos);
+
+  /** The number of methods to report. */
+  private final int reportSize;
+
+  /**
+   * The {@link #reportSize} slowest analyses seen so far. The head of the queue is the fastest of
+   * them, which is evicted when a slower analysis is recorded.
+   */
+  private final PriorityQueue<AnalysisStatistics> slowest;
+
+  /** The number of analyses recorded. */
+  private long analysisCount = 0;
+
+  /** The total wall-clock time of all analyses recorded, in nanoseconds. */
+  private long totalWallNanos = 0;
+
+  /** The cost of the dataflow analysis of one method, lambda, or initializer. */
+  private static class AnalysisStatistics {
+    /** The simple name of the checker that performed the analysis. */
+    final String checker;
+
+    /** A description of the analyzed code, including its source location. */
+    final String code;
+
+    /** The wall-clock time of the analysis, in nanoseconds. */
+    final long wallNanos;
+
+    /** The time spent in the transfer function, in nanoseconds. */
+    final long transferNanos;
+
+    /** The number of basic blocks in the control flow graph. */
+    final int blocks;
+
+    /** The number of times a basic block was analyzed. */
+    final int blockVisits;
+
+    /** The number of times a store was widened. */
+    final int widenings;
+
+    /**
+     * Creates a new AnalysisStatistics.
+     *
+     * @param checker the simple name of the checker that performed the analysis
+     * @param code a description of the analyzed code, including its source location
+     * @param wallNanos the wall-clock time of the analysis, in nanoseconds
+     * @param transferNanos the time spent in the transfer function, in nanoseconds
+     * @param blocks the number of basic blocks in the control flow graph
+     * @param blockVisits the number of times a basic block was analyzed
+     * @param widenings the number of times a store was widened
+     */
+    AnalysisStatistics(
+        String checker,
+        String code,
+        long wallNanos,
+        long transferNanos,
+        int blocks,
+        int blockVisits,
+        int widenings) {
+      this.checker = checker;
+      this.code = code;
+      this.wallNanos = wallNanos;
+      this.transferNanos = transferNanos;
+      this.blocks = blocks;
+      this.blockVisits = blockVisits;
+      this.widenings = widenings;
+    }
+  }
+
+  /**
+   * Creates a new DataflowStatistics. Use {@link #instance} instead.
+   *
+   * @param reportSize the number of methods to report
+   */
+  protected DataflowStatistics(int reportSize) {
+    this.reportSize = reportSize;
+    this.slowest = new PriorityQueue<>(reportSize + 1, BY_WALL_NANOS);
+  }
+
+  /**
+   * Returns the DataflowStatistics shared by all checkers of the current javac invocation, creating
+   * it if necessary.
+   *
+   * @param env the processing environment
+   * @param reportSize the number of methods to report, or null or empty to use {@link
+   *     #DEFAULT_REPORT_SIZE}; only used if the DataflowStatistics does not exist yet
+   * @return the DataflowStatistics of the current javac invocation
+   */
+  public static DataflowStatistics instance(
+      ProcessingEnvironment env, @Nullable String reportSize) {
+    Context context = ((JavacProcessingEnvironment) env).getContext();
+    DataflowStatistics statistics = context.get(dataflowStatisticsKey);
+    if (statistics == null) {
+      statistics = new DataflowStatistics(parseReportSize(reportSize));
+      context.put(dataflowStatisticsKey, statistics);
+    }
+    return statistics;
+  }
+
+  /**
+   * Parses the argument of the {@code -AdataflowStats} command-line option.
+   *
+   * @param reportSize the argument of the command-line option, or null if it has none
+   * @return the number of methods to report
+   */
+  private static int parseReportSize(@Nullable String reportSize) {
+    if (reportSize == null || reportSize.isEmpty()) {
+      return DEFAULT_REPORT_SIZE;
+    }
+    try {
+      int result = Integer.parseInt(reportSize);
+      if (result > 0) {
+        return result;
+      }
+    } catch (NumberFormatException e) {
+      // fall through to the error below
+    }
+    throw new UserError(
+        "The argument of -AdataflowStats must be a positive integer, found: %s", reportSize);
+  }
+
+  /**
+   * Records the cost of one dataflow analysis.
+   *
+   * @param checker the checker that performed the analysis
+   * @param code a description of the analyzed code, including its source location
+   * @param wallNanos the wall-clock time of the analysis, in nanoseconds
+   * @param transferNanos the time spent in the transfer function, in nanoseconds
+   * @param blocks the number of basic blocks in the control flow graph
+   * @param blockVisits the number of times a basic block was analyzed
+   * @param widenings the number of times a store was widened
+   */
+  public void record(
+      SourceChecker checker,
+      String code,
+      long wallNanos,
+      long transferNanos,
+      int blocks,
+      int blockVisits,
+      int widenings) {
+    analysisCount++;
+    totalWallNanos += wallNanos;
+    AnalysisStatistics head = slowest.peek();
+    if (slowest.size() == reportSize && head != null && head.wallNanos >= wallNanos) {
+      return;
+    }
+    slowest.add(
+        new AnalysisStatistics(
+            checker.getClass().getSimpleName(),
+            code,
+            wallNanos,
+            transferNanos,
+            blocks,
+            blockVisits,
+            widenings));
+    if (slowest.size() > reportSize) {
+      slowest.poll();
+    }
+  }
+
+  @Override
+  protected void report() {
+    printReport(System.out);
+  }
+
+  /**
+   * Prints the slowest analyses, slowest first.
+   *
+   * @param out where to print the report
+   */
+  private void printReport(PrintStream out) {
+    List<AnalysisStatistics> ranked = new ArrayList<>(slowest);
+    ranked.sort(Collections.reverseOrder(BY_WALL_NANOS));
+    out.printf(
+        "Dataflow statistics: %d slowest of %d analyses, which took %.1f ms in total%n",
+        ranked.size(), analysisCount, totalWallNanos / 1e6);
+    out.printf(
+        "%4s %10s %12s %7s %7s %9s  %s%n",
+        "rank", "wall ms", "transfer ms", "blocks", "visits", "widenings", "checker: code");
+    int rank = 1;
+    for (AnalysisStatistics s : ranked) {
+      out.printf(
+          "%4d %10.1f %12.1f %7d %7d %9d  %s: %s%n",
+          rank++,
+          s.wallNanos / 1e6,
+          s.transferNanos / 1e6,
+          s.blocks,
+          s.blockVisits,
+          s.widenings,
+          s.checker,
+          s.code);
+    }
+    out.flush();
+  }
+}
@@ -45,6 +45,12 @@ import org.plumelib.util.StringsPlume;
  *   <li>{@link #createGlbsMap()}
  * </ul>
  *
+ * <p>Each qualifier kind is assigned a dense {@linkplain QualifierKind#getOrdinal() ordinal}, its
+ * index in {@link #allQualifierKinds()}. Once the hierarchy is created, the subtype relation is
+ * stored as a bit matrix and the lubs and glbs as arrays, all indexed by ordinal, so that {@link
+ * QualifierKind#isSubtypeOf}, {@link #leastUpperBound}, and {@link #greatestLowerBound} do not
+ * perform any hashing or comparisons of names.
+ *
  * {@link DefaultQualifierKindHierarchy.DefaultQualifierKind} is the implementation used for {@link
  * QualifierKind} by this class.
  */
@@ -70,16 +76,18 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
   private final Set<DefaultQualifierKind> bottoms;
 
   /**
-   * Holds the lub of qualifier kinds. {@code lubs.get(kind1).get(kind2)} returns the lub of kind1
-   * and kind2.
+   * Holds the lub of qualifier kinds. {@code lubs[kind1.getOrdinal() * qualifierKinds.size() +
+   * kind2.getOrdinal()]} is the lub of kind1 and kind2, or null if they are not in the same
+   * hierarchy.
    */
-  private final Map<QualifierKind, Map<QualifierKind, QualifierKind>> lubs;
+  private final @Nullable QualifierKind[] lubs;
 
   /**
-   * Holds the glb of qualifier kinds. {@code glbs.get(kind1).get(kind2)} returns the glb of kind1
-   * and kind2.
+   * Holds the glb of qualifier kinds. {@code glbs[kind1.getOrdinal() * qualifierKinds.size() +
+   * kind2.getOrdinal()]} is the glb of kind1 and kind2, or null if they are not in the same
+   * hierarchy.
    */
-  private final Map<QualifierKind, Map<QualifierKind, QualifierKind>> glbs;
+  private final @Nullable QualifierKind[] glbs;
 
   @Override
   public Set<? extends QualifierKind> getTops() {
@@ -93,16 +101,34 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
 
   @Override
   public @Nullable QualifierKind leastUpperBound(QualifierKind q1, QualifierKind q2) {
-    @SuppressWarnings("nullness:dereference.of.nullable") // All QualifierKinds are keys in lubs.
-    QualifierKind result = lubs.get(q1).get(q2);
-    return result;
+    return lubs[tableIndex(q1, q2)];
   }
 
   @Override
   public @Nullable QualifierKind greatestLowerBound(QualifierKind q1, QualifierKind q2) {
-    @SuppressWarnings("nullness:dereference.of.nullable") // All QualifierKinds are keys in glbs.
-    QualifierKind result = glbs.get(q1).get(q2);
-    return result;
+    return glbs[tableIndex(q1, q2)];
+  }
+
+  /**
+   * Returns the index of the pair {@code (q1, q2)} in {@link #lubs} and {@link #glbs}.
+   *
+   * @param q1 a qualifier kind of this hierarchy
+   * @param q2 a qualifier kind of this hierarchy
+   * @return the index of the pair {@code (q1, q2)} in {@link #lubs} and {@link #glbs}
+   */
+  private int tableIndex(QualifierKind q1, QualifierKind q2) {
+    int size = qualifierKinds.size();
+    int ordinal1 = q1.getOrdinal();
+    int ordinal2 = q2.getOrdinal();
+    if (ordinal1 < 0
+        || ordinal1 >= size
+        || ordinal2 < 0
+        || ordinal2 >= size
+        || qualifierKinds.get(ordinal1) != q1
+        || qualifierKinds.get(ordinal2) != q2) {
+      throw new BugInCF("QualifierKinds %s and %s are not both in this hierarchy", q1, q2);
+    }
+    return ordinal1 * size + ordinal2;
   }
 
   @Override
@@ -159,6 +185,9 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
     this.nameToQualifierKind = createQualifierKinds(qualifierClasses);
     this.qualifierKinds = new ArrayList<>(nameToQualifierKind.values());
     Collections.sort(qualifierKinds);
+    for (int i = 0; i < qualifierKinds.size(); i++) {
+      qualifierKinds.get(i).ordinal = i;
+    }
 
     Map<DefaultQualifierKind, Set<DefaultQualifierKind>> directSuperMap = createDirectSuperMap();
     if (bottom != null) {
@@ -168,8 +197,9 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
     this.bottoms = createBottomsSet(directSuperMap);
     initializePolymorphicQualifiers();
     initializeQualifierKindFields(directSuperMap);
-    this.lubs = createLubsMap();
-    this.glbs = createGlbsMap();
+    initializeSubtypeMatrix();
+    this.lubs = createTable(createLubsMap(), "lub");
+    this.glbs = createTable(createGlbsMap(), "glb");
 
     verifyHierarchy(directSuperMap);
   }
@@ -507,9 +537,79 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
     return allSupers;
   }
 
+  /**
+   * Stores the subtype relation of all qualifier kinds as a bit matrix, which {@link
+   * DefaultQualifierKind#isSubtypeOf} uses from now on. Row {@code i} of the matrix has bit {@code
+   * j} set if the qualifier kind with ordinal {@code i} is a subtype of or equal to the qualifier
+   * kind with ordinal {@code j}. The matrix is shared by all qualifier kinds of this hierarchy.
+   *
+   * <p>Requires {@link DefaultQualifierKind#strictSuperTypes} to be initialized; qualifier kinds
+   * for which it is not are left without a matrix, and {@link #verifyHierarchy} reports them.
+   */
+  @RequiresNonNull("this.qualifierKinds")
+  private void initializeSubtypeMatrix(@UnderInitialization DefaultQualifierKindHierarchy this) {
+    int rowWords = (qualifierKinds.size() + Long.SIZE - 1) / Long.SIZE;
+    long[] subtypeMatrix = new long[qualifierKinds.size() * rowWords];
+    for (DefaultQualifierKind qualifierKind : qualifierKinds) {
+      if (qualifierKind.strictSuperTypes == null) {
+        return;
+      }
+      int rowStart = qualifierKind.ordinal * rowWords;
+      setBit(subtypeMatrix, rowStart, qualifierKind.ordinal);
+      for (QualifierKind superKind : qualifierKind.strictSuperTypes) {
+        setBit(subtypeMatrix, rowStart, superKind.getOrdinal());
+      }
+    }
+    for (DefaultQualifierKind qualifierKind : qualifierKinds) {
+      qualifierKind.subtypeMatrix = subtypeMatrix;
+      qualifierKind.rowWords = rowWords;
+    }
+  }
+
+  /**
+   * Sets a bit in a row of a bit matrix.
+   *
+   * @param matrix a bit matrix; side-effected by this method
+   * @param rowStart the index in {@code matrix} of the first word of the row
+   * @param column the index of the bit within the row
+   */
+  private static void setBit(long[] matrix, int rowStart, int column) {
+    matrix[rowStart + column / Long.SIZE] |= 1L << column;
+  }
+
+  /**
+   * Converts a map of lubs or glbs, as created by {@link #createLubsMap()} or {@link
+   * #createGlbsMap()}, to an array indexed by {@link #tableIndex}.
+   *
+   * @param map {@code map.get(kind1).get(kind2)} is the lub or glb of kind1 and kind2
+   * @param operationName "lub" or "glb"; used only for error messages
+   * @return an array indexed by {@link #tableIndex} that contains the values of {@code map}
+   */
+  @RequiresNonNull("this.qualifierKinds")
+  private @Nullable QualifierKind[] createTable(
+      @UnderInitialization DefaultQualifierKindHierarchy this,
+      Map<QualifierKind, Map<QualifierKind, QualifierKind>> map,
+      String operationName) {
+    int size = qualifierKinds.size();
+    @Nullable QualifierKind[] table = new QualifierKind[size * size];
+    for (Map.Entry<QualifierKind, Map<QualifierKind, QualifierKind>> row : map.entrySet()) {
+      for (Map.Entry<QualifierKind, QualifierKind> entry : row.getValue().entrySet()) {
+        int ordinal1 = row.getKey().getOrdinal();
+        int ordinal2 = entry.getKey().getOrdinal();
+        if (ordinal1 < 0 || ordinal2 < 0) {
+          throw new TypeSystemError(
+              "The %ss map contains a qualifier kind that is not in the hierarchy: %s, %s",
+              operationName, row.getKey(), entry.getKey());
+        }
+        table[ordinal1 * size + ordinal2] = entry.getValue();
+      }
+    }
+    return table;
+  }
+
   /**
    * Creates the lub of qualifier kinds. {@code lubs.get(kind1).get(kind2)} returns the lub of kind1
-   * and kind2.
+   * and kind2. The result is stored in an array indexed by ordinal.
    *
    * @return a mapping of lubs
    */
@@ -579,7 +679,7 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
 
   /**
    * Creates the glb of qualifier kinds. {@code glbs.get(kind1).get(kind2)} returns the glb of kind1
-   * and kind2.
+   * and kind2. The result is stored in an array indexed by ordinal.
    *
    * @return a mapping of glb
    */
@@ -718,6 +818,22 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
     // Set while creating the QualifierKindHierarchy.
     protected @MonotonicNonNull Set<QualifierKind> strictSuperTypes;
 
+    /** The index of this in {@link DefaultQualifierKindHierarchy#qualifierKinds}. */
+    // Set while creating the QualifierKindHierarchy.
+    private int ordinal = -1;
+
+    /**
+     * The subtype bit matrix of the hierarchy to which this belongs; see {@link
+     * DefaultQualifierKindHierarchy#initializeSubtypeMatrix}. Null until the hierarchy has been
+     * created. It is shared by all qualifier kinds of the hierarchy.
+     */
+    // Set while creating the QualifierKindHierarchy.
+    private long @MonotonicNonNull [] subtypeMatrix;
+
+    /** The number of words in each row of {@link #subtypeMatrix}. */
+    // Set while creating the QualifierKindHierarchy.
+    private int rowWords;
+
     /**
      * Creates a {@link DefaultQualifierKind} for the given annotation class.
      *
@@ -798,13 +914,28 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
       return strictSuperTypes;
     }
 
+    @Override
+    public int getOrdinal() {
+      return ordinal;
+    }
+
     @Override
     public boolean isInSameHierarchyAs(QualifierKind other) {
       return this.top == other.getTop();
     }
 
     @Override
+    @SuppressWarnings("interning:not.interned") // the matrix is shared within a hierarchy
     public boolean isSubtypeOf(QualifierKind superQualKind) {
+      long[] matrix = subtypeMatrix;
+      if (matrix != null && superQualKind instanceof DefaultQualifierKind) {
+        DefaultQualifierKind superKind = (DefaultQualifierKind) superQualKind;
+        if (superKind.subtypeMatrix == matrix) {
+          int column = superKind.ordinal;
+          return (matrix[ordinal * rowWords + column / Long.SIZE] & (1L << column)) != 0;
+        }
+      }
+      // The matrix has not been created yet, or superQualKind is not in the same hierarchy.
       if (strictSuperTypes == null) {
         throw new BugInCF(
             "DefaultQualifierKind#isSubtypeOf: strictSuperTypes was null. Don't call this method"
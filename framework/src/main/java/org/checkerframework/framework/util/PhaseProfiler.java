@@ -0,0 +1,360 @@
+package org.checkerframework.framework.util;
+
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.processing.ProcessingEnvironment;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.framework.source.SourceChecker;
+import org.checkerframework.javacutil.BugInCF;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * Records the wall-clock time, CPU time, and allocated bytes of each phase of type-checking, per
+ * checker and per compilation unit, and writes them as JSON. It is enabled by the {@code
+ * -AphaseProfile} command-line option, whose optional argument is the name of the output file.
+ *
+ * <p>Phases nest: for example, dataflow analysis runs while a class tree is being annotated, and
+ * a subchecker's phases run while its parent checker is visiting a tree. Each phase is charged only
+ * for its exclusive cost; the cost of a nested phase is charged to the nested phase, not to the
+ * phase that contains it. Therefore the costs of all phases sum to the profiled part of the run.
+ *
+ * <p>All checkers that run within one javac invocation share one PhaseProfiler, including
+ * subcheckers and the checkers of {@code -processor A,B}; see {@link #instance}. The profile is
+ * written once every checker that was {@linkplain #register registered} has {@linkplain
+ * #checkerFinished finished}.
+ *
+ * <p>CPU time and allocated bytes are measured for the current thread, so each phase must stop on
+ * the thread that started it.
+ */
+public class PhaseProfiler extends CheckerReport {
+
+  /** A phase of type-checking. */
+  public enum Phase {
+    /** Parsing stub, ajava, and annotated JDK files. */
+    ANNOTATION_FILES("annotationFiles"),
+    /** Building control flow graphs. */
+    CFG_CONSTRUCTION("cfgConstruction"),
+    /** Running dataflow analysis to a fixpoint. */
+    DATAFLOW("dataflow"),
+    /** Computing the annotated types of trees. */
+    TREE_ANNOTATION("treeAnnotation"),
+    /** The checks performed by the visitor. */
+    VISITOR("visitor");
+
+    /** The name of this phase in the JSON output. */
+    private final String jsonName;
+
+    /**
+     * Creates a new Phase.
+     *
+     * @param jsonName the name of this phase in the JSON output
+     */
+    Phase(String jsonName) {
+      this.jsonName = jsonName;
+    }
+  }
+
+  /** The key for the PhaseProfiler in the javac context. */
+  private static final Context.Key<PhaseProfiler> phaseProfilerKey = new Context.Key<>();
+
+  /** The number of phases. */
+  private static final int NUM_PHASES = Phase.values().length;
+
+  /** The index of the number of occurrences of a phase, within the statistics of the phase. */
+  private static final int COUNT = 0;
+
+  /** The index of the wall-clock time in nanoseconds, within the statistics of a phase. */
+  private static final int WALL_NANOS = 1;
+
+  /** The index of the CPU time in nanoseconds, within the statistics of a phase. */
+  private static final int CPU_NANOS = 2;
+
+  /** The index of the number of allocated bytes, within the statistics of a phase. */
+  private static final int ALLOCATED_BYTES = 3;
+
+  /** The number of statistics recorded for each phase. */
+  private static final int NUM_STATS = 4;
+
+  /** The name used for phases that run outside any compilation unit. */
+  private static final String NO_COMPILATION_UNIT = "<none>";
+
+  /** The file to which the profile is written. */
+  private final String outputFile;
+
+  /** Used to measure CPU time, or null if the JVM does not support it. */
+  private final @Nullable ThreadMXBean cpuTimeBean;
+
+  /** Used to measure allocated bytes, or null if the JVM does not support it. */
+  private final com.sun.management.@Nullable ThreadMXBean allocationBean;
+
+  /**
+   * Maps a checker name to a map from compilation unit to statistics. The statistics are an array
+   * indexed by {@code phase.ordinal() * NUM_STATS + stat}.
+   */
+  private final Map<String, Map<String, long[]>> stats = new TreeMap<>();
+
+  /** The phases currently running, innermost first. */
+  private final Deque<Frame> running = new ArrayDeque<>();
+
+  /** The current compilation unit. */
+  private String compilationUnit = NO_COMPILATION_UNIT;
+
+  /** The wall-clock time at the previous start or stop of a phase. */
+  private long lastWallNanos;
+
+  /** The CPU time at the previous start or stop of a phase. */
+  private long lastCpuNanos;
+
+  /** The allocated bytes at the previous start or stop of a phase. */
+  private long lastAllocatedBytes;
+
+  /** A running phase. */
+  private static class Frame {
+    /** The phase. */
+    final Phase phase;
+
+    /** The statistics to which the cost of the phase is charged. */
+    final long[] stats;
+
+    /**
+     * Creates a new Frame.
+     *
+     * @param phase the phase
+     * @param stats the statistics to which the cost of the phase is charged
+     */
+    Frame(Phase phase, long[] stats) {
+      this.phase = phase;
+      this.stats = stats;
+    }
+  }
+
+  /**
+   * Creates a new PhaseProfiler. Use {@link #instance} instead.
+   *
+   * @param outputFile the file to which the profile is written
+   */
+  protected PhaseProfiler(String outputFile) {
+    this.outputFile = outputFile;
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    this.cpuTimeBean = bean.isCurrentThreadCpuTimeSupported() ? bean : null;
+    if (bean instanceof com.sun.management.ThreadMXBean
+        && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+      com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+      sunBean.setThreadAllocatedMemoryEnabled(true);
+      this.allocationBean = sunBean;
+    } else {
+      this.allocationBean = null;
+    }
+  }
+
+  /**
+   * Returns the PhaseProfiler shared by all checkers of the current javac invocation, creating it
+   * if necessary.
+   *
+   * @param env the processing environment
+   * @param outputFile the file to which the profile is written, or null to use the default; only
+   *     used if the PhaseProfiler does not exist yet
+   * @return the PhaseProfiler of the current javac invocation
+   */
+  public static PhaseProfiler instance(ProcessingEnvironment env, @Nullable String outputFile) {
+    Context context = ((JavacProcessingEnvironment) env).getContext();
+    PhaseProfiler profiler = context.get(phaseProfilerKey);
+    if (profiler == null) {
+      profiler =
+          new PhaseProfiler(
+              outputFile == null || outputFile.isEmpty() ? "phase-profile.json" : outputFile);
+      context.put(phaseProfilerKey, profiler);
+    }
+    return profiler;
+  }
+
+  /**
+   * Sets the compilation unit to which subsequently started phases are charged.
+   *
+   * @param compilationUnit the name of the source file of the current compilation unit
+   */
+  public void setCompilationUnit(String compilationUnit) {
+    this.compilationUnit = compilationUnit;
+  }
+
+  /**
+   * Starts a phase. Every call must be followed by a call to {@link #stop} with the same phase, in
+   * a {@code finally} block.
+   *
+   * @param checker the checker performing the phase
+   * @param phase the phase
+   */
+  public void start(SourceChecker checker, Phase phase) {
+    chargeRunningPhase();
+    Map<String, long[]> checkerStats =
+        stats.computeIfAbsent(checker.getClass().getSimpleName(), k -> new TreeMap<>());
+    long[] unitStats =
+        checkerStats.computeIfAbsent(compilationUnit, k -> new long[NUM_PHASES * NUM_STATS]);
+    running.push(new Frame(phase, unitStats));
+  }
+
+  /**
+   * Stops a phase.
+   *
+   * @param phase the phase, which must be the most recently started phase that has not stopped
+   */
+  public void stop(Phase phase) {
+    chargeRunningPhase();
+    Frame frame = running.pop();
+    if (frame.phase != phase) {
+      throw new BugInCF("PhaseProfiler: stopped %s while %s was running", phase, frame.phase);
+    }
+    frame.stats[phase.ordinal() * NUM_STATS + COUNT]++;
+  }
+
+  /**
+   * Charges the cost since the previous start or stop of a phase to the innermost running phase,
+   * if any.
+   */
+  private void chargeRunningPhase() {
+    long wallNanos = System.nanoTime();
+    long cpuNanos = cpuTimeBean == null ? 0 : cpuTimeBean.getCurrentThreadCpuTime();
+    long allocatedBytes =
+        allocationBean == null
+            ? 0
+            : allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    Frame frame = running.peek();
+    if (frame != null) {
+      int base = frame.phase.ordinal() * NUM_STATS;
+      frame.stats[base + WALL_NANOS] += wallNanos - lastWallNanos;
+      frame.stats[base + CPU_NANOS] += cpuNanos - lastCpuNanos;
+      frame.stats[base + ALLOCATED_BYTES] += allocatedBytes - lastAllocatedBytes;
+    }
+    lastWallNanos = wallNanos;
+    lastCpuNanos = cpuNanos;
+    lastAllocatedBytes = allocatedBytes;
+  }
+
+  /** Writes the profile to the output file. */
+  @Override
+  protected void report() {
+    try (Writer out = Files.newBufferedWriter(Paths.get(outputFile), StandardCharsets.UTF_8)) {
+      writeJson(out);
+    } catch (IOException e) {
+      throw new UserError("Problem writing phase profile %s: %s", outputFile, e.getMessage());
+    }
+  }
+
+  /**
+   * Writes the profile as JSON. For each checker, the output contains the statistics of each
+   * phase in total and for each compilation unit.
+   *
+   * @param out where to write the profile
+   * @throws IOException if writing fails
+   */
+  private void writeJson(Writer out) throws IOException {
+    out.write("{\n  \"checkers\": [");
+    String checkerSep = "\n";
+    for (Map.Entry<String, Map<String, long[]>> checkerEntry : stats.entrySet()) {
+      long[] total = new long[NUM_PHASES * NUM_STATS];
+      for (long[] unitStats : checkerEntry.getValue().values()) {
+        for (int i = 0; i < total.length; i++) {
+          total[i] += unitStats[i];
+        }
+      }
+      out.write(checkerSep);
+      checkerSep = ",\n";
+      out.write("    {\n      \"checker\": " + jsonString(checkerEntry.getKey()) + ",\n");
+      out.write("      \"total\": " + phasesJson(total) + ",\n");
+      out.write("      \"compilationUnits\": [");
+      String unitSep = "\n";
+      for (Map.Entry<String, long[]> unitEntry : checkerEntry.getValue().entrySet()) {
+        out.write(unitSep);
+        unitSep = ",\n";
+        out.write(
+            "        {\"file\": "
+                + jsonString(unitEntry.getKey())
+                + ", \"phases\": "
+                + phasesJson(unitEntry.getValue())
+                + "}");
+      }
+      out.write("\n      ]\n    }");
+    }
+    out.write("\n  ]\n}\n");
+  }
+
+  /**
+   * Returns a JSON object that maps each phase that occurred to its statistics.
+   *
+   * @param phaseStats statistics, indexed by {@code phase.ordinal() * NUM_STATS + stat}
+   * @return a JSON object containing the statistics
+   */
+  private static String phasesJson(long[] phaseStats) {
+    Map<String, String> phases = new LinkedHashMap<>();
+    for (Phase phase : Phase.values()) {
+      int base = phase.ordinal() * NUM_STATS;
+      if (phaseStats[base + COUNT] == 0) {
+        continue;
+      }
+      phases.put(
+          phase.jsonName,
+          String.format(
+              "{\"count\": %d, \"wallNanos\": %d, \"cpuNanos\": %d, \"allocatedBytes\": %d}",
+              phaseStats[base + COUNT],
+              phaseStats[base + WALL_NANOS],
+              phaseStats[base + CPU_NANOS],
+              phaseStats[base + ALLOCATED_BYTES]));
+    }
+    StringBuilder sb = new StringBuilder("{");
+    String sep = "";
+    for (Map.Entry<String, String> entry : phases.entrySet()) {
+      sb.append(sep).append(jsonString(entry.getKey())).append(": ").append(entry.getValue());
+      sep = ", ";
+    }
+    return sb.append("}").toString();
+  }
+
+  /**
+   * Returns a JSON string literal for the given string.
+   *
+   * @param s a string
+   * @return a JSON string literal whose value is {@code s}
+   */
+  private static String jsonString(String s) {
+    StringBuilder sb = new StringBuilder("\"");
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    return sb.append('"').toString();
+  }
+}
@@ -101,6 +101,22 @@ public @Interned interface QualifierKind extends Comparable<QualifierKind> {
    */
   Set<? extends QualifierKind> getStrictSuperTypes();
 
+  /**
+   * Returns the index of this qualifier kind in {@link QualifierKindHierarchy#allQualifierKinds()},
+   * or -1 if this qualifier kind does not have an ordinal. The ordinals of the qualifier kinds of a
+   * {@link DefaultQualifierKindHierarchy} are dense: they are {@code 0} through {@code
+   * allQualifierKinds().size() - 1}. Therefore, they can be used to index arrays instead of using
+   * maps keyed by qualifier kind.
+   *
+   * <p>The default implementation returns -1, and clients then fall back to maps.
+   *
+   * @return the index of this qualifier kind in {@link QualifierKindHierarchy#allQualifierKinds()},
+   *     or -1
+   */
+  default int getOrdinal() {
+    return -1;
+  }
+
   /**
    * Returns true if this and {@code other} are in the same hierarchy.
    *
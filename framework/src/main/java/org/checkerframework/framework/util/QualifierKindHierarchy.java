@@ -73,7 +73,9 @@ public interface QualifierKindHierarchy {
   @Nullable QualifierKind greatestLowerBound(QualifierKind q1, QualifierKind q2);
 
   /**
-   * Returns a list of all {@link QualifierKind}s sorted in ascending order.
+   * Returns a list of all {@link QualifierKind}s sorted in ascending order. If the qualifier kinds
+   * have {@linkplain QualifierKind#getOrdinal() ordinals}, the index of each one in the list is its
+   * ordinal.
    *
    * @return a list of all {@link QualifierKind}s sorted in ascending order
    */
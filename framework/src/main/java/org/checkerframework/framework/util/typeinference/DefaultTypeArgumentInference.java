@@ -14,6 +14,7 @@ import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
@@ -23,6 +24,7 @@ import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeVariable;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic.Kind;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.framework.source.SourceChecker;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
@@ -30,6 +32,7 @@ import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutab
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedPrimitiveType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedTypeVariable;
 import org.checkerframework.framework.type.QualifierHierarchy;
+import org.checkerframework.framework.type.SameTypeAtmComparer;
 import org.checkerframework.framework.type.TypeHierarchy;
 import org.checkerframework.framework.util.AnnotatedTypes;
 import org.checkerframework.framework.util.AnnotationMirrorSet;
@@ -53,6 +56,7 @@ import org.checkerframework.framework.util.typeinference.solver.InferredValue.In
 import org.checkerframework.framework.util.typeinference.solver.SubtypesSolver;
 import org.checkerframework.framework.util.typeinference.solver.SupertypesSolver;
 import org.checkerframework.javacutil.BugInCF;
+import org.checkerframework.javacutil.CollectionUtils;
 import org.checkerframework.javacutil.Pair;
 import org.checkerframework.javacutil.TreePathUtil;
 import org.checkerframework.javacutil.TypeAnnotationUtils;
@@ -106,8 +110,23 @@ public class DefaultTypeArgumentInference implements TypeArgumentInference {
 
   private final boolean showInferenceSteps;
 
+  /** Size of {@link #inferenceCache}. */
+  private static final int CACHE_SIZE = 300;
+
+  /**
+   * The type arguments inferred for each invocation shape: a method, the types of its arguments,
+   * and the type of its assignment context. Null if the type factory does not cache.
+   */
+  private final @Nullable Map<InferenceKey, Map<TypeVariable, AnnotatedTypeMirror>> inferenceCache;
+
+  /** Compares the types in {@link InferenceKey}s. */
+  private final SameTypeAtmComparer keyComparer;
+
   public DefaultTypeArgumentInference(AnnotatedTypeFactory typeFactory) {
     this.showInferenceSteps = typeFactory.getChecker().hasOption("showInferenceSteps");
+    this.inferenceCache =
+        typeFactory.shouldCache ? CollectionUtils.createLRUCache(CACHE_SIZE) : null;
+    this.keyComparer = new SameTypeAtmComparer(typeFactory.getProcessingEnv().getTypeUtils());
   }
 
   @Override
@@ -157,23 +176,39 @@ public class DefaultTypeArgumentInference implements TypeArgumentInference {
     if (assignedTo == null) {
       assignedTo = typeFactory.getDummyAssignedTo(expressionTree);
     }
+    InferenceKey key = null;
+    Map<TypeVariable, AnnotatedTypeMirror> cachedArgs = null;
+    if (inferenceCache != null) {
+      key = new InferenceKey(methodElem, methodType, argTypes, assignedTo);
+      cachedArgs = inferenceCache.get(key);
+    }
     Map<TypeVariable, AnnotatedTypeMirror> inferredArgs;
-    try {
-      inferredArgs =
-          infer(typeFactory, argTypes, assignedTo, methodElem, methodType, targets, true);
-      if (showInferenceSteps) {
-        checker.message(Kind.NOTE, "  after infer: %s", inferredArgs);
-      }
-      handleNullTypeArguments(
-          typeFactory, methodElem, methodType, argTypes, assignedTo, targets, inferredArgs);
+    if (cachedArgs != null) {
+      inferredArgs = copyInferredArgs(cachedArgs);
       if (showInferenceSteps) {
-        checker.message(Kind.NOTE, "  after handleNull: %s", inferredArgs);
+        checker.message(Kind.NOTE, "  cached: %s", inferredArgs);
       }
-    } catch (Exception ex) {
-      // Catch any errors thrown by inference.
-      inferredArgs = new LinkedHashMap<>();
-      if (showInferenceSteps) {
-        checker.message(Kind.NOTE, "  exception: %s", ex.getLocalizedMessage());
+    } else {
+      try {
+        inferredArgs =
+            infer(typeFactory, argTypes, assignedTo, methodElem, methodType, targets, true);
+        if (showInferenceSteps) {
+          checker.message(Kind.NOTE, "  after infer: %s", inferredArgs);
+        }
+        handleNullTypeArguments(
+            typeFactory, methodElem, methodType, argTypes, assignedTo, targets, inferredArgs);
+        if (showInferenceSteps) {
+          checker.message(Kind.NOTE, "  after handleNull: %s", inferredArgs);
+        }
+        if (inferenceCache != null && key != null) {
+          inferenceCache.put(key.deepCopy(), copyInferredArgs(inferredArgs));
+        }
+      } catch (Exception ex) {
+        // Catch any errors thrown by inference.
+        inferredArgs = new LinkedHashMap<>();
+        if (showInferenceSteps) {
+          checker.message(Kind.NOTE, "  exception: %s", ex.getLocalizedMessage());
+        }
       }
     }
 
@@ -191,6 +226,22 @@ public class DefaultTypeArgumentInference implements TypeArgumentInference {
     }
   }
 
+  /**
+   * Returns a copy of {@code inferredArgs} whose types are deep copies, so that neither map shares
+   * mutable types with the other.
+   *
+   * @param inferredArgs map of type variables to the annotated types of their type arguments
+   * @return a deep copy of {@code inferredArgs}
+   */
+  private static Map<TypeVariable, AnnotatedTypeMirror> copyInferredArgs(
+      Map<TypeVariable, AnnotatedTypeMirror> inferredArgs) {
+    Map<TypeVariable, AnnotatedTypeMirror> result = new LinkedHashMap<>();
+    for (Map.Entry<TypeVariable, AnnotatedTypeMirror> entry : inferredArgs.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().deepCopy());
+    }
+    return result;
+  }
+
   /**
    * If one of the inferredArgs are NullType, then re-run inference ignoring null method arguments.
    * Then lub the result of the second inference with the NullType and put the new result back into
@@ -866,4 +917,110 @@ public class DefaultTypeArgumentInference implements TypeArgumentInference {
             target, __ -> (AnnotatedTypeVariable) typeFactory.getAnnotatedType(target.asElement()));
     return atv;
   }
+
+  /**
+   * The inputs to the inference of the type arguments of one invocation: the invoked method, its
+   * type, the types of the arguments, and the type of the assignment context. Two invocations with
+   * equal keys have the same inferred type arguments. The hash code is computed once, when the key
+   * is created.
+   */
+  private final class InferenceKey {
+
+    /** The invoked method. */
+    private final ExecutableElement methodElem;
+
+    /** The type of the invoked method. */
+    private final AnnotatedExecutableType methodType;
+
+    /** The types of the arguments. */
+    private final List<AnnotatedTypeMirror> argTypes;
+
+    /** The type of the assignment context, or null if there is none. */
+    private final @Nullable AnnotatedTypeMirror assignedTo;
+
+    /** The hash code of this key. */
+    private final int hashCode;
+
+    /**
+     * Creates an InferenceKey. The key refers to its arguments, which must not be mutated while
+     * the key is in use; see {@link #deepCopy}.
+     *
+     * @param methodElem the invoked method
+     * @param methodType the type of the invoked method
+     * @param argTypes the types of the arguments
+     * @param assignedTo the type of the assignment context, or null if there is none
+     */
+    InferenceKey(
+        ExecutableElement methodElem,
+        AnnotatedExecutableType methodType,
+        List<AnnotatedTypeMirror> argTypes,
+        @Nullable AnnotatedTypeMirror assignedTo) {
+      this.methodElem = methodElem;
+      this.methodType = methodType;
+      this.argTypes = argTypes;
+      this.assignedTo = assignedTo;
+      this.hashCode = Objects.hash(methodElem, methodType, argTypes, assignedTo);
+    }
+
+    /**
+     * Returns a key that is equal to this one but does not share any types with it, for storing in
+     * the cache.
+     *
+     * @return a deep copy of this key
+     */
+    InferenceKey deepCopy() {
+      List<AnnotatedTypeMirror> argTypesCopy = new ArrayList<>(argTypes.size());
+      for (AnnotatedTypeMirror argType : argTypes) {
+        argTypesCopy.add(argType.deepCopy());
+      }
+      return new InferenceKey(
+          methodElem,
+          methodType.deepCopy(),
+          argTypesCopy,
+          assignedTo == null ? null : assignedTo.deepCopy());
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof InferenceKey)) {
+        return false;
+      }
+      InferenceKey other = (InferenceKey) o;
+      if (hashCode != other.hashCode
+          || methodElem != other.methodElem
+          || argTypes.size() != other.argTypes.size()
+          || !sameAssignedTo(other)
+          || !keyComparer.visit(methodType, other.methodType, null)) {
+        return false;
+      }
+      for (int i = 0; i < argTypes.size(); i++) {
+        if (!keyComparer.visit(argTypes.get(i), other.argTypes.get(i), null)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Returns true if this key and {@code other} have the same assignment context, or both have
+     * none.
+     *
+     * @param other another key
+     * @return true if the assignment contexts of this and {@code other} are the same
+     */
+    private boolean sameAssignedTo(InferenceKey other) {
+      if (assignedTo == null || other.assignedTo == null) {
+        return assignedTo == other.assignedTo;
+      }
+      return keyComparer.visit(assignedTo, other.assignedTo, null);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
 }
@@ -0,0 +1,151 @@
+package org.checkerframework.framework.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runner.Runner;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
+
+/** Tests that {@link ParallelSuiteScheduler} reports the results of children in their order. */
+public class ParallelSuiteSchedulerTest {
+
+  /** A child that sleeps, then reports one test that passes or fails. */
+  private static class SleepingRunner extends Runner {
+
+    /** The description of the test of this child. */
+    private final Description description;
+
+    /** How long to sleep before finishing the test, in milliseconds. */
+    private final long sleepMillis;
+
+    /** True if the test should fail. */
+    private final boolean fail;
+
+    /**
+     * Creates a SleepingRunner.
+     *
+     * @param name the name of the test
+     * @param sleepMillis how long to sleep before finishing the test, in milliseconds
+     * @param fail true if the test should fail
+     */
+    SleepingRunner(String name, long sleepMillis, boolean fail) {
+      this.description = Description.createTestDescription(ParallelSuiteSchedulerTest.class, name);
+      this.sleepMillis = sleepMillis;
+      this.fail = fail;
+    }
+
+    @Override
+    public Description getDescription() {
+      return description;
+    }
+
+    @Override
+    public void run(RunNotifier notifier) {
+      notifier.fireTestStarted(description);
+      try {
+        Thread.sleep(sleepMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (fail) {
+        notifier.fireTestFailure(new Failure(description, new AssertionError(description)));
+      }
+      notifier.fireTestFinished(description);
+    }
+  }
+
+  /** A child that throws instead of reporting. */
+  private static class ThrowingRunner extends Runner {
+
+    /** The description of this child. */
+    private final Description description =
+        Description.createTestDescription(ParallelSuiteSchedulerTest.class, "throws");
+
+    @Override
+    public Description getDescription() {
+      return description;
+    }
+
+    @Override
+    public void run(RunNotifier notifier) {
+      throw new IllegalStateException("thrown by the child");
+    }
+  }
+
+  /**
+   * Runs the given children on a scheduler with the given number of threads, and returns the events
+   * that the suite's notifier received.
+   *
+   * @param children the children to run
+   * @param threads the number of threads
+   * @return the events, as strings such as "started a" and "failure a"
+   */
+  private static List<String> runAll(List<Runner> children, int threads) {
+    List<String> events = Collections.synchronizedList(new ArrayList<>());
+    RunNotifier suiteNotifier = new RunNotifier();
+    suiteNotifier.addListener(
+        new RunListener() {
+          @Override
+          public void testStarted(Description description) {
+            events.add("started " + description.getMethodName());
+          }
+
+          @Override
+          public void testFinished(Description description) {
+            events.add("finished " + description.getMethodName());
+          }
+
+          @Override
+          public void testFailure(Failure failure) {
+            events.add("failure " + failure.getDescription().getMethodName());
+          }
+        });
+    ParallelSuiteScheduler scheduler = new ParallelSuiteScheduler(children, threads);
+    for (Runner child : children) {
+      scheduler.schedule(() -> scheduler.runChild(child, suiteNotifier));
+    }
+    scheduler.finished();
+    return events;
+  }
+
+  @Test
+  public void reportsInChildOrder() {
+    // The first child finishes last.
+    List<Runner> children =
+        Arrays.asList(
+            new SleepingRunner("a", 300, false),
+            new SleepingRunner("b", 0, true),
+            new SleepingRunner("c", 100, false));
+    Assert.assertEquals(
+        Arrays.asList(
+            "started a",
+            "finished a",
+            "started b",
+            "failure b",
+            "finished b",
+            "started c",
+            "finished c"),
+        runAll(children, 3));
+  }
+
+  @Test
+  public void reportsChildThatThrows() {
+    List<Runner> children =
+        Arrays.asList(new ThrowingRunner(), new SleepingRunner("a", 0, false));
+    Assert.assertEquals(
+        Arrays.asList("failure throws", "started a", "finished a"), runAll(children, 2));
+  }
+
+  @Test
+  public void sameResultsWithOneThread() {
+    List<Runner> children =
+        Arrays.asList(new SleepingRunner("a", 50, true), new SleepingRunner("b", 0, false));
+    Assert.assertEquals(runAll(children, 1), runAll(children, 2));
+  }
+}
@@ -12,6 +12,7 @@ import javax.lang.model.type.TypeMirror;
 import org.checkerframework.framework.testchecker.util.AnnoWithStringArg;
 import org.checkerframework.framework.testchecker.util.Encrypted;
 import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
 import org.junit.Assert;
 import org.junit.Ignore;
@@ -58,6 +59,27 @@ public class AnnotationBuilderTest {
     Assert.assertEquals(1, anno.getElementValues().size());
   }
 
+  @Test
+  public void buildingSameAnnoIsIdentical() {
+    AnnotationBuilder builder1 = new AnnotationBuilder(env, AnnoWithStringArg.class);
+    builder1.setValue("value", "m");
+    AnnotationBuilder builder2 = new AnnotationBuilder(env, AnnoWithStringArg.class);
+    builder2.setValue("value", "m");
+    Assert.assertSame(builder1.build(), builder2.build());
+  }
+
+  @Test
+  public void buildingDifferentAnnosIsDistinct() {
+    AnnotationBuilder builder1 = new AnnotationBuilder(env, AnnoWithStringArg.class);
+    builder1.setValue("value", "m");
+    AnnotationMirror anno1 = builder1.build();
+    AnnotationBuilder builder2 = new AnnotationBuilder(env, AnnoWithStringArg.class);
+    builder2.setValue("value", "n");
+    AnnotationMirror anno2 = builder2.build();
+    Assert.assertNotSame(anno1, anno2);
+    Assert.assertFalse(AnnotationUtils.areSame(anno1, anno2));
+  }
+
   @Test(expected = BugInCF.class)
   public void buildingTwice() {
     AnnotationBuilder builder = new AnnotationBuilder(env, Encrypted.class);
@@ -0,0 +1,99 @@
+package org.checkerframework.framework.test.junit;
+
+import com.sun.source.util.JavacTask;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.framework.flow.CFGCache;
+import org.checkerframework.framework.testchecker.cfgcache.CFGCacheChecker;
+import org.checkerframework.framework.testchecker.cfgcache.CFGCacheOtherChecker;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests that independent checkers in one compilation share control flow graphs through the {@link
+ * CFGCache}, except when they make different decisions while building them.
+ */
+public class CFGCacheTest {
+
+  /** The source code that is checked. */
+  private static final String SOURCE =
+      String.join(
+          "\n",
+          "class CFGCacheSource {",
+          "  static void halt() {",
+          "    throw new Error();",
+          "  }",
+          "  static void other() {}",
+          "  int plain(int x) {",
+          "    other();",
+          "    return x + 1;",
+          "  }",
+          "  void assumesAssertion(Object o) {",
+          "    assert o != null : \"@AssumeAssertion(cfgcache)\";",
+          "  }",
+          "  void terminates() {",
+          "    halt();",
+          "  }",
+          "}",
+          "");
+
+  /** The checker that runs first. */
+  private static final CFGCacheChecker first = new CFGCacheChecker();
+
+  /** The checker that runs second, and makes different decisions than {@link #first}. */
+  private static final CFGCacheChecker second = new CFGCacheOtherChecker();
+
+  /**
+   * Runs both checkers on {@link #SOURCE} in one compilation.
+   *
+   * @throws IOException if the source file cannot be written
+   */
+  @BeforeClass
+  public static void compile() throws IOException {
+    Path dir = Files.createTempDirectory("CFGCacheTest");
+    Path file = dir.resolve("CFGCacheSource.java");
+    Files.write(file, SOURCE.getBytes(StandardCharsets.UTF_8));
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+      List<String> options =
+          Arrays.asList(
+              "-Awarns", "-d", dir.toString(), "-classpath", System.getProperty("java.class.path"));
+      JavacTask task =
+          (JavacTask)
+              compiler.getTask(
+                  null, fileManager, null, options, null, fileManager.getJavaFileObjects(file));
+      task.setProcessors(Arrays.asList(first, second));
+      Assert.assertTrue(task.call());
+    }
+  }
+
+  @Test
+  public void sharesCFGs() {
+    Assert.assertNotNull(first.cfgs.get("plain"));
+    Assert.assertSame(first.cfgs.get("plain"), second.cfgs.get("plain"));
+    Assert.assertSame(first.cfgs.get("halt"), second.cfgs.get("halt"));
+  }
+
+  @Test
+  public void rebuildsCFGsWithOtherAssertions() {
+    Assert.assertNotNull(first.cfgs.get("assumesAssertion"));
+    Assert.assertNotNull(second.cfgs.get("assumesAssertion"));
+    Assert.assertNotSame(first.cfgs.get("assumesAssertion"), second.cfgs.get("assumesAssertion"));
+  }
+
+  @Test
+  public void rebuildsCFGsWithOtherTerminatingMethods() {
+    Assert.assertNotNull(first.cfgs.get("terminates"));
+    Assert.assertNotNull(second.cfgs.get("terminates"));
+    Assert.assertNotSame(first.cfgs.get("terminates"), second.cfgs.get("terminates"));
+  }
+}
@@ -0,0 +1,203 @@
+package org.checkerframework.framework.test.junit;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.block.RegularBlockImpl;
+import org.checkerframework.dataflow.util.CFGElementMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests that {@link CFGElementMap} behaves like an {@link IdentityHashMap}. */
+public class CFGElementMapTest {
+
+  /** A key with an id. Keys with the same id are equal, but the map must not treat them so. */
+  private static class Key {
+
+    /** The id of this key, or -1. */
+    final int id;
+
+    /**
+     * Creates a key.
+     *
+     * @param id the id of the key, or -1
+     */
+    Key(int id) {
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && ((Key) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+
+    @Override
+    public String toString() {
+      return "Key" + id + "@" + System.identityHashCode(this);
+    }
+  }
+
+  /**
+   * Returns an empty map whose keys are {@link Key}s.
+   *
+   * @return an empty map whose keys are {@link Key}s
+   */
+  private static CFGElementMap<Key, String> newMap() {
+    return new CFGElementMap<>(Key.class, key -> key.id);
+  }
+
+  @Test
+  public void putGetRemove() {
+    CFGElementMap<Key, String> map = newMap();
+    Key k0 = new Key(0);
+    Key k5 = new Key(5);
+    Assert.assertNull(map.put(k0, "a"));
+    Assert.assertNull(map.put(k5, "b"));
+    Assert.assertEquals("a", map.put(k0, "c"));
+    Assert.assertEquals(2, map.size());
+    Assert.assertEquals("c", map.get(k0));
+    Assert.assertEquals("b", map.get(k5));
+    Assert.assertNull(map.get(new Key(5)));
+    Assert.assertFalse(map.containsKey(new Key(0)));
+    Assert.assertFalse(map.containsKey("not a key"));
+    Assert.assertEquals("b", map.remove(k5));
+    Assert.assertNull(map.remove(k5));
+    Assert.assertEquals(1, map.size());
+    Assert.assertFalse(map.containsKey(k5));
+  }
+
+  @Test
+  public void keysWithoutIdsOrWithTakenIds() {
+    CFGElementMap<Key, String> map = newMap();
+    Key noId = new Key(-1);
+    Key first = new Key(3);
+    Key sameId = new Key(3);
+    map.put(noId, "none");
+    map.put(first, "first");
+    map.put(sameId, "same");
+    Assert.assertEquals(3, map.size());
+    Assert.assertEquals("none", map.get(noId));
+    Assert.assertEquals("first", map.get(first));
+    Assert.assertEquals("same", map.get(sameId));
+
+    // Once its slot is free again, a key in the overflow map must still be found only once.
+    map.remove(first);
+    Assert.assertEquals("same", map.get(sameId));
+    Assert.assertEquals("same", map.put(sameId, "again"));
+    Assert.assertEquals(2, map.size());
+    Assert.assertEquals("again", map.remove(sameId));
+    Assert.assertFalse(map.containsKey(sameId));
+    Assert.assertEquals(1, map.size());
+  }
+
+  @Test
+  public void nullValues() {
+    CFGElementMap<Key, String> map = newMap();
+    Key key = new Key(1);
+    map.put(key, null);
+    Assert.assertTrue(map.containsKey(key));
+    Assert.assertNull(map.get(key));
+    Assert.assertEquals(1, map.size());
+  }
+
+  @Test
+  public void iteratorSetValueAndRemove() {
+    CFGElementMap<Key, String> map = newMap();
+    Key k0 = new Key(0);
+    Key k2 = new Key(2);
+    Key overflowKey = new Key(2);
+    map.put(k0, "a");
+    map.put(k2, "b");
+    map.put(overflowKey, "c");
+    for (Map.Entry<Key, String> entry : map.entrySet()) {
+      entry.setValue(entry.getValue() + "!");
+    }
+    Assert.assertEquals("a!", map.get(k0));
+    Assert.assertEquals("b!", map.get(k2));
+    Assert.assertEquals("c!", map.get(overflowKey));
+
+    Iterator<Map.Entry<Key, String>> it = map.entrySet().iterator();
+    while (it.hasNext()) {
+      Key key = it.next().getKey();
+      if (key != k0) {
+        it.remove();
+      }
+    }
+    Assert.assertEquals(1, map.size());
+    Assert.assertEquals("a!", map.get(k0));
+    Assert.assertFalse(map.containsKey(k2));
+    Assert.assertFalse(map.containsKey(overflowKey));
+  }
+
+  @Test
+  public void clearAndReuse() {
+    CFGElementMap<Key, String> map = newMap();
+    Key oldKey = new Key(4);
+    map.put(oldKey, "old");
+    map.put(new Key(-1), "overflow");
+    map.clear();
+    Assert.assertTrue(map.isEmpty());
+    Assert.assertFalse(map.containsKey(oldKey));
+    Key newKey = new Key(4);
+    map.put(newKey, "new");
+    Assert.assertEquals("new", map.get(newKey));
+    Assert.assertNull(map.get(oldKey));
+  }
+
+  @Test
+  public void blocks() {
+    CFGElementMap<Block, String> map = CFGElementMap.forBlocks();
+    RegularBlockImpl numbered = new RegularBlockImpl();
+    numbered.setId(1);
+    RegularBlockImpl unnumbered = new RegularBlockImpl();
+    map.put(numbered, "numbered");
+    map.put(unnumbered, "unnumbered");
+    Assert.assertEquals("numbered", map.get(numbered));
+    Assert.assertEquals("unnumbered", map.get(unnumbered));
+    Assert.assertEquals(2, map.size());
+  }
+
+  @Test
+  public void sameAsIdentityHashMap() {
+    Random random = new Random(20211201);
+    List<Key> keys = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      // Several keys per id, as for the elements of several graphs, and some without ids.
+      keys.add(new Key(random.nextInt(12) - 1));
+    }
+    CFGElementMap<Key, String> map = newMap();
+    IdentityHashMap<Key, String> expected = new IdentityHashMap<>();
+    for (int step = 0; step < 5000; step++) {
+      Key key = keys.get(random.nextInt(keys.size()));
+      switch (random.nextInt(10)) {
+        case 0:
+          Assert.assertEquals(expected.remove(key), map.remove(key));
+          break;
+        case 1:
+          if (random.nextInt(20) == 0) {
+            expected.clear();
+            map.clear();
+          }
+          break;
+        default:
+          String value = "v" + step;
+          Assert.assertEquals(expected.put(key, value), map.put(key, value));
+          break;
+      }
+      Assert.assertEquals(expected.size(), map.size());
+      Assert.assertEquals(expected.get(key), map.get(key));
+      Assert.assertEquals(expected.containsKey(key), map.containsKey(key));
+    }
+    Assert.assertEquals(expected, new IdentityHashMap<>(map));
+    Assert.assertEquals(expected.entrySet(), map.entrySet());
+  }
+}
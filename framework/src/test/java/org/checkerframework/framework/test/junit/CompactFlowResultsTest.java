@@ -0,0 +1,32 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.common.value.ValueChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests that the constant value propagation type system reports the same errors when dataflow
+ * results are compact and when the cache of stores within basic blocks is small.
+ */
+public class CompactFlowResultsTest extends CheckerFrameworkPerDirectoryTest {
+
+  /** @param testFiles the files containing test code, which will be type-checked */
+  public CompactFlowResultsTest(List<File> testFiles) {
+    super(
+        testFiles,
+        org.checkerframework.common.value.ValueChecker.class,
+        "value",
+        "-Anomsgtext",
+        "-Astubs=tests/value/minints-stub.astub:tests/value/lowercase.astub",
+        "-A" + ValueChecker.REPORT_EVAL_WARNS,
+        "-AcompactFlowResults",
+        "-AflowStoreCacheBudget=4");
+  }
+
+  @Parameters
+  public static String[] getTestDirs() {
+    return new String[] {"value", "all-systems"};
+  }
+}
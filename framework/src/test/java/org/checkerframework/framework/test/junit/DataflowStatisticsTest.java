@@ -0,0 +1,167 @@
+package org.checkerframework.framework.test.junit;
+
+import com.sun.source.util.JavacTask;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.common.aliasing.AliasingChecker;
+import org.checkerframework.common.value.ValueChecker;
+import org.checkerframework.framework.util.DataflowStatistics;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the report of {@link DataflowStatistics}, which is printed when the {@code -AdataflowStats}
+ * command-line option is given.
+ */
+public class DataflowStatisticsTest {
+
+  /** The number of analyses to report, the argument of {@code -AdataflowStats}. */
+  private static final int REPORT_SIZE = 2;
+
+  /** The source code that is checked. It contains more than {@link #REPORT_SIZE} methods. */
+  private static final String SOURCE =
+      String.join(
+          "\n",
+          "class DataflowStatisticsSource {",
+          "  int sum(int[] a) {",
+          "    int s = 0;",
+          "    for (int i = 0; i < a.length; i++) {",
+          "      s += a[i];",
+          "    }",
+          "    return s;",
+          "  }",
+          "  int max(int[] a) {",
+          "    int m = Integer.MIN_VALUE;",
+          "    for (int x : a) {",
+          "      if (x > m) {",
+          "        m = x;",
+          "      }",
+          "    }",
+          "    return m;",
+          "  }",
+          "  String repeat(String s, int n) {",
+          "    String result = \"\";",
+          "    while (n-- > 0) {",
+          "      result = result + s;",
+          "    }",
+          "    return result;",
+          "  }",
+          "  int plain(int x) {",
+          "    return x + 1;",
+          "  }",
+          "}",
+          "");
+
+  /** The header of the report. */
+  private static final Pattern HEADER =
+      Pattern.compile("Dataflow statistics: (\\d+) slowest of (\\d+) analyses, .*");
+
+  /**
+   * A row of the report: rank, wall ms, transfer ms, blocks, visits, widenings, and the checker and
+   * code.
+   */
+  private static final Pattern ROW =
+      Pattern.compile("\\s*(\\d+)\\s+\\S+\\s+\\S+\\s+(\\d+)\\s+(\\d+)\\s+\\d+\\s+\\w+: .*");
+
+  /** The lines of standard output printed during the compilation. */
+  private static List<String> output;
+
+  /**
+   * Runs two checkers on {@link #SOURCE} in one compilation with {@code -AdataflowStats}, and
+   * records what they print.
+   *
+   * @throws IOException if the source file cannot be written
+   */
+  @BeforeClass
+  public static void compile() throws IOException {
+    Path dir = Files.createTempDirectory("DataflowStatisticsTest");
+    Path file = dir.resolve("DataflowStatisticsSource.java");
+    Files.write(file, SOURCE.getBytes(StandardCharsets.UTF_8));
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    PrintStream originalOut = System.out;
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+      List<String> options =
+          Arrays.asList(
+              "-Awarns",
+              "-AdataflowStats=" + REPORT_SIZE,
+              "-d",
+              dir.toString(),
+              "-classpath",
+              System.getProperty("java.class.path"));
+      JavacTask task =
+          (JavacTask)
+              compiler.getTask(
+                  null, fileManager, null, options, null, fileManager.getJavaFileObjects(file));
+      task.setProcessors(Arrays.asList(new ValueChecker(), new AliasingChecker()));
+      System.setOut(new PrintStream(bytes, true, "UTF-8"));
+      Assert.assertTrue(task.call());
+    } finally {
+      System.setOut(originalOut);
+    }
+    output = Arrays.asList(new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+  }
+
+  @Test
+  public void reportIsPrintedOnce() {
+    long headers = output.stream().filter(line -> HEADER.matcher(line).matches()).count();
+    Assert.assertEquals(1, headers);
+  }
+
+  @Test
+  public void reportsAtMostReportSizeAnalyses() {
+    Matcher header = null;
+    for (String line : output) {
+      Matcher m = HEADER.matcher(line);
+      if (m.matches()) {
+        header = m;
+      }
+    }
+    Assert.assertNotNull(header);
+    int reported = Integer.parseInt(header.group(1));
+    int analyses = Integer.parseInt(header.group(2));
+    Assert.assertEquals(REPORT_SIZE, reported);
+    Assert.assertTrue(analyses > REPORT_SIZE);
+    Assert.assertEquals(reported, rows().size());
+  }
+
+  @Test
+  public void countersAreNonZero() {
+    List<Matcher> rows = rows();
+    Assert.assertFalse(rows.isEmpty());
+    for (Matcher row : rows) {
+      Assert.assertTrue(Integer.parseInt(row.group(2)) > 0);
+      Assert.assertTrue(Integer.parseInt(row.group(3)) > 0);
+    }
+  }
+
+  /**
+   * Returns the rows of the report.
+   *
+   * @return a matcher of {@link #ROW} for each row of the report, in order
+   */
+  private static List<Matcher> rows() {
+    List<Matcher> rows = new ArrayList<>();
+    for (String line : output) {
+      Matcher m = ROW.matcher(line);
+      if (m.matches()) {
+        rows.add(m);
+      }
+    }
+    return rows;
+  }
+}
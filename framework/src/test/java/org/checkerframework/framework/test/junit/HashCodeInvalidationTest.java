@@ -0,0 +1,24 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.checkerframework.framework.testchecker.hashcode.HashCodeChecker;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests that cached hash codes of annotated types are invalidated when the types are mutated. See
+ * {@link HashCodeChecker}.
+ */
+public class HashCodeInvalidationTest extends CheckerFrameworkPerDirectoryTest {
+
+  /** @param testFiles the files containing test code, which will be type-checked */
+  public HashCodeInvalidationTest(List<File> testFiles) {
+    super(testFiles, HashCodeChecker.class, "hashcode", "-Anomsgtext");
+  }
+
+  @Parameters
+  public static String[] getTestDirs() {
+    return new String[] {"hashcode", "all-systems"};
+  }
+}
@@ -0,0 +1,79 @@
+package org.checkerframework.framework.test.junit;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.checkerframework.javacutil.CollectionUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests {@link CollectionUtils#createLRUCacheOfMaps}. */
+public class LRUCacheOfMapsTest {
+
+  /**
+   * Returns a map with the given number of entries.
+   *
+   * @param size the number of entries
+   * @return a map with {@code size} entries
+   */
+  private static Map<Integer, Integer> mapOfSize(int size) {
+    Map<Integer, Integer> result = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      result.put(i, i);
+    }
+    return result;
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsed() {
+    Map<String, Map<Integer, Integer>> cache = CollectionUtils.createLRUCacheOfMaps(5);
+    cache.put("a", mapOfSize(2));
+    cache.put("b", mapOfSize(2));
+    cache.get("a");
+    cache.put("c", mapOfSize(2));
+    // "b" is the least recently used entry.
+    Assert.assertEquals(Arrays.asList("a", "c"), Arrays.asList(cache.keySet().toArray()));
+  }
+
+  @Test
+  public void countsValuesThatGrowAfterTheyAreAdded() {
+    Map<String, Map<Integer, Integer>> cache = CollectionUtils.createLRUCacheOfMaps(5);
+    cache.computeIfAbsent("a", k -> new HashMap<>()).putAll(mapOfSize(4));
+    cache.computeIfAbsent("b", k -> new HashMap<>()).putAll(mapOfSize(2));
+    Assert.assertEquals(2, cache.size());
+    cache.computeIfAbsent("c", k -> new HashMap<>()).putAll(mapOfSize(1));
+    Assert.assertFalse(cache.containsKey("a"));
+    Assert.assertTrue(cache.containsKey("b"));
+
+    // "b" grows when it is accessed again, and is then the eldest entry that is over the budget.
+    cache.get("b").putAll(mapOfSize(5));
+    cache.computeIfAbsent("c", k -> new HashMap<>());
+    cache.computeIfAbsent("d", k -> new HashMap<>());
+    Assert.assertFalse(cache.containsKey("b"));
+    Assert.assertTrue(cache.containsKey("c"));
+    Assert.assertTrue(cache.containsKey("d"));
+  }
+
+  @Test
+  public void keepsTheNewestEntry() {
+    Map<String, Map<Integer, Integer>> cache = CollectionUtils.createLRUCacheOfMaps(1);
+    cache.put("a", mapOfSize(3));
+    cache.put("b", mapOfSize(3));
+    Assert.assertEquals(1, cache.size());
+    Assert.assertTrue(cache.containsKey("b"));
+  }
+
+  @Test
+  public void removeAndClearUpdateTheTotal() {
+    Map<String, Map<Integer, Integer>> cache = CollectionUtils.createLRUCacheOfMaps(4);
+    cache.put("a", mapOfSize(4));
+    cache.remove("a");
+    cache.put("b", mapOfSize(2));
+    cache.put("c", mapOfSize(2));
+    Assert.assertEquals(2, cache.size());
+    cache.clear();
+    cache.put("d", mapOfSize(4));
+    cache.put("e", mapOfSize(0));
+    Assert.assertEquals(2, cache.size());
+  }
+}
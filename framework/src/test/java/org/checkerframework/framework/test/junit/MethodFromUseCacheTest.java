@@ -0,0 +1,128 @@
+package org.checkerframework.framework.test.junit;
+
+import com.sun.source.util.JavacTask;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.framework.testchecker.methodfromuse.MethodFromUseChecker;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests that the types of invoked methods are the same whether or not {@code
+ * AnnotatedTypeFactory#methodFromUse} caches them, and that the cache is used.
+ */
+public class MethodFromUseCacheTest {
+
+  /** The source code that is checked. */
+  private static final String SOURCE =
+      String.join(
+          "\n",
+          "import java.util.List;",
+          "import org.checkerframework.framework.testchecker.util.Encrypted;",
+          "import org.checkerframework.framework.testchecker.util.PolyEncrypted;",
+          "class MethodFromUseSource<T> {",
+          "  T field;",
+          "  T get() {",
+          "    return field;",
+          "  }",
+          "  void set(T t) {",
+          "    field = t;",
+          "  }",
+          "  static @PolyEncrypted String poly(@PolyEncrypted String s) {",
+          "    return s;",
+          "  }",
+          "  static String plain(String s) {",
+          "    return s;",
+          "  }",
+          "  void use(",
+          "      MethodFromUseSource<@Encrypted String> encrypted,",
+          "      MethodFromUseSource<String> unencrypted,",
+          "      List<@Encrypted String> list) {",
+          "    @Encrypted String a = encrypted.get();",
+          "    @Encrypted String b = encrypted.get();",
+          "    String c = unencrypted.get();",
+          "    String d = unencrypted.get();",
+          "    encrypted.set(a);",
+          "    unencrypted.set(c);",
+          "    @Encrypted String e = poly(a);",
+          "    String f = poly(c);",
+          "    String g = plain(c);",
+          "    String h = plain(g);",
+          "    @Encrypted String i = list.get(0);",
+          "    @Encrypted String j = list.get(1);",
+          "    int n = list.size() + list.size();",
+          "  }",
+          "}",
+          "");
+
+  /** The checker that runs with the cache. */
+  private static final MethodFromUseChecker cached = new MethodFromUseChecker();
+
+  /** The checker that runs without the cache. */
+  private static final MethodFromUseChecker uncached = new MethodFromUseChecker();
+
+  /**
+   * Runs each checker on {@link #SOURCE} in its own compilation.
+   *
+   * @throws IOException if the source file cannot be written
+   */
+  @BeforeClass
+  public static void compile() throws IOException {
+    Path dir = Files.createTempDirectory("MethodFromUseCacheTest");
+    Path file = dir.resolve("MethodFromUseSource.java");
+    Files.write(file, SOURCE.getBytes(StandardCharsets.UTF_8));
+    compile(file, cached);
+    compile(file, uncached, "-AatfDoNotCache");
+  }
+
+  /**
+   * Runs {@code checker} on {@code file}.
+   *
+   * @param file the file to check
+   * @param checker the checker to run
+   * @param extraOptions options in addition to those that every compilation uses
+   * @throws IOException if the file manager cannot be closed
+   */
+  private static void compile(Path file, MethodFromUseChecker checker, String... extraOptions)
+      throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+      List<String> options =
+          new ArrayList<>(
+              Arrays.asList(
+                  "-Awarns",
+                  "-d",
+                  file.getParent().toString(),
+                  "-classpath",
+                  System.getProperty("java.class.path")));
+      options.addAll(Arrays.asList(extraOptions));
+      JavacTask task =
+          (JavacTask)
+              compiler.getTask(
+                  null, fileManager, null, options, null, fileManager.getJavaFileObjects(file));
+      task.setProcessors(Arrays.asList(checker));
+      Assert.assertTrue(task.call());
+    }
+  }
+
+  @Test
+  public void sameMethodTypes() {
+    Assert.assertFalse(uncached.methodTypes.isEmpty());
+    Assert.assertEquals(uncached.methodTypes, cached.methodTypes);
+  }
+
+  @Test
+  public void cacheIsUsed() {
+    Assert.assertTrue(cached.substitutions < uncached.substitutions);
+  }
+}
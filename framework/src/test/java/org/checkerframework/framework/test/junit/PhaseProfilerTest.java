@@ -0,0 +1,186 @@
+package org.checkerframework.framework.test.junit;
+
+import com.sun.source.util.JavacTask;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.common.value.ValueChecker;
+import org.checkerframework.framework.util.PhaseProfiler;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the profile written by {@link PhaseProfiler}, which is enabled by the {@code
+ * -AphaseProfile} command-line option.
+ */
+public class PhaseProfilerTest {
+
+  /** The source code that is checked. */
+  private static final String SOURCE =
+      String.join(
+          "\n",
+          "import java.util.ArrayList;",
+          "import java.util.List;",
+          "class PhaseProfilerSource {",
+          "  int sum(int[] a) {",
+          "    int s = 0;",
+          "    for (int i = 0; i < a.length; i++) {",
+          "      s += a[i];",
+          "    }",
+          "    return s;",
+          "  }",
+          "  List<String> repeat(String s, int n) {",
+          "    List<String> result = new ArrayList<>();",
+          "    while (n-- > 0) {",
+          "      result.add(s + n);",
+          "    }",
+          "    return result;",
+          "  }",
+          "}",
+          "");
+
+  /** The JSON names of all phases. */
+  private static final List<String> PHASES =
+      Arrays.asList("annotationFiles", "cfgConstruction", "dataflow", "treeAnnotation", "visitor");
+
+  /** The total statistics of a checker in the profile. */
+  private static final Pattern TOTAL = Pattern.compile("\\s*\"total\": (\\{.*\\}),");
+
+  /** The statistics of one phase in the profile. */
+  private static final Pattern PHASE =
+      Pattern.compile("\"(\\w+)\": \\{\"count\": (\\d+), \"wallNanos\": (\\d+), [^}]*\\}");
+
+  /** How long each phase of {@link #nestedPhaseIsNotDoubleCounted} sleeps, in milliseconds. */
+  private static final long SLEEP_MILLIS = 50;
+
+  /** The wall-clock time of the compilation, in nanoseconds. */
+  private static long compilationNanos;
+
+  /**
+   * Maps the name of each phase in the total statistics of the checker to its count and wall-clock
+   * time.
+   */
+  private static Map<String, long[]> totals;
+
+  /**
+   * Runs the Value Checker on {@link #SOURCE} with {@code -AphaseProfile}, and reads the profile.
+   *
+   * @throws IOException if a file cannot be written or read
+   */
+  @BeforeClass
+  public static void compile() throws IOException {
+    Path dir = Files.createTempDirectory("PhaseProfilerTest");
+    Path file = dir.resolve("PhaseProfilerSource.java");
+    Path profile = dir.resolve("profile.json");
+    Files.write(file, SOURCE.getBytes(StandardCharsets.UTF_8));
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+      List<String> options =
+          Arrays.asList(
+              "-Awarns",
+              "-AphaseProfile=" + profile,
+              "-d",
+              dir.toString(),
+              "-classpath",
+              System.getProperty("java.class.path"));
+      JavacTask task =
+          (JavacTask)
+              compiler.getTask(
+                  null, fileManager, null, options, null, fileManager.getJavaFileObjects(file));
+      task.setProcessors(Arrays.asList(new ValueChecker()));
+      long start = System.nanoTime();
+      Assert.assertTrue(task.call());
+      compilationNanos = System.nanoTime() - start;
+    }
+    totals = readTotals(profile);
+  }
+
+  /**
+   * Reads the total statistics of the only checker in a profile.
+   *
+   * @param profile the profile
+   * @return a map from the name of each phase to its count and wall-clock time
+   * @throws IOException if the profile cannot be read
+   */
+  private static Map<String, long[]> readTotals(Path profile) throws IOException {
+    Map<String, long[]> result = null;
+    for (String line : Files.readAllLines(profile, StandardCharsets.UTF_8)) {
+      Matcher total = TOTAL.matcher(line);
+      if (!total.matches()) {
+        continue;
+      }
+      Assert.assertNull("more than one checker in the profile", result);
+      result = new HashMap<>();
+      Matcher phase = PHASE.matcher(total.group(1));
+      while (phase.find()) {
+        result.put(
+            phase.group(1),
+            new long[] {Long.parseLong(phase.group(2)), Long.parseLong(phase.group(3))});
+      }
+    }
+    Assert.assertNotNull(result);
+    return result;
+  }
+
+  @Test
+  public void everyPhaseIsReported() {
+    for (String phase : PHASES) {
+      Assert.assertTrue(phase, totals.containsKey(phase));
+      Assert.assertTrue(phase, totals.get(phase)[0] > 0);
+    }
+  }
+
+  @Test
+  public void phasesSumToAtMostTheCompilation() {
+    // Dataflow and CFG construction run while trees are annotated, which happens while the visitor
+    // runs. If the time of a nested phase were also charged to the enclosing phases, the phases
+    // could sum to more than the time of the whole compilation.
+    long sum = 0;
+    for (long[] stats : totals.values()) {
+      Assert.assertTrue(stats[1] >= 0);
+      sum += stats[1];
+    }
+    Assert.assertTrue(sum + " > " + compilationNanos, sum <= compilationNanos);
+  }
+
+  @Test
+  public void nestedPhaseIsNotDoubleCounted() throws IOException, InterruptedException {
+    Path profile = Files.createTempFile("PhaseProfilerTest", ".json");
+    PhaseProfiler profiler = new PhaseProfiler(profile.toString()) {};
+    ValueChecker checker = new ValueChecker();
+    profiler.register();
+    long start = System.nanoTime();
+    profiler.start(checker, PhaseProfiler.Phase.VISITOR);
+    Thread.sleep(SLEEP_MILLIS);
+    profiler.start(checker, PhaseProfiler.Phase.DATAFLOW);
+    Thread.sleep(SLEEP_MILLIS);
+    profiler.stop(PhaseProfiler.Phase.DATAFLOW);
+    profiler.stop(PhaseProfiler.Phase.VISITOR);
+    long elapsedNanos = System.nanoTime() - start;
+    profiler.checkerFinished();
+
+    Map<String, long[]> nested = readTotals(profile);
+    long visitorNanos = nested.get("visitor")[1];
+    long dataflowNanos = nested.get("dataflow")[1];
+    long sleepNanos = TimeUnit.MILLISECONDS.toNanos(SLEEP_MILLIS);
+    Assert.assertEquals(1, nested.get("visitor")[0]);
+    Assert.assertEquals(1, nested.get("dataflow")[0]);
+    Assert.assertTrue(visitorNanos >= sleepNanos);
+    Assert.assertTrue(dataflowNanos >= sleepNanos);
+    // Had the dataflow phase also been charged to the visitor, this sum would count it twice.
+    Assert.assertTrue(visitorNanos + dataflowNanos <= elapsedNanos);
+  }
+}
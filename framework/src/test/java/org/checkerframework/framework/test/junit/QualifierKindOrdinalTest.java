@@ -0,0 +1,241 @@
+package org.checkerframework.framework.test.junit;
+
+import com.sun.tools.javac.main.JavaCompiler;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.util.Elements;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.subtyping.qual.Unqualified;
+import org.checkerframework.framework.testchecker.lubglb.quals.A;
+import org.checkerframework.framework.testchecker.lubglb.quals.B;
+import org.checkerframework.framework.testchecker.lubglb.quals.C;
+import org.checkerframework.framework.testchecker.lubglb.quals.D;
+import org.checkerframework.framework.testchecker.lubglb.quals.E;
+import org.checkerframework.framework.testchecker.lubglb.quals.F;
+import org.checkerframework.framework.testchecker.lubglb.quals.Poly;
+import org.checkerframework.framework.testchecker.util.Encrypted;
+import org.checkerframework.framework.testchecker.util.PolyEncrypted;
+import org.checkerframework.framework.type.NoElementQualifierHierarchy;
+import org.checkerframework.framework.type.QualifierHierarchy;
+import org.checkerframework.framework.util.DefaultQualifierKindHierarchy;
+import org.checkerframework.framework.util.QualifierKind;
+import org.checkerframework.framework.util.QualifierKindHierarchy;
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that the ordinal-indexed tables of {@link DefaultQualifierKindHierarchy} and {@link
+ * NoElementQualifierHierarchy} agree with the subtyping relation declared by the qualifiers.
+ */
+public class QualifierKindOrdinalTest {
+
+  /** The qualifiers of two hierarchies: the lattice of the LubGlb Checker, and Encrypted. */
+  private static final List<Class<? extends Annotation>> QUALIFIERS =
+      Arrays.asList(
+          A.class,
+          B.class,
+          C.class,
+          D.class,
+          E.class,
+          F.class,
+          Poly.class,
+          Encrypted.class,
+          PolyEncrypted.class,
+          Unqualified.class);
+
+  /** The hierarchy under test. */
+  private final QualifierKindHierarchy hierarchy = new DefaultQualifierKindHierarchy(QUALIFIERS);
+
+  /**
+   * Returns true if {@code sub} is {@code sup} or one of its declared subtypes. Unlike {@link
+   * QualifierKind#isSubtypeOf}, this does not use the subtype table.
+   *
+   * @param sub a qualifier kind
+   * @param sup a qualifier kind
+   * @return true if {@code sub} is a subtype of {@code sup}
+   */
+  private static boolean isSubtype(QualifierKind sub, QualifierKind sup) {
+    return sub == sup || sub.getStrictSuperTypes().contains(sup);
+  }
+
+  /**
+   * Returns the least upper bound of two qualifier kinds, computed from their supertypes.
+   *
+   * @param q1 a qualifier kind
+   * @param q2 a qualifier kind
+   * @param kinds all qualifier kinds
+   * @return the least upper bound of {@code q1} and {@code q2}, or null if there is none
+   */
+  private static @Nullable QualifierKind lub(
+      QualifierKind q1, QualifierKind q2, List<? extends QualifierKind> kinds) {
+    for (QualifierKind candidate : kinds) {
+      if (isSubtype(q1, candidate) && isSubtype(q2, candidate)) {
+        boolean least = true;
+        for (QualifierKind other : kinds) {
+          if (isSubtype(q1, other) && isSubtype(q2, other) && !isSubtype(candidate, other)) {
+            least = false;
+          }
+        }
+        if (least) {
+          return candidate;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the greatest lower bound of two qualifier kinds, computed from their supertypes.
+   *
+   * @param q1 a qualifier kind
+   * @param q2 a qualifier kind
+   * @param kinds all qualifier kinds
+   * @return the greatest lower bound of {@code q1} and {@code q2}, or null if there is none
+   */
+  private static @Nullable QualifierKind glb(
+      QualifierKind q1, QualifierKind q2, List<? extends QualifierKind> kinds) {
+    for (QualifierKind candidate : kinds) {
+      if (isSubtype(candidate, q1) && isSubtype(candidate, q2)) {
+        boolean greatest = true;
+        for (QualifierKind other : kinds) {
+          if (isSubtype(other, q1) && isSubtype(other, q2) && !isSubtype(other, candidate)) {
+            greatest = false;
+          }
+        }
+        if (greatest) {
+          return candidate;
+        }
+      }
+    }
+    return null;
+  }
+
+  @Test
+  public void ordinalsAreIndices() {
+    List<? extends QualifierKind> kinds = hierarchy.allQualifierKinds();
+    Assert.assertEquals(QUALIFIERS.size(), kinds.size());
+    for (int i = 0; i < kinds.size(); i++) {
+      Assert.assertEquals(i, kinds.get(i).getOrdinal());
+    }
+  }
+
+  @Test
+  public void subtypeTableMatchesSuperTypes() {
+    for (QualifierKind q1 : hierarchy.allQualifierKinds()) {
+      for (QualifierKind q2 : hierarchy.allQualifierKinds()) {
+        Assert.assertEquals(q1 + " <: " + q2, isSubtype(q1, q2), q1.isSubtypeOf(q2));
+      }
+    }
+  }
+
+  @Test
+  public void lubAndGlbTablesMatchSuperTypes() {
+    List<? extends QualifierKind> kinds = hierarchy.allQualifierKinds();
+    for (QualifierKind q1 : kinds) {
+      for (QualifierKind q2 : kinds) {
+        if (q1.isInSameHierarchyAs(q2)) {
+          Assert.assertSame("lub", lub(q1, q2, kinds), hierarchy.leastUpperBound(q1, q2));
+          Assert.assertSame("glb", glb(q1, q2, kinds), hierarchy.greatestLowerBound(q1, q2));
+        } else {
+          Assert.assertNull(hierarchy.leastUpperBound(q1, q2));
+          Assert.assertNull(hierarchy.greatestLowerBound(q1, q2));
+        }
+      }
+    }
+  }
+
+  /**
+   * A hierarchy whose {@link #allQualifierKinds()} is not in the order of the ordinals, so that
+   * {@link NoElementQualifierHierarchy} must look up annotations in maps.
+   */
+  private static class ReversedQualifierKindHierarchy extends DefaultQualifierKindHierarchy {
+
+    /**
+     * Creates a ReversedQualifierKindHierarchy.
+     *
+     * @param qualifierClasses classes of annotations that are the qualifiers
+     */
+    ReversedQualifierKindHierarchy(Collection<Class<? extends Annotation>> qualifierClasses) {
+      super(qualifierClasses);
+    }
+
+    @Override
+    public List<? extends QualifierKind> allQualifierKinds() {
+      List<QualifierKind> result = new ArrayList<>(super.allQualifierKinds());
+      Collections.reverse(result);
+      return result;
+    }
+  }
+
+  /**
+   * Returns a javac Elements instance.
+   *
+   * @return a javac Elements instance
+   */
+  private static Elements createElements() {
+    Context context = new Context();
+    JavacProcessingEnvironment env = JavacProcessingEnvironment.instance(context);
+    JavaCompiler javac = JavaCompiler.instance(context);
+    javac.initModules(com.sun.tools.javac.util.List.nil());
+    javac.enterDone();
+    return env.getElementUtils();
+  }
+
+  /**
+   * Checks that the lubs and glbs of a qualifier hierarchy are those of its qualifier kinds.
+   *
+   * @param qualHierarchy a qualifier hierarchy of {@link #QUALIFIERS}
+   * @param elements the element utilities
+   */
+  private void checkAnnotationLubsAndGlbs(QualifierHierarchy qualHierarchy, Elements elements) {
+    List<? extends QualifierKind> kinds = hierarchy.allQualifierKinds();
+    for (QualifierKind q1 : kinds) {
+      AnnotationMirror a1 = AnnotationBuilder.fromClass(elements, q1.getAnnotationClass());
+      for (QualifierKind q2 : kinds) {
+        if (!q1.isInSameHierarchyAs(q2)) {
+          continue;
+        }
+        AnnotationMirror a2 = AnnotationBuilder.fromClass(elements, q2.getAnnotationClass());
+        AnnotationMirror lub = qualHierarchy.leastUpperBound(a1, a2);
+        AnnotationMirror glb = qualHierarchy.greatestLowerBound(a1, a2);
+        Assert.assertNotNull(lub);
+        Assert.assertNotNull(glb);
+        Assert.assertEquals(
+            hierarchy.leastUpperBound(q1, q2).getAnnotationClass().getCanonicalName(),
+            AnnotationUtils.annotationName(lub));
+        Assert.assertEquals(
+            hierarchy.greatestLowerBound(q1, q2).getAnnotationClass().getCanonicalName(),
+            AnnotationUtils.annotationName(glb));
+      }
+    }
+  }
+
+  @Test
+  public void annotationLubsAndGlbsByOrdinal() {
+    Elements elements = createElements();
+    checkAnnotationLubsAndGlbs(new NoElementQualifierHierarchy(QUALIFIERS, elements), elements);
+  }
+
+  @Test
+  public void annotationLubsAndGlbsWithoutOrdinals() {
+    Elements elements = createElements();
+    QualifierHierarchy qualHierarchy =
+        new NoElementQualifierHierarchy(QUALIFIERS, elements) {
+          @Override
+          protected QualifierKindHierarchy createQualifierKindHierarchy(
+              Collection<Class<? extends Annotation>> qualifierClasses) {
+            return new ReversedQualifierKindHierarchy(qualifierClasses);
+          }
+        };
+    checkAnnotationLubsAndGlbs(qualHierarchy, elements);
+  }
+}
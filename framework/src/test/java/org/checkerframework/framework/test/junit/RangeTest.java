@@ -1,5 +1,6 @@
 package org.checkerframework.framework.test.junit;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -409,6 +410,142 @@ public class RangeTest {
     }
   }
 
+  /** An operation on two ranges. */
+  interface RangeOperation {
+    /**
+     * Applies the operation.
+     *
+     * @param r1 the left operand
+     * @param r2 the right operand
+     * @return the result of the operation
+     */
+    Range apply(Range r1, Range r2);
+  }
+
+  /**
+   * The reference implementation of the Range arithmetic that overflows: the exact result bounds,
+   * computed with BigInteger, converted to a Range with the same rules as Range uses.
+   *
+   * @param bigFrom the exact lower bound
+   * @param bigTo the exact upper bound
+   * @return the expected result Range
+   */
+  static Range createFromBigIntegers(BigInteger bigFrom, BigInteger bigTo) {
+    BigInteger bigMin = BigInteger.valueOf(Long.MIN_VALUE);
+    BigInteger bigMax = BigInteger.valueOf(Long.MAX_VALUE);
+    if (Range.ignoreOverflow) {
+      bigFrom = bigFrom.max(bigMin);
+      bigTo = bigTo.min(bigMax);
+    } else {
+      BigInteger bigWidth = bigTo.subtract(bigFrom).add(BigInteger.ONE);
+      if (bigWidth.compareTo(bigMax.subtract(bigMin).add(BigInteger.ONE)) > 0) {
+        return Range.EVERYTHING;
+      }
+    }
+    long from = bigFrom.longValue();
+    long to = bigTo.longValue();
+    return from <= to ? Range.create(from, to) : Range.EVERYTHING;
+  }
+
+  /**
+   * Checks that an operation agrees with its BigInteger reference implementation on every pair of
+   * ranges, both when overflow is taken into account and when it is ignored.
+   *
+   * @param name the name of the operation
+   * @param operation the operation under test
+   * @param reference the reference implementation
+   */
+  void checkAgainstReference(String name, RangeOperation operation, RangeOperation reference) {
+    boolean oldIgnoreOverflow = Range.ignoreOverflow;
+    try {
+      for (boolean ignoreOverflow : new boolean[] {false, true}) {
+        Range.ignoreOverflow = ignoreOverflow;
+        for (Range r1 : ranges) {
+          for (Range r2 : ranges) {
+            Range expected = reference.apply(r1, r2);
+            Range actual = operation.apply(r1, r2);
+            Assert.assertEquals(
+                String.format(
+                    "Range.%s (ignoreOverflow=%s): %s %s", name, ignoreOverflow, r1, r2),
+                expected,
+                actual);
+          }
+        }
+      }
+    } finally {
+      Range.ignoreOverflow = oldIgnoreOverflow;
+    }
+  }
+
+  @Test
+  public void testPlusAgainstBigInteger() {
+    checkAgainstReference(
+        "plus",
+        Range::plus,
+        (r1, r2) ->
+            createFromBigIntegers(
+                BigInteger.valueOf(r1.from).add(BigInteger.valueOf(r2.from)),
+                BigInteger.valueOf(r1.to).add(BigInteger.valueOf(r2.to))));
+  }
+
+  @Test
+  public void testMinusAgainstBigInteger() {
+    checkAgainstReference(
+        "minus",
+        Range::minus,
+        (r1, r2) ->
+            createFromBigIntegers(
+                BigInteger.valueOf(r1.from).subtract(BigInteger.valueOf(r2.to)),
+                BigInteger.valueOf(r1.to).subtract(BigInteger.valueOf(r2.from))));
+  }
+
+  @Test
+  public void testTimesAgainstBigInteger() {
+    checkAgainstReference(
+        "times",
+        Range::times,
+        (r1, r2) -> {
+          List<BigInteger> products =
+              Arrays.asList(
+                  BigInteger.valueOf(r1.from).multiply(BigInteger.valueOf(r2.from)),
+                  BigInteger.valueOf(r1.from).multiply(BigInteger.valueOf(r2.to)),
+                  BigInteger.valueOf(r1.to).multiply(BigInteger.valueOf(r2.from)),
+                  BigInteger.valueOf(r1.to).multiply(BigInteger.valueOf(r2.to)));
+          return createFromBigIntegers(Collections.min(products), Collections.max(products));
+        });
+  }
+
+  @Test
+  public void testShiftLeftAgainstBigInteger() {
+    checkAgainstReference(
+        "shiftLeft",
+        Range::shiftLeft,
+        (r1, r2) -> {
+          if (!r2.isWithin(0, 31)) {
+            return Range.EVERYTHING;
+          }
+          int fromShift = (int) (r1.from >= 0 ? r2.from : r2.to);
+          int toShift = (int) (r1.to >= 0 ? r2.to : r2.from);
+          return createFromBigIntegers(
+              BigInteger.valueOf(r1.from).shiftLeft(fromShift),
+              BigInteger.valueOf(r1.to).shiftLeft(toShift));
+        });
+  }
+
+  @Test
+  public void testIsWiderThanAgainstBigInteger() {
+    for (Range r : ranges) {
+      BigInteger bigWidth =
+          BigInteger.valueOf(r.to).subtract(BigInteger.valueOf(r.from)).add(BigInteger.ONE);
+      for (long value : values) {
+        Assert.assertEquals(
+            String.format("Range.isWiderThan: %s %s", r, value),
+            bigWidth.compareTo(BigInteger.valueOf(value)) > 0,
+            r.isWiderThan(value));
+      }
+    }
+  }
+
   @Test
   public void testDivide() {
     assert Range.create(1, 2).divide(Range.create(0, 0)) == Range.NOTHING;
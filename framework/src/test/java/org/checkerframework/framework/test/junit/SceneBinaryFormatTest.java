@@ -0,0 +1,189 @@
+package org.checkerframework.framework.test.junit;
+
+import com.sun.tools.javac.main.JavaCompiler;
+import com.sun.tools.javac.main.Option;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Options;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.processing.ProcessingEnvironment;
+import org.checkerframework.common.wholeprograminference.AnnotationConverter;
+import org.checkerframework.common.wholeprograminference.SceneBinaryFormat;
+import org.checkerframework.framework.testchecker.util.AnnoWithStringArg;
+import org.checkerframework.framework.testchecker.util.Encrypted;
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+import scenelib.annotations.Annotation;
+import scenelib.annotations.el.AClass;
+import scenelib.annotations.el.AField;
+import scenelib.annotations.el.AMethod;
+import scenelib.annotations.el.AScene;
+import scenelib.annotations.el.BoundLocation;
+import scenelib.annotations.el.TypePathEntry;
+
+/** Tests that {@link SceneBinaryFormat} writes and reads scenes faithfully. */
+public class SceneBinaryFormatTest {
+
+  /** The contents of the .jaif file that the side-car files of the tests belong to. */
+  private static final String JAIF_CONTENTS = "package pkg:\nclass C:\n";
+
+  /** The processing environment, for creating annotations. */
+  private final ProcessingEnvironment env;
+
+  /** {@code @Encrypted}. */
+  private final Annotation encrypted;
+
+  /** {@code @AnnoWithStringArg("contract")}. */
+  private final Annotation contract;
+
+  /** Creates a SceneBinaryFormatTest. */
+  public SceneBinaryFormatTest() {
+    Context context = new Context();
+    Options options = Options.instance(context);
+    options.put(Option.SOURCE, "8");
+    options.put(Option.TARGET, "8");
+
+    env = JavacProcessingEnvironment.instance(context);
+    JavaCompiler javac = JavaCompiler.instance(context);
+    javac.initModules(com.sun.tools.javac.util.List.nil());
+    javac.enterDone();
+
+    encrypted =
+        AnnotationConverter.annotationMirrorToAnnotation(
+            AnnotationBuilder.fromClass(env.getElementUtils(), Encrypted.class));
+    AnnotationBuilder builder = new AnnotationBuilder(env, AnnoWithStringArg.class);
+    builder.setValue("value", "contract");
+    contract = AnnotationConverter.annotationMirrorToAnnotation(builder.build());
+  }
+
+  /**
+   * Returns a scene with an annotation in every location that the format can represent.
+   *
+   * @param contractsAsAnnotations if true, the contract of the method is a declaration annotation
+   *     of the method, as in a scene read from a .jaif file; otherwise it is in {@link
+   *     AMethod#contracts}, as in a scene that is written
+   * @return a scene with an annotation in every location that the format can represent
+   */
+  private AScene createScene(boolean contractsAsAnnotations) {
+    AScene scene = new AScene();
+    AClass aClass = scene.classes.getVivify("pkg.C");
+    aClass.tlAnnotationsHere.add(encrypted);
+    aClass.bounds.getVivify(new BoundLocation(0, 0)).tlAnnotationsHere.add(encrypted);
+
+    AField field = aClass.fields.getVivify("f");
+    field.tlAnnotationsHere.add(encrypted);
+    field.type.tlAnnotationsHere.add(encrypted);
+    List<TypePathEntry> component =
+        TypePathEntry.getTypePathEntryListFromBinary(Arrays.asList(0, 0));
+    field.type.innerTypes.getVivify(component).tlAnnotationsHere.add(encrypted);
+
+    AMethod method = aClass.methods.getVivify("m(I)V");
+    method.tlAnnotationsHere.add(encrypted);
+    method.bounds.getVivify(new BoundLocation(0, 1)).tlAnnotationsHere.add(encrypted);
+    method.returnType.tlAnnotationsHere.add(encrypted);
+    method.receiver.type.tlAnnotationsHere.add(encrypted);
+    method.parameters.getVivify(0).type.tlAnnotationsHere.add(encrypted);
+    if (contractsAsAnnotations) {
+      method.tlAnnotationsHere.add(contract);
+    } else {
+      method.contracts = Collections.singletonList(contract);
+    }
+    return scene;
+  }
+
+  /**
+   * Writes a .jaif file and a side-car file to a new temporary directory.
+   *
+   * @param jaifContents the contents of the .jaif file
+   * @param sideCar the contents of the side-car file
+   * @return the path of the .jaif file
+   * @throws IOException if the files cannot be written
+   */
+  private static String writeFiles(String jaifContents, byte[] sideCar) throws IOException {
+    Path dir = Files.createTempDirectory("SceneBinaryFormatTest");
+    String jaifPath = dir.resolve("C.jaif").toString();
+    Files.write(Paths.get(jaifPath), jaifContents.getBytes(Charset.defaultCharset()));
+    Files.write(Paths.get(SceneBinaryFormat.getPath(jaifPath)), sideCar);
+    return jaifPath;
+  }
+
+  /**
+   * Returns the side-car file for the scene of {@link #createScene}.
+   *
+   * @return the side-car file for the scene of {@link #createScene}
+   */
+  private byte[] writeScene() {
+    byte[] sideCar = SceneBinaryFormat.write(createScene(false), JAIF_CONTENTS, env);
+    Assert.assertNotNull(sideCar);
+    return sideCar;
+  }
+
+  @Test
+  public void roundTrip() throws IOException {
+    String jaifPath = writeFiles(JAIF_CONTENTS, writeScene());
+    Assert.assertEquals(createScene(true), SceneBinaryFormat.read(jaifPath, env));
+  }
+
+  @Test
+  public void staleDigest() throws IOException {
+    String jaifPath = writeFiles(JAIF_CONTENTS + "\n", writeScene());
+    Assert.assertNull(SceneBinaryFormat.read(jaifPath, env));
+  }
+
+  @Test
+  public void missingSideCar() throws IOException {
+    String jaifPath = writeFiles(JAIF_CONTENTS, writeScene());
+    Files.delete(Paths.get(SceneBinaryFormat.getPath(jaifPath)));
+    Assert.assertNull(SceneBinaryFormat.read(jaifPath, env));
+  }
+
+  @Test
+  public void truncated() throws IOException {
+    byte[] sideCar = writeScene();
+    for (int length : new int[] {0, 6, sideCar.length / 2, sideCar.length - 1}) {
+      String jaifPath = writeFiles(JAIF_CONTENTS, Arrays.copyOf(sideCar, length));
+      Assert.assertNull(SceneBinaryFormat.read(jaifPath, env));
+    }
+  }
+
+  @Test
+  public void trailingBytes() throws IOException {
+    byte[] sideCar = writeScene();
+    String jaifPath = writeFiles(JAIF_CONTENTS, Arrays.copyOf(sideCar, sideCar.length + 1));
+    Assert.assertNull(SceneBinaryFormat.read(jaifPath, env));
+  }
+
+  @Test
+  public void hugeLength() throws IOException {
+    // The length of the digest follows the magic number and the version.  A malformed file must
+    // not make the reader allocate an array of this length.
+    for (int length : new int[] {Integer.MAX_VALUE, -1}) {
+      byte[] sideCar = writeScene();
+      ByteBuffer.wrap(sideCar).putInt(8, length);
+      String jaifPath = writeFiles(JAIF_CONTENTS, sideCar);
+      Assert.assertNull(SceneBinaryFormat.read(jaifPath, env));
+    }
+  }
+
+  @Test
+  public void uncomputedContracts() {
+    AScene scene = createScene(true);
+    AMethod method = scene.classes.getVivify("pkg.C").methods.getVivify("m(I)V");
+    method
+        .vivifyAndAddTypeMirrorToPrecondition(
+            "this.f", env.getElementUtils().getTypeElement("java.lang.String").asType())
+        .type
+        .tlAnnotationsHere
+        .add(encrypted);
+    Assert.assertNull(SceneBinaryFormat.write(scene, JAIF_CONTENTS, env));
+  }
+}
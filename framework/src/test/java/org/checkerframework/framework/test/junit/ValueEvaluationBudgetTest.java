@@ -0,0 +1,27 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.common.value.ValueChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/** Tests the constant value propagation type system with a bound on the number of invocations. */
+public class ValueEvaluationBudgetTest extends CheckerFrameworkPerDirectoryTest {
+
+  /** @param testFiles the files containing test code, which will be type-checked */
+  public ValueEvaluationBudgetTest(List<File> testFiles) {
+    super(
+        testFiles,
+        org.checkerframework.common.value.ValueChecker.class,
+        "value",
+        "-Anomsgtext",
+        "-A" + ValueChecker.REPORT_EVAL_WARNS,
+        "-A" + ValueChecker.EVALUATION_BUDGET + "=10");
+  }
+
+  @Parameters
+  public static String[] getTestDirs() {
+    return new String[] {"value-evaluation-budget"};
+  }
+}
@@ -0,0 +1,107 @@
+package org.checkerframework.framework.test.junit;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.printer.DefaultPrettyPrinter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceOutputWriter;
+import org.checkerframework.framework.util.JavaParserUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests that {@link WholeProgramInferenceOutputWriter} writes the same files in parallel. */
+public class WholeProgramInferenceOutputWriterTest {
+
+  /** The number of files to write; enough for the parallel stream to use several threads. */
+  private static final int FILE_COUNT = 64;
+
+  /**
+   * Returns the contents of each output file, keyed by its name. The contents are printed from a
+   * JavaParser compilation unit when the supplier is called, as the .ajava storage does.
+   *
+   * @return the contents of each output file, keyed by its name
+   */
+  private static Map<String, Supplier<@Nullable String>> outputs() {
+    Map<String, Supplier<@Nullable String>> outputs = new HashMap<>();
+    for (int i = 0; i < FILE_COUNT; i++) {
+      String source =
+          String.join(
+              "\n",
+              "package p;",
+              "import java.util.List;",
+              "class C" + i + " {",
+              "  @SuppressWarnings(\"all\") List<String> f" + i + ";",
+              "  int m(int x) { return x + " + i + "; }",
+              "}");
+      CompilationUnit compilationUnit = JavaParserUtil.parseCompilationUnit(source);
+      outputs.put("C" + i + ".ajava", () -> new DefaultPrettyPrinter().print(compilationUnit));
+    }
+    return outputs;
+  }
+
+  /**
+   * Returns the outputs, keyed by the path of the file in {@code dir}.
+   *
+   * @param dir the output directory
+   * @param outputs the contents of each output file, keyed by its name
+   * @return the outputs, keyed by the path of the file in {@code dir}
+   */
+  private static Map<String, Supplier<@Nullable String>> in(
+      Path dir, Map<String, Supplier<@Nullable String>> outputs) {
+    Map<String, Supplier<@Nullable String>> result = new HashMap<>();
+    outputs.forEach((name, contents) -> result.put(dir.resolve(name).toString(), contents));
+    return result;
+  }
+
+  @Test
+  public void parallelOutputMatchesSequentialOutput() throws IOException {
+    Map<String, Supplier<@Nullable String>> outputs = outputs();
+    Path parallelDir = Files.createTempDirectory("WPIOutputParallel");
+    Path sequentialDir = Files.createTempDirectory("WPIOutputSequential");
+
+    new WholeProgramInferenceOutputWriter().writeAll(in(parallelDir, outputs));
+    WholeProgramInferenceOutputWriter sequentialWriter = new WholeProgramInferenceOutputWriter();
+    for (Map.Entry<String, Supplier<@Nullable String>> e : outputs.entrySet()) {
+      sequentialWriter.write(sequentialDir.resolve(e.getKey()).toString(), e.getValue().get());
+    }
+
+    for (String name : outputs.keySet()) {
+      byte[] sequential = Files.readAllBytes(sequentialDir.resolve(name));
+      byte[] parallel = Files.readAllBytes(parallelDir.resolve(name));
+      Assert.assertTrue(name, Arrays.equals(sequential, parallel));
+    }
+    Assert.assertEquals(FILE_COUNT, parallelDir.toFile().list().length);
+  }
+
+  @Test
+  public void skipsUnchangedFiles() throws IOException {
+    Path dir = Files.createTempDirectory("WPIOutputUnchanged");
+    String path = dir.resolve("A.ajava").toString();
+    WholeProgramInferenceOutputWriter writer = new WholeProgramInferenceOutputWriter();
+    Assert.assertTrue(writer.write(path, "class A {}"));
+    Assert.assertFalse(writer.write(path, "class A {}"));
+    Assert.assertTrue(writer.write(path, "class A { int f; }"));
+    // A new writer finds the contents on disk.
+    Assert.assertFalse(new WholeProgramInferenceOutputWriter().write(path, "class A { int f; }"));
+  }
+
+  @Test
+  public void nullContentsDeleteTheFile() throws IOException {
+    Path dir = Files.createTempDirectory("WPIOutputDelete");
+    Path a = dir.resolve("A.ajava");
+    Path b = dir.resolve("B.ajava");
+    Files.write(a, new byte[] {'x'});
+    Map<String, Supplier<@Nullable String>> outputs = new HashMap<>();
+    outputs.put(a.toString(), () -> null);
+    outputs.put(b.toString(), () -> "class B {}");
+    new WholeProgramInferenceOutputWriter().writeAll(outputs);
+    Assert.assertFalse(Files.exists(a));
+    Assert.assertTrue(Files.exists(b));
+  }
+}
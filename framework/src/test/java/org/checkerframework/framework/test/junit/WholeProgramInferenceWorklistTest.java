@@ -0,0 +1,144 @@
+package org.checkerframework.framework.test.junit;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.JavacTask;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceWorklist;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that {@link WholeProgramInferenceWorklist} re-checks exactly the compilation units that
+ * depend on changed inferred annotations.
+ */
+public class WholeProgramInferenceWorklistTest {
+
+  /** Reads the annotations of B and updates those of A. */
+  private final CompilationUnitTree unitA;
+
+  /** Updates the annotations of B. */
+  private final CompilationUnitTree unitB;
+
+  /** Reads the annotations of C. */
+  private final CompilationUnitTree unitC;
+
+  /** Updates the annotations of A, like {@link #unitA}. */
+  private final CompilationUnitTree unitE;
+
+  /** The worklist under test. */
+  private final WholeProgramInferenceWorklist worklist = new WholeProgramInferenceWorklist();
+
+  /**
+   * Creates a WholeProgramInferenceWorklistTest.
+   *
+   * @throws IOException if the compilation units cannot be parsed
+   */
+  public WholeProgramInferenceWorklistTest() throws IOException {
+    List<JavaFileObject> sources = new ArrayList<>();
+    for (String name : new String[] {"A", "B", "C", "E"}) {
+      sources.add(
+          new SimpleJavaFileObject(
+              URI.create("file:///wpi/" + name + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+              return "class " + name + " {}";
+            }
+          });
+    }
+    JavacTask task =
+        (JavacTask)
+            ToolProvider.getSystemJavaCompiler().getTask(null, null, null, null, null, sources);
+    List<CompilationUnitTree> units = new ArrayList<>();
+    for (CompilationUnitTree unit : task.parse()) {
+      units.add(unit);
+    }
+    unitA = units.get(0);
+    unitB = units.get(1);
+    unitC = units.get(2);
+    unitE = units.get(3);
+
+    worklist.recordOutput("A.jaif", "out/A.jaif");
+    worklist.recordOutput("B.jaif", "out/B.jaif");
+    worklist.recordOutput("C.jaif", "out/C.jaif");
+  }
+
+  /** Checks every unit in a first round, recording the dependencies described on the fields. */
+  private void firstRound() {
+    worklist.startRound(null);
+    worklist.recordRead(unitA, "B.jaif");
+    worklist.recordWrite(unitA, "A.jaif");
+    worklist.recordWrite(unitB, "B.jaif");
+    worklist.recordRead(unitC, "C.jaif");
+    worklist.recordWrite(unitE, "A.jaif");
+  }
+
+  /**
+   * Returns the paths of the given compilation units.
+   *
+   * @param units compilation units
+   * @return the paths of {@code units}
+   */
+  private static Set<String> paths(CompilationUnitTree... units) {
+    Set<String> result = new HashSet<>();
+    for (CompilationUnitTree unit : units) {
+      result.add(WholeProgramInferenceWorklist.getPath(unit));
+    }
+    return result;
+  }
+
+  @Test
+  public void rechecksReadersAndCoWriters() {
+    firstRound();
+    Set<String> recheck = worklist.unitsToRecheck(Collections.singleton(Paths.get("out/B.jaif")));
+    // A read B.jaif; E updates A.jaif, which A rewrites from scratch.
+    Assert.assertEquals(paths(unitA, unitE), recheck);
+
+    worklist.startRound(recheck);
+    Assert.assertTrue(worklist.shouldCheck(unitA));
+    Assert.assertFalse(worklist.shouldCheck(unitB));
+    Assert.assertFalse(worklist.shouldCheck(unitC));
+    Assert.assertTrue(worklist.shouldCheck(unitE));
+  }
+
+  @Test
+  public void noChangesRechecksNothing() {
+    firstRound();
+    Assert.assertEquals(
+        Collections.emptySet(), worklist.unitsToRecheck(Collections.<Path>emptyList()));
+  }
+
+  @Test
+  public void unknownOutputRechecksEverything() {
+    firstRound();
+    Assert.assertNull(
+        worklist.unitsToRecheck(Arrays.asList(Paths.get("out/B.jaif"), Paths.get("other.jaif"))));
+  }
+
+  @Test
+  public void rechecksOnlyCurrentDependencies() {
+    firstRound();
+    worklist.startRound(paths(unitA, unitE));
+    // In the second round, A no longer reads B.jaif.
+    worklist.recordRead(unitA, "C.jaif");
+    worklist.recordWrite(unitA, "A.jaif");
+    worklist.recordWrite(unitE, "A.jaif");
+    Assert.assertEquals(
+        Collections.emptySet(),
+        worklist.unitsToRecheck(Collections.singleton(Paths.get("out/B.jaif"))));
+    Assert.assertEquals(
+        paths(unitA, unitC, unitE),
+        worklist.unitsToRecheck(Collections.singleton(Paths.get("out/C.jaif"))));
+  }
+}
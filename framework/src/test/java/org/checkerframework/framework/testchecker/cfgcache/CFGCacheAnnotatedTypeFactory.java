@@ -0,0 +1,44 @@
+package org.checkerframework.framework.testchecker.cfgcache;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.checkerframework.common.basetype.BaseAnnotatedTypeFactory;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.common.subtyping.qual.Unqualified;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.framework.testchecker.util.Encrypted;
+import org.checkerframework.framework.testchecker.util.PolyEncrypted;
+
+/** The type factory of the {@link CFGCacheChecker}. */
+public class CFGCacheAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
+
+  /**
+   * Creates a CFGCacheAnnotatedTypeFactory.
+   *
+   * @param checker the checker
+   */
+  public CFGCacheAnnotatedTypeFactory(BaseTypeChecker checker) {
+    super(checker);
+    if (this.getClass() == CFGCacheAnnotatedTypeFactory.class) {
+      this.postInit();
+    }
+  }
+
+  @Override
+  protected Set<Class<? extends Annotation>> createSupportedTypeQualifiers() {
+    return new HashSet<>(Arrays.asList(Encrypted.class, PolyEncrypted.class, Unqualified.class));
+  }
+
+  @Override
+  protected void postAnalyze(ControlFlowGraph cfg) {
+    super.postAnalyze(cfg);
+    UnderlyingAST underlyingAST = cfg.getUnderlyingAST();
+    if (underlyingAST.getKind() == UnderlyingAST.Kind.METHOD) {
+      String name = ((UnderlyingAST.CFGMethod) underlyingAST).getMethodName();
+      ((CFGCacheChecker) checker).cfgs.put(name, cfg);
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package org.checkerframework.framework.testchecker.cfgcache;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+
+/**
+ * A checker that records the control flow graph of each method that its type factory analyzes, to
+ * test that independent checkers share CFGs through the {@link
+ * org.checkerframework.framework.flow.CFGCache}. It uses the qualifiers of the Encrypted type
+ * system.
+ */
+public class CFGCacheChecker extends BaseTypeChecker {
+
+  /** The CFG of each method that was analyzed, by the name of the method. */
+  public final Map<String, ControlFlowGraph> cfgs = new HashMap<>();
+}
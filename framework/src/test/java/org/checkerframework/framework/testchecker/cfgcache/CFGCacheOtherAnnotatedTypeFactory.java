@@ -0,0 +1,39 @@
+package org.checkerframework.framework.testchecker.cfgcache;
+
+import java.util.Set;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.dataflow.qual.TerminatesExecution;
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationUtils;
+
+/** The type factory of the {@link CFGCacheOtherChecker}. */
+public class CFGCacheOtherAnnotatedTypeFactory extends CFGCacheAnnotatedTypeFactory {
+
+  /** The {@code @TerminatesExecution} annotation. */
+  private final AnnotationMirror TERMINATES_EXECUTION =
+      AnnotationBuilder.fromClass(elements, TerminatesExecution.class);
+
+  /**
+   * Creates a CFGCacheOtherAnnotatedTypeFactory.
+   *
+   * @param checker the checker
+   */
+  public CFGCacheOtherAnnotatedTypeFactory(BaseTypeChecker checker) {
+    super(checker);
+    this.postInit();
+  }
+
+  /** Adds {@code @TerminatesExecution} to every method named {@code halt}. */
+  @Override
+  public Set<AnnotationMirror> getDeclAnnotations(Element elt) {
+    Set<AnnotationMirror> result = super.getDeclAnnotations(elt);
+    if (elt.getKind() == ElementKind.METHOD && elt.getSimpleName().contentEquals("halt")) {
+      result = AnnotationUtils.createAnnotationSet(result);
+      result.add(TERMINATES_EXECUTION);
+    }
+    return result;
+  }
+}
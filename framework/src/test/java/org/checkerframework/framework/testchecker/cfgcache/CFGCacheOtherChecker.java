@@ -0,0 +1,8 @@
+package org.checkerframework.framework.testchecker.cfgcache;
+
+/**
+ * A {@link CFGCacheChecker} that makes different decisions while building CFGs: its
+ * {@code @AssumeAssertion} prefix is "cfgcacheother" rather than "cfgcache", and it treats every
+ * method named {@code halt} as terminating execution.
+ */
+public class CFGCacheOtherChecker extends CFGCacheChecker {}
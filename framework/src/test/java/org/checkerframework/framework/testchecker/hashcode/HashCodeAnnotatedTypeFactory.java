@@ -0,0 +1,30 @@
+package org.checkerframework.framework.testchecker.hashcode;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.checkerframework.common.basetype.BaseAnnotatedTypeFactory;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.common.subtyping.qual.Unqualified;
+import org.checkerframework.framework.testchecker.util.Encrypted;
+import org.checkerframework.framework.testchecker.util.PolyEncrypted;
+
+/** The type factory of the {@link HashCodeChecker}. */
+public class HashCodeAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
+
+  /**
+   * Creates a HashCodeAnnotatedTypeFactory.
+   *
+   * @param checker the checker
+   */
+  public HashCodeAnnotatedTypeFactory(BaseTypeChecker checker) {
+    super(checker);
+    this.postInit();
+  }
+
+  @Override
+  protected Set<Class<? extends Annotation>> createSupportedTypeQualifiers() {
+    return new HashSet<>(Arrays.asList(Encrypted.class, PolyEncrypted.class, Unqualified.class));
+  }
+}
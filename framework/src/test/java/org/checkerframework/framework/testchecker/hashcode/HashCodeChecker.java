@@ -0,0 +1,10 @@
+package org.checkerframework.framework.testchecker.hashcode;
+
+import org.checkerframework.common.basetype.BaseTypeChecker;
+
+/**
+ * A checker that tests that the cached hash codes of {@link
+ * org.checkerframework.framework.type.AnnotatedTypeMirror}s are invalidated when a type that they
+ * depend on is mutated. It uses the qualifiers of the Encrypted type system.
+ */
+public class HashCodeChecker extends BaseTypeChecker {}
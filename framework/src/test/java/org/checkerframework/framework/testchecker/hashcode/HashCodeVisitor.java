@@ -0,0 +1,109 @@
+package org.checkerframework.framework.testchecker.hashcode;
+
+import com.sun.source.tree.VariableTree;
+import java.util.List;
+import javax.lang.model.element.AnnotationMirror;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.common.basetype.BaseTypeVisitor;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedArrayType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedWildcardType;
+import org.checkerframework.framework.type.QualifierHierarchy;
+
+/**
+ * Checks the hash code of the type of every variable. A copy of the type must have the same hash
+ * code, and after the type or one of its components is mutated, the (cached) hash code of the type
+ * must be the same as the hash code of a fresh copy of it.
+ */
+public class HashCodeVisitor extends BaseTypeVisitor<HashCodeAnnotatedTypeFactory> {
+
+  /**
+   * Creates a HashCodeVisitor.
+   *
+   * @param checker the checker
+   */
+  public HashCodeVisitor(BaseTypeChecker checker) {
+    super(checker);
+  }
+
+  @Override
+  public Void visitVariable(VariableTree tree, Void p) {
+    AnnotatedTypeMirror type = atypeFactory.getAnnotatedType(tree);
+    AnnotatedTypeMirror copy = type.deepCopy();
+    if (!copy.equals(type) || copy.hashCode() != type.hashCode()) {
+      // An error specific to this checker, with no corresponding text in a messages.properties
+      // file; this checker is just for testing.
+      checker.reportError(tree, "hashcode.copy", type);
+    }
+
+    // Mutate the type itself.
+    AnnotatedTypeMirror mutated = type.deepCopy();
+    mutated.hashCode();
+    mutated.replaceAnnotation(otherAnnotation(mutated));
+    checkHashCode(tree, mutated, "primary");
+
+    // Mutate a component of the type.
+    mutated = type.deepCopy();
+    mutated.hashCode();
+    AnnotatedTypeMirror component = firstComponent(mutated);
+    if (component != null) {
+      component.replaceAnnotation(otherAnnotation(component));
+      checkHashCode(tree, mutated, "component");
+      // A type whose hash code was cached after it was mutated is also invalidated.
+      component.replaceAnnotation(otherAnnotation(component));
+      checkHashCode(tree, mutated, "component.again");
+    }
+
+    return super.visitVariable(tree, p);
+  }
+
+  /**
+   * Reports an error if the hash code of {@code type} differs from the hash code of a fresh copy of
+   * it.
+   *
+   * @param tree the variable whose type is checked
+   * @param type a type that was mutated after its hash code was computed
+   * @param what the part of the type that was mutated, for the error message
+   */
+  private void checkHashCode(VariableTree tree, AnnotatedTypeMirror type, String what) {
+    if (type.hashCode() != type.deepCopy().hashCode()) {
+      checker.reportError(tree, "hashcode.stale", what, type);
+    }
+  }
+
+  /**
+   * Returns a qualifier that differs from the primary annotation of {@code type}: top, unless the
+   * type is annotated with top, in which case bottom.
+   *
+   * @param type a type
+   * @return a qualifier that differs from the primary annotation of {@code type}
+   */
+  private AnnotationMirror otherAnnotation(AnnotatedTypeMirror type) {
+    QualifierHierarchy hierarchy = atypeFactory.getQualifierHierarchy();
+    AnnotationMirror top = hierarchy.getTopAnnotations().iterator().next();
+    return type.hasAnnotation(top) ? hierarchy.getBottomAnnotation(top) : top;
+  }
+
+  /**
+   * Returns the first component of {@code type}: its first type argument, its component type, or
+   * its extends bound.
+   *
+   * @param type a type
+   * @return the first component of {@code type}, or null if it has none that is checked
+   */
+  private @Nullable AnnotatedTypeMirror firstComponent(AnnotatedTypeMirror type) {
+    switch (type.getKind()) {
+      case DECLARED:
+        List<AnnotatedTypeMirror> typeArgs = ((AnnotatedDeclaredType) type).getTypeArguments();
+        return typeArgs.isEmpty() ? null : typeArgs.get(0);
+      case ARRAY:
+        return ((AnnotatedArrayType) type).getComponentType();
+      case WILDCARD:
+        return ((AnnotatedWildcardType) type).getExtendsBound();
+      default:
+        return null;
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package org.checkerframework.framework.testchecker.methodfromuse;
+
+import com.sun.source.tree.ExpressionTree;
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.type.TypeKind;
+import org.checkerframework.common.basetype.BaseAnnotatedTypeFactory;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.common.subtyping.qual.Unqualified;
+import org.checkerframework.framework.testchecker.util.Encrypted;
+import org.checkerframework.framework.testchecker.util.PolyEncrypted;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
+import org.checkerframework.javacutil.AnnotationBuilder;
+
+/** The type factory of the {@link MethodFromUseChecker}. */
+public class MethodFromUseAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
+
+  /** The @{@link Encrypted} annotation. */
+  private final AnnotationMirror ENCRYPTED = AnnotationBuilder.fromClass(elements, Encrypted.class);
+
+  /**
+   * Creates a MethodFromUseAnnotatedTypeFactory.
+   *
+   * @param checker the checker
+   */
+  public MethodFromUseAnnotatedTypeFactory(BaseTypeChecker checker) {
+    super(checker);
+    this.postInit();
+  }
+
+  @Override
+  protected Set<Class<? extends Annotation>> createSupportedTypeQualifiers() {
+    return new HashSet<>(Arrays.asList(Encrypted.class, PolyEncrypted.class, Unqualified.class));
+  }
+
+  /**
+   * Records the result, then mutates its return type like some callers do, to check that the
+   * mutation does not affect later results.
+   */
+  @Override
+  public ParameterizedExecutableType methodFromUse(
+      ExpressionTree tree, ExecutableElement methodElt, AnnotatedTypeMirror receiverType) {
+    ParameterizedExecutableType result = super.methodFromUse(tree, methodElt, receiverType);
+    ((MethodFromUseChecker) checker).methodTypes.add(tree + ": " + result.executableType);
+    AnnotatedTypeMirror returnType = result.executableType.getReturnType();
+    if (returnType.getKind() == TypeKind.DECLARED) {
+      returnType.replaceAnnotation(ENCRYPTED);
+    }
+    return result;
+  }
+
+  @Override
+  public void methodFromUsePreSubstitution(ExpressionTree tree, AnnotatedExecutableType type) {
+    super.methodFromUsePreSubstitution(tree, type);
+    ((MethodFromUseChecker) checker).substitutions++;
+  }
+}
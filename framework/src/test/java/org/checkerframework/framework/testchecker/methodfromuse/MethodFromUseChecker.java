@@ -0,0 +1,22 @@
+package org.checkerframework.framework.testchecker.methodfromuse;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+
+/**
+ * A checker that records the type of each invoked method that its type factory computes, to test
+ * that the cache of {@code AnnotatedTypeFactory#methodFromUse} does not change its results. It uses
+ * the qualifiers of the Encrypted type system.
+ */
+public class MethodFromUseChecker extends BaseTypeChecker {
+
+  /**
+   * Each invocation and the type of the invoked method, in the order in which the type factory
+   * computed them.
+   */
+  public final List<String> methodTypes = new ArrayList<>();
+
+  /** The number of times that the type factory substituted a method type for an invocation. */
+  public int substitutions = 0;
+}
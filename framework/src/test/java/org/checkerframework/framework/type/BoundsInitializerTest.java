@@ -0,0 +1,131 @@
+package org.checkerframework.framework.type;
+
+import com.sun.source.util.JavacTask;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.framework.testchecker.h1h2checker.H1H2Checker;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H1S1;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedTypeVariable;
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests that {@link BoundsInitializer} gives every use of a recursive type variable its declared
+ * bounds, also when the bounds are copied from those of an earlier use with a primary annotation.
+ */
+public class BoundsInitializerTest {
+
+  /** The source code that is checked. */
+  private static final String SOURCE =
+      "class BoundsInitializerSource<T extends Comparable<T>> {}\n";
+
+  /** The type utilities. */
+  private static Types types;
+
+  /** The type variable {@code T} of the source code. */
+  private static TypeVariable typeVar;
+
+  /** The @{@link H1S1} annotation. */
+  private static AnnotationMirror h1S1;
+
+  /** A use of {@link #typeVar} with the primary annotation @{@link H1S1}. */
+  private static AnnotatedTypeVariable annotatedUse;
+
+  /** A use of {@link #typeVar} without a primary annotation. */
+  private static AnnotatedTypeVariable plainUse;
+
+  /** A checker that initializes the bounds of {@link #annotatedUse}, then of {@link #plainUse}. */
+  public static class BoundsChecker extends H1H2Checker {
+    @Override
+    public void initChecker() {
+      super.initChecker();
+      Elements elements = getProcessingEnvironment().getElementUtils();
+      types = getProcessingEnvironment().getTypeUtils();
+      h1S1 = AnnotationBuilder.fromClass(elements, H1S1.class);
+      TypeElement source = elements.getTypeElement("BoundsInitializerSource");
+      typeVar = (TypeVariable) source.getTypeParameters().get(0).asType();
+
+      AnnotatedTypeFactory atypeFactory = getTypeFactory();
+      annotatedUse =
+          (AnnotatedTypeVariable) AnnotatedTypeMirror.createType(typeVar, atypeFactory, false);
+      annotatedUse.addAnnotation(h1S1);
+      annotatedUse.getUpperBound();
+      plainUse =
+          (AnnotatedTypeVariable) AnnotatedTypeMirror.createType(typeVar, atypeFactory, false);
+      plainUse.getUpperBound();
+    }
+  }
+
+  /**
+   * Runs the {@link BoundsChecker} on {@link #SOURCE}.
+   *
+   * @throws IOException if the source file cannot be written
+   */
+  @BeforeClass
+  public static void compile() throws IOException {
+    Path dir = Files.createTempDirectory("BoundsInitializerTest");
+    Path file = dir.resolve("BoundsInitializerSource.java");
+    Files.write(file, SOURCE.getBytes(StandardCharsets.UTF_8));
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+      List<String> options =
+          Arrays.asList(
+              "-Awarns", "-d", dir.toString(), "-classpath", System.getProperty("java.class.path"));
+      JavacTask task =
+          (JavacTask)
+              compiler.getTask(
+                  null, fileManager, null, options, null, fileManager.getJavaFileObjects(file));
+      task.setProcessors(Arrays.asList(new BoundsChecker()));
+      Assert.assertTrue(task.call());
+    }
+  }
+
+  @Test
+  public void annotatedUseHasAnnotatedBounds() {
+    Assert.assertTrue(annotatedUse.getUpperBound().hasAnnotation(h1S1));
+    Assert.assertTrue(annotatedUse.getLowerBound().hasAnnotation(h1S1));
+  }
+
+  @Test
+  public void plainUseHasDeclaredUpperBound() {
+    AnnotatedTypeMirror upperBound = plainUse.getUpperBound();
+    Assert.assertTrue(types.isSameType(typeVar.getUpperBound(), upperBound.getUnderlyingType()));
+    Assert.assertTrue(upperBound.getAnnotations().isEmpty());
+    // The bound Comparable<T> refers to T again, and that reference is not annotated either.
+    AnnotatedTypeMirror recursiveReference =
+        ((AnnotatedDeclaredType) upperBound).getTypeArguments().get(0);
+    Assert.assertEquals(TypeKind.TYPEVAR, recursiveReference.getKind());
+    Assert.assertTrue(types.isSameType(typeVar, recursiveReference.getUnderlyingType()));
+    Assert.assertTrue(recursiveReference.getAnnotations().isEmpty());
+  }
+
+  @Test
+  public void plainUseHasDeclaredLowerBound() {
+    AnnotatedTypeMirror lowerBound = plainUse.getLowerBound();
+    Assert.assertEquals(TypeKind.NULL, lowerBound.getKind());
+    Assert.assertTrue(lowerBound.getAnnotations().isEmpty());
+  }
+
+  @Test
+  public void boundsAreNotShared() {
+    Assert.assertNotSame(annotatedUse.getUpperBound(), plainUse.getUpperBound());
+    Assert.assertNotSame(annotatedUse.getLowerBound(), plainUse.getLowerBound());
+  }
+}
@@ -0,0 +1,333 @@
+package org.checkerframework.framework.type;
+
+import com.sun.source.util.JavacTask;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.basetype.BaseAnnotatedTypeFactory;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.framework.testchecker.h1h2checker.H1H2Checker;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H1Bot;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H1S1;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H1S2;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H1Top;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H2Bot;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H2S1;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H2S2;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H2Top;
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests that {@link PrimaryAnnotationSet} behaves like the set returned by {@link
+ * AnnotationUtils#createAnnotationSet}, including when it holds more than one annotation of a
+ * hierarchy and when annotations are added before the qualifier hierarchy exists.
+ */
+public class PrimaryAnnotationSetTest {
+
+  /** The type factory of the sets, which uses the two hierarchies of the H1H2 Checker. */
+  private static AnnotatedTypeFactory atypeFactory;
+
+  /** The type {@code String}. */
+  private static TypeMirror stringType;
+
+  /** The @{@link H1Top} annotation. */
+  private static AnnotationMirror h1Top;
+
+  /** The @{@link H1S1} annotation. */
+  private static AnnotationMirror h1S1;
+
+  /** The @{@link H1S2} annotation. */
+  private static AnnotationMirror h1S2;
+
+  /** The @{@link H1Bot} annotation. */
+  private static AnnotationMirror h1Bot;
+
+  /** The @{@link H2Top} annotation. */
+  private static AnnotationMirror h2Top;
+
+  /** The @{@link H2S1} annotation. */
+  private static AnnotationMirror h2S1;
+
+  /** The @{@link H2S2} annotation. */
+  private static AnnotationMirror h2S2;
+
+  /** The @{@link H2Bot} annotation. */
+  private static AnnotationMirror h2Bot;
+
+  /**
+   * A type that was given the annotations {@code @H1S1} and {@code @H2S1} before the qualifier
+   * hierarchy of {@link #atypeFactory} was created.
+   */
+  private static AnnotatedTypeMirror earlyType;
+
+  /** A type factory for the qualifiers of the H1H2 Checker that does not call postInit itself. */
+  static class SetAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
+
+    /**
+     * Creates a SetAnnotatedTypeFactory. Its qualifier hierarchy is created when {@link #postInit}
+     * is called.
+     *
+     * @param checker the checker
+     */
+    SetAnnotatedTypeFactory(BaseTypeChecker checker) {
+      super(checker);
+    }
+
+    @Override
+    protected Set<Class<? extends Annotation>> createSupportedTypeQualifiers() {
+      return getBundledTypeQualifiers(
+          H1Top.class,
+          H1S1.class,
+          H1S2.class,
+          H1Bot.class,
+          H2Top.class,
+          H2S1.class,
+          H2S2.class,
+          H2Bot.class);
+    }
+  }
+
+  /** A checker that creates the type factory, annotations, and types that the tests use. */
+  public static class SetChecker extends H1H2Checker {
+    @Override
+    public void initChecker() {
+      super.initChecker();
+      Elements elements = getProcessingEnvironment().getElementUtils();
+      stringType = elements.getTypeElement("java.lang.String").asType();
+      h1Top = AnnotationBuilder.fromClass(elements, H1Top.class);
+      h1S1 = AnnotationBuilder.fromClass(elements, H1S1.class);
+      h1S2 = AnnotationBuilder.fromClass(elements, H1S2.class);
+      h1Bot = AnnotationBuilder.fromClass(elements, H1Bot.class);
+      h2Top = AnnotationBuilder.fromClass(elements, H2Top.class);
+      h2S1 = AnnotationBuilder.fromClass(elements, H2S1.class);
+      h2S2 = AnnotationBuilder.fromClass(elements, H2S2.class);
+      h2Bot = AnnotationBuilder.fromClass(elements, H2Bot.class);
+
+      SetAnnotatedTypeFactory factory = new SetAnnotatedTypeFactory(this);
+      earlyType = AnnotatedTypeMirror.createType(stringType, factory, false);
+      earlyType.addAnnotation(h1S1);
+      earlyType.addAnnotation(h2S1);
+      factory.postInit();
+      atypeFactory = factory;
+    }
+  }
+
+  /**
+   * Runs the {@link SetChecker} on a small source file.
+   *
+   * @throws IOException if the source file cannot be written
+   */
+  @BeforeClass
+  public static void compile() throws IOException {
+    Path dir = Files.createTempDirectory("PrimaryAnnotationSetTest");
+    Path file = dir.resolve("PrimaryAnnotationSetSource.java");
+    Files.write(file, "class PrimaryAnnotationSetSource {}\n".getBytes(StandardCharsets.UTF_8));
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+      List<String> options =
+          Arrays.asList(
+              "-Awarns", "-d", dir.toString(), "-classpath", System.getProperty("java.class.path"));
+      JavacTask task =
+          (JavacTask)
+              compiler.getTask(
+                  null, fileManager, null, options, null, fileManager.getJavaFileObjects(file));
+      task.setProcessors(Arrays.asList(new SetChecker()));
+      Assert.assertTrue(task.call());
+    }
+  }
+
+  /**
+   * Returns a new, unannotated type whose primary annotations are held by a {@link
+   * PrimaryAnnotationSet}.
+   *
+   * @return a new, unannotated type
+   */
+  private static AnnotatedTypeMirror newType() {
+    return AnnotatedTypeMirror.createType(stringType, atypeFactory, false);
+  }
+
+  /**
+   * Returns the elements of {@code annos} in iteration order.
+   *
+   * @param annos a set of annotations
+   * @return the elements of {@code annos} in iteration order
+   */
+  private static List<AnnotationMirror> toList(Set<AnnotationMirror> annos) {
+    return new ArrayList<>(annos);
+  }
+
+  /**
+   * Asserts that {@code set} contains the same annotations as {@code expected}, in the same order
+   * as the set returned by {@link AnnotationUtils#createAnnotationSet}.
+   *
+   * @param set the set to check
+   * @param expected the expected annotations, in any order
+   */
+  private static void assertContents(Set<AnnotationMirror> set, AnnotationMirror... expected) {
+    Set<AnnotationMirror> reference = AnnotationUtils.createAnnotationSet();
+    reference.addAll(Arrays.asList(expected));
+    Assert.assertEquals(reference.size(), set.size());
+    assertSameAnnotations(toList(reference), toList(set));
+    for (AnnotationMirror anno : expected) {
+      Assert.assertTrue(set.contains(anno));
+    }
+  }
+
+  /**
+   * Asserts that {@code actual} contains the same annotations as {@code expected}, in the same
+   * order.
+   *
+   * @param expected the expected annotations
+   * @param actual the actual annotations
+   */
+  private static void assertSameAnnotations(
+      List<AnnotationMirror> expected, List<AnnotationMirror> actual) {
+    Assert.assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertSameAnnotation(expected.get(i), actual.get(i));
+    }
+  }
+
+  /**
+   * Asserts that {@code actual} is the same annotation as {@code expected}.
+   *
+   * @param expected the expected annotation
+   * @param actual the actual annotation, or null
+   */
+  private static void assertSameAnnotation(
+      AnnotationMirror expected, @Nullable AnnotationMirror actual) {
+    Assert.assertNotNull(actual);
+    Assert.assertTrue(AnnotationUtils.areSame(expected, actual));
+  }
+
+  @Test
+  public void overflowIsPromotedOnRemove() {
+    PrimaryAnnotationSet set = newType().annotations;
+    set.add(h1S1);
+    // A second annotation of the same hierarchy goes to the overflow set.
+    set.add(h1S2);
+    set.add(h2S1);
+    assertContents(set, h1S1, h1S2, h2S1);
+
+    Assert.assertTrue(set.remove(h1S1));
+    assertContents(set, h1S2, h2S1);
+    assertSameAnnotation(h1S2, set.findAnnotationInSameHierarchy(h1Top));
+    assertSameAnnotation(h2S1, set.findAnnotationInSameHierarchy(h2Top));
+
+    // The promoted annotation occupies the slot, so a new annotation of its hierarchy overflows.
+    set.add(h1Bot);
+    assertContents(set, h1S2, h1Bot, h2S1);
+    Assert.assertTrue(set.remove(h1S2));
+    assertSameAnnotation(h1Bot, set.findAnnotationInSameHierarchy(h1Top));
+    Assert.assertFalse(set.remove(h1S2));
+    assertContents(set, h1Bot, h2S1);
+  }
+
+  @Test
+  public void copyFrom() {
+    PrimaryAnnotationSet source = newType().annotations;
+    source.add(h1S1);
+    source.add(h1S2);
+    source.add(h2Top);
+    // Iterate, so that the copy may share the elements in iteration order.
+    assertContents(source, h1S1, h1S2, h2Top);
+
+    PrimaryAnnotationSet copy = newType().annotations;
+    copy.copyFrom(source);
+    assertContents(copy, h1S1, h1S2, h2Top);
+    Assert.assertEquals(source.structuralHashCode(), copy.structuralHashCode());
+
+    // The copy is independent of the source.
+    source.remove(h1S1);
+    source.add(h2S2);
+    copy.remove(h2Top);
+    assertContents(source, h1S2, h2Top, h2S2);
+    assertContents(copy, h1S1, h1S2);
+    assertSameAnnotation(h1S2, source.findAnnotationInSameHierarchy(h1Top));
+  }
+
+  @Test
+  public void iteratorRemove() {
+    PrimaryAnnotationSet set = newType().annotations;
+    set.add(h1S1);
+    set.add(h1S2);
+    set.add(h2S1);
+    Iterator<AnnotationMirror> iterator = set.iterator();
+    while (iterator.hasNext()) {
+      AnnotationMirror anno = iterator.next();
+      if (AnnotationUtils.areSame(anno, h1S1) || AnnotationUtils.areSame(anno, h2S1)) {
+        iterator.remove();
+        try {
+          iterator.remove();
+          Assert.fail("A second call to remove() must fail");
+        } catch (IllegalStateException expected) {
+          // expected
+        }
+      }
+    }
+    assertContents(set, h1S2);
+    assertSameAnnotation(h1S2, set.findAnnotationInSameHierarchy(h1Top));
+    Assert.assertNull(set.findAnnotationInSameHierarchy(h2Top));
+  }
+
+  @Test
+  public void iterationOrderMatchesCreateAnnotationSet() {
+    PrimaryAnnotationSet set = newType().annotations;
+    AnnotationMirror[] annos = {h2S2, h1Bot, h2Top, h1S1, h2Bot, h1Top};
+    List<AnnotationMirror> added = new ArrayList<>();
+    for (AnnotationMirror anno : annos) {
+      set.add(anno);
+      added.add(anno);
+      assertContents(set, added.toArray(new AnnotationMirror[0]));
+    }
+    for (AnnotationMirror anno : annos) {
+      set.remove(anno);
+      added.remove(anno);
+      assertContents(set, added.toArray(new AnnotationMirror[0]));
+    }
+    set.add(h1S2);
+    set.clear();
+    assertContents(set);
+  }
+
+  @Test
+  public void annotationsAddedBeforeHierarchy() {
+    assertContents(earlyType.annotations, h1S1, h2S1);
+    assertSameAnnotation(h1S1, earlyType.getAnnotationInHierarchy(h1Top));
+    assertSameAnnotation(h2S1, earlyType.getAnnotationInHierarchy(h2Top));
+
+    AnnotatedTypeMirror copy = earlyType.deepCopy();
+    assertContents(copy.annotations, h1S1, h2S1);
+
+    copy.replaceAnnotation(h1S2);
+    assertContents(copy.annotations, h1S2, h2S1);
+    assertSameAnnotation(h1S2, copy.getAnnotationInHierarchy(h1Top));
+    assertContents(earlyType.annotations, h1S1, h2S1);
+
+    AnnotatedTypeMirror late = newType();
+    late.addAnnotation(h1S1);
+    late.addAnnotation(h2S1);
+    Assert.assertEquals(
+        late.annotations.structuralHashCode(), earlyType.annotations.structuralHashCode());
+    assertSameAnnotations(toList(late.getAnnotations()), toList(earlyType.getAnnotations()));
+  }
+}
@@ -0,0 +1,37 @@
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.common.subtyping.qual.Unqualified;
+import org.checkerframework.framework.testchecker.util.Encrypted;
+
+// The HashCodeChecker reports an error if a cached hash code is stale after a type or one of its
+// components is mutated.  There are no expected errors.
+public class HashCodeTypes<T extends Comparable<T>, U extends List<? super T>> {
+
+  @Encrypted String encrypted;
+  @Unqualified Object unqualified;
+  int primitive;
+
+  List<@Encrypted String> listOfEncrypted;
+  Map<String, List<@Encrypted Object>> nestedTypeArguments;
+  List<? extends @Encrypted Object> extendsWildcard;
+  List<? super @Encrypted String> superWildcard;
+  List<?> unboundedWildcard;
+  List raw;
+
+  @Encrypted String[] arrayOfEncrypted;
+  String @Encrypted [] @Encrypted [] nestedArrays;
+  List<String>[] arrayOfLists;
+
+  T recursiveBound;
+  U boundContainingTypeVariable;
+  List<T> listOfTypeVariable;
+  Comparable<T>[] arrayOfRecursiveType;
+
+  <V extends T> void method(V param, List<? extends V> list, V... varargs) {
+    V local = param;
+    Map.Entry<V, List<V>> entry = null;
+    for (V element : list) {
+      V copy = element;
+    }
+  }
+}
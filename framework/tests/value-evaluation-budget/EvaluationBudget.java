@@ -0,0 +1,23 @@
+import org.checkerframework.common.value.qual.*;
+
+// Run with -AevaluationBudget=10.
+public class EvaluationBudget {
+
+  void withinBudget(@IntVal({'l', 'o'}) char from, @IntVal({'r', 'x'}) char to) {
+    // 1 * 2 * 2 = 4 invocations
+    @StringVal({"herro", "hexxo", "hellr", "hellx"}) String replaced = "hello".replace(from, to);
+    @ArrayLen(5) String sameLength = replaced;
+  }
+
+  void overBudget(
+      @StringVal({"hello", "world", "other"}) String s,
+      @IntVal({'l', 'o'}) char from,
+      @IntVal({'r', 'x'}) char to) {
+    // 3 * 2 * 2 = 12 invocations, so the call is not evaluated and its value is unknown
+    // :: warning: (method.evaluation.budget)
+    String replaced = s.replace(from, to);
+    // Had the call been evaluated, every result would have length 5.
+    // :: error: (assignment)
+    @ArrayLen(5) String sameLength = replaced;
+  }
+}
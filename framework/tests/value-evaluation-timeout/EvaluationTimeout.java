@@ -0,0 +1,28 @@
+import org.checkerframework.common.value.qual.*;
+
+// Run with -AevaluationTimeout=1, that is, a limit of 1 ms per call.
+public class EvaluationTimeout {
+
+  void overTime(
+      boolean flag,
+      @IntVal({'0', '1', '2', '3', '4', '5', '6', '7', '8', '9'}) char from,
+      @IntVal({'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j'}) char to) {
+    String ten = "0123456789";
+    String hundred = ten + ten + ten + ten + ten + ten + ten + ten + ten + ten;
+    String thousand = hundred + hundred + hundred + hundred + hundred;
+    thousand = thousand + thousand;
+    String big = thousand + thousand + thousand + thousand + thousand;
+    big = big + big;
+    big = big + big + big + big + big + big + big + big + big;
+    if (flag) {
+      big = big + big;
+    }
+    // 2 * 10 * 10 = 200 invocations, each of which copies a string of 90000 or 180000 characters,
+    // take much longer than 1 ms, so the evaluation stops and the value of the call is unknown.
+    // :: warning: (method.evaluation.timeout)
+    String replaced = big.replace(from, to);
+    // Had the call been evaluated, every result would have the length of the receiver.
+    // :: error: (assignment)
+    @ArrayLen({90000, 180000}) String sameLength = replaced;
+  }
+}
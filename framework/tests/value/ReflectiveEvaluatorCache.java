@@ -0,0 +1,38 @@
+import org.checkerframework.common.value.qual.*;
+import org.checkerframework.dataflow.qual.Pure;
+
+// Repeated calls of a method or constructor reuse its reflective object, and every call of a
+// method whose class cannot be loaded reports a warning, also when the failed lookup is cached.
+public class ReflectiveEvaluatorCache {
+
+  @StaticallyExecutable
+  @Pure
+  public static int plusTwo(int a) {
+    return a + 2;
+  }
+
+  void repeatedMethodCalls(@IntVal({0, 4}) int index) {
+    @IntVal('l') char first = "hello".charAt(2);
+    @IntVal('o') char second = "hello".charAt(4);
+    @IntVal({'w', 'o'}) char third = "world".charAt(index);
+    // :: error: (assignment)
+    @IntVal('w') char fourth = "world".charAt(index);
+  }
+
+  void repeatedConstructorCalls(@IntVal({0, 1}) int offset) {
+    char[] data = {'h', 'e', 'l', 'l', 'o'};
+    @StringVal({"hel", "ell"}) String first = new String(data, offset, 3);
+    @StringVal({"he", "el"}) String second = new String(data, offset, 2);
+    // :: error: (assignment)
+    @StringVal("he") String third = new String(data, offset, 2);
+  }
+
+  void repeatedLookupFailures() {
+    // :: warning: (class.find.failed)
+    plusTwo(1);
+    // :: warning: (class.find.failed)
+    plusTwo(2);
+    // :: warning: (class.find.failed)
+    int three = plusTwo(3);
+  }
+}
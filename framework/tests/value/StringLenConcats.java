@@ -52,6 +52,31 @@ public class StringLenConcats {
     @ArrayLen({3, 5, 6, 8}) String ab = a + b;
   }
 
+  void duplicateStringValConcat(
+      @StringVal({"a", "aa", "aaa"}) String a, @StringVal({"a", "aa"}) String b) {
+    // 12 concatenations, but only 10 distinct values
+    @StringVal({
+      "aa", "aaa", "aaaa", "aaaaa", "anull", "aanull", "aaanull", "nulla", "nullaa", "nullnull"
+    })
+    String ab = a + b;
+  }
+
+  void chainedStringValConcat(
+      @StringVal({"a", "bb"}) String a,
+      @StringVal({"ccc", "dddd"}) String b,
+      @StringVal({"e", "ff"}) String c) {
+    // 9 distinct values, which a @StringVal can hold
+    @StringVal({
+      "accc", "adddd", "anull", "bbccc", "bbdddd", "bbnull", "nullccc", "nulldddd", "nullnull"
+    })
+    String ab = a + b;
+    // 27 distinct values, so the lengths are computed from the lengths of the operands
+    @ArrayLen({5, 6, 7, 8, 9, 10, 11, 12}) String abc = a + b + c;
+    // :: error: (assignment)
+    @StringVal({"accce"}) String abcVal = a + b + c;
+    @ArrayLen({5, 6, 7, 8, 9, 10, 11, 12}) String abcParenthesized = a + (b + c);
+  }
+
   void charConversions(
       char c,
       @IntVal({1, 100, 10000}) char d,
@@ -49,6 +49,9 @@ import org.plumelib.util.StringsPlume;
  * Once an annotation is built, no further modification or calls to build can be made. Otherwise, a
  * {@link IllegalStateException} is thrown.
  *
+ * <p>{@link #build()} returns the {@linkplain AnnotationInterner canonical} annotation for the
+ * element values that were set.
+ *
  * <p>All setter methods throw {@link IllegalArgumentException} if the specified element is not
  * found, or if the given value is not a subtype of the expected type.
  *
@@ -67,6 +70,8 @@ public class AnnotationBuilder {
   private final DeclaredType annotationType;
   /** A mapping from element to AnnotationValue. */
   private final Map<ExecutableElement, AnnotationValue> elementValues;
+  /** The pool of canonical annotations of the processing environment. */
+  private final AnnotationInterner interner;
 
   /**
    * Create a new AnnotationBuilder for the given annotation and environment (with no
@@ -97,6 +102,7 @@ public class AnnotationBuilder {
     assert annotationElt.getKind() == ElementKind.ANNOTATION_TYPE;
     this.annotationType = (DeclaredType) annotationElt.asType();
     this.elementValues = new LinkedHashMap<>();
+    this.interner = AnnotationInterner.instance(env);
   }
 
   /**
@@ -115,6 +121,7 @@ public class AnnotationBuilder {
     this.elementValues = new LinkedHashMap<>();
     // AnnotationValues are immutable so putAll should suffice
     this.elementValues.putAll(annotation.getElementValues());
+    this.interner = AnnotationInterner.instance(env);
   }
 
   /**
@@ -266,7 +273,7 @@ public class AnnotationBuilder {
   public AnnotationMirror build() {
     assertNotBuilt();
     wasBuilt = true;
-    return new CheckerFrameworkAnnotationMirror(annotationType, elementValues);
+    return interner.intern(new CheckerFrameworkAnnotationMirror(annotationType, elementValues));
   }
 
   /**
@@ -667,6 +674,22 @@ public class AnnotationBuilder {
     /** The annotation name. */
     // default visibility to allow access from within package.
     final @Interned @CanonicalName String annotationName;
+    /** The pool in which this is a canonical annotation, or null if it is not canonical. */
+    // default visibility to allow access from within package.
+    @Nullable AnnotationInterner interner;
+    /**
+     * If this is canonical, the canonical annotation of {@link #interner} that represents all its
+     * canonical annotations that are the same as this; otherwise null. See {@link
+     * AnnotationInterner}.
+     */
+    // default visibility to allow access from within package.
+    @Nullable CheckerFrameworkAnnotationMirror representative;
+    /**
+     * If this is canonical, its hash code according to {@link AnnotationUtils#annotationHashCode};
+     * otherwise 0.
+     */
+    // default visibility to allow access from within package.
+    int structuralHash;
 
     /**
      * Create a CheckerFrameworkAnnotationMirror.
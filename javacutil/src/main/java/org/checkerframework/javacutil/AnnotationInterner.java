@@ -0,0 +1,276 @@
+package org.checkerframework.javacutil;
+
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.util.ElementFilter;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.AnnotationBuilder.CheckerFrameworkAnnotationMirror;
+
+/**
+ * A pool of canonical {@link AnnotationMirror}s. {@link #intern} returns, for every annotation, the
+ * one canonical annotation that has the same name and the same explicitly-given element values.
+ *
+ * <p>Annotations that differ only in whether an element's default value is given explicitly are
+ * {@linkplain AnnotationUtils#areSame the same}, but have distinct canonical annotations, because
+ * some clients distinguish explicit values from defaults. Each canonical annotation therefore
+ * records a <em>representative</em>, which is shared by all canonical annotations of the pool that
+ * are the same. {@link AnnotationUtils#areSame} compares two canonical annotations of the same pool
+ * by comparing their representatives, without examining their element values.
+ *
+ * <p>There is one pool per processing environment; see {@link #instance}. It is stored in the javac
+ * context, so it is discarded with the compilation. {@link AnnotationBuilder} interns every
+ * annotation it {@linkplain AnnotationBuilder#build() builds}, and the framework interns every
+ * qualifier that it adds to a type.
+ *
+ * <p>The pool refers to its canonical annotations weakly, so that it does not grow with every
+ * annotation that was ever built during a long compilation: a canonical annotation that is no
+ * longer used elsewhere is removed from the pool. This does not change the result of {@link
+ * AnnotationUtils#areSame}, because a canonical annotation refers to its representative, so a
+ * representative is removed only after all the canonical annotations that it represents.
+ *
+ * <p>{@link #intern} is not synchronized. Annotations must not be interned concurrently, for
+ * example by threads that a checker starts, into the pool of one processing environment.
+ */
+public class AnnotationInterner {
+
+  /** The key for the AnnotationInterner in the javac context. */
+  private static final Context.Key<AnnotationInterner> annotationInternerKey = new Context.Key<>();
+
+  /**
+   * The canonical annotations, grouped by {@link #structuralHash}, so that all annotations that are
+   * the same according to {@link AnnotationUtils#areSame} are in the same group.
+   */
+  private final Map<Integer, List<CanonicalReference>> canonical = new HashMap<>();
+
+  /** The references of {@link #canonical} whose annotations have been garbage-collected. */
+  private final ReferenceQueue<CheckerFrameworkAnnotationMirror> collected =
+      new ReferenceQueue<>();
+
+  /**
+   * Maps annotations that are not {@link CheckerFrameworkAnnotationMirror}s, such as those read by
+   * javac, to their canonical annotation. javac reuses the same object for an annotation that is
+   * read repeatedly, so this avoids looking it up again. The keys are weak, and javac's
+   * annotations do not override {@code equals}, so keys are compared by identity.
+   */
+  private final Map<AnnotationMirror, AnnotationMirror> foreignToCanonical = new WeakHashMap<>();
+
+  /** A weak reference to a canonical annotation, which records the group that it belongs to. */
+  private static class CanonicalReference extends WeakReference<CheckerFrameworkAnnotationMirror> {
+
+    /** The {@link #structuralHash} of the annotation, which is the key of its group. */
+    final int hash;
+
+    /**
+     * Creates a CanonicalReference.
+     *
+     * @param anno a canonical annotation
+     * @param hash the structural hash of {@code anno}
+     * @param queue the queue to which the reference is added once {@code anno} is collected
+     */
+    CanonicalReference(
+        CheckerFrameworkAnnotationMirror anno,
+        int hash,
+        ReferenceQueue<CheckerFrameworkAnnotationMirror> queue) {
+      super(anno, queue);
+      this.hash = hash;
+    }
+  }
+
+  /** Creates a new AnnotationInterner. Use {@link #instance} instead. */
+  protected AnnotationInterner() {}
+
+  /**
+   * Returns the AnnotationInterner of the given processing environment, creating it if necessary.
+   *
+   * @param env the processing environment
+   * @return the AnnotationInterner of {@code env}
+   */
+  public static AnnotationInterner instance(ProcessingEnvironment env) {
+    Context context = ((JavacProcessingEnvironment) env).getContext();
+    AnnotationInterner interner = context.get(annotationInternerKey);
+    if (interner == null) {
+      interner = new AnnotationInterner();
+      context.put(annotationInternerKey, interner);
+    }
+    return interner;
+  }
+
+  /**
+   * Returns the canonical annotation that has the same name and explicitly-given element values as
+   * {@code anno}. The result may be {@code anno} itself.
+   *
+   * @param anno an annotation
+   * @return the canonical annotation for {@code anno}
+   */
+  public AnnotationMirror intern(AnnotationMirror anno) {
+    if (isCanonical(anno)) {
+      return anno;
+    }
+    if (!(anno instanceof CheckerFrameworkAnnotationMirror)) {
+      AnnotationMirror result = foreignToCanonical.get(anno);
+      if (result == null) {
+        result = lookUpOrAdd(anno);
+        foreignToCanonical.put(anno, result);
+      }
+      return result;
+    }
+    return lookUpOrAdd(anno);
+  }
+
+  /**
+   * Returns true if {@code anno} is a canonical annotation of this pool.
+   *
+   * @param anno an annotation
+   * @return true if {@code anno} is a canonical annotation of this pool
+   */
+  @SuppressWarnings("interning:not.interned") // there is one pool per processing environment
+  public boolean isCanonical(AnnotationMirror anno) {
+    return anno instanceof CheckerFrameworkAnnotationMirror
+        && ((CheckerFrameworkAnnotationMirror) anno).interner == this;
+  }
+
+  /**
+   * Returns the canonical annotation for {@code anno}, making a canonical annotation for it if
+   * there is none yet.
+   *
+   * @param anno an annotation that is not canonical
+   * @return the canonical annotation for {@code anno}
+   */
+  private AnnotationMirror lookUpOrAdd(AnnotationMirror anno) {
+    removeCollected();
+    int hash = structuralHash(anno);
+    List<CanonicalReference> group = canonical.computeIfAbsent(hash, k -> new ArrayList<>(1));
+    CheckerFrameworkAnnotationMirror representative = null;
+    for (CanonicalReference reference : group) {
+      CheckerFrameworkAnnotationMirror candidate = reference.get();
+      if (candidate != null && AnnotationUtils.areSame(candidate, anno)) {
+        if (sameExplicitValues(candidate, anno)) {
+          return candidate;
+        }
+        representative = candidate.representative;
+      }
+    }
+    CheckerFrameworkAnnotationMirror result;
+    if (anno instanceof CheckerFrameworkAnnotationMirror
+        && ((CheckerFrameworkAnnotationMirror) anno).interner == null) {
+      // Make the annotation itself canonical rather than copying it.
+      result = (CheckerFrameworkAnnotationMirror) anno;
+    } else {
+      result =
+          new CheckerFrameworkAnnotationMirror(
+              anno.getAnnotationType(), new LinkedHashMap<>(anno.getElementValues()));
+    }
+    result.interner = this;
+    result.structuralHash = hash;
+    result.representative = representative == null ? result : representative;
+    group.add(new CanonicalReference(result, hash, collected));
+    return result;
+  }
+
+  /** Removes the references to garbage-collected annotations from {@link #canonical}. */
+  private void removeCollected() {
+    Reference<? extends CheckerFrameworkAnnotationMirror> reference;
+    while ((reference = collected.poll()) != null) {
+      int hash = ((CanonicalReference) reference).hash;
+      List<CanonicalReference> group = canonical.get(hash);
+      if (group != null) {
+        group.remove(reference);
+        if (group.isEmpty()) {
+          canonical.remove(hash);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns true if the two annotations give values for the same elements explicitly, and those
+   * values are the same.
+   *
+   * @param a1 an annotation
+   * @param a2 an annotation with the same name as {@code a1}
+   * @return true if {@code a1} and {@code a2} have the same explicitly-given element values
+   */
+  private static boolean sameExplicitValues(AnnotationMirror a1, AnnotationMirror a2) {
+    Map<? extends ExecutableElement, ? extends AnnotationValue> values1 = a1.getElementValues();
+    Map<? extends ExecutableElement, ? extends AnnotationValue> values2 = a2.getElementValues();
+    if (values1.size() != values2.size()) {
+      return false;
+    }
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+        values1.entrySet()) {
+      AnnotationValue value2 = values2.get(entry.getKey());
+      if (value2 == null || !AnnotationUtils.sameAnnotationValue(entry.getValue(), value2)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns a hash code for {@code anno} that is equal for annotations that are the same according
+   * to {@link AnnotationUtils#areSame}. Element values that are not given explicitly are hashed as
+   * their default values.
+   *
+   * @param anno an annotation
+   * @return a hash code that is consistent with {@link AnnotationUtils#areSame}
+   */
+  static int structuralHash(AnnotationMirror anno) {
+    int result = AnnotationUtils.annotationName(anno).hashCode();
+    Map<? extends ExecutableElement, ? extends AnnotationValue> values = anno.getElementValues();
+    for (ExecutableElement meth :
+        ElementFilter.methodsIn(anno.getAnnotationType().asElement().getEnclosedElements())) {
+      AnnotationValue value = values.get(meth);
+      if (value == null) {
+        value = meth.getDefaultValue();
+      }
+      result = 31 * result + (value == null ? 0 : valueHash(value.getValue()));
+    }
+    return result;
+  }
+
+  /**
+   * Returns a hash code for a value returned by {@code AnnotationValue.getValue()} that is equal
+   * for values that {@link AnnotationUtils#sameAnnotationValue} considers the same. Values whose
+   * equality is not based on {@code equals}, such as types, are hashed coarsely.
+   *
+   * @param value a value returned by {@code AnnotationValue.getValue()}
+   * @return a hash code that is consistent with {@link AnnotationUtils#sameAnnotationValue}
+   */
+  private static int valueHash(@Nullable Object value) {
+    if (value instanceof List<?>) {
+      int result = 1;
+      for (Object element : (List<?>) value) {
+        result = 31 * result + valueHash(element);
+      }
+      return result;
+    } else if (value instanceof AnnotationMirror) {
+      return structuralHash((AnnotationMirror) value);
+    } else if (value instanceof AnnotationValue) {
+      return valueHash(((AnnotationValue) value).getValue());
+    } else if (value instanceof Type.ClassType) {
+      // TypesUtils.areSameDeclaredTypes compares simple names first.
+      return ((Type.ClassType) value).tsym.name.toString().hashCode();
+    } else if (value instanceof String
+        || value instanceof Number
+        || value instanceof Boolean
+        || value instanceof Character) {
+      return value.hashCode();
+    } else {
+      return 0;
+    }
+  }
+}
@@ -107,6 +107,20 @@ public class AnnotationUtils {
       return true;
     }
 
+    if (a1 instanceof CheckerFrameworkAnnotationMirror
+        && a2 instanceof CheckerFrameworkAnnotationMirror) {
+      CheckerFrameworkAnnotationMirror cf1 = (CheckerFrameworkAnnotationMirror) a1;
+      CheckerFrameworkAnnotationMirror cf2 = (CheckerFrameworkAnnotationMirror) a2;
+      @SuppressWarnings("interning:not.interned") // there is one pool per processing environment
+      boolean samePool = cf1.interner != null && cf1.interner == cf2.interner;
+      if (samePool) {
+        // Canonical annotations of the same pool share a representative iff they are the same.
+        @SuppressWarnings("interning:not.interned") // representatives are canonical
+        boolean sameRepresentative = cf1.representative == cf2.representative;
+        return sameRepresentative;
+      }
+    }
+
     if (!areSameByName(a1, a2)) {
       return false;
     }
@@ -205,6 +219,25 @@ public class AnnotationUtils {
     return true;
   }
 
+  /**
+   * Returns a hash code for {@code anno} that is consistent with {@link #areSame(AnnotationMirror,
+   * AnnotationMirror)}: annotations that are the same have the same hash code. The hash code of a
+   * canonical annotation (see {@link AnnotationInterner}) is computed once, when it is interned.
+   *
+   * @param anno an annotation
+   * @return a hash code for {@code anno} that is consistent with {@link #areSame(AnnotationMirror,
+   *     AnnotationMirror)}
+   */
+  public static int annotationHashCode(AnnotationMirror anno) {
+    if (anno instanceof CheckerFrameworkAnnotationMirror) {
+      CheckerFrameworkAnnotationMirror cfAnno = (CheckerFrameworkAnnotationMirror) anno;
+      if (cfAnno.interner != null) {
+        return cfAnno.structuralHash;
+      }
+    }
+    return AnnotationInterner.structuralHash(anno);
+  }
+
   /**
    * Checks that the collection contains the annotation. Using Collection.contains does not always
    * work, because it does not use areSame for comparison.
@@ -344,6 +377,9 @@ public class AnnotationUtils {
    * @return an ordering over AnnotationMirrors based on their name and values
    */
   public static int compareAnnotationMirrors(AnnotationMirror a1, AnnotationMirror a2) {
+    if (a1 == a2) {
+      return 0;
+    }
     if (!AnnotationUtils.areSameByName(a1, a2)) {
       return annotationName(a1).compareTo(annotationName(a2));
     }
@@ -1,7 +1,11 @@
 package org.checkerframework.javacutil;
 
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /** Utility methods related to Java Collections. */
 public class CollectionUtils {
@@ -23,4 +27,149 @@ public class CollectionUtils {
       }
     };
   }
+
+  /**
+   * Creates a LRU cache whose values are maps, and whose size is the total number of entries of its
+   * values rather than its own number of entries. When an entry is added and the total exceeds
+   * {@code budget}, the least recently used entries are evicted, except the newest one.
+   *
+   * <p>The values may grow after they are returned by {@code get}, {@code put}, or {@code
+   * computeIfAbsent}. The cache keeps a running total of the sizes of its values, and it measures a
+   * value again when it is accessed and when the next entry is accessed, so only clients that grow
+   * several values at once can make the total lag behind.
+   *
+   * @param budget the maximum total number of entries of the values of the cache
+   * @return a new cache with the provided budget
+   */
+  public static <K, V extends Map<?, ?>> Map<K, V> createLRUCacheOfMaps(final int budget) {
+    return new LRUCacheOfMaps<>(budget);
+  }
+
+  /**
+   * A LRU cache whose size is the total number of entries of its values. See {@link
+   * #createLRUCacheOfMaps}.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values, which are maps
+   */
+  private static class LRUCacheOfMaps<K, V extends Map<?, ?>> extends LinkedHashMap<K, V> {
+
+    private static final long serialVersionUID = -3202758318447520386L;
+
+    /** The maximum total number of entries of the values of this. */
+    private final int budget;
+
+    /** The sizes of the values of this when they were last measured. */
+    private final Map<K, Integer> measuredSizes = new HashMap<>();
+
+    /** The sum of the values of {@link #measuredSizes}. */
+    private int total = 0;
+
+    /** The key that was accessed last, or null. */
+    private @Nullable K lastKey = null;
+
+    /** The value of {@link #lastKey}, or null. */
+    private @Nullable V lastValue = null;
+
+    /**
+     * Creates a cache.
+     *
+     * @param budget the maximum total number of entries of the values of the cache
+     */
+    LRUCacheOfMaps(int budget) {
+      super(16, .75F, true);
+      this.budget = budget;
+    }
+
+    /** Measures {@link #lastValue} again and updates {@link #total}. */
+    private void measureLast() {
+      if (lastKey != null && lastValue != null) {
+        int size = lastValue.size();
+        Integer old = measuredSizes.put(lastKey, size);
+        total += size - (old == null ? 0 : old);
+      }
+    }
+
+    /**
+     * Records an access to an entry, and measures its value.
+     *
+     * @param key the key that was accessed
+     * @param value the value of {@code key}, or null if it has none
+     */
+    private void accessed(K key, @Nullable V value) {
+      measureLast();
+      lastKey = key;
+      lastValue = value;
+      measureLast();
+    }
+
+    /**
+     * Forgets the size of the value of a key that is no longer in this.
+     *
+     * @param key a key that was removed from this
+     */
+    private void forget(@Nullable Object key) {
+      Integer size = measuredSizes.remove(key);
+      if (size != null) {
+        total -= size;
+      }
+      if (lastKey != null && lastKey.equals(key)) {
+        lastKey = null;
+        lastValue = null;
+      }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked") // get returns a value only for a K
+    public @Nullable V get(@Nullable Object key) {
+      V value = super.get(key);
+      if (value != null) {
+        accessed((K) key, value);
+      }
+      return value;
+    }
+
+    @Override
+    public @Nullable V put(K key, V value) {
+      // Measure the new value first, so that it counts when the eldest entries are evicted.
+      accessed(key, value);
+      return super.put(key, value);
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+      measureLast();
+      V value = super.computeIfAbsent(key, mappingFunction);
+      accessed(key, value);
+      return value;
+    }
+
+    @Override
+    public @Nullable V remove(@Nullable Object key) {
+      V value = super.remove(key);
+      forget(key);
+      return value;
+    }
+
+    @Override
+    public void clear() {
+      super.clear();
+      measuredSizes.clear();
+      total = 0;
+      lastKey = null;
+      lastValue = null;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> entry) {
+      Iterator<Map.Entry<K, V>> eldest = entrySet().iterator();
+      while (total > budget && size() > 1) {
+        K key = eldest.next().getKey();
+        eldest.remove();
+        forget(key);
+      }
+      // The map was modified directly, so the eldest entry must not be removed again.
+      return false;
+    }
+  }
 }
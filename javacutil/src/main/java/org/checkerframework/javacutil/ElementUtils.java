@@ -231,6 +231,19 @@ public class ElementUtils {
     return (sym.flags() & (Flags.FINAL | Flags.EFFECTIVELY_FINAL)) != 0;
   }
 
+  /**
+   * Returns true if javac has attributed the top-level class that contains the element. The trees
+   * of a class that has not been attributed yet have no elements or types. This can be the case for
+   * classes in the current compilation that come after the class being type-checked.
+   *
+   * @param element an element
+   * @return true if the top-level class that contains the element has been attributed
+   */
+  public static boolean isAttributed(Element element) {
+    ClassSymbol outermost = ((Symbol) element).outermostClass();
+    return outermost != null && (outermost.flags() & Flags.UNATTRIBUTED) == 0;
+  }
+
   /**
    * Returns the {@code TypeMirror} for usage of Element as a value. It returns the return type of a
    * method element, the class type of a constructor, or simply the type mirror of the element